@@ -3748,6 +3748,12 @@ final class CodeGenerator extends NodeOperatorVisitor<CodeGeneratorLexicalContex
     }
 
     public void loadADD(final BinaryNode binaryNode, final TypeBounds resultBounds) {
+        final List<Expression> concatOperands = getConcatOperands(binaryNode);
+        if (concatOperands != null) {
+            loadCONCAT(concatOperands);
+            return;
+        }
+
         new OptimisticOperation(binaryNode, resultBounds) {
             @Override
             void loadStack() {
@@ -3772,6 +3778,69 @@ final class CodeGenerator extends NodeOperatorVisitor<CodeGeneratorLexicalContex
         }.emit();
     }
 
+    /**
+     * Returns the operands of a chain of additions such as {@code "<td>" + x + "</td>"} that is statically known
+     * to produce a string, or null if the addition is not such a chain or is too short to benefit from n-ary
+     * concatenation.
+     * @param binaryNode the outermost addition of the chain
+     * @return the operands of the chain in evaluation order, or null
+     */
+    private List<Expression> getConcatOperands(final BinaryNode binaryNode) {
+        final List<Expression> operands = new ArrayList<>();
+        Expression expr = binaryNode;
+        while (isStringAdd(expr)) {
+            final BinaryNode add = (BinaryNode)expr;
+            if (isContinuationEntryPoint(add.getProgramPoint())) {
+                // Deoptimized code may resume in the middle of the chain with its operands on the stack.
+                return null;
+            }
+            operands.add(add.rhs());
+            expr = add.lhs();
+        }
+        operands.add(expr);
+
+        if (operands.size() < 3) {
+            return null;
+        }
+        Collections.reverse(operands);
+
+        // Each operand is converted right after it is evaluated. That is only the order of the specification for
+        // the first operand when the second one is a string whose evaluation has no side effects.
+        final Expression second = operands.get(1);
+        if (!isString(operands.get(0).getType()) && !(second instanceof LiteralNode && isString(second.getType()))) {
+            return null;
+        }
+        return operands;
+    }
+
+    private static boolean isStringAdd(final Expression expr) {
+        if (!(expr instanceof BinaryNode) || !expr.isTokenType(TokenType.ADD)) {
+            return false;
+        }
+        final BinaryNode binaryNode = (BinaryNode)expr;
+        return isString(binaryNode.lhs().getType()) || isString(binaryNode.rhs().getType());
+    }
+
+    private static boolean isString(final Type type) {
+        return type.isString() || type.isCharSequence();
+    }
+
+    private void loadCONCAT(final List<Expression> operands) {
+        method.load(operands.size());
+        method.newarray(Type.OBJECT_ARRAY);
+        for (int i = 0; i < operands.size(); i++) {
+            final Expression operand = operands.get(i);
+            method.dup();
+            method.load(i);
+            loadExpressionAsObject(operand);
+            if (!isString(operand.getType())) {
+                method.invoke(ScriptRuntime.CONCAT_OPERAND);
+            }
+            method.arraystore();
+        }
+        method.invoke(ScriptRuntime.CONCAT);
+    }
+
     private void loadAND_OR(final BinaryNode binaryNode, final TypeBounds resultBounds, final boolean isAnd) {
         final Type narrowestOperandType = Type.widestReturnType(binaryNode.lhs().getType(), binaryNode.rhs().getType());
 
@@ -793,7 +793,7 @@ public final class ObjectClassGenerator implements Loggable {
      * @param count the field count
      * @return the padded field count
      */
-    static int getPaddedFieldCount(final int count) {
+    public static int getPaddedFieldCount(final int count) {
         return count / FIELD_PADDING * FIELD_PADDING + FIELD_PADDING;
     }
 
@@ -28,6 +28,7 @@ package com.anatawa12.fixrtm.nashorn.internal.codegen;
 import static com.anatawa12.fixrtm.nashorn.internal.codegen.CompilerConstants.constructorNoLookup;
 import static com.anatawa12.fixrtm.nashorn.internal.codegen.CompilerConstants.virtualCallNoLookup;
 
+import java.util.Arrays;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
@@ -124,18 +125,26 @@ public final class SpillObjectCreator extends ObjectCreator<Expression> {
             pos++;
         }
 
+        // size primitive and object spill arrays independently, omitting them if unused
+        final int primitiveLength = dualFields ? propertyMap.getPrimitiveSpillLength() : 0;
+        final int objectLength    = propertyMap.getObjectSpillLength();
+
         // create object and invoke constructor
         method._new(objectClass).dup();
         codegen.loadConstant(propertyMap);
 
         // load primitive value spill array
-        if (dualFields) {
-            codegen.loadConstant(jpresetValues);
+        if (primitiveLength > 0) {
+            codegen.loadConstant(Arrays.copyOf(jpresetValues, ScriptObject.spillAllocationLength(primitiveLength)));
         } else {
             method.loadNull();
         }
         // load object value spill array
-        codegen.loadConstant(opresetValues);
+        if (objectLength > 0) {
+            codegen.loadConstant(Arrays.copyOf(opresetValues, ScriptObject.spillAllocationLength(objectLength)));
+        } else {
+            method.loadNull();
+        }
 
         // instantiate the script object with spill objects
         method.invoke(constructorNoLookup(objectClass, PropertyMap.class, long[].class, Object[].class));
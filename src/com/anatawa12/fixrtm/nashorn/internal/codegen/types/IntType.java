@@ -63,7 +63,7 @@ import com.anatawa12.fixrtm.nashorn.internal.runtime.JSType;
 class IntType extends BitwiseType {
     private static final long serialVersionUID = 1L;
 
-    private static final CompilerConstants.Call TO_STRING = staticCallNoLookup(Integer.class, "toString", String.class, int.class);
+    private static final CompilerConstants.Call TO_STRING = staticCallNoLookup(JSType.class, "toString", String.class, int.class);
     private static final CompilerConstants.Call VALUE_OF  = staticCallNoLookup(Integer.class, "valueOf", Integer.class, int.class);
 
     protected IntType() {
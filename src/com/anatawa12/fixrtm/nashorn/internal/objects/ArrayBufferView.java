@@ -323,15 +323,67 @@ public abstract class ArrayBufferView extends ScriptObject {
     }
 
     private static void copyElements(final ArrayBufferView dest, final int length, final ScriptObject source, final int offset) {
-        if (!dest.isFloatArray()) {
-            for (int i = 0, j = offset; i < length; i++, j++) {
-                dest.set(j, source.getInt(i, INVALID_PROGRAM_POINT), 0);
+        final TypedArrayData<?> destData = (TypedArrayData<?>)dest.getArray();
+        if (source instanceof ArrayBufferView) {
+            final ArrayBufferView view = (ArrayBufferView)source;
+            if (hasSameRepresentation(dest, view)) {
+                copyBytes(dest, offset, view, length);
+                return;
             }
-        } else {
-            for (int i = 0, j = offset; i < length; i++, j++) {
-                dest.set(j, source.getDouble(i, INVALID_PROGRAM_POINT), 0);
+            // typed arrays have no holes, so read the array data directly
+            final ArrayData sourceData = view.getArray();
+            if (!dest.isFloatArray()) {
+                for (int i = 0, j = offset; i < length; i++, j++) {
+                    destData.set(j, sourceData.getInt(i), false);
+                }
+            } else {
+                for (int i = 0, j = offset; i < length; i++, j++) {
+                    destData.set(j, sourceData.getDouble(i), false);
+                }
             }
+        } else if (!destData.setElements(offset, source.getArray(), length)) {
+            if (!dest.isFloatArray()) {
+                for (int i = 0, j = offset; i < length; i++, j++) {
+                    dest.set(j, source.getInt(i, INVALID_PROGRAM_POINT), 0);
+                }
+            } else {
+                for (int i = 0, j = offset; i < length; i++, j++) {
+                    dest.set(j, source.getDouble(i, INVALID_PROGRAM_POINT), 0);
+                }
+            }
+        }
+    }
+
+    /**
+     * Can the elements of {@code source} be stored in {@code dest} by copying their bytes?
+     * This is the case for arrays of the same type, and for integer arrays of the same
+     * width unless the destination clamps its values.
+     */
+    private static boolean hasSameRepresentation(final ArrayBufferView dest, final ArrayBufferView source) {
+        if (dest.factory() == source.factory()) {
+            return true;
         }
+        return dest.bytesPerElement() == source.bytesPerElement() &&
+            !dest.isFloatArray() && !source.isFloatArray() &&
+            !((TypedArrayData<?>)dest.getArray()).isClamped();
+    }
+
+    private static void copyBytes(final ArrayBufferView dest, final int offset, final ArrayBufferView source, final int length) {
+        final int byteLength = length * source.bytesPerElement();
+        final int destStart  = dest.byteOffset + offset * dest.bytesPerElement();
+        ByteBuffer from = source.byteRange(source.byteOffset, byteLength);
+        if (dest.buffer == source.buffer && destStart < source.byteOffset + byteLength && source.byteOffset < destStart + byteLength) {
+            // overlapping ranges, copy the source first
+            from = ByteBuffer.allocate(byteLength).put(from);
+            from.flip();
+        }
+        dest.byteRange(destStart, byteLength).put(from);
+    }
+
+    private ByteBuffer byteRange(final int start, final int byteLength) {
+        final ByteBuffer range = buffer.getNioBuffer().duplicate();
+        range.limit(start + byteLength).position(start);
+        return range;
     }
 
     private static int lengthToInt(final long length) {
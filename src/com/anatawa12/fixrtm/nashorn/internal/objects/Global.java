@@ -58,6 +58,7 @@ import com.anatawa12.fixrtm.nashorn.internal.objects.annotations.Getter;
 import com.anatawa12.fixrtm.nashorn.internal.objects.annotations.Property;
 import com.anatawa12.fixrtm.nashorn.internal.objects.annotations.ScriptClass;
 import com.anatawa12.fixrtm.nashorn.internal.objects.annotations.Setter;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.ConsString;
 import com.anatawa12.fixrtm.nashorn.internal.runtime.Context;
 import com.anatawa12.fixrtm.nashorn.internal.runtime.ECMAErrors;
 import com.anatawa12.fixrtm.nashorn.internal.runtime.FindProperty;
@@ -2193,6 +2194,14 @@ public final class Global extends Scope {
         return super.findProperty(key, deep, start);
     }
 
+    @Override
+    protected int findPropertyDepth(final String key, final boolean deep, final ScriptObject start) {
+        if (lexicalScope != null && start != this && start.isScope()) {
+            return PROPERTY_NEEDS_FIND;
+        }
+        return super.findPropertyDepth(key, deep, start);
+    }
+
     @Override
     public GuardedInvocation findSetMethod(final CallSiteDescriptor desc, final LinkRequest request) {
         final boolean isScope = NashornCallSiteDescriptor.isScope(desc);
@@ -2539,7 +2548,11 @@ public final class Global extends Scope {
                 sb.append(' ');
             }
 
-            sb.append(JSType.toString(obj));
+            if (obj instanceof ConsString) {
+                ((ConsString)obj).appendTo(sb);
+            } else {
+                sb.append(JSType.toString(obj));
+            }
         }
 
         // Print all at once to ensure thread friendly result.
@@ -35,6 +35,7 @@ import static com.anatawa12.fixrtm.nashorn.internal.runtime.arrays.ArrayLikeIter
 import static com.anatawa12.fixrtm.nashorn.internal.runtime.linker.NashornCallSiteDescriptor.CALLSITE_STRICT;
 
 import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -46,6 +47,7 @@ import com.anatawa12.fixrtm.nashorn.dynalink.CallSiteDescriptor;
 import com.anatawa12.fixrtm.nashorn.dynalink.linker.GuardedInvocation;
 import com.anatawa12.fixrtm.nashorn.dynalink.linker.LinkRequest;
 import com.anatawa12.fixrtm.nashorn.api.scripting.JSObject;
+import com.anatawa12.fixrtm.nashorn.internal.codegen.types.Type;
 import com.anatawa12.fixrtm.nashorn.internal.objects.annotations.Attribute;
 import com.anatawa12.fixrtm.nashorn.internal.objects.annotations.Constructor;
 import com.anatawa12.fixrtm.nashorn.internal.objects.annotations.Function;
@@ -55,6 +57,7 @@ import com.anatawa12.fixrtm.nashorn.internal.objects.annotations.Setter;
 import com.anatawa12.fixrtm.nashorn.internal.objects.annotations.SpecializedFunction;
 import com.anatawa12.fixrtm.nashorn.internal.objects.annotations.SpecializedFunction.LinkLogic;
 import com.anatawa12.fixrtm.nashorn.internal.objects.annotations.Where;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.ConsString;
 import com.anatawa12.fixrtm.nashorn.internal.runtime.Context;
 import com.anatawa12.fixrtm.nashorn.internal.runtime.Debug;
 import com.anatawa12.fixrtm.nashorn.internal.runtime.JSType;
@@ -81,15 +84,27 @@ import com.anatawa12.fixrtm.nashorn.internal.runtime.linker.InvokeByName;
  */
 @ScriptClass("Array")
 public final class NativeArray extends ScriptObject implements OptimisticBuiltins {
-    private static final Object JOIN                     = new Object();
-    private static final Object EVERY_CALLBACK_INVOKER   = new Object();
-    private static final Object SOME_CALLBACK_INVOKER    = new Object();
-    private static final Object FOREACH_CALLBACK_INVOKER = new Object();
-    private static final Object MAP_CALLBACK_INVOKER     = new Object();
-    private static final Object FILTER_CALLBACK_INVOKER  = new Object();
-    private static final Object REDUCE_CALLBACK_INVOKER  = new Object();
-    private static final Object CALL_CMP                 = new Object();
-    private static final Object TO_LOCALE_STRING         = new Object();
+    private static final Object JOIN                            = new Object();
+    private static final Object EVERY_CALLBACK_INVOKER          = new Object();
+    private static final Object SOME_CALLBACK_INVOKER           = new Object();
+    private static final Object FOREACH_CALLBACK_INVOKER        = new Object();
+    private static final Object MAP_CALLBACK_INVOKER            = new Object();
+    private static final Object FILTER_CALLBACK_INVOKER         = new Object();
+    private static final Object REDUCE_CALLBACK_INVOKER         = new Object();
+    private static final Object EVERY_INT_CALLBACK_INVOKER      = new Object();
+    private static final Object EVERY_DOUBLE_CALLBACK_INVOKER   = new Object();
+    private static final Object SOME_INT_CALLBACK_INVOKER       = new Object();
+    private static final Object SOME_DOUBLE_CALLBACK_INVOKER    = new Object();
+    private static final Object FOREACH_INT_CALLBACK_INVOKER    = new Object();
+    private static final Object FOREACH_DOUBLE_CALLBACK_INVOKER = new Object();
+    private static final Object MAP_INT_CALLBACK_INVOKER        = new Object();
+    private static final Object MAP_DOUBLE_CALLBACK_INVOKER     = new Object();
+    private static final Object FILTER_INT_CALLBACK_INVOKER     = new Object();
+    private static final Object FILTER_DOUBLE_CALLBACK_INVOKER  = new Object();
+    private static final Object CALL_CMP                        = new Object();
+    private static final Object CALL_CMP_INT                    = new Object();
+    private static final Object CALL_CMP_DOUBLE                 = new Object();
+    private static final Object TO_LOCALE_STRING                = new Object();
 
     /*
      * Constructors.
@@ -199,35 +214,40 @@ public final class NativeArray extends ScriptObject implements OptimisticBuiltin
                 });
     }
 
-    private static MethodHandle createIteratorCallbackInvoker(final Object key, final Class<?> rtype) {
+    // valueType is int.class or double.class for callbacks on unboxed elements
+    private static MethodHandle createIteratorCallbackInvoker(final Object key, final Class<?> rtype, final Class<?> valueType) {
         return Global.instance().getDynamicInvoker(key,
             new Callable<MethodHandle>() {
                 @Override
                 public MethodHandle call() {
-                    return Bootstrap.createDynamicInvoker("dyn:call", rtype, Object.class, Object.class, Object.class,
+                    return Bootstrap.createDynamicInvoker("dyn:call", rtype, Object.class, Object.class, valueType,
                         double.class, Object.class);
                 }
             });
     }
 
-    private static MethodHandle getEVERY_CALLBACK_INVOKER() {
-        return createIteratorCallbackInvoker(EVERY_CALLBACK_INVOKER, boolean.class);
+    private static Object invokerKey(final Class<?> valueType, final Object objectKey, final Object intKey, final Object doubleKey) {
+        return valueType == int.class ? intKey : valueType == double.class ? doubleKey : objectKey;
     }
 
-    private static MethodHandle getSOME_CALLBACK_INVOKER() {
-        return createIteratorCallbackInvoker(SOME_CALLBACK_INVOKER, boolean.class);
+    private static MethodHandle getEVERY_CALLBACK_INVOKER(final Class<?> valueType) {
+        return createIteratorCallbackInvoker(invokerKey(valueType, EVERY_CALLBACK_INVOKER, EVERY_INT_CALLBACK_INVOKER, EVERY_DOUBLE_CALLBACK_INVOKER), boolean.class, valueType);
     }
 
-    private static MethodHandle getFOREACH_CALLBACK_INVOKER() {
-        return createIteratorCallbackInvoker(FOREACH_CALLBACK_INVOKER, void.class);
+    private static MethodHandle getSOME_CALLBACK_INVOKER(final Class<?> valueType) {
+        return createIteratorCallbackInvoker(invokerKey(valueType, SOME_CALLBACK_INVOKER, SOME_INT_CALLBACK_INVOKER, SOME_DOUBLE_CALLBACK_INVOKER), boolean.class, valueType);
     }
 
-    private static MethodHandle getMAP_CALLBACK_INVOKER() {
-        return createIteratorCallbackInvoker(MAP_CALLBACK_INVOKER, Object.class);
+    private static MethodHandle getFOREACH_CALLBACK_INVOKER(final Class<?> valueType) {
+        return createIteratorCallbackInvoker(invokerKey(valueType, FOREACH_CALLBACK_INVOKER, FOREACH_INT_CALLBACK_INVOKER, FOREACH_DOUBLE_CALLBACK_INVOKER), void.class, valueType);
     }
 
-    private static MethodHandle getFILTER_CALLBACK_INVOKER() {
-        return createIteratorCallbackInvoker(FILTER_CALLBACK_INVOKER, boolean.class);
+    private static MethodHandle getMAP_CALLBACK_INVOKER(final Class<?> valueType) {
+        return createIteratorCallbackInvoker(invokerKey(valueType, MAP_CALLBACK_INVOKER, MAP_INT_CALLBACK_INVOKER, MAP_DOUBLE_CALLBACK_INVOKER), Object.class, valueType);
+    }
+
+    private static MethodHandle getFILTER_CALLBACK_INVOKER(final Class<?> valueType) {
+        return createIteratorCallbackInvoker(invokerKey(valueType, FILTER_CALLBACK_INVOKER, FILTER_INT_CALLBACK_INVOKER, FILTER_DOUBLE_CALLBACK_INVOKER), boolean.class, valueType);
     }
 
     private static MethodHandle getREDUCE_CALLBACK_INVOKER() {
@@ -252,6 +272,28 @@ public final class NativeArray extends ScriptObject implements OptimisticBuiltin
                 });
     }
 
+    private static MethodHandle getCALL_CMP_INT() {
+        return Global.instance().getDynamicInvoker(CALL_CMP_INT,
+                new Callable<MethodHandle>() {
+                    @Override
+                    public MethodHandle call() {
+                        return Bootstrap.createDynamicInvoker("dyn:call", double.class,
+                            Object.class, Object.class, int.class, int.class);
+                    }
+                });
+    }
+
+    private static MethodHandle getCALL_CMP_DOUBLE() {
+        return Global.instance().getDynamicInvoker(CALL_CMP_DOUBLE,
+                new Callable<MethodHandle>() {
+                    @Override
+                    public MethodHandle call() {
+                        return Bootstrap.createDynamicInvoker("dyn:call", double.class,
+                            Object.class, Object.class, double.class, double.class);
+                    }
+                });
+    }
+
     private static InvokeByName getTO_LOCALE_STRING() {
         return Global.instance().getInvokeByName(TO_LOCALE_STRING,
                 new Callable<InvokeByName>() {
@@ -832,6 +874,11 @@ public final class NativeArray extends ScriptObject implements OptimisticBuiltin
      */
     @Function(attributes = Attribute.NOT_ENUMERABLE, arity = 1)
     public static NativeArray concat(final Object self, final Object... args) {
+        final NativeArray dense = denseConcat(self, args);
+        if (dense != null) {
+            return dense;
+        }
+
         final ArrayList<Object> list = new ArrayList<>();
 
         concatToList(list, Global.toObject(self));
@@ -843,6 +890,62 @@ public final class NativeArray extends ScriptObject implements OptimisticBuiltin
         return new NativeArray(list.toArray());
     }
 
+    /**
+     * Concat for a dense array with dense arrays and single values as arguments. The
+     * elements are copied into one Java array of the widest element type.
+     *
+     * @return the concatenated array, or null if an argument needs the generic concat
+     */
+    private static NativeArray denseConcat(final Object self, final Object[] args) {
+        if (!(self instanceof NativeArray) || !(((NativeArray)self).getArray() instanceof ContinuousArrayData)) {
+            return null;
+        }
+
+        final ContinuousArrayData selfData = (ContinuousArrayData)((NativeArray)self).getArray();
+        Class<?> widest = selfData.getElementType();
+        long length = selfData.length();
+
+        for (final Object arg : args) {
+            if (arg instanceof NativeArray) {
+                final ArrayData argData = ((NativeArray)arg).getArray();
+                if (!(argData instanceof ContinuousArrayData)) {
+                    return null;
+                }
+                widest  = Type.widest(widest, ((ContinuousArrayData)argData).getElementType());
+                length += argData.length();
+            } else if (isArray(arg) || arg instanceof Iterable || (arg != null && arg.getClass().isArray())) {
+                return null;
+            } else {
+                widest  = Type.widest(widest, arg instanceof Integer ? int.class : arg instanceof Double ? double.class : Object.class);
+                length += 1;
+            }
+        }
+
+        if (length >= Integer.MAX_VALUE) {
+            return null;
+        }
+
+        if (length == selfData.length()) {
+            // nothing to append, share the elements until either array is written to
+            return new NativeArray(selfData.copy());
+        }
+
+        final Object array = widest == int.class ? new int[(int)length] : widest == double.class ? new double[(int)length] : new Object[(int)length];
+        int pos = (int)selfData.length();
+        selfData.copyElements(array, 0);
+        for (final Object arg : args) {
+            if (arg instanceof NativeArray) {
+                final ContinuousArrayData argData = (ContinuousArrayData)((NativeArray)arg).getArray();
+                argData.copyElements(array, pos);
+                pos += (int)argData.length();
+            } else {
+                Array.set(array, pos++, arg);
+            }
+        }
+
+        return new NativeArray(ArrayData.allocate(array));
+    }
+
     private static void concatToList(final ArrayList<Object> list, final Object obj) {
         final boolean isScriptArray  = isArray(obj);
         final boolean isScriptObject = isScriptArray || obj instanceof ScriptObject;
@@ -880,6 +983,16 @@ public final class NativeArray extends ScriptObject implements OptimisticBuiltin
      */
     @Function(attributes = Attribute.NOT_ENUMERABLE)
     public static String join(final Object self, final Object separator) {
+        if (self instanceof NativeArray && JSType.isPrimitive(separator)) {
+            final ArrayData array = ((NativeArray)self).getArray();
+            if (array instanceof ContinuousArrayData) {
+                final String joined = ((ContinuousArrayData)array).fastJoin(separator == ScriptRuntime.UNDEFINED ? "," : JSType.toString(separator));
+                if (joined != null) {
+                    return joined;
+                }
+            }
+        }
+
         final StringBuilder    sb   = new StringBuilder();
         final Iterator<Object> iter = arrayLikeIterator(self, true);
         final String           sep  = separator == ScriptRuntime.UNDEFINED ? "," : JSType.toString(separator);
@@ -887,7 +1000,11 @@ public final class NativeArray extends ScriptObject implements OptimisticBuiltin
         while (iter.hasNext()) {
             final Object obj = iter.next();
 
-            if (obj != null && obj != ScriptRuntime.UNDEFINED) {
+            if (obj instanceof Integer) {
+                sb.append(((Integer)obj).intValue());
+            } else if (obj instanceof ConsString) {
+                ((ConsString)obj).appendTo(sb);
+            } else if (obj != null && obj != ScriptRuntime.UNDEFINED) {
                 sb.append(JSType.toString(obj));
             }
 
@@ -1154,7 +1271,7 @@ public final class NativeArray extends ScriptObject implements OptimisticBuiltin
             first = sobj.get(0);
 
             if (bulkable(sobj)) {
-                sobj.getArray().shiftLeft(1);
+                sobj.setArray(sobj.getArray().shiftLeft(1));
             } else {
                 boolean hasPrevious = true;
                 for (long k = 1; k < len; k++) {
@@ -1204,7 +1321,8 @@ public final class NativeArray extends ScriptObject implements OptimisticBuiltin
             return new NativeArray(0);
         }
 
-        if (bulkable(sobj)) {
+        if (bulkable(sobj) || sobj instanceof ArrayBufferView) {
+            // typed array data slices into a packed int or double array
             return new NativeArray(sobj.getArray().slice(k, finale));
         }
 
@@ -1276,6 +1394,48 @@ public final class NativeArray extends ScriptObject implements OptimisticBuiltin
         return list.toArray(new Object[array.length]);
     }
 
+    private static ContinuousArrayData.PrimitiveComparator primitiveComparator(final Object comparefn) {
+        final Object cmp = compareFunction(comparefn);
+        if (cmp == null) {
+            return null;
+        }
+
+        final Object cmpThis = Bootstrap.isStrictCallable(cmp) ? ScriptRuntime.UNDEFINED : Global.instance();
+
+        return new ContinuousArrayData.PrimitiveComparator() {
+            private MethodHandle call_cmp_int;
+            private MethodHandle call_cmp_double;
+
+            @Override
+            public int compare(final int x, final int y) {
+                if (call_cmp_int == null) {
+                    call_cmp_int = getCALL_CMP_INT();
+                }
+                try {
+                    return (int)Math.signum((double)call_cmp_int.invokeExact(cmp, cmpThis, x, y));
+                } catch (final RuntimeException | Error e) {
+                    throw e;
+                } catch (final Throwable t) {
+                    throw new RuntimeException(t);
+                }
+            }
+
+            @Override
+            public int compare(final double x, final double y) {
+                if (call_cmp_double == null) {
+                    call_cmp_double = getCALL_CMP_DOUBLE();
+                }
+                try {
+                    return (int)Math.signum((double)call_cmp_double.invokeExact(cmp, cmpThis, x, y));
+                } catch (final RuntimeException | Error e) {
+                    throw e;
+                } catch (final Throwable t) {
+                    throw new RuntimeException(t);
+                }
+            }
+        };
+    }
+
     /**
      * ECMA 15.4.4.11 Array.prototype.sort ( comparefn )
      *
@@ -1290,6 +1450,15 @@ public final class NativeArray extends ScriptObject implements OptimisticBuiltin
             final long         len     = JSType.toUint32(sobj.getLength());
             ArrayData          array   = sobj.getArray();
 
+            if (len > 1 && array instanceof ContinuousArrayData && array.length() == len) {
+                // int and double elements are sorted without boxing
+                final ContinuousArrayData sorted = ((ContinuousArrayData)array).fastSort(primitiveComparator(comparefn));
+                if (sorted != null) {
+                    sobj.setArray(sorted);
+                    return sobj;
+                }
+            }
+
             if (len > 1) {
                 // Get only non-missing elements. Missing elements go at the end
                 // of the sorted array. So, just don't copy these to sort input.
@@ -1453,7 +1622,7 @@ public final class NativeArray extends ScriptObject implements OptimisticBuiltin
         }
 
         if (bulkable(sobj)) {
-            sobj.getArray().shiftRight(items.length);
+            sobj.setArray(sobj.getArray().shiftRight(items.length));
 
             for (int j = 0; j < items.length; j++) {
                 sobj.setArray(sobj.getArray().set(j, items[j], true));
@@ -1568,11 +1737,24 @@ public final class NativeArray extends ScriptObject implements OptimisticBuiltin
 
     private static boolean applyEvery(final Object self, final Object callbackfn, final Object thisArg) {
         return new IteratorAction<Boolean>(Global.toObject(self), callbackfn, thisArg, true) {
-            private final MethodHandle everyInvoker = getEVERY_CALLBACK_INVOKER();
+            @Override
+            protected MethodHandle getSharedInvoker(final Class<?> valueType) {
+                return getEVERY_CALLBACK_INVOKER(valueType);
+            }
 
             @Override
             protected boolean forEach(final Object val, final double i) throws Throwable {
-                return result = (boolean)everyInvoker.invokeExact(callbackfn, thisArg, val, i, self);
+                return result = (boolean)getInvoker(Object.class).invokeExact(callbackfn, thisArg, val, i, self);
+            }
+
+            @Override
+            protected boolean forEach(final int val, final double i) throws Throwable {
+                return result = (boolean)getInvoker(int.class).invokeExact(callbackfn, thisArg, val, i, self);
+            }
+
+            @Override
+            protected boolean forEach(final double val, final double i) throws Throwable {
+                return result = (boolean)getInvoker(double.class).invokeExact(callbackfn, thisArg, val, i, self);
             }
         }.apply();
     }
@@ -1588,11 +1770,24 @@ public final class NativeArray extends ScriptObject implements OptimisticBuiltin
     @Function(attributes = Attribute.NOT_ENUMERABLE, arity = 1)
     public static boolean some(final Object self, final Object callbackfn, final Object thisArg) {
         return new IteratorAction<Boolean>(Global.toObject(self), callbackfn, thisArg, false) {
-            private final MethodHandle someInvoker = getSOME_CALLBACK_INVOKER();
+            @Override
+            protected MethodHandle getSharedInvoker(final Class<?> valueType) {
+                return getSOME_CALLBACK_INVOKER(valueType);
+            }
 
             @Override
             protected boolean forEach(final Object val, final double i) throws Throwable {
-                return !(result = (boolean)someInvoker.invokeExact(callbackfn, thisArg, val, i, self));
+                return !(result = (boolean)getInvoker(Object.class).invokeExact(callbackfn, thisArg, val, i, self));
+            }
+
+            @Override
+            protected boolean forEach(final int val, final double i) throws Throwable {
+                return !(result = (boolean)getInvoker(int.class).invokeExact(callbackfn, thisArg, val, i, self));
+            }
+
+            @Override
+            protected boolean forEach(final double val, final double i) throws Throwable {
+                return !(result = (boolean)getInvoker(double.class).invokeExact(callbackfn, thisArg, val, i, self));
             }
         }.apply();
     }
@@ -1608,11 +1803,26 @@ public final class NativeArray extends ScriptObject implements OptimisticBuiltin
     @Function(attributes = Attribute.NOT_ENUMERABLE, arity = 1)
     public static Object forEach(final Object self, final Object callbackfn, final Object thisArg) {
         return new IteratorAction<Object>(Global.toObject(self), callbackfn, thisArg, ScriptRuntime.UNDEFINED) {
-            private final MethodHandle forEachInvoker = getFOREACH_CALLBACK_INVOKER();
+            @Override
+            protected MethodHandle getSharedInvoker(final Class<?> valueType) {
+                return getFOREACH_CALLBACK_INVOKER(valueType);
+            }
 
             @Override
             protected boolean forEach(final Object val, final double i) throws Throwable {
-                forEachInvoker.invokeExact(callbackfn, thisArg, val, i, self);
+                getInvoker(Object.class).invokeExact(callbackfn, thisArg, val, i, self);
+                return true;
+            }
+
+            @Override
+            protected boolean forEach(final int val, final double i) throws Throwable {
+                getInvoker(int.class).invokeExact(callbackfn, thisArg, val, i, self);
+                return true;
+            }
+
+            @Override
+            protected boolean forEach(final double val, final double i) throws Throwable {
+                getInvoker(double.class).invokeExact(callbackfn, thisArg, val, i, self);
                 return true;
             }
         }.apply();
@@ -1629,11 +1839,28 @@ public final class NativeArray extends ScriptObject implements OptimisticBuiltin
     @Function(attributes = Attribute.NOT_ENUMERABLE, arity = 1)
     public static NativeArray map(final Object self, final Object callbackfn, final Object thisArg) {
         return new IteratorAction<NativeArray>(Global.toObject(self), callbackfn, thisArg, null) {
-            private final MethodHandle mapInvoker = getMAP_CALLBACK_INVOKER();
+            @Override
+            protected MethodHandle getSharedInvoker(final Class<?> valueType) {
+                return getMAP_CALLBACK_INVOKER(valueType);
+            }
 
             @Override
             protected boolean forEach(final Object val, final double i) throws Throwable {
-                final Object r = mapInvoker.invokeExact(callbackfn, thisArg, val, i, self);
+                final Object r = getInvoker(Object.class).invokeExact(callbackfn, thisArg, val, i, self);
+                result.defineOwnProperty(ArrayIndex.getArrayIndex(index), r);
+                return true;
+            }
+
+            @Override
+            protected boolean forEach(final int val, final double i) throws Throwable {
+                final Object r = getInvoker(int.class).invokeExact(callbackfn, thisArg, val, i, self);
+                result.defineOwnProperty(ArrayIndex.getArrayIndex(index), r);
+                return true;
+            }
+
+            @Override
+            protected boolean forEach(final double val, final double i) throws Throwable {
+                final Object r = getInvoker(double.class).invokeExact(callbackfn, thisArg, val, i, self);
                 result.defineOwnProperty(ArrayIndex.getArrayIndex(index), r);
                 return true;
             }
@@ -1659,11 +1886,30 @@ public final class NativeArray extends ScriptObject implements OptimisticBuiltin
     public static NativeArray filter(final Object self, final Object callbackfn, final Object thisArg) {
         return new IteratorAction<NativeArray>(Global.toObject(self), callbackfn, thisArg, new NativeArray()) {
             private long to = 0;
-            private final MethodHandle filterInvoker = getFILTER_CALLBACK_INVOKER();
+            @Override
+            protected MethodHandle getSharedInvoker(final Class<?> valueType) {
+                return getFILTER_CALLBACK_INVOKER(valueType);
+            }
 
             @Override
             protected boolean forEach(final Object val, final double i) throws Throwable {
-                if ((boolean)filterInvoker.invokeExact(callbackfn, thisArg, val, i, self)) {
+                if ((boolean)getInvoker(Object.class).invokeExact(callbackfn, thisArg, val, i, self)) {
+                    result.defineOwnProperty(ArrayIndex.getArrayIndex(to++), val);
+                }
+                return true;
+            }
+
+            @Override
+            protected boolean forEach(final int val, final double i) throws Throwable {
+                if ((boolean)getInvoker(int.class).invokeExact(callbackfn, thisArg, val, i, self)) {
+                    result.defineOwnProperty(ArrayIndex.getArrayIndex(to++), val);
+                }
+                return true;
+            }
+
+            @Override
+            protected boolean forEach(final double val, final double i) throws Throwable {
+                if ((boolean)getInvoker(double.class).invokeExact(callbackfn, thisArg, val, i, self)) {
                     result.defineOwnProperty(ArrayIndex.getArrayIndex(to++), val);
                 }
                 return true;
@@ -1691,12 +1937,15 @@ public final class NativeArray extends ScriptObject implements OptimisticBuiltin
 
         //if initial value is ScriptRuntime.UNDEFINED - step forward once.
         return new IteratorAction<Object>(Global.toObject(self), callbackfn, ScriptRuntime.UNDEFINED, initialValue, iter) {
-            private final MethodHandle reduceInvoker = getREDUCE_CALLBACK_INVOKER();
+            @Override
+            protected MethodHandle getSharedInvoker(final Class<?> valueType) {
+                return getREDUCE_CALLBACK_INVOKER();
+            }
 
             @Override
             protected boolean forEach(final Object val, final double i) throws Throwable {
                 // TODO: why can't I declare the second arg as Undefined.class?
-                result = reduceInvoker.invokeExact(callbackfn, ScriptRuntime.UNDEFINED, result, val, i, self);
+                result = getInvoker(Object.class).invokeExact(callbackfn, ScriptRuntime.UNDEFINED, result, val, i, self);
                 return true;
             }
         }.apply();
@@ -25,8 +25,16 @@
 
 package com.anatawa12.fixrtm.nashorn.internal.objects;
 
+import static com.anatawa12.fixrtm.nashorn.internal.runtime.ECMAErrors.rangeError;
 import static com.anatawa12.fixrtm.nashorn.internal.runtime.ECMAErrors.typeError;
+import java.io.File;
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import com.anatawa12.fixrtm.nashorn.api.scripting.ClassFilter;
 import com.anatawa12.fixrtm.nashorn.internal.objects.annotations.Attribute;
 import com.anatawa12.fixrtm.nashorn.internal.objects.annotations.Constructor;
 import com.anatawa12.fixrtm.nashorn.internal.objects.annotations.Function;
@@ -34,6 +42,7 @@ import com.anatawa12.fixrtm.nashorn.internal.objects.annotations.Getter;
 import com.anatawa12.fixrtm.nashorn.internal.objects.annotations.ScriptClass;
 import com.anatawa12.fixrtm.nashorn.internal.objects.annotations.SpecializedFunction;
 import com.anatawa12.fixrtm.nashorn.internal.objects.annotations.Where;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.Context;
 import com.anatawa12.fixrtm.nashorn.internal.runtime.JSType;
 import com.anatawa12.fixrtm.nashorn.internal.runtime.PropertyMap;
 import com.anatawa12.fixrtm.nashorn.internal.runtime.ScriptObject;
@@ -42,6 +51,13 @@ import com.anatawa12.fixrtm.nashorn.internal.runtime.ScriptRuntime;
 /**
  * NativeArrayBuffer - ArrayBuffer as described in the JS typed
  * array spec
+ * <p>
+ * As Nashorn extensions, an ArrayBuffer can wrap an existing
+ * {@link java.nio.ByteBuffer} without copying it, and {@code ArrayBuffer.mapFile}
+ * maps a file region into one. Buffers wrapping read-only byte buffers are
+ * read-only: writing to typed arrays or DataViews over them throws
+ * {@link java.nio.ReadOnlyBufferException}, and slices of them share their
+ * contents instead of copying them.
  */
 @ScriptClass("ArrayBuffer")
 public final class NativeArrayBuffer extends ScriptObject {
@@ -104,18 +120,86 @@ public final class NativeArrayBuffer extends ScriptObject {
             return new NativeArrayBuffer(0);
         }
 
+        // Nashorn extension: wrap the remaining bytes of a ByteBuffer without copying
+        if (args[0] instanceof ByteBuffer) {
+            return new NativeArrayBuffer(((ByteBuffer)args[0]).slice());
+        }
+
         return new NativeArrayBuffer(JSType.toInt32(args[0]));
     }
 
+    /**
+     * Nashorn extension: ArrayBuffer.mapFile(file [, mode [, position [, size]]])
+     * <p>
+     * Maps a region of a file into a new ArrayBuffer without reading it onto the heap.
+     * Mode is "r" (the default) for a read-only mapping or "rw" for a mapping whose
+     * changes are written to the file. The region defaults to the whole file from
+     * position. Only available if scripts may access Java classes.
+     *
+     * @param self self reference
+     * @param args file as a string, {@link File} or {@link Path}, mode, position and size
+     * @return new array buffer mapping the file region
+     * @throws IOException if the file can not be opened or mapped
+     */
+    @Function(attributes = Attribute.NOT_ENUMERABLE, arity = 1, where = Where.CONSTRUCTOR)
+    public static NativeArrayBuffer mapFile(final Object self, final Object... args) throws IOException {
+        checkFileMappingAllowed();
+
+        final Object file = args.length > 0 ? args[0] : ScriptRuntime.UNDEFINED;
+        final Path   path;
+        if (file instanceof Path) {
+            path = (Path)file;
+        } else if (file instanceof File) {
+            path = ((File)file).toPath();
+        } else if (JSType.isString(file)) {
+            path = Paths.get(file.toString());
+        } else {
+            throw typeError("not.a.file", ScriptRuntime.safeToString(file));
+        }
+
+        final String mode = args.length > 1 && args[1] != ScriptRuntime.UNDEFINED ? JSType.toString(args[1]) : "r";
+        final boolean writable;
+        if ("r".equals(mode)) {
+            writable = false;
+        } else if ("rw".equals(mode)) {
+            writable = true;
+        } else {
+            throw typeError("invalid.file.mapping.mode", mode);
+        }
+
+        try (FileChannel channel = writable ?
+                FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE) :
+                FileChannel.open(path, StandardOpenOption.READ)) {
+            final long fileSize = channel.size();
+            final long position = args.length > 2 && args[2] != ScriptRuntime.UNDEFINED ? JSType.toLong(args[2]) : 0L;
+            final long size     = args.length > 3 && args[3] != ScriptRuntime.UNDEFINED ? JSType.toLong(args[3]) : fileSize - position;
+            // read-write mappings may extend the file, read-only ones must stay inside it
+            if (position < 0 || size < 0 || size > Integer.MAX_VALUE || !writable && position + size > fileSize) {
+                throw rangeError("invalid.file.mapping.range", Long.toString(position), Long.toString(size), Long.toString(fileSize));
+            }
+            return new NativeArrayBuffer(channel.map(writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY, position, size));
+        }
+    }
+
+    // mapping a file is no more than what scripts can do with FileChannel themselves
+    private static void checkFileMappingAllowed() {
+        final Context     context = Global.getThisContext();
+        final ClassFilter filter  = context.getClassFilter();
+        if (context.getEnv()._no_java || filter != null && !filter.exposeToScripts(FileChannel.class.getName())) {
+            throw typeError("file.mapping.not.allowed");
+        }
+    }
+
     private static ByteBuffer cloneBuffer(final ByteBuffer original, final int begin, final int end) {
-        final ByteBuffer clone = ByteBuffer.allocateDirect(original.capacity());
-        original.rewind();//copy from the beginning
-        clone.put(original);
-        original.rewind();
+        final ByteBuffer range = ((ByteBuffer)original.duplicate().position(begin).limit(end)).slice();
+        if (range.isReadOnly()) {
+            // contents can't change, so the slice shares them
+            return range;
+        }
+        final ByteBuffer clone = ByteBuffer.allocateDirect(end - begin);
+        clone.put(range);
         clone.flip();
-        clone.position(begin);
-        clone.limit(end);
-        return clone.slice();
+        return clone;
     }
 
     ByteBuffer getNioBuffer() {
@@ -177,7 +261,8 @@ public final class NativeArrayBuffer extends ScriptObject {
     public static Object slice(final Object self, final int begin, final int end) {
         final NativeArrayBuffer arrayBuffer = (NativeArrayBuffer)self;
         final int byteLength  = arrayBuffer.getByteLength();
-        return new NativeArrayBuffer(arrayBuffer, adjustIndex(begin, byteLength), Math.max(adjustIndex(end, byteLength), begin));
+        final int from        = adjustIndex(begin, byteLength);
+        return new NativeArrayBuffer(arrayBuffer, from, Math.max(adjustIndex(end, byteLength), from));
     }
 
     /**
@@ -45,6 +45,7 @@ import com.anatawa12.fixrtm.nashorn.internal.runtime.ScriptRuntime;
 import com.anatawa12.fixrtm.nashorn.internal.runtime.events.RuntimeEvent;
 import com.anatawa12.fixrtm.nashorn.internal.runtime.linker.LinkerCallSite;
 import com.anatawa12.fixrtm.nashorn.internal.runtime.linker.NashornCallSiteDescriptor;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.regexp.RegExpFactory;
 
 /**
  * Nashorn specific debug utils. This is meant for Nashorn developers.
@@ -259,6 +260,10 @@ public final class NativeDebug extends ScriptObject {
         out.println("PropertyMap proto invalidations " + PropertyMap.getProtoInvalidations());
         out.println("PropertyMap proto history hit " + PropertyMap.getProtoHistoryHit());
         out.println("PropertyMap setProtoNewMapCount " + PropertyMap.getSetProtoNewMapCount());
+        out.println("RegExp cache size " + RegExpFactory.getCacheSize());
+        out.println("RegExp cache hits " + RegExpFactory.getCacheHits());
+        out.println("RegExp cache misses " + RegExpFactory.getCacheMisses());
+        out.println("RegExp compile time " + RegExpFactory.getCompileTime() / 1_000_000 + " ms");
         out.println("Callsite count " + LinkerCallSite.getCount());
         out.println("Callsite misses " + LinkerCallSite.getMissCount());
         out.println("Callsite misses by site at " + LinkerCallSite.getMissSamplingPercentage() + "%");
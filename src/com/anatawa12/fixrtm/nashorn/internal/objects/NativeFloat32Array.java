@@ -165,6 +165,14 @@ public final class NativeFloat32Array extends ArrayBufferView {
             setElem(index, value);
             return this;
         }
+
+        @Override
+        protected void setElements(final int index, final double[] src, final int offset, final int length) {
+            final FloatBuffer buffer = (FloatBuffer)nb.duplicate().position(index);
+            for (int i = 0; i < length; i++) {
+                buffer.put((float)src[offset + i]);
+            }
+        }
     }
 
     /**
@@ -165,6 +165,16 @@ public final class NativeFloat64Array extends ArrayBufferView {
             setElem(index, value);
             return this;
         }
+
+        @Override
+        protected void getElements(final int index, final double[] dest, final int offset, final int length) {
+            ((DoubleBuffer)nb.duplicate().position(index)).get(dest, offset, length);
+        }
+
+        @Override
+        protected void setElements(final int index, final double[] src, final int offset, final int length) {
+            ((DoubleBuffer)nb.duplicate().position(index)).put(src, offset, length);
+        }
     }
 
     /**
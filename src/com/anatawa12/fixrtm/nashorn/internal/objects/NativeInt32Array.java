@@ -162,6 +162,16 @@ public final class NativeInt32Array extends ArrayBufferView {
         public ArrayData set(final int index, final double value, final boolean strict) {
             return set(index, (int)value, strict);
         }
+
+        @Override
+        protected void getElements(final int index, final int[] dest, final int offset, final int length) {
+            ((IntBuffer)nb.duplicate().position(index)).get(dest, offset, length);
+        }
+
+        @Override
+        protected void setElements(final int index, final int[] src, final int offset, final int length) {
+            ((IntBuffer)nb.duplicate().position(index)).put(src, offset, length);
+        }
     }
 
     /**
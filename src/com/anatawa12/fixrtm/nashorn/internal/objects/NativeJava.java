@@ -25,6 +25,7 @@
 
 package com.anatawa12.fixrtm.nashorn.internal.objects;
 
+import static com.anatawa12.fixrtm.nashorn.internal.runtime.ECMAErrors.rangeError;
 import static com.anatawa12.fixrtm.nashorn.internal.runtime.ECMAErrors.typeError;
 import static com.anatawa12.fixrtm.nashorn.internal.runtime.ScriptRuntime.UNDEFINED;
 
@@ -32,9 +33,11 @@ import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Array;
 import java.util.Collection;
 import java.util.Deque;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
+import java.util.Set;
 import com.anatawa12.fixrtm.nashorn.dynalink.beans.StaticClass;
 import com.anatawa12.fixrtm.nashorn.dynalink.support.TypeUtilities;
 import com.anatawa12.fixrtm.nashorn.api.scripting.JSObject;
@@ -50,6 +53,8 @@ import com.anatawa12.fixrtm.nashorn.internal.runtime.PropertyMap;
 import com.anatawa12.fixrtm.nashorn.internal.runtime.ScriptFunction;
 import com.anatawa12.fixrtm.nashorn.internal.runtime.ScriptObject;
 import com.anatawa12.fixrtm.nashorn.internal.runtime.ScriptRuntime;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.arrays.ArrayData;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.arrays.ArrayIndex;
 import com.anatawa12.fixrtm.nashorn.internal.runtime.linker.Bootstrap;
 import com.anatawa12.fixrtm.nashorn.internal.runtime.linker.JavaAdapterFactory;
 
@@ -339,6 +344,57 @@ public final class NativeJava {
         }
     }
 
+    /**
+     * Returns a JavaScript array of records with a fixed set of numeric fields, which stores the fields of all
+     * records packed in a single {@code double[]} instead of an object per record. Elements read from the array are
+     * new objects viewing the record at their index, so writing their fields writes the array. Storing an object copies
+     * its fields into the record. Storing anything else, deleting elements or shifting the array makes it a regular
+     * array of the records. Example:
+     * <pre>
+     * var points = Java.structArray(["x", "y", "z"], 1000000)
+     * points[0].x = 1
+     * points[1] = { x: 2, y: 3, z: 4 }
+     * var fromObjects = Java.structArray(["x", "y"], [{ x: 1, y: 2 }, { x: 3, y: 4 }])
+     * </pre>
+     * @param self not used
+     * @param fields array of the field names.
+     * @param source the number of records, with all fields zero, or an array of objects to copy the fields from.
+     * @return a JavaScript array of records.
+     */
+    @Function(attributes = Attribute.NOT_ENUMERABLE, where = Where.CONSTRUCTOR)
+    public static NativeArray structArray(final Object self, final Object fields, final Object source) {
+        if (!(fields instanceof ScriptObject)) {
+            throw typeError("not.an.object", ScriptRuntime.safeToString(fields));
+        }
+
+        final ScriptObject fieldsObj = (ScriptObject)fields;
+        final String[] names = new String[(int)JSType.toUint32(fieldsObj.getLength())];
+        final Set<String> seen = new HashSet<>();
+        for (int i = 0; i < names.length; i++) {
+            names[i] = JSType.toString(fieldsObj.get(i));
+            if (!seen.add(names[i]) || ArrayIndex.isValidArrayIndex(ArrayIndex.getArrayIndex(names[i]))) {
+                throw typeError("invalid.struct.field", names[i]);
+            }
+        }
+        if (names.length == 0) {
+            throw typeError("invalid.struct.field", ScriptRuntime.safeToString(fields));
+        }
+
+        final ScriptObject sourceObj = source instanceof ScriptObject ? (ScriptObject)source : null;
+        final double length = sourceObj != null ? JSType.toUint32(sourceObj.getLength()) : JSType.toNumber(source);
+        if (length != JSType.toUint32(length) || length > Integer.MAX_VALUE / names.length) {
+            throw rangeError("inappropriate.array.length", ScriptRuntime.safeToString(source));
+        }
+
+        ArrayData data = ArrayData.allocateStructs(names, (int)length);
+        if (sourceObj != null) {
+            for (int i = 0; i < (int)length; i++) {
+                data = data.set(i, sourceObj.get(i), false);
+            }
+        }
+        return new NativeArray(data);
+    }
+
     /**
      * Given a script object and a Java type, converts the script object into the desired Java type. Currently it
      * performs shallow creation of Java arrays, as well as wrapping of objects in Lists, Dequeues, Queues,
@@ -402,7 +458,9 @@ public final class NativeJava {
     }
 
     /**
-     * Given a Java array or {@link Collection}, returns a JavaScript array with a shallow copy of its contents. Note
+     * Given a Java array or {@link Collection}, returns a JavaScript array with its contents. Java {@code int[]},
+     * {@code double[]} and {@code Object[]} arrays are shared with the returned array until the script first writes to
+     * it, all other arrays and collections are copied shallowly. Note
      * that in most cases, you can use Java arrays and lists natively in Nashorn; in cases where for some reason you
      * need to have an actual JavaScript native array (e.g. to work with the array comprehensions functions), you will
      * want to use this method. Example:
@@ -414,10 +472,15 @@ public final class NativeJava {
      *     .filter(function(val) { return val.getName().endsWith(".jpg") })
      *     .map(function(val) { return val.lastModified() })
      * </pre>
+     * Only writes made by the script copy a shared array. Changes made to the Java array afterwards, e.g. when Java
+     * code reuses it as a buffer, silently change every JavaScript array returned for it that hasn't been written to
+     * yet, even while another thread's script is reading it. Java code that modifies an array after passing it to
+     * this method should pass a {@code clone()} of it instead.
      * @param self not used
      * @param objArray the java array or collection. Can be null.
-     * @return a JavaScript array with the copy of Java array's or collection's contents. Returns null if objArray is
-     * null.
+     * @return a JavaScript array sharing the Java {@code int[]}, {@code double[]} or {@code Object[]} array until it is
+     * first written to by the script, or holding a shallow copy of any other Java array's or collection's contents.
+     * Returns null if objArray is null.
      */
     @Function(attributes = Attribute.NOT_ENUMERABLE, where = Where.CONSTRUCTOR)
     public static NativeArray from(final Object self, final Object objArray) {
@@ -426,11 +489,11 @@ public final class NativeJava {
         } else if (objArray instanceof Collection) {
             return new NativeArray(((Collection<?>)objArray).toArray());
         } else if (objArray instanceof Object[]) {
-            return new NativeArray(((Object[])objArray).clone());
+            return new NativeArray(ArrayData.allocateShared((Object[])objArray));
         } else if (objArray instanceof int[]) {
-            return new NativeArray(((int[])objArray).clone());
+            return new NativeArray(ArrayData.allocateShared((int[])objArray));
         } else if (objArray instanceof double[]) {
-            return new NativeArray(((double[])objArray).clone());
+            return new NativeArray(ArrayData.allocateShared((double[])objArray));
         } else if (objArray instanceof long[]) {
             return new NativeArray(((long[])objArray).clone());
         } else if (objArray instanceof byte[]) {
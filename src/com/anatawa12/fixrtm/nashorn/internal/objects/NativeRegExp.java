@@ -30,7 +30,6 @@ import static com.anatawa12.fixrtm.nashorn.internal.runtime.ScriptRuntime.UNDEFI
 
 import java.lang.invoke.MethodHandle;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.Callable;
 
@@ -46,6 +45,7 @@ import com.anatawa12.fixrtm.nashorn.internal.runtime.BitVector;
 import com.anatawa12.fixrtm.nashorn.internal.runtime.JSType;
 import com.anatawa12.fixrtm.nashorn.internal.runtime.ParserException;
 import com.anatawa12.fixrtm.nashorn.internal.runtime.PropertyMap;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.ScriptFunction;
 import com.anatawa12.fixrtm.nashorn.internal.runtime.ScriptObject;
 import com.anatawa12.fixrtm.nashorn.internal.runtime.ScriptRuntime;
 import com.anatawa12.fixrtm.nashorn.internal.runtime.linker.Bootstrap;
@@ -595,8 +595,16 @@ public final class NativeRegExp extends ScriptObject {
      * That is, replace null and groups that didn't match with undefined.
      */
     private Object[] groups(final RegExpMatcher matcher) {
+        final Object[] groups = new Object[matcher.groupCount() + 1];
+        groups(matcher, groups);
+        return groups;
+    }
+
+    /**
+     * Store the JavaScript groups of the current match at the start of {@code groups}.
+     */
+    private void groups(final RegExpMatcher matcher, final Object[] groups) {
         final int groupCount = matcher.groupCount();
-        final Object[] groups = new Object[groupCount + 1];
         final BitVector groupsInNegativeLookahead  = regexp.getGroupsInNegativeLookahead();
 
         for (int i = 0, lastGroupStart = matcher.start(); i <= groupCount; i++) {
@@ -613,7 +621,27 @@ public final class NativeRegExp extends ScriptObject {
             groups[i] = group == null ? UNDEFINED : group;
             lastGroupStart = groupStart;
         }
-        return groups;
+    }
+
+    /**
+     * Check whether the given group of the current match is defined in JavaScript, that
+     * is whether {@code groups(matcher)[group]} is not undefined.
+     */
+    private boolean isGroupDefined(final RegExpMatcher matcher, final int group) {
+        final BitVector groupsInNegativeLookahead  = regexp.getGroupsInNegativeLookahead();
+
+        for (int i = 0, lastGroupStart = matcher.start(); i <= group; i++) {
+            final int groupStart = matcher.start(i);
+            if (lastGroupStart > groupStart
+                    || groupsInNegativeLookahead != null && groupsInNegativeLookahead.isSet(i)) {
+                if (i == group) {
+                    return false;
+                }
+                continue;
+            }
+            lastGroupStart = groupStart;
+        }
+        return matcher.end(group) >= 0;
     }
 
     /**
@@ -667,12 +695,12 @@ public final class NativeRegExp extends ScriptObject {
                 return string;
             }
 
-            final StringBuilder sb = new StringBuilder();
+            final StringBuilder sb = new StringBuilder(string.length());
             sb.append(string, 0, matcher.start());
 
             if (function != null) {
                 final Object self = Bootstrap.isStrictCallable(function) ? UNDEFINED : Global.instance();
-                sb.append(callReplaceValue(getReplaceValueInvoker(), function, self, matcher, string));
+                sb.append(callReplaceValue(getReplaceValueInvoker(), function, self, matcher, string, null));
             } else {
                 appendReplacement(matcher, string, replacement, sb);
             }
@@ -688,15 +716,22 @@ public final class NativeRegExp extends ScriptObject {
 
         int thisIndex = 0;
         int previousLastIndex = 0;
-        final StringBuilder sb = new StringBuilder();
+        final StringBuilder sb = new StringBuilder(string.length());
 
         final MethodHandle invoker = function == null ? null : getReplaceValueInvoker();
         final Object self = function == null || Bootstrap.isStrictCallable(function) ? UNDEFINED : Global.instance();
+        // script functions that don't use the arguments object get their arguments spread into
+        // parameters, so the array passed to them can be refilled for every match
+        final Object[] args = function instanceof ScriptFunction && ((ScriptFunction)function).takesFixedArguments() ?
+                new Object[matcher.groupCount() + 3] : null;
+        final boolean literalReplacement = function == null && replacement.indexOf('$') == -1;
 
         do {
             sb.append(string, thisIndex, matcher.start());
             if (function != null) {
-                sb.append(callReplaceValue(invoker, function, self, matcher, string));
+                sb.append(callReplaceValue(invoker, function, self, matcher, string, args));
+            } else if (literalReplacement) {
+                sb.append(replacement);
             } else {
                 appendReplacement(matcher, string, replacement, sb);
             }
@@ -734,7 +769,6 @@ public final class NativeRegExp extends ScriptObject {
          */
 
         int cursor = 0;
-        Object[] groups = null;
 
         while (cursor < replacement.length()) {
             char nextChar = replacement.charAt(cursor);
@@ -766,12 +800,9 @@ public final class NativeRegExp extends ScriptObject {
                         }
                     }
                     if (refNum > 0) {
-                        if (groups == null) {
-                            groups = groups(matcher);
-                        }
                         // Append group if matched.
-                        if (groups[refNum] != UNDEFINED) {
-                            sb.append((String) groups[refNum]);
+                        if (isGroupDefined(matcher, refNum)) {
+                            sb.append(text, matcher.start(refNum), matcher.end(refNum));
                         }
                     } else { // $0. ignore.
                         assert refNum == 0;
@@ -781,7 +812,7 @@ public final class NativeRegExp extends ScriptObject {
                     sb.append('$');
                     cursor++;
                 } else if (nextChar == '&') {
-                    sb.append(matcher.group());
+                    sb.append(text, matcher.start(), matcher.end());
                     cursor++;
                 } else if (nextChar == '`') {
                     sb.append(text, 0, matcher.start());
@@ -813,12 +844,13 @@ public final class NativeRegExp extends ScriptObject {
                 });
     }
 
-    private String callReplaceValue(final MethodHandle invoker, final Object function, final Object self, final RegExpMatcher matcher, final String string) throws Throwable {
-        final Object[] groups = groups(matcher);
-        final Object[] args   = Arrays.copyOf(groups, groups.length + 2);
+    private String callReplaceValue(final MethodHandle invoker, final Object function, final Object self, final RegExpMatcher matcher, final String string, final Object[] buffer) throws Throwable {
+        final int groupCount = matcher.groupCount();
+        final Object[] args  = buffer != null ? buffer : new Object[groupCount + 3];
 
-        args[groups.length]     = matcher.start();
-        args[groups.length + 1] = string;
+        groups(matcher, args);
+        args[groupCount + 1] = matcher.start();
+        args[groupCount + 2] = string;
 
         return (String)invoker.invokeExact(function, self, args);
     }
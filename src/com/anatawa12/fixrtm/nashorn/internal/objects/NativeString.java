@@ -483,7 +483,7 @@ public final class NativeString extends ScriptObject implements OptimisticBuilti
      */
     @Function(attributes = Attribute.NOT_ENUMERABLE)
     public static String charAt(final Object self, final Object pos) {
-        return charAtImpl(checkObjectToString(self), JSType.toInteger(pos));
+        return charAtImpl(checkObjectToCharSequence(self), JSType.toInteger(pos));
     }
 
     /**
@@ -505,10 +505,10 @@ public final class NativeString extends ScriptObject implements OptimisticBuilti
      */
     @SpecializedFunction
     public static String charAt(final Object self, final int pos) {
-        return charAtImpl(checkObjectToString(self), pos);
+        return charAtImpl(checkObjectToCharSequence(self), pos);
     }
 
-    private static String charAtImpl(final String str, final int pos) {
+    private static String charAtImpl(final CharSequence str, final int pos) {
         return pos < 0 || pos >= str.length() ? "" : String.valueOf(str.charAt(pos));
     }
 
@@ -528,8 +528,8 @@ public final class NativeString extends ScriptObject implements OptimisticBuilti
      */
     @Function(attributes = Attribute.NOT_ENUMERABLE)
     public static double charCodeAt(final Object self, final Object pos) {
-        final String str = checkObjectToString(self);
-        final int    idx = JSType.toInteger(pos);
+        final CharSequence str = checkObjectToCharSequence(self);
+        final int          idx = JSType.toInteger(pos);
         return idx < 0 || idx >= str.length() ? Double.NaN : str.charAt(idx);
     }
 
@@ -593,8 +593,7 @@ public final class NativeString extends ScriptObject implements OptimisticBuilti
      */
     @Function(attributes = Attribute.NOT_ENUMERABLE, arity = 1)
     public static int indexOf(final Object self, final Object search, final Object pos) {
-        final String str = checkObjectToString(self);
-        return str.indexOf(JSType.toString(search), JSType.toInteger(pos));
+        return indexOfImpl(checkObjectToCharSequence(self), JSType.toString(search), JSType.toInteger(pos));
     }
 
     /**
@@ -629,7 +628,14 @@ public final class NativeString extends ScriptObject implements OptimisticBuilti
      */
     @SpecializedFunction
     public static int indexOf(final Object self, final Object search, final int pos) {
-        return checkObjectToString(self).indexOf(JSType.toString(search), pos);
+        return indexOfImpl(checkObjectToCharSequence(self), JSType.toString(search), pos);
+    }
+
+    private static int indexOfImpl(final CharSequence str, final String search, final int pos) {
+        if (str instanceof ConsString) {
+            return ((ConsString)str).indexOf(search, pos);
+        }
+        return ((String)str).indexOf(search, pos);
     }
 
     /**
@@ -782,7 +788,7 @@ public final class NativeString extends ScriptObject implements OptimisticBuilti
     @Function(attributes = Attribute.NOT_ENUMERABLE)
     public static String slice(final Object self, final Object start, final Object end) {
 
-        final String str      = checkObjectToString(self);
+        final CharSequence str = checkObjectToCharSequence(self);
         if (end == UNDEFINED) {
             return slice(str, JSType.toInteger(start));
         }
@@ -798,10 +804,10 @@ public final class NativeString extends ScriptObject implements OptimisticBuilti
      */
     @SpecializedFunction
     public static String slice(final Object self, final int start) {
-        final String str = checkObjectToString(self);
+        final CharSequence str = checkObjectToCharSequence(self);
         final int from = start < 0 ? Math.max(str.length() + start, 0) : Math.min(start, str.length());
 
-        return str.substring(from);
+        return substringImpl(str, from, str.length());
     }
 
     /**
@@ -827,13 +833,13 @@ public final class NativeString extends ScriptObject implements OptimisticBuilti
     @SpecializedFunction
     public static String slice(final Object self, final int start, final int end) {
 
-        final String str = checkObjectToString(self);
-        final int len    = str.length();
+        final CharSequence str = checkObjectToCharSequence(self);
+        final int len          = str.length();
 
         final int from = start < 0 ? Math.max(len + start, 0) : Math.min(start, len);
         final int to   = end < 0   ? Math.max(len + end, 0)   : Math.min(end, len);
 
-        return str.substring(Math.min(from, to), to);
+        return substringImpl(str, Math.min(from, to), to);
     }
 
     /**
@@ -940,7 +946,7 @@ public final class NativeString extends ScriptObject implements OptimisticBuilti
     @Function(attributes = Attribute.NOT_ENUMERABLE)
     public static String substring(final Object self, final Object start, final Object end) {
 
-        final String str = checkObjectToString(self);
+        final CharSequence str = checkObjectToCharSequence(self);
         if (end == UNDEFINED) {
             return substring(str, JSType.toInteger(start));
         }
@@ -956,13 +962,13 @@ public final class NativeString extends ScriptObject implements OptimisticBuilti
      */
     @SpecializedFunction
     public static String substring(final Object self, final int start) {
-        final String str = checkObjectToString(self);
+        final CharSequence str = checkObjectToCharSequence(self);
         if (start < 0) {
-            return str;
+            return str.toString();
         } else if (start >= str.length()) {
             return "";
         } else {
-            return str.substring(start);
+            return substringImpl(str, start, str.length());
         }
     }
 
@@ -988,15 +994,22 @@ public final class NativeString extends ScriptObject implements OptimisticBuilti
      */
     @SpecializedFunction
     public static String substring(final Object self, final int start, final int end) {
-        final String str = checkObjectToString(self);
+        final CharSequence str = checkObjectToCharSequence(self);
         final int len = str.length();
         final int validStart = start < 0 ? 0 : start > len ? len : start;
         final int validEnd   = end < 0 ? 0 : end > len ? len : end;
 
         if (validStart < validEnd) {
-            return str.substring(validStart, validEnd);
+            return substringImpl(str, validStart, validEnd);
         }
-        return str.substring(validEnd, validStart);
+        return substringImpl(str, validEnd, validStart);
+    }
+
+    private static String substringImpl(final CharSequence str, final int start, final int end) {
+        if (str instanceof ConsString) {
+            return ((ConsString)str).substring(start, end);
+        }
+        return ((String)str).substring(start, end);
     }
 
     /**
@@ -1297,6 +1310,21 @@ public final class NativeString extends ScriptObject implements OptimisticBuilti
         }
     }
 
+    /**
+     * Like {@link #checkObjectToString(Object)}, but returns a {@link ConsString} without flattening it
+     * so that it can be accessed in place.
+     *
+     * @param self the object
+     * @return the object as string or {@code ConsString}
+     */
+    private static CharSequence checkObjectToCharSequence(final Object self) {
+        if (self instanceof String || self instanceof ConsString) {
+            return (CharSequence)self;
+        }
+        Global.checkObjectCoercible(self);
+        return JSType.toString(self);
+    }
+
     private boolean isValidStringIndex(final int key) {
         return key >= 0 && key < value.length();
     }
@@ -182,6 +182,11 @@ public final class NativeUint32Array extends ArrayBufferView {
         public ArrayData set(final int index, final double value, final boolean strict) {
             return set(index, (int)value, strict);
         }
+
+        @Override
+        protected void setElements(final int index, final int[] src, final int offset, final int length) {
+            ((IntBuffer)nb.duplicate().position(index)).put(src, offset, length);
+        }
     }
 
     /**
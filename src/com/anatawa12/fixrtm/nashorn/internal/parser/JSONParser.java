@@ -25,8 +25,8 @@
 
 package com.anatawa12.fixrtm.nashorn.internal.parser;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
 import com.anatawa12.fixrtm.nashorn.internal.codegen.ObjectClassGenerator;
 import com.anatawa12.fixrtm.nashorn.internal.objects.Global;
 import com.anatawa12.fixrtm.nashorn.internal.runtime.ECMAErrors;
@@ -41,6 +41,7 @@ import com.anatawa12.fixrtm.nashorn.internal.runtime.Source;
 import com.anatawa12.fixrtm.nashorn.internal.runtime.SpillProperty;
 import com.anatawa12.fixrtm.nashorn.internal.runtime.arrays.ArrayData;
 import com.anatawa12.fixrtm.nashorn.internal.runtime.arrays.ArrayIndex;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.options.Options;
 import com.anatawa12.fixrtm.nashorn.internal.scripts.JD;
 import com.anatawa12.fixrtm.nashorn.internal.scripts.JO;
 
@@ -60,6 +61,16 @@ public class JSONParser {
     final int length;
     int pos = 0;
 
+    /**
+     * Values of the objects and arrays being parsed. An object or array pushes its values on top of the
+     * values of its enclosing ones and pops them once it is created, so no per object buffer is needed.
+     * Numbers of arrays whose elements are all numbers are kept unboxed in {@link #numbers} at the same
+     * indices.
+     */
+    private Object[] values = new Object[16];
+    private double[] numbers = new double[16];
+    private int top = 0;
+
     private static final int EOF = -1;
 
     private static final String TRUE  = "true";
@@ -70,6 +81,24 @@ public class JSONParser {
     private static final int STATE_ELEMENT_PARSED = 1;
     private static final int STATE_COMMA_PARSED   = 2;
 
+    private static final int ELEMENTS_INT    = 0;
+    private static final int ELEMENTS_NUMBER = 1;
+    private static final int ELEMENTS_OBJECT = 2;
+
+    /** Maximum number of cached shapes, shared by all parsers */
+    private static final int SHAPE_CACHE_SIZE = Options.getIntProperty("nashorn.json.shape.cache.size", 1024);
+
+    /** Maximum number of different first keys cached */
+    private static final int SHAPE_ROOT_TRANSITIONS = 64;
+
+    /** Maximum number of different keys cached after the same key sequence */
+    private static final int SHAPE_MAX_TRANSITIONS = 8;
+
+    private static final AtomicInteger shapeCount = new AtomicInteger();
+
+    private static final Shape SPILL_SHAPE = new Shape(JO.getInitialMap(), false);
+    private static final Shape DUAL_SPILL_SHAPE = new Shape(JD.getInitialMap(), true);
+
     /**
      * Constructor.
      *
@@ -185,9 +214,10 @@ public class JSONParser {
     }
 
     private Object parseObject() {
-        PropertyMap propertyMap = dualFields ? JD.getInitialMap() : JO.getInitialMap();
+        final int base = top;
+        Shape shape = dualFields ? DUAL_SPILL_SHAPE : SPILL_SHAPE;
+        PropertyMap propertyMap = shape.map;
         ArrayData arrayData = ArrayData.EMPTY_ARRAY;
-        final ArrayList<Object> values = new ArrayList<>();
         int state = STATE_EMPTY;
 
         assert peek() == '{';
@@ -202,14 +232,23 @@ public class JSONParser {
                 if (state == STATE_ELEMENT_PARSED) {
                     throw expectedError(pos - 1, ", or }", toString(c));
                 }
-                final String id = parseString();
+                final String cachedId = shape != null ? parseCachedKey(shape) : null;
+                final String id = cachedId != null ? cachedId : parseString();
                 expectColon();
                 final Object value = parseLiteral();
                 final int index = ArrayIndex.getArrayIndex(id);
                 if (ArrayIndex.isValidArrayIndex(index)) {
                     arrayData = addArrayElement(arrayData, index, value);
                 } else {
-                    propertyMap = addObjectProperty(propertyMap, values, id, value);
+                    final Class<?> type = dualFields ? getType(value) : Object.class;
+                    shape = shape != null ? shape.transition(id, type) : null;
+                    if (shape != null) {
+                        propertyMap.propertyAdded(shape.property, true);
+                        propertyMap = shape.map;
+                        push(value);
+                    } else {
+                        propertyMap = addObjectProperty(propertyMap, base, id, type, value);
+                    }
                 }
                 state = STATE_ELEMENT_PARSED;
                 break;
@@ -225,7 +264,11 @@ public class JSONParser {
                     throw error(AbstractParser.message("trailing.comma.in.json"), pos);
                 }
                 pos++;
-                return createObject(propertyMap, values, arrayData);
+                final ScriptObject object = shape != null ? createObject(shape, base) : createObject(propertyMap, base);
+                object.setInitialProto(global.getObjectPrototype());
+                object.setArray(arrayData);
+                top = base;
+                return object;
             default:
                 throw expectedError(pos, ", or }", toString(c));
             }
@@ -233,6 +276,34 @@ public class JSONParser {
         throw expectedError(pos, ", or }", "eof");
     }
 
+    /**
+     * Parses a key that is one of the keys cached after the given shape, without creating a new string.
+     *
+     * @param shape the shape of the object so far
+     * @return the cached key, or null if the key is not cached or needs unescaping. Nothing is consumed then.
+     */
+    private String parseCachedKey(final Shape shape) {
+        final int start = pos + 1;
+        int end = start;
+        while (end < length) {
+            final char c = source.charAt(end);
+            if (c == '"') {
+                break;
+            } else if (c == '\\' || c <= 0x1f) {
+                return null;
+            }
+            end++;
+        }
+        if (end == length) {
+            return null;
+        }
+        final String key = shape.findKey(source, start, end - start);
+        if (key != null) {
+            pos = end + 1;
+        }
+        return key;
+    }
+
     private static ArrayData addArrayElement(final ArrayData arrayData, final int index, final Object value) {
         final long oldLength = arrayData.length();
         final long longIndex = ArrayIndex.toLongIndex(index);
@@ -246,48 +317,69 @@ public class JSONParser {
         return newArrayData.set(index, value, false);
     }
 
-    private PropertyMap addObjectProperty(final PropertyMap propertyMap, final List<Object> values,
-                                                 final String id, final Object value) {
+    private PropertyMap addObjectProperty(final PropertyMap propertyMap, final int base, final String id,
+                                          final Class<?> type, final Object value) {
         final Property oldProperty = propertyMap.findProperty(id);
-        final PropertyMap newMap;
-        final Class<?> type;
-        final int flags;
-        if (dualFields) {
-            type = getType(value);
-            flags = Property.DUAL_FIELDS;
-        } else {
-            type = Object.class;
-            flags = 0;
-        }
+        final int flags = dualFields ? Property.DUAL_FIELDS : 0;
 
         if (oldProperty != null) {
-            values.set(oldProperty.getSlot(), value);
-            newMap = propertyMap.replaceProperty(oldProperty, new SpillProperty(id, flags, oldProperty.getSlot(), type));;
-        } else {
-            values.add(value);
-            newMap = propertyMap.addProperty(new SpillProperty(id, flags, propertyMap.size(), type));
+            values[base + oldProperty.getSlot()] = value;
+            return propertyMap.replaceProperty(oldProperty, new SpillProperty(id, flags, oldProperty.getSlot(), type));
         }
-
-        return newMap;
+        push(value);
+        return propertyMap.addProperty(new SpillProperty(id, flags, propertyMap.size(), type));
     }
 
-    private Object createObject(final PropertyMap propertyMap, final List<Object> values, final ArrayData arrayData) {
-        final long[] primitiveSpill = dualFields ? new long[values.size()] : null;
-        final Object[] objectSpill = new Object[values.size()];
+    private ScriptObject createObject(final PropertyMap propertyMap, final int base) {
+        // primitive and object spill pools are sized independently, and omitted if unused
+        final int primitiveLength = dualFields ? propertyMap.getPrimitiveSpillLength() : 0;
+        final int objectLength = propertyMap.getObjectSpillLength();
+        final long[] primitiveSpill = primitiveLength > 0 ? new long[primitiveLength] : null;
+        final Object[] objectSpill = objectLength > 0 ? new Object[objectLength] : null;
 
         for (final Property property : propertyMap.getProperties()) {
             if (!dualFields || property.getType() == Object.class) {
-                objectSpill[property.getSlot()] = values.get(property.getSlot());
+                objectSpill[property.getSlot()] = values[base + property.getSlot()];
+            } else {
+                primitiveSpill[property.getSlot()] = ObjectClassGenerator.pack((Number) values[base + property.getSlot()]);
+            }
+        }
+
+        return dualFields ? new JD(propertyMap, primitiveSpill, objectSpill) : new JO(propertyMap, null, objectSpill);
+    }
+
+    private ScriptObject createObject(final Shape shape, final int base) {
+        final long[] primitiveSpill = shape.primitiveSpillLength > 0 ? new long[shape.primitiveSpillLength] : null;
+        final Object[] objectSpill = shape.objectSpillLength > 0 ? new Object[shape.objectSpillLength] : null;
+
+        if (!shape.dualFields) {
+            if (objectSpill != null) {
+                System.arraycopy(values, base, objectSpill, 0, top - base);
+            }
+            return new JO(shape.map, null, objectSpill);
+        }
+        for (int slot = 0; slot < top - base; slot++) {
+            if (shape.primitiveSlots[slot]) {
+                primitiveSpill[slot] = ObjectClassGenerator.pack((Number) values[base + slot]);
             } else {
-                primitiveSpill[property.getSlot()] = ObjectClassGenerator.pack((Number) values.get(property.getSlot()));
+                objectSpill[slot] = values[base + slot];
             }
         }
+        return new JD(shape.map, primitiveSpill, objectSpill);
+    }
+
+    private void push(final Object value) {
+        if (top == values.length) {
+            values = Arrays.copyOf(values, top * 2);
+        }
+        values[top++] = value;
+    }
 
-        final ScriptObject object = dualFields ?
-                new JD(propertyMap, primitiveSpill, objectSpill) : new JO(propertyMap, null, objectSpill);
-        object.setInitialProto(global.getObjectPrototype());
-        object.setArray(arrayData);
-        return object;
+    private void pushNumber(final double value) {
+        if (top >= numbers.length) {
+            numbers = Arrays.copyOf(numbers, Math.max(top + 1, numbers.length * 2));
+        }
+        numbers[top++] = value;
     }
 
     private static Class<?> getType(final Object value) {
@@ -309,7 +401,8 @@ public class JSONParser {
     }
 
     private Object parseArray() {
-        ArrayData arrayData = ArrayData.EMPTY_ARRAY;
+        final int base = top;
+        int elements = ELEMENTS_INT;
         int state = STATE_EMPTY;
 
         assert peek() == '[';
@@ -332,13 +425,30 @@ public class JSONParser {
                     throw error(AbstractParser.message("trailing.comma.in.json"), pos);
                 }
                 pos++;
+                final ArrayData arrayData = createArrayData(base, elements);
+                top = base;
                 return global.wrapAsObject(arrayData);
             default:
                 if (state == STATE_ELEMENT_PARSED) {
                     throw expectedError(pos, ", or ]", toString(c));
                 }
-                final long index = arrayData.length();
-                arrayData = arrayData.ensure(index).set((int) index, parseLiteral(), true);
+                if (elements != ELEMENTS_OBJECT && (isDigit(c) || c == '-')) {
+                    final double number = parseNumberValue();
+                    if (JSType.isRepresentableAsInt(number)) {
+                        // same as parseNumber, which turns -0 into 0
+                        pushNumber((int) number);
+                    } else {
+                        elements = ELEMENTS_NUMBER;
+                        pushNumber(number);
+                    }
+                } else {
+                    final Object value = parseLiteral();
+                    if (elements != ELEMENTS_OBJECT) {
+                        boxNumbers(base);
+                        elements = ELEMENTS_OBJECT;
+                    }
+                    push(value);
+                }
                 state = STATE_ELEMENT_PARSED;
                 break;
             }
@@ -347,6 +457,33 @@ public class JSONParser {
         throw expectedError(pos, ", or ]", "eof");
     }
 
+    private void boxNumbers(final int base) {
+        if (values.length < top) {
+            values = Arrays.copyOf(values, Math.max(top, values.length * 2));
+        }
+        for (int i = base; i < top; i++) {
+            values[i] = toNumber(numbers[i]);
+        }
+    }
+
+    private ArrayData createArrayData(final int base, final int elements) {
+        if (top == base) {
+            return ArrayData.EMPTY_ARRAY;
+        }
+        switch (elements) {
+        case ELEMENTS_INT:
+            final int[] ints = new int[top - base];
+            for (int i = 0; i < ints.length; i++) {
+                ints[i] = (int) numbers[base + i];
+            }
+            return ArrayData.allocate(ints);
+        case ELEMENTS_NUMBER:
+            return ArrayData.allocate(Arrays.copyOfRange(numbers, base, top));
+        default:
+            return ArrayData.allocate(Arrays.copyOfRange(values, base, top));
+        }
+    }
+
     private String parseString() {
         // String buffer is only instantiated if string contains escape sequences.
         int start = ++pos;
@@ -435,6 +572,17 @@ public class JSONParser {
     }
 
     private Number parseNumber() {
+        return toNumber(parseNumberValue());
+    }
+
+    private static Number toNumber(final double d) {
+        if (JSType.isRepresentableAsInt(d)) {
+            return (int) d;
+        }
+        return d;
+    }
+
+    private double parseNumberValue() {
         final int start = pos;
         int c = next();
 
@@ -444,10 +592,12 @@ public class JSONParser {
         if (!isDigit(c)) {
             throw numberError(start);
         }
+        final int digitsStart = pos - 1;
         // no more digits allowed after 0
         if (c != '0') {
             skipDigits();
         }
+        final int digitsEnd = pos;
 
         // fraction
         if (peek() == '.') {
@@ -472,11 +622,20 @@ public class JSONParser {
             skipDigits();
         }
 
-        final double d = Double.parseDouble(source.substring(start, pos));
-        if (JSType.isRepresentableAsInt(d)) {
-            return (int) d;
+        final boolean negative = digitsStart > start;
+        if (digitsEnd == pos && digitsEnd - digitsStart <= 9) {
+            // integer that fits in an int
+            int value = 0;
+            for (int i = digitsStart; i < digitsEnd; i++) {
+                value = value * 10 + source.charAt(i) - '0';
+            }
+            return negative ? -value : value;
         }
-        return d;
+        final double d = JSType.parseSimpleDecimal(source, digitsStart, pos);
+        if (d == d) {
+            return negative ? -d : d;
+        }
+        return Double.parseDouble(source.substring(start, pos));
     }
 
     private Object parseKeyword(final String keyword, final Object value) {
@@ -545,4 +704,182 @@ public class JSONParser {
         final String message = ECMAErrors.getMessage("syntax.error.invalid.json", reason);
         return error(message, start);
     }
+
+    /**
+     * A cached object shape: the property map reached from an initial JSON object map by adding properties
+     * with a sequence of keys and value types, together with the spill layout of objects using it. Shapes
+     * form a tree of transitions shared by all parsers, so parsing documents with the same object shapes
+     * again neither allocates properties nor looks up map transitions, and does not create strings for
+     * known keys. The number of shapes is bounded by {@code nashorn.json.shape.cache.size}. When a shape
+     * has as many transitions as it caches, or all shapes are in use, the least recently used transition
+     * is evicted with the shapes after it. Shapes followed by many more different keys than they cache, as
+     * in objects used as dictionaries, stop caching them.
+     */
+    private static final class Shape {
+        private static final Shape[] NO_TRANSITIONS = new Shape[0];
+
+        final String key;
+        final Class<?> type;
+        final Property property;
+        final PropertyMap map;
+        final boolean dualFields;
+        final int primitiveSpillLength;
+        final int objectSpillLength;
+        /** Whether each spill slot holds a primitive, only for dual fields */
+        final boolean[] primitiveSlots;
+
+        /** The shape of empty objects this shape was reached from */
+        private final Shape root;
+        private final int maxTransitions;
+        private volatile Shape[] transitions = NO_TRANSITIONS;
+        /** Whether more different keys than cached followed this shape, so none are cached any more */
+        private volatile boolean overflowed;
+
+        /** Set when the shape is reached again, cleared when it is passed over for eviction */
+        private boolean used = true;
+
+        // guarded by this
+        private boolean evicted;
+        private int evictions;
+        private int evictionIndex;
+
+        Shape(final PropertyMap map, final boolean dualFields) {
+            this(null, null, null, null, map, dualFields);
+        }
+
+        private Shape(final Shape root, final String key, final Class<?> type, final Property property, final PropertyMap map, final boolean dualFields) {
+            this.root = root != null ? root : this;
+            this.maxTransitions = root != null ? SHAPE_MAX_TRANSITIONS : SHAPE_ROOT_TRANSITIONS;
+            this.key = key;
+            this.type = type;
+            this.property = property;
+            this.map = map;
+            this.dualFields = dualFields;
+            this.primitiveSpillLength = dualFields ? map.getPrimitiveSpillLength() : 0;
+            this.objectSpillLength = map.getObjectSpillLength();
+            this.primitiveSlots = dualFields ? new boolean[map.size()] : null;
+            if (dualFields) {
+                for (final Property p : map.getProperties()) {
+                    primitiveSlots[p.getSlot()] = p.getType() != Object.class;
+                }
+            }
+        }
+
+        String findKey(final String source, final int start, final int length) {
+            for (final Shape shape : transitions) {
+                final String k = shape.key;
+                if (k.length() == length && source.regionMatches(start, k, 0, length)) {
+                    return k;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Get the shape after adding a property with the given key and value type.
+         *
+         * @param k the key, not an array index
+         * @param t the value type
+         * @return the new shape, or null if this shape already has a property with the key or the new
+         * shape can not be cached
+         */
+        Shape transition(final String k, final Class<?> t) {
+            final Shape shape = findTransition(k, t);
+            if (shape != null) {
+                if (!shape.used) {
+                    shape.used = true;
+                }
+                return shape;
+            }
+            if (overflowed || map.findProperty(k) != null) {
+                return null;
+            }
+            if (shapeCount.get() >= SHAPE_CACHE_SIZE) {
+                root.evict();
+            }
+            synchronized (this) {
+                Shape[] old = transitions;
+                final Shape added = findTransition(k, t);
+                if (added != null) {
+                    return added;
+                } else if (evicted || overflowed || shapeCount.get() >= SHAPE_CACHE_SIZE) {
+                    return null;
+                } else if (old.length >= maxTransitions) {
+                    if (root != this && ++evictions > maxTransitions * 2) {
+                        int count = 0;
+                        for (final Shape s : old) {
+                            count += s.release();
+                        }
+                        shapeCount.addAndGet(-count);
+                        transitions = NO_TRANSITIONS;
+                        overflowed = true;
+                        return null;
+                    }
+                    old = evict(old);
+                }
+                shapeCount.incrementAndGet();
+                final Property newProperty = new SpillProperty(k, dualFields ? Property.DUAL_FIELDS : 0, map.size(), t);
+                final Shape newShape = new Shape(root, k, t, newProperty, map.addProperty(newProperty), dualFields);
+                final Shape[] updated = Arrays.copyOf(old, old.length + 1);
+                updated[old.length] = newShape;
+                transitions = updated;
+                return newShape;
+            }
+        }
+
+        /*
+         * Evicts the least recently used transition to make room for shapes anywhere in the tree.
+         */
+        private synchronized void evict() {
+            final Shape[] old = transitions;
+            if (old.length > 0) {
+                transitions = evict(old);
+            }
+        }
+
+        /*
+         * Returns the transitions without the least recently used one, which is evicted. Must hold the lock.
+         */
+        private Shape[] evict(final Shape[] old) {
+            int i = evictionIndex;
+            while (true) {
+                if (i >= old.length) {
+                    i = 0;
+                }
+                if (!old[i].used) {
+                    break;
+                }
+                old[i++].used = false;
+            }
+            evictionIndex = i;
+            shapeCount.addAndGet(-old[i].release());
+            final Shape[] updated = new Shape[old.length - 1];
+            System.arraycopy(old, 0, updated, 0, i);
+            System.arraycopy(old, i + 1, updated, i, updated.length - i);
+            return updated;
+        }
+
+        /*
+         * Marks this shape and the shapes after it evicted, so no transitions are added to them any more.
+         * Returns the number of shapes released.
+         */
+        private synchronized int release() {
+            evicted = true;
+            int count = 1;
+            for (final Shape shape : transitions) {
+                count += shape.release();
+            }
+            transitions = NO_TRANSITIONS;
+            return count;
+        }
+
+        private Shape findTransition(final String k, final Class<?> t) {
+            for (final Shape shape : transitions) {
+                if (shape.type == t && shape.key.equals(k)) {
+                    return shape;
+                }
+            }
+            return null;
+        }
+    }
 }
@@ -34,17 +34,60 @@ import java.util.Deque;
  * This class represents a string composed of two parts which may themselves be
  * instances of <tt>ConsString</tt> or {@link String}. Copying of characters to
  * a proper string is delayed until it becomes necessary.
+ *
+ * Short strings and strings that are accessed often are flattened on access, as are
+ * deep trees built without accessing any of the strings they were built from. Other
+ * accesses through {@link #charAt}, {@link #indexOf}, {@link #substring} and
+ * {@link #appendTo} walk the tree, which is rebalanced first if it has become too
+ * deep, typically by appending to a string in a loop and accessing it in between.
  */
 public final class ConsString implements CharSequence {
 
-    private CharSequence left, right;
+    /*
+     * The left component is written last and read first, so that threads walking the tree
+     * see the right component and the nodes of a rebalanced tree that were written with it.
+     */
+    private volatile CharSequence left;
+    private CharSequence right;
     private final int length;
-    private volatile int state = STATE_NEW;
+    /* STATE_NEW initially, left to the default value to spare a volatile write */
+    private volatile int state;
+
+    /** Depth of the tree, 0 for trees of Strings only. May be larger than the actual depth. */
+    private int depth;
+
+    /** Number of accesses walking the tree rather than flattening it */
+    private int accesses;
+
+    /** Whether this string or one it was built from has been accessed */
+    private boolean accessed;
 
     private final static int STATE_NEW       =  0;
     private final static int STATE_THRESHOLD =  2;
     private final static int STATE_FLATTENED = -1;
 
+    /** Strings up to this length are flattened on first access */
+    private final static int FLATTEN_LENGTH = 1024;
+
+    /** Larger strings are flattened once they have been accessed this often */
+    private final static int FLATTEN_ACCESSES = 32;
+
+    /** Adjacent strings up to this length are merged when rebalancing */
+    private final static int LEAF_LENGTH = 256;
+
+    /** Fibonacci numbers: a tree of depth d is balanced if its length is at least FIB[d] */
+    private final static int[] FIB;
+
+    static {
+        final int[] fib = new int[46];
+        fib[0] = 1;
+        fib[1] = 2;
+        for (int i = 2; i < fib.length; i++) {
+            fib[i] = fib[i - 1] + fib[i - 2];
+        }
+        FIB = fib;
+    }
+
     /**
      * Constructor
      *
@@ -56,12 +99,14 @@ public final class ConsString implements CharSequence {
     public ConsString(final CharSequence left, final CharSequence right) {
         assert isString(left);
         assert isString(right);
-        this.left = left;
         this.right = right;
         length = left.length() + right.length();
         if (length < 0) {
             throw new IllegalArgumentException("too big concatenated String");
         }
+        depth = Math.max(depth(left), depth(right)) + 1;
+        accessed = isAccessed(left) || isAccessed(right);
+        this.left = left;
     }
 
     @Override
@@ -76,12 +121,143 @@ public final class ConsString implements CharSequence {
 
     @Override
     public char charAt(final int index) {
-        return flattened(true).charAt(index);
+        if (!walkTree()) {
+            return left.charAt(index);
+        }
+        if (index < 0 || index >= length) {
+            throw new StringIndexOutOfBoundsException(index);
+        }
+        return charAtInTree(index);
     }
 
     @Override
     public CharSequence subSequence(final int start, final int end) {
-        return flattened(true).subSequence(start, end);
+        return substring(start, end);
+    }
+
+    /**
+     * Returns the string of the chars from {@code start} to {@code end}, copying only those chars.
+     *
+     * @param start start index, inclusive
+     * @param end   end index, exclusive
+     * @return the substring
+     */
+    public String substring(final int start, final int end) {
+        if (!walkTree()) {
+            return left.toString().substring(start, end);
+        }
+        if (start < 0 || end > length || start > end) {
+            throw new StringIndexOutOfBoundsException("begin " + start + ", end " + end + ", length " + length);
+        }
+
+        final char[] chars = new char[end - start];
+        new LeafWalker(start, end) {
+            @Override
+            boolean visit(final String leaf, final int offset) {
+                final int from = Math.max(start, offset);
+                final int to = Math.min(end, offset + leaf.length());
+                leaf.getChars(from - offset, to - offset, chars, from - start);
+                return true;
+            }
+        }.walk(this);
+        return new String(chars);
+    }
+
+    /**
+     * Returns the index of the first occurrence of {@code str} at or after {@code fromIndex},
+     * like {@link String#indexOf(String, int)}.
+     *
+     * @param str       the string to search for
+     * @param fromIndex the index to start searching at
+     * @return the index of the first occurrence or -1 if not found
+     */
+    public int indexOf(final String str, final int fromIndex) {
+        if (!walkTree()) {
+            return left.toString().indexOf(str, fromIndex);
+        }
+        final int from = Math.max(fromIndex, 0);
+        if (from >= length) {
+            return str.isEmpty() ? length : -1;
+        }
+        if (str.isEmpty()) {
+            return from;
+        }
+
+        final int[] result = { -1 };
+        new LeafWalker(from, length) {
+            @Override
+            boolean visit(final String leaf, final int offset) {
+                // occurrences within the leaf
+                final int index = leaf.indexOf(str, Math.max(from - offset, 0));
+                if (index >= 0) {
+                    result[0] = offset + index;
+                    return false;
+                }
+                // occurrences starting in the leaf and ending in the following ones
+                final int leafEnd = offset + leaf.length();
+                for (int i = Math.max(Math.max(from, leafEnd - str.length() + 1), offset); i < leafEnd; i++) {
+                    if (i + str.length() <= length && regionMatches(i, str)) {
+                        result[0] = i;
+                        return false;
+                    }
+                }
+                return true;
+            }
+        }.walk(this);
+        return result[0];
+    }
+
+    /**
+     * Appends the chars of this string to {@code sb} without flattening it.
+     *
+     * @param sb the string builder to append to
+     */
+    public void appendTo(final StringBuilder sb) {
+        if (state == STATE_FLATTENED) {
+            sb.append(left);
+            return;
+        }
+        sb.ensureCapacity(sb.length() + length);
+        new LeafWalker(0, length) {
+            @Override
+            boolean visit(final String leaf, final int offset) {
+                sb.append(leaf);
+                return true;
+            }
+        }.walk(this);
+    }
+
+    private boolean regionMatches(final int start, final String str) {
+        for (int i = 0; i < str.length(); i++) {
+            if (charAtInTree(start + i) != str.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private char charAtInTree(final int index) {
+        CharSequence cs = this;
+        int i = index;
+        while (cs instanceof ConsString) {
+            final ConsString cons = (ConsString) cs;
+            CharSequence l = cons.left;
+            CharSequence r = cons.right;
+            if (l.length() + r.length() != cons.length) {
+                // flattened or rebalanced by another thread while we were reading
+                synchronized (cons) {
+                    l = cons.left;
+                    r = cons.right;
+                }
+            }
+            if (i < l.length()) {
+                cs = l;
+            } else {
+                i -= l.length();
+                cs = r;
+            }
+        }
+        return cs.charAt(i);
     }
 
     /**
@@ -93,6 +269,18 @@ public final class ConsString implements CharSequence {
         return new CharSequence[] { left, right };
     }
 
+    /*
+     * Like getComponents, but only locks if the fields are being changed by another thread.
+     */
+    private CharSequence[] components() {
+        final CharSequence l = left;
+        final CharSequence r = right;
+        if (l.length() + r.length() == length) {
+            return new CharSequence[] { l, r };
+        }
+        return getComponents();
+    }
+
     private CharSequence flattened(final boolean flattenNested) {
         if (state != STATE_FLATTENED) {
             flatten(flattenNested);
@@ -100,6 +288,165 @@ public final class ConsString implements CharSequence {
         return left;
     }
 
+    /*
+     * Decides how to access the chars of this string. Returns false after flattening it,
+     * or true if the tree should be walked, after rebalancing it if necessary.
+     * Rebalancing costs more than flattening, so it is only worth it for strings that are
+     * likely to be accessed again after further appends, as the strings they were built
+     * from have been.
+     */
+    private boolean walkTree() {
+        if (state == STATE_FLATTENED) {
+            return false;
+        }
+        final boolean walk = length > FLATTEN_LENGTH && ++accesses <= FLATTEN_ACCESSES && (accessed || isBalanced());
+        accessed = true;
+        if (!walk) {
+            flattened(true);
+            return false;
+        }
+        balanceIfDeep();
+        return true;
+    }
+
+    private static int depth(final CharSequence cs) {
+        return cs instanceof ConsString ? ((ConsString) cs).depth : 0;
+    }
+
+    private static boolean isAccessed(final CharSequence cs) {
+        return cs instanceof ConsString && ((ConsString) cs).accessed;
+    }
+
+    private boolean isBalanced() {
+        return depth < FIB.length && length >= FIB[depth];
+    }
+
+    private void balanceIfDeep() {
+        if (!isBalanced()) {
+            balance();
+        }
+    }
+
+    /*
+     * Rebuilds the tree as a balanced tree of its balanced subtrees and leaves, using
+     * the algorithm from "Ropes: an Alternative to Strings" by Boehm, Atkinson and Plass.
+     * The result becomes the left component so that other threads never see a mix of
+     * old and new components with the right total length, and is written last to publish
+     * the new nodes to them.
+     */
+    private synchronized void balance() {
+        if (state == STATE_FLATTENED || isBalanced()) {
+            return;
+        }
+
+        final CharSequence[] forest = new CharSequence[FIB.length];
+        final Deque<CharSequence> stack = new ArrayDeque<>();
+        stack.addFirst(right);
+        CharSequence cs = left;
+        do {
+            if (cs instanceof ConsString && ((ConsString) cs).state == STATE_FLATTENED) {
+                cs = ((ConsString) cs).left;
+            }
+            if (cs instanceof ConsString && !((ConsString) cs).isBalanced()) {
+                final CharSequence[] components = ((ConsString) cs).components();
+                stack.addFirst(components[1]);
+                cs = components[0];
+            } else {
+                if (cs.length() > 0) {
+                    addToForest(forest, cs);
+                }
+                cs = stack.pollFirst();
+            }
+        } while (cs != null);
+
+        CharSequence balanced = "";
+        for (final CharSequence tree : forest) {
+            if (tree != null) {
+                balanced = concat(tree, balanced);
+            }
+        }
+
+        right = "";
+        depth = balanced instanceof ConsString ? ((ConsString) balanced).depth + 1 : 1;
+        left = balanced;
+    }
+
+    private static void addToForest(final CharSequence[] forest, final CharSequence tree) {
+        final int len = tree.length();
+        int i = 0;
+        CharSequence sum = null;
+        // trees in lower slots are shorter and precede the new one
+        for (; i + 1 < forest.length && FIB[i + 1] <= len; i++) {
+            if (forest[i] != null) {
+                sum = sum == null ? forest[i] : concat(forest[i], sum);
+                forest[i] = null;
+            }
+        }
+        sum = sum == null ? tree : concat(sum, tree);
+        for (; i + 1 < forest.length; i++) {
+            if (forest[i] != null) {
+                sum = concat(forest[i], sum);
+                forest[i] = null;
+            }
+            if (sum.length() < FIB[i + 1]) {
+                break;
+            }
+        }
+        forest[i] = forest[i] == null ? sum : concat(forest[i], sum);
+    }
+
+    private static CharSequence concat(final CharSequence left, final CharSequence right) {
+        if (left.length() == 0) {
+            return right;
+        } else if (right.length() == 0) {
+            return left;
+        } else if (left instanceof String && right instanceof String && left.length() + right.length() <= LEAF_LENGTH) {
+            return ((String) left).concat((String) right);
+        }
+        return new ConsString(left, right);
+    }
+
+    /*
+     * Visits the Strings of a tree that overlap a range of chars, in order.
+     */
+    private static abstract class LeafWalker {
+        private final int start, end;
+
+        LeafWalker(final int start, final int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        /* returns false to stop walking */
+        abstract boolean visit(String leaf, int offset);
+
+        final void walk(final ConsString root) {
+            final Deque<CharSequence> stack = new ArrayDeque<>();
+            final Deque<Integer> offsets = new ArrayDeque<>();
+            CharSequence cs = root;
+            int offset = 0;
+            while (true) {
+                if (offset < end && offset + cs.length() > start) {
+                    if (cs instanceof ConsString) {
+                        final CharSequence[] components = ((ConsString) cs).components();
+                        stack.addFirst(components[1]);
+                        offsets.addFirst(offset + components[0].length());
+                        cs = components[0];
+                        continue;
+                    }
+                    if (!visit(cs.toString(), offset)) {
+                        return;
+                    }
+                }
+                if (stack.isEmpty()) {
+                    return;
+                }
+                cs = stack.pollFirst();
+                offset = offsets.pollFirst();
+            }
+        }
+    }
+
     private synchronized void flatten(final boolean flattenNested) {
         // We use iterative traversal as recursion may exceed the stack size limit.
         final char[] chars = new char[length];
@@ -131,8 +478,8 @@ public final class ConsString implements CharSequence {
             }
         } while (cs != null);
 
-        left = new String(chars);
         right = "";
+        left = new String(chars);
         state = STATE_FLATTENED;
     }
 
@@ -163,7 +163,7 @@ public final class FindProperty {
      * @return appropriate receiver
      */
     public ScriptObject getGetterReceiver() {
-        return property != null && property instanceof UserAccessorProperty ? self : prototype;
+        return getGetterReceiver(property, self, prototype);
     }
 
     /**
@@ -171,6 +171,28 @@ public final class FindProperty {
      * @return appropriate receiver
      */
     public ScriptObject getSetterReceiver() {
+        return getSetterReceiver(property, self, prototype);
+    }
+
+    /**
+     * Return the appropriate receiver for a getter, given the parts of a find result.
+     * @param property  found property
+     * @param self      script object where search began
+     * @param prototype prototype where property was found
+     * @return appropriate receiver
+     */
+    static ScriptObject getGetterReceiver(final Property property, final ScriptObject self, final ScriptObject prototype) {
+        return property != null && property instanceof UserAccessorProperty ? self : prototype;
+    }
+
+    /**
+     * Return the appropriate receiver for a setter, given the parts of a find result.
+     * @param property  found property
+     * @param self      script object where search began
+     * @param prototype prototype where property was found
+     * @return appropriate receiver
+     */
+    static ScriptObject getSetterReceiver(final Property property, final ScriptObject self, final ScriptObject prototype) {
         return property != null && property.hasSetterFunction(prototype) ? self : prototype;
     }
 
@@ -80,6 +80,11 @@ import com.anatawa12.fixrtm.nashorn.internal.runtime.logging.Logger;
  * a receiver guard on the constant getter, but it currently leaks memory and its benefits
  * have not yet been investigated property.
  *
+ * Global properties that are both non-writable and non-configurable, like "undefined", "NaN"
+ * and "Infinity", can never be reassigned. These are linked as permanent constants that bypass
+ * the per-name access bookkeeping and retry counting, and are only invalidated together with
+ * everything else by {@link #invalidateForever()}.
+ *
  * As long as all Globals in a Context share the same GlobalConstants instance, we need synchronization
  * whenever we access it.
  */
@@ -109,6 +114,9 @@ public final class GlobalConstants implements Loggable {
 
     private final AtomicBoolean invalidatedForever = new AtomicBoolean(false);
 
+    /** switchpoint for permanent constants, only invalidated when this object is invalidated forever */
+    private final SwitchPoint permanentSwitchPoint = new SwitchPoint();
+
     /**
      * Constructor - used only by global
      * @param log logger, or null if none
@@ -255,6 +263,7 @@ public final class GlobalConstants implements Loggable {
                 }
                 map.clear();
             }
+            SwitchPoint.invalidateAll(new SwitchPoint[] { permanentSwitchPoint });
         }
     }
 
@@ -410,6 +419,31 @@ public final class GlobalConstants implements Loggable {
         return mh;
     }
 
+    /**
+     * Adapt a constant getter to the return type of a call site. For optimistic call sites
+     * a constant that does not fit the return type throws an {@link UnwarrantedOptimismException}.
+     *
+     * @param cmh          constant getter, see {@link #staticConstantGetter(Object)}
+     * @param c            constant value
+     * @param retType      call site return type
+     * @param isOptimistic is this an optimistic call site
+     * @param programPoint program point for optimistic call sites
+     *
+     * @return getter with return type {@code retType}
+     */
+    static MethodHandle adaptConstantGetter(final MethodHandle cmh, final Object c, final Class<?> retType, final boolean isOptimistic, final int programPoint) {
+        if (isOptimistic) {
+            if (JSType.getAccessorTypeIndex(cmh.type().returnType()) <= JSType.getAccessorTypeIndex(retType)) {
+                //widen return type - this is pessimistic, so it will always work
+                return MH.asType(cmh, cmh.type().changeReturnType(retType));
+            }
+            //immediately invalidate - we asked for a too wide constant as a narrower one
+            return MH.dropArguments(MH.insertArguments(JSType.THROW_UNWARRANTED.methodHandle(), 0, c, programPoint), 0, Object.class);
+        }
+        //pessimistic return type filter
+        return Lookup.filterReturnType(cmh, retType);
+    }
+
     /**
      * Try to turn a getter into a MethodHandle.constant, if possible
      *
@@ -434,6 +468,18 @@ public final class GlobalConstants implements Loggable {
         final Class<?> retType      = desc.getMethodType().returnType();
         final String   name         = desc.getNameToken(CallSiteDescriptor.NAME_OPERAND);
 
+        final Property property = find.getProperty();
+        if (find.getOwner().isGlobal() && !property.isWritable() && !property.isConfigurable()) {
+            // the value of this property can never change, no need to track writes to it
+            final Object c = find.getObjectValue();
+            MethodHandle mh = adaptConstantGetter(constantGetter(c), c, retType, isOptimistic, programPoint);
+            if (log.isEnabled()) {
+                log.info("Linked getter " + quote(name) + " as permanent MethodHandle.constant() -> " + c);
+                mh = MethodHandleFactory.addDebugPrintout(log, Level.FINE, mh, "get permanent const " + quote(name));
+            }
+            return new GuardedInvocation(mh, null, permanentSwitchPoint, null);
+        }
+
         synchronized (this) {
             final Access acc = getOrCreateSwitchPoint(name);
 
@@ -451,24 +497,9 @@ public final class GlobalConstants implements Loggable {
                 return null;
             }
 
-            final MethodHandle cmh = constantGetter(c);
-
-            MethodHandle mh;
+            MethodHandle mh = adaptConstantGetter(constantGetter(c), c, retType, isOptimistic, programPoint);
             MethodHandle guard;
 
-            if (isOptimistic) {
-                if (JSType.getAccessorTypeIndex(cmh.type().returnType()) <= JSType.getAccessorTypeIndex(retType)) {
-                    //widen return type - this is pessimistic, so it will always work
-                    mh = MH.asType(cmh, cmh.type().changeReturnType(retType));
-                } else {
-                    //immediately invalidate - we asked for a too wide constant as a narrower one
-                    mh = MH.dropArguments(MH.insertArguments(JSType.THROW_UNWARRANTED.methodHandle(), 0, c, programPoint), 0, Object.class);
-                }
-            } else {
-                //pessimistic return type filter
-                mh = Lookup.filterReturnType(cmh, retType);
-            }
-
             if (find.getOwner().isGlobal()) {
                 guard = null;
             } else {
@@ -44,6 +44,7 @@ import com.anatawa12.fixrtm.nashorn.internal.objects.Global;
 import com.anatawa12.fixrtm.nashorn.internal.parser.Lexer;
 import com.anatawa12.fixrtm.nashorn.internal.runtime.arrays.ArrayLikeIterator;
 import com.anatawa12.fixrtm.nashorn.internal.runtime.linker.Bootstrap;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.options.Options;
 
 /**
  * Representation for ECMAScript types - this maps directly to the ECMA script standard
@@ -78,6 +79,15 @@ public enum JSType {
 
     private static final MethodHandles.Lookup JSTYPE_LOOKUP = MethodHandles.lookup();
 
+    /** Strings of the non-negative ints below its length, created on first use. */
+    private static final String[] INT_STRINGS = new String[Math.max(0, Options.getIntProperty("nashorn.intstring.cache.size", 1024))];
+
+    /** Powers of ten that are exactly representable as doubles. */
+    private static final double[] SMALL_POWERS_OF_TEN = {
+        1e0,  1e1,  1e2,  1e3,  1e4,  1e5,  1e6,  1e7,  1e8,  1e9,  1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
     /** JavaScript compliant conversion function from Object to boolean */
     public static final Call TO_BOOLEAN = staticCall(JSTYPE_LOOKUP, JSType.class, "toBoolean", boolean.class, Object.class);
 
@@ -614,13 +624,22 @@ public enum JSType {
     }
 
     /**
-     * JavaScript compliant conversion of integer to String
+     * JavaScript compliant conversion of integer to String. Strings of small non-negative
+     * integers are cached, the size of the cache is set by the {@code nashorn.intstring.cache.size}
+     * system property.
      *
      * @param num an integer
      *
      * @return a string
      */
     public static String toString(final int num) {
+        if (num >= 0 && num < INT_STRINGS.length) {
+            final String str = INT_STRINGS[num];
+            if (str != null) {
+                return str;
+            }
+            return INT_STRINGS[num] = Integer.toString(num);
+        }
         return Integer.toString(num);
     }
 
@@ -634,7 +653,7 @@ public enum JSType {
      */
     public static String toString(final double num) {
         if (isRepresentableAsInt(num)) {
-            return Integer.toString((int)num);
+            return toString((int)num);
         }
 
         if (num == Double.POSITIVE_INFINITY) {
@@ -930,16 +949,104 @@ public enum JSType {
                     return Double.NaN;
                 }
             }
-            try {
-                value = Double.parseDouble(str.substring(start, end));
-            } catch (final NumberFormatException e) {
-                return Double.NaN;
+            final double simple = parseSimpleDecimal(str, start, end);
+            if (simple == simple) {
+                value = simple;
+            } else {
+                try {
+                    value = Double.parseDouble(str.substring(start, end));
+                } catch (final NumberFormatException e) {
+                    return Double.NaN;
+                }
             }
         }
 
         return negative ? -value : value;
     }
 
+    /**
+     * Parses an unsigned decimal number with at most 15 significant digits and a decimal exponent
+     * of at most 22. Both the digits and the power of ten are exact doubles, so a single multiplication
+     * or division yields the correctly rounded result, as {@link Double#parseDouble(String)} would.
+     *
+     * @param str   the string
+     * @param start start index
+     * @param end   end index
+     *
+     * @return the number, or NaN if the string is not such a number
+     */
+    public static double parseSimpleDecimal(final String str, final int start, final int end) {
+        long mantissa       = 0;
+        int  digits         = 0;
+        int  exponent       = 0;
+        boolean hasDigits   = false;
+        int  i              = start;
+
+        for (; i < end; i++) {
+            final char c = str.charAt(i);
+            if (c < '0' || c > '9') {
+                break;
+            }
+            hasDigits = true;
+            if (mantissa != 0 || c != '0') {
+                if (++digits > 15) {
+                    return Double.NaN;
+                }
+                mantissa = mantissa * 10 + (c - '0');
+            }
+        }
+
+        if (i < end && str.charAt(i) == '.') {
+            for (i++; i < end; i++) {
+                final char c = str.charAt(i);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                hasDigits = true;
+                if (mantissa != 0 || c != '0') {
+                    if (++digits > 15) {
+                        return Double.NaN;
+                    }
+                    mantissa = mantissa * 10 + (c - '0');
+                }
+                exponent--;
+            }
+        }
+
+        if (!hasDigits) {
+            return Double.NaN;
+        }
+
+        if (i < end) {
+            final char e = str.charAt(i++);
+            if (e != 'e' && e != 'E' || i == end) {
+                return Double.NaN;
+            }
+            final char sign = str.charAt(i);
+            if ((sign == '+' || sign == '-') && ++i == end) {
+                return Double.NaN;
+            }
+            int value = 0;
+            for (; i < end; i++) {
+                final char c = str.charAt(i);
+                if (c < '0' || c > '9' || value > 1000) {
+                    return Double.NaN;
+                }
+                value = value * 10 + (c - '0');
+            }
+            exponent += sign == '-' ? -value : value;
+        }
+
+        if (mantissa == 0) {
+            return 0.0;
+        } else if (exponent >= 0 && exponent < SMALL_POWERS_OF_TEN.length) {
+            return mantissa * SMALL_POWERS_OF_TEN[exponent];
+        } else if (exponent < 0 && -exponent < SMALL_POWERS_OF_TEN.length) {
+            return mantissa / SMALL_POWERS_OF_TEN[-exponent];
+        }
+        return Double.NaN;
+    }
+
     /**
      * JavaScript compliant Object to integer conversion. See ECMA 9.4 ToInteger
      *
@@ -1348,6 +1455,10 @@ public enum JSType {
             return obj.toString();
         }
 
+        if (obj instanceof Integer) {
+            return toString(((Integer)obj).intValue());
+        }
+
         if (isNumber(obj)) {
             return toString(((Number)obj).doubleValue());
         }
@@ -28,759 +28,427 @@ package com.anatawa12.fixrtm.nashorn.internal.runtime;
 import java.math.BigInteger;
 
 /**
- * JavaScript number to string conversion, refinement of sun.misc.FloatingDecimal.
+ * JavaScript number to string conversion (ECMA 9.8.1), producing the shortest decimal
+ * that converts back to the same number.
+ *
+ * Uses the Ryu algorithm from Ulf Adams, "Ryu: Fast Float-to-String Conversion", PLDI 2018,
+ * which finds the shortest decimal using 64 bit arithmetic and tables of 128 bit powers of 5.
  */
 public final class NumberToString {
-    /** Is not a number flag */
-    private final boolean isNaN;
-
-    /** Is a negative number flag. */
-    private boolean isNegative;
-
-    /** Decimal exponent value (for E notation.) */
-    private int decimalExponent;
-
-    /** Actual digits. */
-    private char digits[];
-
-    /** Number of digits to use. (nDigits <= digits.length). */
-    private int nDigits;
 
     /*
      * IEEE-754 constants.
      */
 
-    //private static final long   signMask           = 0x8000000000000000L;
     private static final int    expMask            = 0x7FF;
-    private static final long   fractMask          = 0x000F_FFFF_FFFF_FFFFL;
     private static final int    expShift           = 52;
     private static final int    expBias            = 1_023;
-    private static final long   fractHOB           = (1L << expShift);
-    private static final long   expOne             = ((long)expBias) << expShift;
-    private static final int    maxSmallBinExp     = 62;
-    private static final int    minSmallBinExp     = -(63 / 3);
-
-    /** Powers of 5 fitting a long. */
-    private static final long powersOf5[] = {
-        1L,
-        5L,
-        5L * 5,
-        5L * 5 * 5,
-        5L * 5 * 5 * 5,
-        5L * 5 * 5 * 5 * 5,
-        5L * 5 * 5 * 5 * 5 * 5,
-        5L * 5 * 5 * 5 * 5 * 5 * 5,
-        5L * 5 * 5 * 5 * 5 * 5 * 5 * 5,
-        5L * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5,
-        5L * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5,
-        5L * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5,
-        5L * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5,
-        5L * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5,
-        5L * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5,
-        5L * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5,
-        5L * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5,
-        5L * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5,
-        5L * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5,
-        5L * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5,
-        5L * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5,
-        5L * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5,
-        5L * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5,
-        5L * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5,
-        5L * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5,
-        5L * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5,
-        5L * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5 * 5
-    };
-
-    // Approximately ceil(log2(longPowers5[i])).
-    private static final int nBitsPowerOf5[] = {
-        0,
-        3,
-        5,
-        7,
-        10,
-        12,
-        14,
-        17,
-        19,
-        21,
-        24,
-        26,
-        28,
-        31,
-        33,
-        35,
-        38,
-        40,
-        42,
-        45,
-        47,
-        49,
-        52,
-        54,
-        56,
-        59,
-        61
-    };
-
-    /** Digits used for infinity result. */
-    private static final char infinityDigits[]   = { 'I', 'n', 'f', 'i', 'n', 'i', 't', 'y' };
-
-    /** Digits used for NaN result. */
-    private static final char nanDigits[]        = { 'N', 'a', 'N' };
-
-    /** Zeros used to pad result. */
-    private static final char zeroes[]           = { '0', '0', '0', '0', '0', '0', '0', '0', '0', '0', '0', '0', '0', '0', '0', '0', '0', '0', '0', '0' };
-
-
-    /**
-     * Convert a number into a JavaScript string.
-     * @param value Double to convert.
-     * @return JavaScript formated number.
-     */
-    public static String stringFor(final double value) {
-        return new NumberToString(value).toString();
-    }
-
-    /*
-     * Constructor.
-     */
+    private static final long   fractMask          = 0x000F_FFFF_FFFF_FFFFL;
 
-    private NumberToString(final double value) {
-        // Double as bits.
-        long bits = Double.doubleToLongBits(value);
+    /** Number of bits kept of the powers of 5 and of their inverses. */
+    private static final int    pow5BitCount       = 125;
+    private static final int    pow5InvBitCount    = 125;
 
-        // Get upper word.
-        final int upper = (int)(bits >> 32);
+    /** Largest power of 5 needed for negative binary exponents. */
+    private static final int    maxPow5            = 325;
 
-        // Detect sign.
-        isNegative = upper < 0;
+    /** Largest power of 5 needed for positive binary exponents. */
+    private static final int    maxPow5Inv         = 291;
 
-        // Extract exponent.
-        int exponent = (upper >> (expShift - 32)) & expMask;
+    /** 5^i scaled to pow5BitCount bits, as high and low 64 bit words. */
+    private static final long[] pow5High           = new long[maxPow5 + 1];
+    private static final long[] pow5Low            = new long[maxPow5 + 1];
 
-        // Clear sign and exponent.
-        bits &= fractMask;
+    /** 2^(pow5Bits(i) - 1 + pow5InvBitCount) / 5^i, rounded up, as high and low 64 bit words. */
+    private static final long[] pow5InvHigh        = new long[maxPow5Inv + 1];
+    private static final long[] pow5InvLow         = new long[maxPow5Inv + 1];
 
-        // Detect NaN.
-        if (exponent == expMask) {
-            isNaN = true;
+    static {
+        BigInteger pow = BigInteger.ONE;
+        for (int i = 0; i <= maxPow5; i++) {
+            final int bitLength = pow.bitLength();
+            final BigInteger scaled = pow.shiftRight(bitLength - pow5BitCount);
+            pow5High[i] = scaled.shiftRight(64).longValue();
+            pow5Low[i]  = scaled.longValue();
 
-            // Detect Infinity.
-            if (bits == 0L) {
-                digits =  infinityDigits;
-            } else {
-                digits = nanDigits;
-                isNegative = false;
+            if (i <= maxPow5Inv) {
+                final BigInteger inverse = BigInteger.ONE.shiftLeft(bitLength - 1 + pow5InvBitCount).divide(pow).add(BigInteger.ONE);
+                pow5InvHigh[i] = inverse.shiftRight(64).longValue();
+                pow5InvLow[i]  = inverse.longValue();
             }
 
-            nDigits = digits.length;
-
-            return;
+            pow = pow.multiply(BigInteger.valueOf(5));
         }
+    }
 
-        // We have a working double.
-        isNaN = false;
-
-        int nSignificantBits;
-
-        // Detect denormalized value.
-        if (exponent == 0) {
-            // Detect zero value.
-            if (bits == 0L) {
-                decimalExponent = 0;
-                digits = zeroes;
-                nDigits = 1;
-
-                return;
-            }
+    private NumberToString() {
+    }
 
-            // Normalize value, using highest significant bit as HOB.
-            while ((bits & fractHOB) == 0L) {
-                bits <<= 1;
-                exponent -= 1;
-            }
+    /**
+     * Convert a number into a JavaScript string.
+     * @param value Double to convert.
+     * @return JavaScript formated number.
+     */
+    public static String stringFor(final double value) {
+        final long bits         = Double.doubleToRawLongBits(value);
+        final int  ieeeExponent = (int)(bits >>> expShift) & expMask;
+        final long ieeeMantissa = bits & fractMask;
 
-            // Compute number of significant bits.
-            nSignificantBits = expShift + exponent +1;
-            // Bias exponent by HOB.
-            exponent += 1;
-        } else {
-            // Add implicit HOB.
-            bits |= fractHOB;
-            // Compute number of significant bits.
-            nSignificantBits = expShift + 1;
+        if (ieeeExponent == expMask) {
+            return ieeeMantissa != 0L ? "NaN" : bits < 0L ? "-Infinity" : "Infinity";
         }
 
-        // Unbias exponent (represents bit shift).
-        exponent -= expBias;
-
-        // Determine the number of significant bits in the fraction.
-        final int nFractBits = countSignificantBits(bits);
-
-        // Number of bits to the right of the decimal.
-        final int nTinyBits = Math.max(0, nFractBits - exponent - 1);
-
-        // Computed decimal exponent.
-        int decExponent;
-
-        if (exponent <= maxSmallBinExp && exponent >= minSmallBinExp) {
-            // Look more closely at the number to decide if,
-            // with scaling by 10^nTinyBits, the result will fit in
-            // a long.
-            if (nTinyBits < powersOf5.length && (nFractBits + nBitsPowerOf5[nTinyBits]) < 64) {
-                /*
-                 * We can do this:
-                 * take the fraction bits, which are normalized.
-                 * (a) nTinyBits == 0: Shift left or right appropriately
-                 *     to align the binary point at the extreme right, i.e.
-                 *     where a long int point is expected to be. The integer
-                 *     result is easily converted to a string.
-                 * (b) nTinyBits > 0: Shift right by expShift - nFractBits,
-                 *     which effectively converts to long and scales by
-                 *     2^nTinyBits. Then multiply by 5^nTinyBits to
-                 *     complete the scaling. We know this won't overflow
-                 *     because we just counted the number of bits necessary
-                 *     in the result. The integer you get from this can
-                 *     then be converted to a string pretty easily.
-                 */
-
-                if (nTinyBits == 0) {
-                    long halfULP;
-
-                    if (exponent > nSignificantBits) {
-                        halfULP = 1L << (exponent - nSignificantBits - 1);
-                    } else {
-                        halfULP = 0L;
-                    }
-
-                    if (exponent >= expShift) {
-                        bits <<= exponent - expShift;
-                    } else {
-                        bits >>>= expShift - exponent;
-                    }
-
-                    // Discard non-significant low-order bits, while rounding,
-                    // up to insignificant value.
-                    int i;
-                    for (i = 0; halfULP >= 10L; i++) {
-                        halfULP /= 10L;
-                    }
-
-                    /**
-                     * This is the easy subcase --
-                     * all the significant bits, after scaling, are held in bits.
-                     * isNegative and decExponent tell us what processing and scaling
-                     * has already been done. Exceptional cases have already been
-                     * stripped out.
-                     * In particular:
-                     *      bits is a finite number (not Infinite, nor NaN)
-                     *      bits > 0L (not zero, nor negative).
-                     *
-                     * The only reason that we develop the digits here, rather than
-                     * calling on Long.toString() is that we can do it a little faster,
-                     * and besides want to treat trailing 0s specially. If Long.toString
-                     * changes, we should re-evaluate this strategy!
-                     */
-
-                    int decExp = 0;
-
-                    if (i != 0) {
-                         // 10^i == 5^i * 2^i
-                        final long powerOf10 = powersOf5[i] << i;
-                        final long residue = bits % powerOf10;
-                        bits /= powerOf10;
-                        decExp += i;
-
-                        if (residue >= (powerOf10 >> 1)) {
-                            // Round up based on the low-order bits we're discarding.
-                            bits++;
-                        }
-                    }
-
-                    int ndigits = 20;
-                    final char[] digits0 = new char[26];
-                    int digitno = ndigits - 1;
-                    int c = (int)(bits % 10L);
-                    bits /= 10L;
-
-                    while (c == 0) {
-                        decExp++;
-                        c = (int)(bits % 10L);
-                        bits /= 10L;
-                    }
-
-                    while (bits != 0L) {
-                        digits0[digitno--] = (char)(c + '0');
-                        decExp++;
-                        c = (int)(bits % 10L);
-                        bits /= 10;
-                    }
-
-                    digits0[digitno] = (char)(c + '0');
-
-                    ndigits -= digitno;
-                    final char[] result = new char[ndigits];
-                    System.arraycopy(digits0, digitno, result, 0, ndigits);
-
-                    this.digits          = result;
-                    this.decimalExponent = decExp + 1;
-                    this.nDigits         = ndigits;
-
-                    return;
-                }
-            }
+        if (ieeeExponent == 0 && ieeeMantissa == 0L) {
+            return "0";
         }
 
-        /*
-         * This is the hard case. We are going to compute large positive
-         * integers B and S and integer decExp, s.t.
-         *      d = (B / S) * 10^decExp
-         *      1 <= B / S < 10
-         * Obvious choices are:
-         *      decExp = floor(log10(d))
-         *      B      = d * 2^nTinyBits * 10^max(0, -decExp)
-         *      S      = 10^max(0, decExp) * 2^nTinyBits
-         * (noting that nTinyBits has already been forced to non-negative)
-         * I am also going to compute a large positive integer
-         *      M      = (1/2^nSignificantBits) * 2^nTinyBits * 10^max(0, -decExp)
-         * i.e. M is (1/2) of the ULP of d, scaled like B.
-         * When we iterate through dividing B/S and picking off the
-         * quotient bits, we will know when to stop when the remainder
-         * is <= M.
-         *
-         * We keep track of powers of 2 and powers of 5.
-         */
-
-        /*
-         * Estimate decimal exponent. (If it is small-ish,
-         * we could double-check.)
-         *
-         * First, scale the mantissa bits such that 1 <= d2 < 2.
-         * We are then going to estimate
-         *          log10(d2) ~=~  (d2-1.5)/1.5 + log(1.5)
-         * and so we can estimate
-         *      log10(d) ~=~ log10(d2) + binExp * log10(2)
-         * take the floor and call it decExp.
-         */
-        final double d2 = Double.longBitsToDouble(expOne | (bits & ~fractHOB));
-        decExponent = (int)Math.floor((d2 - 1.5D) * 0.289529654D + 0.176091259D + exponent * 0.301029995663981D);
+        // value = m2 * 2^e2, offset by 2 bits to make room for the bounds below.
+        final int  e2;
+        final long m2;
 
-        // Powers of 2 and powers of 5, respectively, in B.
-        final int B5 = Math.max(0, -decExponent);
-        int B2 = B5 + nTinyBits + exponent;
-
-        // Powers of 2 and powers of 5, respectively, in S.
-        final int S5 = Math.max(0, decExponent);
-        int S2 = S5 + nTinyBits;
-
-        // Powers of 2 and powers of 5, respectively, in M.
-        final int M5 = B5;
-        int M2 = B2 - nSignificantBits;
-
-        /*
-         * The long integer fractBits contains the (nFractBits) interesting
-         * bits from the mantissa of d (hidden 1 added if necessary) followed
-         * by (expShift + 1 - nFractBits) zeros. In the interest of compactness,
-         * I will shift out those zeros before turning fractBits into a
-         * BigInteger. The resulting whole number will be
-         *      d * 2^(nFractBits - 1 - binExp).
-         */
-
-        bits >>>= expShift + 1 - nFractBits;
-        B2 -= nFractBits - 1;
-        final int common2factor = Math.min(B2, S2);
-        B2 -= common2factor;
-        S2 -= common2factor;
-        M2 -= common2factor;
-
-        /*
-         * HACK!!For exact powers of two, the next smallest number
-         * is only half as far away as we think (because the meaning of
-         * ULP changes at power-of-two bounds) for this reason, we
-         * hack M2. Hope this works.
-         */
-        if (nFractBits == 1) {
-            M2 -= 1;
-        }
-
-        if (M2 < 0) {
-            // Oops.  Since we cannot scale M down far enough,
-            // we must scale the other values up.
-            B2 -= M2;
-            S2 -= M2;
-            M2 =  0;
+        if (ieeeExponent == 0) {
+            // Denormalized value.
+            e2 = 1 - expBias - expShift - 2;
+            m2 = ieeeMantissa;
+        } else {
+            e2 = ieeeExponent - expBias - expShift - 2;
+            m2 = ieeeMantissa | (1L << expShift);
         }
 
         /*
-         * Construct, Scale, iterate.
-         * Some day, we'll write a stopping test that takes
-         * account of the asymmetry of the spacing of floating-point
-         * numbers below perfect powers of 2
-         * 26 Sept 96 is not that day.
-         * So we use a symmetric test.
+         * Numbers in [mm, mp] * 2^e2 convert back to value, bounds included if m2 is even
+         * as ties round to even. The interval is asymmetric just above powers of 2, where
+         * the next smaller double is only half as far away.
          */
-
-        final char digits0[] = this.digits = new char[32];
-        int  ndigit;
-        boolean low, high;
-        long lowDigitDifference;
-        int  q;
+        final boolean acceptBounds = (m2 & 1L) == 0L;
+        final long    mv           = 4L * m2;
+        final long    mp           = mv + 2L;
+        final long    mm           = mv - (ieeeMantissa != 0L || ieeeExponent <= 1 ? 2L : 1L);
 
         /*
-         * Detect the special cases where all the numbers we are about
-         * to compute will fit in int or long integers.
-         * In these cases, we will avoid doing BigInteger arithmetic.
-         * We use the same algorithms, except that we "normalize"
-         * our FDBigInts before iterating. This is to make division easier,
-         * as it makes our fist guess (quotient of high-order words)
-         * more accurate!
+         * Scale the interval to dm, dv and dp times 10^e10, truncating the decimals, and
+         * determine whether any of the truncated decimals were non-zero where it matters.
          */
-
-        // Binary digits needed to represent B, approx.
-        final int Bbits = nFractBits + B2 + ((B5 < nBitsPowerOf5.length) ? nBitsPowerOf5[B5] : (B5*3));
-        // Binary digits needed to represent 10*S, approx.
-        final int tenSbits = S2 + 1 + (((S5 + 1) < nBitsPowerOf5.length) ? nBitsPowerOf5[(S5 + 1)] : ((S5 + 1) * 3));
-
-        if (Bbits < 64 && tenSbits < 64) {
-            long b = (bits * powersOf5[B5]) << B2;
-            final long s = powersOf5[S5] << S2;
-            long m = powersOf5[M5] << M2;
-            final long tens = s * 10L;
-
-            /*
-             * Unroll the first iteration. If our decExp estimate
-             * was too high, our first quotient will be zero. In this
-             * case, we discard it and decrement decExp.
-             */
-
-            ndigit = 0;
-            q = (int)(b / s);
-            b = 10L * (b % s);
-            m *= 10L;
-            low  = b <  m;
-            high = (b + m) > tens;
-
-            if (q == 0 && !high) {
-                // Ignore leading zero.
-                decExponent--;
-            } else {
-                digits0[ndigit++] = (char)('0' + q);
-            }
-
-            if (decExponent < -3 || decExponent >= 8) {
-                high = low = false;
+        long    dv, dp, dm;
+        final int e10;
+        boolean dvIsTrailingZeros = false;
+        boolean dmIsTrailingZeros = false;
+
+        if (e2 >= 0) {
+            final int q = Math.max(0, log10Pow2(e2) - 1);
+            final int i = -e2 + q + pow5InvBitCount + pow5Bits(q) - 1;
+            dv = mulShift(mv, pow5InvHigh[q], pow5InvLow[q], i);
+            dp = mulShift(mp, pow5InvHigh[q], pow5InvLow[q], i);
+            dm = mulShift(mm, pow5InvHigh[q], pow5InvLow[q], i);
+            e10 = q;
+
+            // Only numbers with at most 22 digits can be multiples of 10^q and have no decimals.
+            if (q <= 21) {
+                if (mv % 5 == 0) {
+                    dvIsTrailingZeros = pow5Factor(mv) >= q;
+                } else if (acceptBounds) {
+                    dmIsTrailingZeros = pow5Factor(mm) >= q;
+                } else if (pow5Factor(mp) >= q) {
+                    dp--;
+                }
             }
-
-            while (!low && !high) {
-                q = (int)(b / s);
-                b = 10 * (b % s);
-                m *= 10;
-
-                if (m > 0L) {
-                    low  = b < m;
-                    high = (b + m) > tens;
+        } else {
+            final int q = Math.max(0, log10Pow5(-e2) - 1);
+            final int i = -e2 - q;
+            final int j = q - pow5Bits(i) + pow5BitCount;
+            dv = mulShift(mv, pow5High[i], pow5Low[i], j);
+            dp = mulShift(mp, pow5High[i], pow5Low[i], j);
+            dm = mulShift(mm, pow5High[i], pow5Low[i], j);
+            e10 = q + e2;
+
+            if (q <= 1) {
+                // mv has at least 2 trailing zero bits, as do mm and mp unless mm is odd.
+                dvIsTrailingZeros = true;
+                if (acceptBounds) {
+                    dmIsTrailingZeros = mm == mv - 1L;
                 } else {
-                    low = true;
-                    high = true;
+                    dp--;
                 }
+            } else if (q < 63) {
+                dvIsTrailingZeros = (mv & ((1L << q) - 1L)) == 0L;
+            }
+        }
 
-                if (low && q == 0) {
+        /*
+         * Remove digits while dm and dp still differ, so that the remaining digits of dv,
+         * rounded, are the shortest decimal in the interval closest to value.
+         */
+        int  removed           = 0;
+        int  lastRemovedDigit  = 0;
+        long output;
+
+        if (dvIsTrailingZeros || dmIsTrailingZeros) {
+            // Rare case where the exact bounds and ties to even matter.
+            for (;;) {
+                final long dpDiv10 = dp / 10;
+                final long dmDiv10 = dm / 10;
+                if (dpDiv10 <= dmDiv10) {
                     break;
                 }
-                digits0[ndigit++] = (char)('0' + q);
+                final long dvDiv10 = dv / 10;
+                dmIsTrailingZeros &= dm == dmDiv10 * 10;
+                dvIsTrailingZeros &= lastRemovedDigit == 0;
+                lastRemovedDigit = (int)(dv - dvDiv10 * 10);
+                dv = dvDiv10;
+                dp = dpDiv10;
+                dm = dmDiv10;
+                removed++;
             }
 
-            lowDigitDifference = (b << 1) - tens;
-        } else {
-            /*
-             * We must do BigInteger arithmetic.
-             * First, construct our BigInteger initial values.
-             */
-
-            BigInteger Bval = multiplyPowerOf5And2(BigInteger.valueOf(bits), B5, B2);
-            BigInteger Sval = constructPowerOf5And2(S5, S2);
-            BigInteger Mval = constructPowerOf5And2(M5, M2);
-
-
-            // Normalize so that BigInteger division works better.
-            final int shiftBias = Long.numberOfLeadingZeros(bits) - 4;
-            Bval = Bval.shiftLeft(shiftBias);
-            Mval = Mval.shiftLeft(shiftBias);
-            Sval = Sval.shiftLeft(shiftBias);
-            final BigInteger tenSval = Sval.multiply(BigInteger.TEN);
-
-            /*
-             * Unroll the first iteration. If our decExp estimate
-             * was too high, our first quotient will be zero. In this
-             * case, we discard it and decrement decExp.
-             */
-
-            ndigit = 0;
-
-            BigInteger[] quoRem = Bval.divideAndRemainder(Sval);
-            q    = quoRem[0].intValue();
-            Bval = quoRem[1].multiply(BigInteger.TEN);
-            Mval = Mval.multiply(BigInteger.TEN);
-            low  = (Bval.compareTo(Mval) < 0);
-            high = (Bval.add(Mval).compareTo(tenSval) > 0);
-
-            if (q == 0 && !high) {
-                // Ignore leading zero.
-                decExponent--;
-            } else {
-                digits0[ndigit++] = (char)('0' + q);
+            if (dmIsTrailingZeros) {
+                for (;;) {
+                    final long dmDiv10 = dm / 10;
+                    if (dm != dmDiv10 * 10) {
+                        break;
+                    }
+                    final long dvDiv10 = dv / 10;
+                    dvIsTrailingZeros &= lastRemovedDigit == 0;
+                    lastRemovedDigit = (int)(dv - dvDiv10 * 10);
+                    dv = dvDiv10;
+                    dp /= 10;
+                    dm = dmDiv10;
+                    removed++;
+                }
             }
 
-            if (decExponent < -3 || decExponent >= 8) {
-                high = low = false;
+            if (dvIsTrailingZeros && lastRemovedDigit == 5 && dv % 2 == 0) {
+                // Exactly halfway, round to even.
+                lastRemovedDigit = 4;
             }
 
-            while(!low && !high) {
-                quoRem = Bval.divideAndRemainder(Sval);
-                q = quoRem[0].intValue();
-                Bval = quoRem[1].multiply(BigInteger.TEN);
-                Mval = Mval.multiply(BigInteger.TEN);
-                low  = (Bval.compareTo(Mval) < 0);
-                high = (Bval.add(Mval).compareTo(tenSval) > 0);
+            output = dv + ((dv == dm && !dmIsTrailingZeros) || lastRemovedDigit >= 5 ? 1 : 0);
+        } else {
+            // Remove two digits at a time first, which is the common case.
+            final long dpDiv100 = dp / 100;
+            final long dmDiv100 = dm / 100;
+            if (dpDiv100 > dmDiv100) {
+                final long dvDiv100 = dv / 100;
+                lastRemovedDigit = (int)(dv - dvDiv100 * 100) / 10;
+                dv = dvDiv100;
+                dp = dpDiv100;
+                dm = dmDiv100;
+                removed += 2;
+            }
 
-                if (low && q == 0) {
+            for (;;) {
+                final long dpDiv10 = dp / 10;
+                final long dmDiv10 = dm / 10;
+                if (dpDiv10 <= dmDiv10) {
                     break;
                 }
-                digits0[ndigit++] = (char)('0' + q);
+                final long dvDiv10 = dv / 10;
+                lastRemovedDigit = (int)(dv - dvDiv10 * 10);
+                dv = dvDiv10;
+                dp = dpDiv10;
+                dm = dmDiv10;
+                removed++;
             }
 
-            if (high && low) {
-                Bval = Bval.shiftLeft(1);
-                lowDigitDifference = Bval.compareTo(tenSval);
-            } else {
-                lowDigitDifference = 0L;
-            }
+            output = dv + (dv == dm || lastRemovedDigit >= 5 ? 1 : 0);
         }
 
-        this.decimalExponent = decExponent + 1;
-        this.digits          = digits0;
-        this.nDigits         = ndigit;
-
-        /*
-         * Last digit gets rounded based on stopping condition.
-         */
-
-        if (high) {
-            if (low) {
-                if (lowDigitDifference == 0L) {
-                    // it's a tie!
-                    // choose based on which digits we like.
-                    if ((digits0[nDigits - 1] & 1) != 0) {
-                        roundup();
-                    }
-                } else if (lowDigitDifference > 0) {
-                    roundup();
-                }
-            } else {
-                roundup();
-            }
-        }
+        return format(bits < 0L, output, e10 + removed);
     }
 
     /**
-     * Count number of significant bits.
-     * @param bits Double's fraction.
-     * @return Number of significant bits.
-     */
-    private static int countSignificantBits(final long bits) {
-        if (bits != 0) {
-            return 64 - Long.numberOfLeadingZeros(bits) - Long.numberOfTrailingZeros(bits);
-        }
-
-        return 0;
-    }
-
-    /*
-     * Cache big powers of 5 handy for future reference.
+     * Format digits times 10^exponent as specified by ECMA 9.8.1.
+     * @param isNegative Is a negative number.
+     * @param output     Digits without trailing zeros.
+     * @param exponent   Decimal exponent of the last digit.
+     * @return Formatted string.
      */
-    private static BigInteger powerOf5Cache[];
+    private static String format(final boolean isNegative, final long output, final int exponent) {
+        final int    nDigits         = decimalLength(output);
+        final int    decimalExponent = exponent + nDigits;
+        // At most a sign, 21 digits of an integer, or 17 digits and a point after "0.00000".
+        final char[] chars           = new char[26];
+        int          pos             = 0;
 
-    /**
-     * Determine the largest power of 5 needed (as BigInteger.)
-     * @param power Power of 5.
-     * @return BigInteger of power of 5.
-     */
-    private static BigInteger bigPowerOf5(final int power) {
-        if (powerOf5Cache == null) {
-            powerOf5Cache = new BigInteger[power + 1];
-        } else if (powerOf5Cache.length <= power) {
-            final BigInteger t[] = new BigInteger[ power+1 ];
-            System.arraycopy(powerOf5Cache, 0, t, 0, powerOf5Cache.length);
-            powerOf5Cache = t;
+        if (isNegative) {
+            chars[pos++] = '-';
         }
 
-        if (powerOf5Cache[power] != null) {
-            return powerOf5Cache[power];
-        } else if (power < powersOf5.length) {
-            return powerOf5Cache[power] = BigInteger.valueOf(powersOf5[power]);
-        } else {
-            // Construct the value recursively.
-            // in order to compute 5^p,
-            // compute its square root, 5^(p/2) and square.
-            // or, let q = p / 2, r = p -q, then
-            // 5^p = 5^(q+r) = 5^q * 5^r
-            final int q = power >> 1;
-            final int r = power - q;
-            BigInteger bigQ = powerOf5Cache[q];
-
-            if (bigQ == null) {
-                bigQ = bigPowerOf5(q);
+        if (decimalExponent > 0 && decimalExponent <= 21) {
+            if (nDigits <= decimalExponent) {
+                writeDigits(chars, pos + nDigits, output);
+                for (int i = pos + nDigits; i < pos + decimalExponent; i++) {
+                    chars[i] = '0';
+                }
+                pos += decimalExponent;
+            } else {
+                pos += nDigits + 1;
+                writeDigits(chars, pos, output, nDigits - decimalExponent);
             }
+        } else if (decimalExponent <= 0 && decimalExponent > -6) {
+            chars[pos++] = '0';
+            chars[pos++] = '.';
 
-            if (r < powersOf5.length) {
-                return (powerOf5Cache[power] = bigQ.multiply(BigInteger.valueOf(powersOf5[r])));
+            for (int i = decimalExponent; i < 0; i++) {
+                chars[pos++] = '0';
             }
-            BigInteger bigR = powerOf5Cache[ r ];
 
-            if (bigR == null) {
-                bigR = bigPowerOf5(r);
+            pos += nDigits;
+            writeDigits(chars, pos, output);
+        } else {
+            if (nDigits > 1) {
+                pos += nDigits + 1;
+                writeDigits(chars, pos, output, nDigits - 1);
+            } else {
+                chars[pos++] = (char)('0' + output);
             }
 
-            return (powerOf5Cache[power] = bigQ.multiply(bigR));
+            chars[pos++] = 'e';
+            chars[pos++] = decimalExponent <= 0 ? '-' : '+';
+
+            final int e = Math.abs(decimalExponent - 1);
+            if (e > 99) {
+                chars[pos++] = (char)('0' + e / 100);
+            }
+            if (e > 9) {
+                chars[pos++] = (char)('0' + e / 10 % 10);
+            }
+            chars[pos++] = (char)('0' + e % 10);
         }
+
+        return new String(chars, 0, pos);
     }
 
     /**
-     * Multiply BigInteger by powers of 5 and 2 (i.e., 10)
-     * @param value Value to multiply.
-     * @param p5    Power of 5.
-     * @param p2    Power of 2.
-     * @return Result.
+     * Write digits ending before end.
+     * @param chars  Destination.
+     * @param end    End position.
+     * @param digits Digits to write.
      */
-    private static BigInteger multiplyPowerOf5And2(final BigInteger value, final int p5, final int p2) {
-        BigInteger returnValue = value;
-
-        if (p5 != 0) {
-            returnValue = returnValue.multiply(bigPowerOf5(p5));
-        }
-
-        if (p2 != 0) {
-            returnValue = returnValue.shiftLeft(p2);
-        }
-
-        return returnValue;
+    private static void writeDigits(final char[] chars, final int end, final long digits) {
+        long rest = digits;
+        int  pos  = end;
+
+        do {
+            chars[--pos] = (char)('0' + rest % 10);
+            rest /= 10;
+        } while (rest != 0L);
     }
 
     /**
-     * Construct a BigInteger power of 5 and 2 (i.e., 10)
-     * @param p5    Power of 5.
-     * @param p2    Power of 2.
-     * @return Result.
+     * Write digits ending before end, with a decimal point before the last nDecimals digits.
+     * @param chars     Destination.
+     * @param end       End position.
+     * @param digits    Digits to write.
+     * @param nDecimals Number of digits after the decimal point.
      */
-    private static BigInteger constructPowerOf5And2(final int p5, final int p2) {
-        BigInteger v = bigPowerOf5(p5);
+    private static void writeDigits(final char[] chars, final int end, final long digits, final int nDecimals) {
+        long rest = digits;
+        int  pos  = end;
 
-        if (p2 != 0) {
-            v = v.shiftLeft(p2);
+        for (int i = 0; i < nDecimals; i++) {
+            chars[--pos] = (char)('0' + rest % 10);
+            rest /= 10;
         }
 
-        return v;
+        chars[--pos] = '.';
+        writeDigits(chars, pos, rest);
     }
 
     /**
-     * Round up last digit by adding one to the least significant digit.
-     * In the unlikely event there is a carry out, deal with it.
-     * assert that this will only happen where there
-     * is only one digit, e.g. (float)1e-44 seems to do it.
+     * Number of decimal digits of a positive value.
+     * @param value Value of at most 17 digits.
+     * @return Number of digits.
      */
-    private void roundup() {
-        int i;
-        int q = digits[ i = (nDigits-1)];
-
-        while (q == '9' && i > 0) {
-            if (decimalExponent < 0) {
-                nDigits--;
-            } else {
-                digits[i] = '0';
-            }
+    private static int decimalLength(final long value) {
+        long limit = 10L;
+        int  length = 1;
 
-            q = digits[--i];
+        while (length < 17 && value >= limit) {
+            limit *= 10L;
+            length++;
         }
 
-        if (q == '9') {
-            // Carryout! High-order 1, rest 0s, larger exp.
-            decimalExponent += 1;
-            digits[0] = '1';
+        return length;
+    }
 
-            return;
-        }
+    /**
+     * Compute (m * pow) >> j for a 128 bit pow.
+     * @param m    Value of at most 55 bits.
+     * @param high High word of pow.
+     * @param low  Low word of pow.
+     * @param j    Shift, larger than 64.
+     * @return Result.
+     */
+    private static long mulShift(final long m, final long high, final long low, final int j) {
+        final long high0 = multiplyHighUnsigned(m, low);
+        final long low1  = m * high;
+        final long high1 = multiplyHighUnsigned(m, high);
+        final long sum   = high0 + low1;
+        final long upper = high1 + (Long.compareUnsigned(sum, high0) < 0 ? 1L : 0L);
+        final int  shift = j - 64;
+
+        return shift < 64 ? (upper << (64 - shift)) | (sum >>> shift) : upper >>> (shift - 64);
+    }
 
-        digits[i] = (char)(q + 1);
+    /**
+     * Upper 64 bits of the unsigned 128 bit product of two longs.
+     * @param x First factor.
+     * @param y Second factor.
+     * @return High word of x * y.
+     */
+    private static long multiplyHighUnsigned(final long x, final long y) {
+        final long x0 = x & 0xFFFF_FFFFL;
+        final long x1 = x >>> 32;
+        final long y0 = y & 0xFFFF_FFFFL;
+        final long y1 = y >>> 32;
+        final long p01 = x0 * y1;
+        final long p10 = x1 * y0;
+        final long middle = ((x0 * y0) >>> 32) + (p01 & 0xFFFF_FFFFL) + (p10 & 0xFFFF_FFFFL);
+
+        return x1 * y1 + (p01 >>> 32) + (p10 >>> 32) + (middle >>> 32);
     }
 
     /**
-     * Format final number string.
-     * @return Formatted string.
+     * Number of times value is divisible by 5.
+     * @param value Positive value.
+     * @return Power of 5.
      */
-    @Override
-    public String toString() {
-        final StringBuilder sb = new StringBuilder(32);
+    private static int pow5Factor(final long value) {
+        long v = value;
+        int  count = 0;
 
-        if (isNegative) {
-            sb.append('-');
+        while (v % 5 == 0) {
+            v /= 5;
+            count++;
         }
 
-        if (isNaN) {
-            sb.append(digits, 0, nDigits);
-        } else {
-            if (decimalExponent > 0 && decimalExponent <= 21) {
-                final int charLength = Math.min(nDigits, decimalExponent);
-                sb.append(digits, 0, charLength);
-
-                if (charLength < decimalExponent) {
-                    sb.append(zeroes, 0, decimalExponent - charLength);
-                } else if (charLength < nDigits) {
-                    sb.append('.');
-                    sb.append(digits, charLength, nDigits - charLength);
-                }
-            } else if (decimalExponent <=0 && decimalExponent > -6) {
-                sb.append('0');
-                sb.append('.');
-
-                if (decimalExponent != 0) {
-                    sb.append(zeroes, 0, -decimalExponent);
-                }
-
-                sb.append(digits, 0, nDigits);
-            } else {
-                sb.append(digits[0]);
-
-                if (nDigits > 1) {
-                    sb.append('.');
-                    sb.append(digits, 1, nDigits - 1);
-                }
-
-                sb.append('e');
-                final int exponent;
-                int e;
-
-                if (decimalExponent <= 0) {
-                    sb.append('-');
-                    exponent = e = -decimalExponent + 1;
-                } else {
-                    sb.append('+');
-                    exponent = e = decimalExponent - 1;
-                }
-
-                if (exponent > 99) {
-                    sb.append((char)(e / 100 + '0'));
-                    e %= 100;
-                }
+        return count;
+    }
 
-                if (exponent > 9) {
-                    sb.append((char)(e / 10 + '0'));
-                    e %= 10;
-                }
+    /**
+     * Number of bits of 5^e.
+     * @param e Power of 5, at most 3528.
+     * @return Bit length.
+     */
+    private static int pow5Bits(final int e) {
+        return ((e * 1_217_359) >>> 19) + 1;
+    }
 
-                sb.append((char)(e + '0'));
-            }
-        }
+    /**
+     * Floor of log10(2^e).
+     * @param e Power of 2, at most 1650.
+     * @return Logarithm.
+     */
+    private static int log10Pow2(final int e) {
+        return (e * 78_913) >>> 18;
+    }
 
-        return sb.toString();
+    /**
+     * Floor of log10(5^e).
+     * @param e Power of 5, at most 2620.
+     * @return Logarithm.
+     */
+    private static int log10Pow5(final int e) {
+        return (e * 732_923) >>> 20;
     }
 }
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.anatawa12.fixrtm.nashorn.internal.runtime;
+
+import static com.anatawa12.fixrtm.nashorn.internal.lookup.Lookup.MH;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import com.anatawa12.fixrtm.nashorn.internal.codegen.Compiler;
+import com.anatawa12.fixrtm.nashorn.internal.codegen.CompilerConstants;
+import com.anatawa12.fixrtm.nashorn.internal.codegen.ObjectClassGenerator;
+import com.anatawa12.fixrtm.nashorn.internal.objects.Global;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.arrays.ArrayIndex;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.options.Options;
+import com.anatawa12.fixrtm.nashorn.internal.scripts.JO;
+
+/**
+ * Template for creating many script objects with the same fixed set of properties from Java.
+ *
+ * <p>The property map for the keys is computed once, so instantiating the template does not
+ * go through a map transition or property lookup per property. Like object literals, objects
+ * with up to {@code nashorn.spill.threshold} properties use a {@code JO} structure class with
+ * one field per property, larger objects keep their properties in the spill pool.</p>
+ *
+ * <p>Arrays of primitive values can be created without copying by {@link Global#allocate(int[])}
+ * and {@link Global#allocate(double[])}, which wrap the Java array in an {@code IntArrayData}
+ * or {@code NumberArrayData}. {@link #newArray(Object[][])} creates an array of template
+ * instances backed by an {@code ObjectArrayData}.</p>
+ *
+ * <p>Templates are immutable and can be shared between threads and globals.</p>
+ */
+public final class ObjectTemplate {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    /** From what size should we use spill instead of fields, same as for object literals */
+    private static final int SPILL_THRESHOLD = Options.getIntProperty("nashorn.spill.threshold", 256);
+
+    /** Property keys in value order */
+    private final String[] keys;
+
+    /** Property map shared by all instances */
+    private final PropertyMap map;
+
+    /** Properties in value order, null for spill objects */
+    private final Property[] properties;
+
+    /** Allocator of the structure class, null for spill objects */
+    private final MethodHandle allocator;
+
+    /**
+     * Constructor
+     *
+     * @param keys property keys, in the order values are passed to {@link #newInstance(Object...)}
+     * @throws IllegalArgumentException if a key is duplicated or is an array index
+     */
+    public ObjectTemplate(final String... keys) {
+        this.keys = keys.clone();
+
+        final Set<String> seen = new HashSet<>();
+        for (final String key : this.keys) {
+            if (!seen.add(key)) {
+                throw new IllegalArgumentException("duplicate key " + key);
+            }
+            if (ArrayIndex.isValidArrayIndex(ArrayIndex.getArrayIndex(key))) {
+                throw new IllegalArgumentException("array index key " + key);
+            }
+        }
+
+        final List<Property> props = new ArrayList<>(this.keys.length);
+        if (this.keys.length > SPILL_THRESHOLD) {
+            for (int i = 0; i < this.keys.length; i++) {
+                props.add(new SpillProperty(this.keys[i], 0, i, Object.class));
+            }
+            this.map        = PropertyMap.newMap(props, JO.class.getName(), 0, 0, this.keys.length);
+            this.properties = null;
+            this.allocator  = null;
+        } else {
+            final int fieldMaximum = ObjectClassGenerator.getPaddedFieldCount(this.keys.length);
+            final String className = Compiler.binaryName(ObjectClassGenerator.getClassName(fieldMaximum, false));
+            final Class<? extends ScriptObject> structure;
+            try {
+                structure = Context.forStructureClass(className);
+            } catch (final ClassNotFoundException e) {
+                throw new AssertionError(e);
+            }
+            for (int i = 0; i < this.keys.length; i++) {
+                props.add(new AccessorProperty(this.keys[i], 0, structure, i, Object.class));
+            }
+            this.map        = PropertyMap.newMap(props, className, this.keys.length, fieldMaximum, 0);
+            this.properties = props.toArray(new Property[0]);
+            this.allocator  = MH.findStatic(LOOKUP, structure, CompilerConstants.ALLOCATE.symbolName(), MH.type(ScriptObject.class, PropertyMap.class));
+        }
+    }
+
+    /**
+     * Get the property keys of this template.
+     *
+     * @return property keys in value order
+     */
+    public String[] getKeys() {
+        return keys.clone();
+    }
+
+    /**
+     * Create a new object with the object prototype of the current global.
+     *
+     * @param values property values, in key order
+     * @return the new object
+     * @throws IllegalArgumentException if the number of values does not match the number of keys
+     */
+    public ScriptObject newInstance(final Object... values) {
+        if (values.length != keys.length) {
+            throw new IllegalArgumentException("expected " + keys.length + " values, got " + values.length);
+        }
+
+        final ScriptObject object;
+        if (allocator == null) {
+            object = new JO(map, null, values.clone());
+        } else {
+            try {
+                object = (ScriptObject)allocator.invokeExact(map);
+            } catch (final RuntimeException | Error e) {
+                throw e;
+            } catch (final Throwable t) {
+                throw new RuntimeException(t);
+            }
+            for (int i = 0; i < properties.length; i++) {
+                properties[i].setValue(object, object, values[i], false);
+            }
+        }
+        object.setInitialProto(Global.objectPrototype());
+        return object;
+    }
+
+    /**
+     * Create a new array of objects, one for each row of values.
+     *
+     * @param rows property values of each object, in key order
+     * @return the new array
+     * @throws IllegalArgumentException if the number of values in a row does not match the number of keys
+     */
+    public ScriptObject newArray(final Object[][] rows) {
+        final Object[] objects = new Object[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            objects[i] = newInstance(rows[i]);
+        }
+        return Global.allocate(objects);
+    }
+}
@@ -37,13 +37,15 @@ import java.lang.invoke.SwitchPoint;
 import java.lang.ref.Reference;
 import java.lang.ref.SoftReference;
 import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.concurrent.atomic.LongAdder;
 import com.anatawa12.fixrtm.nashorn.internal.runtime.options.Options;
 import com.anatawa12.fixrtm.nashorn.internal.scripts.JO;
@@ -96,13 +98,19 @@ public class PropertyMap implements Iterable<Object>, Serializable {
     private transient SharedPropertyMap sharedProtoMap;
 
     /** {@link SwitchPoint}s for gets on inherited properties. */
-    private transient HashMap<String, SwitchPoint> protoSwitches;
+    private transient volatile ConcurrentHashMap<String, SwitchPoint> protoSwitches;
 
-    /** History of maps, used to limit map duplication. */
-    private transient WeakHashMap<Property, Reference<PropertyMap>> history;
+    /**
+     * History of maps, used to limit map duplication. Transitions look up and publish entries without
+     * locking, so threads creating objects of the same shape don't serialize on this map.
+     */
+    private transient volatile ConcurrentHashMap<Property, Reference<PropertyMap>> history;
 
-    /** History of prototypes, used to limit map duplication. */
-    private transient WeakHashMap<ScriptObject, SoftReference<PropertyMap>> protoHistory;
+    /** History size at which entries for collected maps are purged next. */
+    private transient int historyPurgeSize;
+
+    /** History of prototypes, used to limit map duplication. Guarded by its own monitor. */
+    private transient volatile WeakHashMap<ScriptObject, SoftReference<PropertyMap>> protoHistory;
 
     /** property listeners */
     private transient PropertyListeners listeners;
@@ -111,6 +119,21 @@ public class PropertyMap implements Iterable<Object>, Serializable {
 
     private static final long serialVersionUID = -7041836752008732533L;
 
+    /** Minimum history size before entries for collected maps are purged. */
+    private static final int MIN_HISTORY_PURGE_SIZE = 16;
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<PropertyMap, ConcurrentHashMap> PROTO_SWITCHES_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(PropertyMap.class, ConcurrentHashMap.class, "protoSwitches");
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<PropertyMap, ConcurrentHashMap> HISTORY_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(PropertyMap.class, ConcurrentHashMap.class, "history");
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<PropertyMap, WeakHashMap> PROTO_HISTORY_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(PropertyMap.class, WeakHashMap.class, "protoHistory");
+
     /**
      * Constructs a new property map.
      *
@@ -335,18 +358,21 @@ public class PropertyMap implements Iterable<Object>, Serializable {
      * @param key Property key.
      * @return A shared {@link SwitchPoint} for the property.
      */
-    public synchronized SwitchPoint getSwitchPoint(final String key) {
-        if (protoSwitches == null) {
-            protoSwitches = new HashMap<>();
+    public SwitchPoint getSwitchPoint(final String key) {
+        ConcurrentHashMap<String, SwitchPoint> switches = protoSwitches;
+        if (switches == null) {
+            PROTO_SWITCHES_UPDATER.compareAndSet(this, null, new ConcurrentHashMap<String, SwitchPoint>());
+            switches = protoSwitches;
         }
 
-        SwitchPoint switchPoint = protoSwitches.get(key);
-        if (switchPoint == null) {
-            switchPoint = new SwitchPoint();
-            protoSwitches.put(key, switchPoint);
+        final SwitchPoint switchPoint = switches.get(key);
+        if (switchPoint != null) {
+            return switchPoint;
         }
 
-        return switchPoint;
+        final SwitchPoint newSwitchPoint = new SwitchPoint();
+        final SwitchPoint existing = switches.putIfAbsent(key, newSwitchPoint);
+        return existing != null ? existing : newSwitchPoint;
     }
 
     /**
@@ -354,11 +380,11 @@ public class PropertyMap implements Iterable<Object>, Serializable {
      *
      * @param key {@link Property} key to invalidate.
      */
-    synchronized void invalidateProtoSwitchPoint(final String key) {
-        if (protoSwitches != null) {
-            final SwitchPoint sp = protoSwitches.get(key);
+    void invalidateProtoSwitchPoint(final String key) {
+        final ConcurrentHashMap<String, SwitchPoint> switches = protoSwitches;
+        if (switches != null) {
+            final SwitchPoint sp = switches.remove(key);
             if (sp != null) {
-                protoSwitches.remove(key);
                 if (Context.DEBUG) {
                     protoInvalidations.increment();
                 }
@@ -370,15 +396,22 @@ public class PropertyMap implements Iterable<Object>, Serializable {
     /**
      * Indicate that proto itself has changed in hierarchy somewhere.
      */
-    synchronized void invalidateAllProtoSwitchPoints() {
-        if (protoSwitches != null) {
-            final int size = protoSwitches.size();
-            if (size > 0) {
+    void invalidateAllProtoSwitchPoints() {
+        final ConcurrentHashMap<String, SwitchPoint> switches = protoSwitches;
+        if (switches != null && !switches.isEmpty()) {
+            // remove each entry before invalidating it, so switch points created concurrently stay valid
+            final ArrayList<SwitchPoint> invalidated = new ArrayList<>(switches.size());
+            for (final String key : switches.keySet()) {
+                final SwitchPoint sp = switches.remove(key);
+                if (sp != null) {
+                    invalidated.add(sp);
+                }
+            }
+            if (!invalidated.isEmpty()) {
                 if (Context.DEBUG) {
-                    protoInvalidations.add(size);
+                    protoInvalidations.add(invalidated.size());
                 }
-                SwitchPoint.invalidateAll(protoSwitches.values().toArray(new SwitchPoint[size]));
-                protoSwitches.clear();
+                SwitchPoint.invalidateAll(invalidated.toArray(new SwitchPoint[invalidated.size()]));
             }
         }
     }
@@ -463,13 +496,12 @@ public class PropertyMap implements Iterable<Object>, Serializable {
      *
      * @return New {@link PropertyMap} with {@link Property} added.
      */
-    public final synchronized PropertyMap addProperty(final Property property) {
+    public final PropertyMap addProperty(final Property property) {
         propertyAdded(property, true);
-        PropertyMap newMap = checkHistory(property);
+        final PropertyMap newMap = checkHistory(property);
 
         if (newMap == null) {
-            newMap = addPropertyInternal(property);
-            addToHistory(property, newMap);
+            return addToHistory(property, addPropertyInternal(property));
         }
 
         return newMap;
@@ -493,7 +525,7 @@ public class PropertyMap implements Iterable<Object>, Serializable {
      *
      * @return New {@link PropertyMap} with {@link Property} removed or {@code null} if not found.
      */
-    public final synchronized PropertyMap deleteProperty(final Property property) {
+    public final PropertyMap deleteProperty(final Property property) {
         propertyDeleted(property, true);
         PropertyMap newMap = checkHistory(property);
         final String key = property.getKey();
@@ -514,7 +546,7 @@ public class PropertyMap implements Iterable<Object>, Serializable {
                 newMap = deriveMap(newProperties, flags, fieldCount, spillLength);
                 newMap.updateFreeSlots(property, null);
             }
-            addToHistory(property, newMap);
+            newMap = addToHistory(property, newMap);
         }
 
         return newMap;
@@ -723,9 +755,13 @@ public class PropertyMap implements Iterable<Object>, Serializable {
      * @return Existing {@link PropertyMap} or {@code null} if not found.
      */
     private PropertyMap checkProtoHistory(final ScriptObject proto) {
+        final WeakHashMap<ScriptObject, SoftReference<PropertyMap>> protos = protoHistory;
         final PropertyMap cachedMap;
-        if (protoHistory != null) {
-            final SoftReference<PropertyMap> weakMap = protoHistory.get(proto);
+        if (protos != null) {
+            final SoftReference<PropertyMap> weakMap;
+            synchronized (protos) {
+                weakMap = protos.get(proto);
+            }
             cachedMap = (weakMap != null ? weakMap.get() : null);
         } else {
             cachedMap = null;
@@ -743,27 +779,77 @@ public class PropertyMap implements Iterable<Object>, Serializable {
      *
      * @param newProto Prototype to add (key.)
      * @param newMap   {@link PropertyMap} associated with prototype.
+     * @return the map in the history for the prototype, {@code newMap} unless another thread added one first
      */
-    private void addToProtoHistory(final ScriptObject newProto, final PropertyMap newMap) {
-        if (protoHistory == null) {
-            protoHistory = new WeakHashMap<>();
+    private PropertyMap addToProtoHistory(final ScriptObject newProto, final PropertyMap newMap) {
+        WeakHashMap<ScriptObject, SoftReference<PropertyMap>> protos = protoHistory;
+        if (protos == null) {
+            PROTO_HISTORY_UPDATER.compareAndSet(this, null, new WeakHashMap<ScriptObject, SoftReference<PropertyMap>>());
+            protos = protoHistory;
         }
 
-        protoHistory.put(newProto, new SoftReference<>(newMap));
+        synchronized (protos) {
+            final SoftReference<PropertyMap> ref = protos.get(newProto);
+            final PropertyMap existing = ref != null ? ref.get() : null;
+            if (existing != null) {
+                return existing;
+            }
+            protos.put(newProto, new SoftReference<>(newMap));
+        }
+        return newMap;
     }
 
     /**
-     * Track the modification of the map.
+     * Track the modification of the map. If another thread published a map for the same property
+     * first, that map is returned instead so that both threads share the same shape.
      *
      * @param property Mapping property.
      * @param newMap   Modified {@link PropertyMap}.
+     * @return the map in the history for the property
      */
-    private void addToHistory(final Property property, final PropertyMap newMap) {
-        if (history == null) {
-            history = new WeakHashMap<>();
+    private PropertyMap addToHistory(final Property property, final PropertyMap newMap) {
+        ConcurrentHashMap<Property, Reference<PropertyMap>> maps = history;
+        if (maps == null) {
+            HISTORY_UPDATER.compareAndSet(this, null, new ConcurrentHashMap<Property, Reference<PropertyMap>>());
+            maps = history;
+        }
+
+        final Reference<PropertyMap> newRef = softReferenceDerivationLimit == 0 ? new WeakReference<>(newMap) : new SoftReference<>(newMap);
+        for (;;) {
+            final Reference<PropertyMap> ref = maps.putIfAbsent(property, newRef);
+            if (ref == null) {
+                break;
+            }
+            final PropertyMap existing = ref.get();
+            if (existing != null) {
+                return existing;
+            }
+            if (maps.replace(property, ref, newRef)) {
+                break;
+            }
         }
 
-        history.put(property, softReferenceDerivationLimit == 0 ? new WeakReference<>(newMap) : new SoftReference<>(newMap));
+        if (maps.size() > historyPurgeSize) {
+            purgeHistory(maps);
+        }
+        return newMap;
+    }
+
+    /**
+     * Remove entries for maps that have been collected. Unlike the weak keys of the history this
+     * replaced, the property keys are held strongly, so entries are purged whenever the history
+     * has doubled in size since the last purge.
+     *
+     * @param maps the history
+     */
+    private void purgeHistory(final ConcurrentHashMap<Property, Reference<PropertyMap>> maps) {
+        final Iterator<Reference<PropertyMap>> iter = maps.values().iterator();
+        while (iter.hasNext()) {
+            if (iter.next().get() == null) {
+                iter.remove();
+            }
+        }
+        historyPurgeSize = Math.max(MIN_HISTORY_PURGE_SIZE, maps.size() * 2);
     }
 
     /**
@@ -774,9 +860,9 @@ public class PropertyMap implements Iterable<Object>, Serializable {
      * @return Existing map or {@code null} if not found.
      */
     private PropertyMap checkHistory(final Property property) {
-
-        if (history != null) {
-            final Reference<PropertyMap> ref = history.get(property);
+        final ConcurrentHashMap<Property, Reference<PropertyMap>> maps = history;
+        if (maps != null) {
+            final Reference<PropertyMap> ref = maps.get(property);
             final PropertyMap historicMap = ref == null ? null : ref.get();
 
             if (historicMap != null) {
@@ -909,13 +995,53 @@ public class PropertyMap implements Iterable<Object>, Serializable {
         return spillLength;
     }
 
+    /**
+     * Get the length of the primitive spill area needed by objects using this map,
+     * i.e. one past the highest spill slot that currently holds a primitive typed
+     * property. Returns 0 if no spill property has a primitive type, in which case
+     * no primitive spill array needs to be allocated.
+     *
+     * @return primitive spill length
+     */
+    public int getPrimitiveSpillLength() {
+        int length = 0;
+        for (final Property property : properties.getProperties()) {
+            if (property.isSpill() && isPrimitiveSpill(property)) {
+                length = Math.max(length, property.getSlot() + 1);
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Get the length of the object spill area needed by objects using this map,
+     * i.e. one past the highest spill slot that currently holds a property that
+     * is not primitive typed.
+     *
+     * @return object spill length
+     */
+    public int getObjectSpillLength() {
+        int length = 0;
+        for (final Property property : properties.getProperties()) {
+            if (property.isSpill() && !isPrimitiveSpill(property)) {
+                length = Math.max(length, property.getSlot() + 1);
+            }
+        }
+        return length;
+    }
+
+    private static boolean isPrimitiveSpill(final Property property) {
+        final Class<?> type = property.getLocalType();
+        return type != null && type.isPrimitive();
+    }
+
     /**
      * Return a property map with the same layout that is associated with the new prototype object.
      *
      * @param newProto New prototype object to replace oldProto.
      * @return New {@link PropertyMap} with prototype changed.
      */
-    public synchronized PropertyMap changeProto(final ScriptObject newProto) {
+    public PropertyMap changeProto(final ScriptObject newProto) {
         final PropertyMap nextMap = checkProtoHistory(newProto);
         if (nextMap != null) {
             return nextMap;
@@ -925,10 +1051,7 @@ public class PropertyMap implements Iterable<Object>, Serializable {
             setProtoNewMapCount.increment();
         }
 
-        final PropertyMap newMap = makeUnsharedCopy();
-        addToProtoHistory(newProto, newMap);
-
-        return newMap;
+        return addToProtoHistory(newProto, makeUnsharedCopy());
     }
 
     /**
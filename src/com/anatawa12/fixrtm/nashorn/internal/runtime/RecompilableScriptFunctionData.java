@@ -43,6 +43,8 @@ import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.ThreadFactory;
@@ -73,6 +75,7 @@ import com.anatawa12.fixrtm.nashorn.internal.parser.Token;
 import com.anatawa12.fixrtm.nashorn.internal.parser.TokenType;
 import com.anatawa12.fixrtm.nashorn.internal.runtime.logging.DebugLogger;
 import com.anatawa12.fixrtm.nashorn.internal.runtime.logging.Loggable;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.linker.Bootstrap;
 import com.anatawa12.fixrtm.nashorn.internal.runtime.logging.Logger;
 import com.anatawa12.fixrtm.nashorn.internal.runtime.options.Options;
 /**
@@ -137,6 +140,12 @@ public final class RecompilableScriptFunctionData extends ScriptFunctionData imp
 
     private transient volatile DebugLogger log;
 
+    /**
+     * Dynamic invokers for calling functions of this data as callbacks, keyed by call type. Tolerates the race of
+     * two threads creating the map, the loser's invokers are merely created again.
+     */
+    private transient volatile ConcurrentMap<MethodType, MethodHandle> callbackInvokers;
+
     private final Map<String, Integer> externalScopeDepths;
 
     private final Set<String> internalSymbols;
@@ -1114,6 +1123,29 @@ public final class RecompilableScriptFunctionData extends ScriptFunctionData imp
         return true;
     }
 
+    /**
+     * Returns a dynamic invoker of the given call type used only for calling functions of this data. As only functions
+     * sharing this data's code pass through it, it stays linked to their best compiled version for the call type and
+     * only relinks when that version is deoptimized.
+     *
+     * @param type call type, (callee, this, args...)
+     * @return dynamic invoker
+     */
+    MethodHandle getCallbackInvoker(final MethodType type) {
+        ConcurrentMap<MethodType, MethodHandle> invokers = callbackInvokers;
+        if (invokers == null) {
+            invokers = new ConcurrentHashMap<>();
+            callbackInvokers = invokers;
+        }
+        final MethodHandle invoker = invokers.get(type);
+        if (invoker != null) {
+            return invoker;
+        }
+        final MethodHandle newInvoker = Bootstrap.createDynamicInvoker("dyn:call", type);
+        final MethodHandle existing = invokers.putIfAbsent(type, newInvoker);
+        return existing != null ? existing : newInvoker;
+    }
+
     private void readObject(final java.io.ObjectInputStream in) throws IOException, ClassNotFoundException {
         in.defaultReadObject();
         logLock = new Object();
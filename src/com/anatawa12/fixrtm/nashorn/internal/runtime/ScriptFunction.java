@@ -464,6 +464,17 @@ public class ScriptFunction extends ScriptObject {
         return data.isStrict();
     }
 
+    /**
+     * Returns true if this is a script function that receives its arguments as fixed
+     * parameters and doesn't use the arguments object. An {@code Object[]} passed to such
+     * a function through a call site is never retained, so callers can reuse it.
+     *
+     * @return true if arguments arrays passed to this function are not retained
+     */
+    public final boolean takesFixedArguments() {
+        return data instanceof RecompilableScriptFunctionData && !data.isVariableArity();
+    }
+
     /**
      * Returns true if this is a non-strict, non-built-in function that requires
      * non-primitive this argument according to ECMA 10.4.3.
@@ -1198,6 +1209,23 @@ public class ScriptFunction extends ScriptObject {
         return MH.insertArguments(bound, 1, ScriptRuntime.UNDEFINED);
     }
 
+    /**
+     * Returns a dynamic invoker of the given type for calling this function
+     * repeatedly from built-ins, such as the callbacks of the array iteration
+     * functions. The invoker is shared only by functions created from the same
+     * script function, so unlike an invoker shared by all callbacks it does not
+     * go megamorphic. Returns null for functions not compiled from script.
+     *
+     * @param type call type, (callee, this, args...)
+     * @return dynamic invoker, or null
+     */
+    public MethodHandle getCallbackInvoker(final MethodType type) {
+        if (data instanceof RecompilableScriptFunctionData) {
+            return ((RecompilableScriptFunctionData)data).getCallbackInvoker(type);
+        }
+        return null;
+    }
+
     /**
      * Used for noSuchMethod/noSuchProperty and JSAdapter hooks.
      *
@@ -121,9 +121,15 @@ public abstract class ScriptObject implements PropertyAccess, Cloneable {
     /** Is this a builtin object? */
     public static final int IS_BUILTIN             = 1 << 3;
 
+    /** Result of {@link #findPropertyDepth(String, boolean)} if the property was not found. */
+    protected static final int PROPERTY_NOT_FOUND = -1;
+
+    /** Result of {@link #findPropertyDepth(String, boolean)} if the lookup must use {@link #findProperty(String, boolean)}. */
+    protected static final int PROPERTY_NEEDS_FIND = -2;
+
     /**
-     * Spill growth rate - by how many elements does {@link ScriptObject#primitiveSpill} and
-     * {@link ScriptObject#objectSpill} when full
+     * Spill growth rate - by how many elements does {@link ScriptObject#primitiveSpill} or
+     * {@link ScriptObject#objectSpill} grow when full
      */
     public static final int SPILL_RATE = 8;
 
@@ -136,10 +142,16 @@ public abstract class ScriptObject implements PropertyAccess, Cloneable {
     /** Object flags. */
     private int flags;
 
-    /** Area for primitive properties added to object after instantiation, see {@link AccessorProperty} */
+    /**
+     * Area for primitive properties added to object after instantiation, see {@link AccessorProperty}.
+     * Grown independently of {@link #objectSpill} and only allocated once a primitive value is spilled.
+     */
     protected long[]   primitiveSpill;
 
-    /** Area for reference properties added to object after instantiation, see {@link AccessorProperty} */
+    /**
+     * Area for reference properties added to object after instantiation, see {@link AccessorProperty}.
+     * Grown independently of {@link #primitiveSpill}.
+     */
     protected Object[] objectSpill;
 
     /** Indexed array data. */
@@ -195,6 +207,7 @@ public abstract class ScriptObject implements PropertyAccess, Cloneable {
     static final MethodHandle CAS_MAP           = findOwnMH_V("compareAndSetMap", boolean.class, PropertyMap.class, PropertyMap.class);
     static final MethodHandle EXTENSION_CHECK   = findOwnMH_V("extensionCheck", boolean.class, boolean.class, String.class);
     static final MethodHandle ENSURE_SPILL_SIZE = findOwnMH_V("ensureSpillSize", Object.class, int.class);
+    static final MethodHandle ENSURE_PRIMITIVE_SPILL_SIZE = findOwnMH_V("ensurePrimitiveSpillSize", Object.class, int.class);
 
     /**
      * Constructor
@@ -232,7 +245,9 @@ public abstract class ScriptObject implements PropertyAccess, Cloneable {
 
     /**
      * Constructor used to instantiate spill properties directly. Used from
-     * SpillObjectCreator.
+     * SpillObjectCreator. The two spill pools are sized independently, see
+     * {@link PropertyMap#getPrimitiveSpillLength()} and {@link PropertyMap#getObjectSpillLength()},
+     * and either may be null if no property needs it.
      *
      * @param map            property maps
      * @param primitiveSpill primitive spills
@@ -242,7 +257,6 @@ public abstract class ScriptObject implements PropertyAccess, Cloneable {
         this(map);
         this.primitiveSpill = primitiveSpill;
         this.objectSpill    = objectSpill;
-        assert primitiveSpill == null || primitiveSpill.length == objectSpill.length : " primitive spill pool size is not the same length as object spill pool size";
     }
 
     /**
@@ -816,6 +830,65 @@ public abstract class ScriptObject implements PropertyAccess, Cloneable {
         return null;
     }
 
+    /**
+     * Low level property API. This is an allocation free variant of {@link #findProperty(String, boolean)}
+     * for runtime paths that do not need a {@link FindProperty} object. Instead of the find result it returns
+     * the number of prototype links between this object and the owner of the property, so the owner is
+     * {@code this} for 0, its prototype for 1 and so on, and the property can be retrieved from the owner's map.
+     *
+     * @param key  Property key.
+     * @param deep Whether the search should look up proto chain.
+     *
+     * @return depth of the owner in the prototype chain, {@link #PROPERTY_NOT_FOUND} if not found, or
+     * {@link #PROPERTY_NEEDS_FIND} if the lookup must be done using {@link #findProperty(String, boolean)}.
+     */
+    public final int findPropertyDepth(final String key, final boolean deep) {
+        return findPropertyDepth(key, deep, this);
+    }
+
+    /**
+     * Low level property API. See {@link #findPropertyDepth(String, boolean)}. Objects that override
+     * {@link #findProperty(String, boolean, ScriptObject)} must override this as well, returning
+     * {@link #PROPERTY_NEEDS_FIND} whenever their custom lookup applies.
+     *
+     * @param key   Property key.
+     * @param deep  Whether the search should look up proto chain.
+     * @param start the object on which the lookup was originally initiated
+     *
+     * @return depth of the owner in the prototype chain, {@link #PROPERTY_NOT_FOUND} or {@link #PROPERTY_NEEDS_FIND}
+     */
+    protected int findPropertyDepth(final String key, final boolean deep, final ScriptObject start) {
+        if (getMap().findProperty(key) != null) {
+            return 0;
+        }
+
+        if (deep) {
+            final ScriptObject myProto = getProto();
+            final int depth = myProto == null ? PROPERTY_NOT_FOUND : myProto.findPropertyDepth(key, true, start);
+            // see findProperty(String, boolean, ScriptObject)
+            checkSharedProtoMap();
+            return depth < 0 ? depth : depth + 1;
+        }
+
+        return PROPERTY_NOT_FOUND;
+    }
+
+    /**
+     * Get the object at the given depth of the prototype chain, as returned by
+     * {@link #findPropertyDepth(String, boolean)}.
+     *
+     * @param depth prototype chain depth, 0 for this object
+     * @return the object at the given depth
+     */
+    public final ScriptObject getProtoAtDepth(final int depth) {
+        assert depth >= 0;
+        ScriptObject obj = this;
+        for (int i = depth; i-- > 0;) {
+            obj = obj.getProto();
+        }
+        return obj;
+    }
+
     /**
      * Low level property API. This is similar to {@link #findProperty(String, boolean)} but returns a
      * {@code boolean} value instead of a {@link FindProperty} object.
@@ -1084,6 +1157,36 @@ public abstract class ScriptObject implements PropertyAccess, Cloneable {
         return UNDEFINED_INT;
     }
 
+    // Allocation free variant of getIntValue(FindProperty, int) for properties that are not user accessors
+    private static int getIntValue(final Property property, final ScriptObject owner, final int programPoint) {
+        final MethodHandle getter = isValid(programPoint) ? property.getOptimisticGetter(int.class, programPoint) : property.getGetter(int.class);
+        try {
+            return (int)getter.invokeExact((Object)owner);
+        } catch (final Error|RuntimeException e) {
+            throw e;
+        } catch (final Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // Allocation free variant of getDoubleValue(FindProperty, int) for properties that are not user accessors
+    private static double getDoubleValue(final Property property, final ScriptObject owner, final int programPoint) {
+        final MethodHandle getter = isValid(programPoint) ? property.getOptimisticGetter(double.class, programPoint) : property.getGetter(double.class);
+        try {
+            return (double)getter.invokeExact((Object)owner);
+        } catch (final Error|RuntimeException e) {
+            throw e;
+        } catch (final Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // Allocation free equivalent of FindProperty.getObjectValue() for a property owned by owner
+    private Object getObjectValue(final String key, final ScriptObject owner) {
+        final Property property = owner.getMap().findProperty(key);
+        return property.getObjectValue(FindProperty.getGetterReceiver(property, this, owner), owner);
+    }
+
     private static double getDoubleValue(final FindProperty find, final int programPoint) {
         final MethodHandle getter = find.getGetter(double.class, programPoint, null);
         if (getter != null) {
@@ -1992,6 +2095,9 @@ public abstract class ScriptObject implements PropertyAccess, Cloneable {
             }
             protoSwitchPoints = getProtoSwitchPoints(name, owner);
         } else {
+            if (!isScope() && isFrozen() && isPlainDataProperty(property)) {
+                mh = addFrozenConstant(mh, find.getObjectValue(), returnType, programPoint);
+            }
             protoSwitchPoints = null;
         }
 
@@ -1999,6 +2105,36 @@ public abstract class ScriptObject implements PropertyAccess, Cloneable {
         return inv.addSwitchPoint(findBuiltinSwitchPoint(name));
     }
 
+    /*
+     * Whether the property is stored in a field or spill slot of a JO or JD object. Native accessors
+     * of builtin objects, like the lastIndex of a RegExp or the length of arrays and arguments, may still
+     * change after the object has been frozen.
+     */
+    private boolean isPlainDataProperty(final Property property) {
+        return StructureLoader.isStructureClass(getClass().getName()) && property instanceof AccessorProperty &&
+                !(property instanceof UserAccessorProperty) && !property.isBound() && !property.isParameter() && property.getSlot() >= 0;
+    }
+
+    /**
+     * The own data properties of a frozen object can never change, so a load from the object this
+     * call site was linked for returns a constant the JIT can fold. Other objects sharing the map
+     * still pass the map guard and fall back to the regular getter, so this does not cause relinking.
+     *
+     * @param getter       regular getter for the property
+     * @param value        current (and final) value of the property
+     * @param returnType   call site return type
+     * @param programPoint program point, or {@link UnwarrantedOptimismException#INVALID_PROGRAM_POINT}
+     *
+     * @return getter that returns a constant for this object
+     */
+    private MethodHandle addFrozenConstant(final MethodHandle getter, final Object value, final Class<?> returnType, final int programPoint) {
+        final boolean isOptimistic = programPoint != UnwarrantedOptimismException.INVALID_PROGRAM_POINT;
+        final MethodType type = getter.type();
+        final MethodHandle constant = GlobalConstants.adaptConstantGetter(GlobalConstants.staticConstantGetter(value), value, returnType, isOptimistic, programPoint);
+        final MethodHandle isThis = NashornGuards.getIdentityGuard(this);
+        return MH.guardWithTest(MH.asType(isThis, isThis.type().changeParameterType(0, type.parameterType(0))), MH.asType(constant, type), getter);
+    }
+
     private static GuardedInvocation findMegaMorphicGetMethod(final CallSiteDescriptor desc, final String name, final boolean isMethod) {
         Context.getContextTrusted().getLogger(ObjectClassGenerator.class).warning("Megamorphic getter: " + desc + " " + name + " " +isMethod);
         final MethodHandle invoker = MH.insertArguments(MEGAMORPHIC_GET, 1, name, isMethod, NashornCallSiteDescriptor.isScope(desc));
@@ -2008,9 +2144,14 @@ public abstract class ScriptObject implements PropertyAccess, Cloneable {
 
     @SuppressWarnings("unused")
     private Object megamorphicGet(final String key, final boolean isMethod, final boolean isScope) {
-        final FindProperty find = findProperty(key, true);
-        if (find != null) {
-            return find.getObjectValue();
+        final int depth = findPropertyDepth(key, true);
+        if (depth >= 0) {
+            return getObjectValue(key, getProtoAtDepth(depth));
+        } else if (depth == PROPERTY_NEEDS_FIND) {
+            final FindProperty find = findProperty(key, true);
+            if (find != null) {
+                return find.getObjectValue();
+            }
         }
 
         return isMethod ? getNoSuchMethod(key, isScope, INVALID_PROGRAM_POINT) : invokeNoSuchProperty(key, isScope, INVALID_PROGRAM_POINT);
@@ -2513,8 +2654,8 @@ public abstract class ScriptObject implements PropertyAccess, Cloneable {
             property = hasInitialValue ?
                 new SpillProperty(key, propertyFlags, spillSlot, this, value) :
                 new SpillProperty(key, propertyFlags, spillSlot);
+            // spill pools are grown by the property setters, see SpillProperty
             property = addOwnProperty(property);
-            ensureSpillSize(property.getSlot());
         }
         return property;
     }
@@ -2691,11 +2832,19 @@ public abstract class ScriptObject implements PropertyAccess, Cloneable {
        }
     }
 
+    /*
+     * Returns the key for an array index, which lookups by number only create when
+     * it is needed to look for a property that is not in the array data.
+     */
+    private static String arrayKey(final int index, final String key) {
+        return key != null ? key : ArrayIndex.toKey(index);
+    }
+
     private int getInt(final int index, final String key, final int programPoint) {
         if (isValidArrayIndex(index)) {
             for (ScriptObject object = this; ; ) {
                 if (object.getMap().containsArrayKeys()) {
-                    final FindProperty find = object.findProperty(key, false, this);
+                    final FindProperty find = object.findProperty(arrayKey(index, key), false, this);
 
                     if (find != null) {
                         return getIntValue(find, programPoint);
@@ -2715,14 +2864,26 @@ public abstract class ScriptObject implements PropertyAccess, Cloneable {
                 }
             }
         } else {
-            final FindProperty find = findProperty(key, true);
+            final int depth = findPropertyDepth(key, true);
 
-            if (find != null) {
-                return getIntValue(find, programPoint);
+            if (depth >= 0) {
+                final ScriptObject owner = getProtoAtDepth(depth);
+                final Property property = owner.getMap().findProperty(key);
+                if (!(property instanceof UserAccessorProperty)) {
+                    return getIntValue(property, owner, programPoint);
+                }
+            }
+
+            if (depth != PROPERTY_NOT_FOUND) {
+                final FindProperty find = findProperty(key, true);
+
+                if (find != null) {
+                    return getIntValue(find, programPoint);
+                }
             }
         }
 
-        return JSType.toInt32(invokeNoSuchProperty(key, false, programPoint));
+        return JSType.toInt32(invokeNoSuchProperty(arrayKey(index, key), false, programPoint));
     }
 
     @Override
@@ -2747,7 +2908,7 @@ public abstract class ScriptObject implements PropertyAccess, Cloneable {
             return isValid(programPoint) ? array.getIntOptimistic(index, programPoint) : array.getInt(index);
         }
 
-        return getInt(index, JSType.toString(key), programPoint);
+        return getInt(index, isValidArrayIndex(index) ? null : JSType.toString(key), programPoint);
     }
 
     @Override
@@ -2759,14 +2920,14 @@ public abstract class ScriptObject implements PropertyAccess, Cloneable {
             return isValid(programPoint) ? array.getIntOptimistic(key, programPoint) : array.getInt(key);
         }
 
-        return getInt(index, JSType.toString(key), programPoint);
+        return getInt(index, isValidArrayIndex(index) ? null : JSType.toString(key), programPoint);
     }
 
     private double getDouble(final int index, final String key, final int programPoint) {
         if (isValidArrayIndex(index)) {
             for (ScriptObject object = this; ; ) {
                 if (object.getMap().containsArrayKeys()) {
-                    final FindProperty find = object.findProperty(key, false, this);
+                    final FindProperty find = object.findProperty(arrayKey(index, key), false, this);
                     if (find != null) {
                         return getDoubleValue(find, programPoint);
                     }
@@ -2785,14 +2946,26 @@ public abstract class ScriptObject implements PropertyAccess, Cloneable {
                 }
             }
         } else {
-            final FindProperty find = findProperty(key, true);
+            final int depth = findPropertyDepth(key, true);
 
-            if (find != null) {
-                return getDoubleValue(find, programPoint);
+            if (depth >= 0) {
+                final ScriptObject owner = getProtoAtDepth(depth);
+                final Property property = owner.getMap().findProperty(key);
+                if (!(property instanceof UserAccessorProperty)) {
+                    return getDoubleValue(property, owner, programPoint);
+                }
+            }
+
+            if (depth != PROPERTY_NOT_FOUND) {
+                final FindProperty find = findProperty(key, true);
+
+                if (find != null) {
+                    return getDoubleValue(find, programPoint);
+                }
             }
         }
 
-        return JSType.toNumber(invokeNoSuchProperty(key, false, INVALID_PROGRAM_POINT));
+        return JSType.toNumber(invokeNoSuchProperty(arrayKey(index, key), false, INVALID_PROGRAM_POINT));
     }
 
     @Override
@@ -2817,7 +2990,7 @@ public abstract class ScriptObject implements PropertyAccess, Cloneable {
             return isValid(programPoint) ? array.getDoubleOptimistic(index, programPoint) : array.getDouble(index);
         }
 
-        return getDouble(index, JSType.toString(key), programPoint);
+        return getDouble(index, isValidArrayIndex(index) ? null : JSType.toString(key), programPoint);
     }
 
     @Override
@@ -2829,14 +3002,14 @@ public abstract class ScriptObject implements PropertyAccess, Cloneable {
             return isValid(programPoint) ? array.getDoubleOptimistic(key, programPoint) : array.getDouble(key);
         }
 
-        return getDouble(index, JSType.toString(key), programPoint);
+        return getDouble(index, isValidArrayIndex(index) ? null : JSType.toString(key), programPoint);
     }
 
     private Object get(final int index, final String key) {
         if (isValidArrayIndex(index)) {
             for (ScriptObject object = this; ; ) {
                 if (object.getMap().containsArrayKeys()) {
-                    final FindProperty find = object.findProperty(key, false, this);
+                    final FindProperty find = object.findProperty(arrayKey(index, key), false, this);
 
                     if (find != null) {
                         return find.getObjectValue();
@@ -2854,14 +3027,20 @@ public abstract class ScriptObject implements PropertyAccess, Cloneable {
                 }
             }
         } else {
-            final FindProperty find = findProperty(key, true);
+            final int depth = findPropertyDepth(key, true);
 
-            if (find != null) {
-                return find.getObjectValue();
+            if (depth >= 0) {
+                return getObjectValue(key, getProtoAtDepth(depth));
+            } else if (depth == PROPERTY_NEEDS_FIND) {
+                final FindProperty find = findProperty(key, true);
+
+                if (find != null) {
+                    return find.getObjectValue();
+                }
             }
         }
 
-        return invokeNoSuchProperty(key, false, INVALID_PROGRAM_POINT);
+        return invokeNoSuchProperty(arrayKey(index, key), false, INVALID_PROGRAM_POINT);
     }
 
     @Override
@@ -2886,7 +3065,7 @@ public abstract class ScriptObject implements PropertyAccess, Cloneable {
             return array.getObject(index);
         }
 
-        return get(index, JSType.toString(key));
+        return get(index, isValidArrayIndex(index) ? null : JSType.toString(key));
     }
 
     @Override
@@ -2898,7 +3077,7 @@ public abstract class ScriptObject implements PropertyAccess, Cloneable {
             return array.getObject(index);
         }
 
-        return get(index, JSType.toString(key));
+        return get(index, isValidArrayIndex(index) ? null : JSType.toString(key));
     }
 
     private boolean doesNotHaveCheckArrayKeys(final long longIndex, final int value, final int callSiteFlags) {
@@ -3000,11 +3179,49 @@ public abstract class ScriptObject implements PropertyAccess, Cloneable {
      * @param value         property value
      */
     public final void setObject(final FindProperty find, final int callSiteFlags, final String key, final Object value) {
-        FindProperty f = find;
+        if (find == null) {
+            setObject(null, null, null, callSiteFlags, key, value);
+        } else {
+            setObject(find.getSelf(), find.getOwner(), find.getProperty(), callSiteFlags, key, value);
+        }
+    }
+
+    /**
+     * Allocation free variant of {@code setObject(findProperty(key, true), callSiteFlags, key, value)}.
+     *
+     * @param callSiteFlags callsite flags
+     * @param key           property key
+     * @param value         property value
+     */
+    private void setObject(final int callSiteFlags, final String key, final Object value) {
+        final int depth = findPropertyDepth(key, true);
+        if (depth == PROPERTY_NEEDS_FIND) {
+            setObject(findProperty(key, true), callSiteFlags, key, value);
+        } else if (depth == PROPERTY_NOT_FOUND) {
+            setObject(null, null, null, callSiteFlags, key, value);
+        } else {
+            final ScriptObject owner = getProtoAtDepth(depth);
+            setObject(this, owner, owner.getMap().findProperty(key), callSiteFlags, key, value);
+        }
+    }
+
+    /**
+     * Implementation of {@link #setObject(FindProperty, int, String, Object)} taking the parts of the
+     * find result, so callers can avoid allocating a {@link FindProperty}.
+     *
+     * @param self          object where the search began, null if not found
+     * @param owner         object owning the property, null if not found
+     * @param property      found property, null if not found
+     * @param callSiteFlags callsite flags
+     * @param key           property key
+     * @param value         property value
+     */
+    private void setObject(final ScriptObject self, final ScriptObject owner, final Property property, final int callSiteFlags, final String key, final Object value) {
+        Property p = property;
 
         invalidateGlobalConstant(key);
 
-        if (f != null && f.isInherited() && !(f.getProperty() instanceof UserAccessorProperty)) {
+        if (p != null && self != owner && !(p instanceof UserAccessorProperty)) {
             final boolean isScope = isScopeFlag(callSiteFlags);
             // If the start object of the find is not this object it means the property was found inside a
             // 'with' statement expression (see WithObject.findProperty()). In this case we forward the 'set'
@@ -3013,20 +3230,20 @@ public abstract class ScriptObject implements PropertyAccess, Cloneable {
             // the 'with' expression (the 'set' operation is performed on the owning prototype if it exists),
             // it follows non-scope rules inside the 'with' expression (set is performed on the top level object).
             // This is why we clear the callsite flags and FindProperty in the forward call to the 'with' object.
-            if (isScope && f.getSelf() != this) {
-                f.getSelf().setObject(null, 0, key, value);
+            if (isScope && self != this) {
+                self.setObject(null, 0, key, value);
                 return;
             }
             // Setting a property should not modify the property in prototype unless this is a scope callsite
             // and the owner is a scope object as well (with the exception of 'with' statement handled above).
-            if (!isScope || !f.getOwner().isScope()) {
-                f = null;
+            if (!isScope || !owner.isScope()) {
+                p = null;
             }
         }
 
-        if (f != null) {
-            if (!f.getProperty().isWritable()) {
-                if (isScopeFlag(callSiteFlags) && f.getProperty().isLexicalBinding()) {
+        if (p != null) {
+            if (!p.isWritable()) {
+                if (isScopeFlag(callSiteFlags) && p.isLexicalBinding()) {
                     throw typeError("assign.constant", key); // Overwriting ES6 const should throw also in non-strict mode.
                 }
                 if (isStrictFlag(callSiteFlags)) {
@@ -3035,7 +3252,7 @@ public abstract class ScriptObject implements PropertyAccess, Cloneable {
                 return;
             }
 
-            f.setValue(value, isStrictFlag(callSiteFlags));
+            p.setValue(FindProperty.getSetterReceiver(p, self, owner), owner, value, isStrictFlag(callSiteFlags));
 
         } else if (!isExtensible()) {
             if (isStrictFlag(callSiteFlags)) {
@@ -3074,7 +3291,7 @@ public abstract class ScriptObject implements PropertyAccess, Cloneable {
         }
 
         final String propName = JSType.toString(primitiveKey);
-        setObject(findProperty(propName, true), callSiteFlags, propName, JSType.toObject(value));
+        setObject(callSiteFlags, propName, JSType.toObject(value));
     }
 
     @Override
@@ -3094,7 +3311,7 @@ public abstract class ScriptObject implements PropertyAccess, Cloneable {
         }
 
         final String propName = JSType.toString(primitiveKey);
-        setObject(findProperty(propName, true), callSiteFlags, propName, JSType.toObject(value));
+        setObject(callSiteFlags, propName, JSType.toObject(value));
     }
 
     @Override
@@ -3114,7 +3331,7 @@ public abstract class ScriptObject implements PropertyAccess, Cloneable {
         }
 
         final String propName = JSType.toString(primitiveKey);
-        setObject(findProperty(propName, true), callSiteFlags, propName, value);
+        setObject(callSiteFlags, propName, value);
     }
 
     @Override
@@ -3133,7 +3350,7 @@ public abstract class ScriptObject implements PropertyAccess, Cloneable {
         }
 
         final String propName = JSType.toString(key);
-        setObject(findProperty(propName, true), callSiteFlags, propName, JSType.toObject(value));
+        setObject(callSiteFlags, propName, JSType.toObject(value));
     }
 
     @Override
@@ -3152,7 +3369,7 @@ public abstract class ScriptObject implements PropertyAccess, Cloneable {
         }
 
         final String propName = JSType.toString(key);
-        setObject(findProperty(propName, true), callSiteFlags, propName, JSType.toObject(value));
+        setObject(callSiteFlags, propName, JSType.toObject(value));
     }
 
     @Override
@@ -3171,7 +3388,7 @@ public abstract class ScriptObject implements PropertyAccess, Cloneable {
         }
 
         final String propName = JSType.toString(key);
-        setObject(findProperty(propName, true), callSiteFlags, propName, value);
+        setObject(callSiteFlags, propName, value);
     }
 
     @Override
@@ -3188,7 +3405,7 @@ public abstract class ScriptObject implements PropertyAccess, Cloneable {
         }
 
         final String propName = JSType.toString(key);
-        setObject(findProperty(propName, true), callSiteFlags, propName, JSType.toObject(value));
+        setObject(callSiteFlags, propName, JSType.toObject(value));
     }
 
     @Override
@@ -3207,7 +3424,7 @@ public abstract class ScriptObject implements PropertyAccess, Cloneable {
         }
 
         final String propName = JSType.toString(key);
-        setObject(findProperty(propName, true), callSiteFlags, propName, JSType.toObject(value));
+        setObject(callSiteFlags, propName, JSType.toObject(value));
     }
 
     @Override
@@ -3226,7 +3443,7 @@ public abstract class ScriptObject implements PropertyAccess, Cloneable {
         }
 
         final String propName = JSType.toString(key);
-        setObject(findProperty(propName, true), callSiteFlags, propName, value);
+        setObject(callSiteFlags, propName, value);
     }
 
     @Override
@@ -3334,20 +3551,26 @@ public abstract class ScriptObject implements PropertyAccess, Cloneable {
 
     private boolean deleteObject(final Object key, final boolean strict) {
         final String propName = JSType.toString(key);
-        final FindProperty find = findProperty(propName, false);
+        final Property prop;
 
-        if (find == null) {
+        if (findPropertyDepth(propName, false) == PROPERTY_NEEDS_FIND) {
+            final FindProperty find = findProperty(propName, false);
+            prop = find == null ? null : find.getProperty();
+        } else {
+            prop = getMap().findProperty(propName);
+        }
+
+        if (prop == null) {
             return true;
         }
 
-        if (!find.getProperty().isConfigurable()) {
+        if (!prop.isConfigurable()) {
             if (strict) {
                 throw typeError("cant.delete.property", propName, ScriptRuntime.safeToString(this));
             }
             return false;
         }
 
-        final Property prop = find.getProperty();
         deleteOwnProperty(prop);
 
         return true;
@@ -3370,9 +3593,9 @@ public abstract class ScriptObject implements PropertyAccess, Cloneable {
         final ScriptObject clone = (ScriptObject) super.clone();
         if (objectSpill != null) {
             clone.objectSpill = objectSpill.clone();
-            if (primitiveSpill != null) {
-                clone.primitiveSpill = primitiveSpill.clone();
-            }
+        }
+        if (primitiveSpill != null) {
+            clone.primitiveSpill = primitiveSpill.clone();
         }
         clone.arrayData = arrayData.copy();
         return clone;
@@ -3403,24 +3626,45 @@ public abstract class ScriptObject implements PropertyAccess, Cloneable {
         return !StructureLoader.isSingleFieldStructure(getClass().getName());
     }
 
+    /**
+     * Make sure the object spill pool can hold the given slot. The primitive spill pool
+     * is grown separately by {@link #ensurePrimitiveSpillSize(int)}.
+     *
+     * @param slot spill slot
+     * @return this object
+     */
     Object ensureSpillSize(final int slot) {
         final int oldLength = objectSpill == null ? 0 : objectSpill.length;
         if (slot < oldLength) {
             return this;
         }
-        final int newLength = alignUp(slot + 1, SPILL_RATE);
-        final Object[] newObjectSpill    = new Object[newLength];
-        final long[]   newPrimitiveSpill = useDualFields() ? new long[newLength] : null;
-
+        final Object[] newObjectSpill = new Object[alignUp(slot + 1, SPILL_RATE)];
         if (objectSpill != null) {
             System.arraycopy(objectSpill, 0, newObjectSpill, 0, oldLength);
-            if (primitiveSpill != null && newPrimitiveSpill != null) {
-                System.arraycopy(primitiveSpill, 0, newPrimitiveSpill, 0, oldLength);
-            }
         }
+        this.objectSpill = newObjectSpill;
+
+        return this;
+    }
 
+    /**
+     * Make sure the primitive spill pool can hold the given slot. Only called
+     * when a primitive value is stored in a dual field spill property, so objects
+     * whose spill properties are all reference typed never allocate it.
+     *
+     * @param slot spill slot
+     * @return this object
+     */
+    Object ensurePrimitiveSpillSize(final int slot) {
+        final int oldLength = primitiveSpill == null ? 0 : primitiveSpill.length;
+        if (slot < oldLength) {
+            return this;
+        }
+        final long[] newPrimitiveSpill = new long[alignUp(slot + 1, SPILL_RATE)];
+        if (primitiveSpill != null) {
+            System.arraycopy(primitiveSpill, 0, newPrimitiveSpill, 0, oldLength);
+        }
         this.primitiveSpill = newPrimitiveSpill;
-        this.objectSpill    = newObjectSpill;
 
         return this;
     }
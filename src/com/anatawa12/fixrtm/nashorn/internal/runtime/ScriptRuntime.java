@@ -80,6 +80,12 @@ public final class ScriptRuntime {
     /** Method handle to generic + operator, operating on objects */
     public static final Call ADD = staticCallNoLookup(ScriptRuntime.class, "ADD", Object.class, Object.class, Object.class);
 
+    /** Method handle converting an operand of a string concatenation chain to a string */
+    public static final Call CONCAT_OPERAND = staticCallNoLookup(ScriptRuntime.class, "concatOperand", CharSequence.class, Object.class);
+
+    /** Method handle to n-ary string concatenation of already converted operands */
+    public static final Call CONCAT = staticCallNoLookup(ScriptRuntime.class, "CONCAT", Object.class, Object[].class);
+
     /** Method handle to generic === operator, operating on objects */
     public static final Call EQ_STRICT = staticCallNoLookup(ScriptRuntime.class, "EQ_STRICT", boolean.class, Object.class, Object.class);
 
@@ -573,6 +579,76 @@ public final class ScriptRuntime {
         return JSType.toNumber(xPrim) + JSType.toNumber(yPrim);
     }
 
+    /**
+     * Operands no longer than this are copied into the result of {@link #CONCAT(Object[])}, longer ones are
+     * linked into it with a {@link ConsString} so that building a string in a loop stays linear.
+     */
+    private static final int CONCAT_COPY_LIMIT = 256;
+
+    /**
+     * Converts an operand of a string concatenation chain to a string, as the + operator does when its
+     * other operand is a string. Evaluated right after the operand to keep the order of conversions.
+     *
+     * @param obj the operand
+     *
+     * @return the string value of the operand
+     */
+    public static CharSequence concatOperand(final Object obj) {
+        if (obj instanceof String || obj instanceof ConsString) {
+            return (CharSequence)obj;
+        }
+        return JSType.toCharSequence(JSType.toPrimitive(obj));
+    }
+
+    /**
+     * ECMA 11.6.1 - The addition operator (+) - a chain of additions that is statically known to produce a
+     * string, such as {@code "<td>" + x + "</td>"}. Runs of short operands are copied into a single string
+     * sized up front instead of creating a {@link ConsString} for every +.
+     *
+     * @param operands the operands, already converted by {@link #concatOperand(Object)}
+     *
+     * @return the concatenated string
+     */
+    public static Object CONCAT(final Object[] operands) {
+        CharSequence result = null;
+        int i = 0;
+        while (i < operands.length) {
+            long length = 0;
+            int end = i;
+            while (end < operands.length && ((CharSequence)operands[end]).length() <= CONCAT_COPY_LIMIT) {
+                length += ((CharSequence)operands[end++]).length();
+            }
+            final CharSequence piece;
+            if (end - i > 1) {
+                piece = concatCopy(operands, i, end, (int)length);
+                i = end;
+            } else {
+                piece = (CharSequence)operands[i++];
+            }
+            if (result == null) {
+                result = piece;
+            } else if (piece.length() > 0) {
+                try {
+                    result = new ConsString(result, piece);
+                } catch (final IllegalArgumentException iae) {
+                    throw rangeError(iae, "concat.string.too.big");
+                }
+            }
+        }
+        return result;
+    }
+
+    private static String concatCopy(final Object[] operands, final int start, final int end, final int length) {
+        final char[] chars = new char[length];
+        int pos = 0;
+        for (int i = start; i < end; i++) {
+            final String str = operands[i].toString();
+            str.getChars(0, str.length(), chars, pos);
+            pos += str.length();
+        }
+        return new String(chars);
+    }
+
     /**
      * Debugger hook.
      * TODO: currently unimplemented
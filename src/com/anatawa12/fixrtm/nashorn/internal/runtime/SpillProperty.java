@@ -54,6 +54,7 @@ public class SpillProperty extends AccessorProperty {
 
         private final int slot;
         private final MethodHandle ensureSpillSize;
+        private final MethodHandle ensurePrimitiveSpillSize;
 
         private static Accessors ACCESSOR_CACHE[] = new Accessors[512];
 
@@ -63,6 +64,7 @@ public class SpillProperty extends AccessorProperty {
             assert slot >= 0;
             this.slot = slot;
             this.ensureSpillSize = MH.asType(MH.insertArguments(ScriptObject.ENSURE_SPILL_SIZE, 1, slot), MH.type(Object.class, Object.class));
+            this.ensurePrimitiveSpillSize = MH.asType(MH.insertArguments(ScriptObject.ENSURE_PRIMITIVE_SPILL_SIZE, 1, slot), MH.type(Object.class, Object.class));
         }
 
         private static void ensure(final int slot) {
@@ -107,7 +109,8 @@ public class SpillProperty extends AccessorProperty {
             accessor = primordial(isPrimitive, isGetter);
             accessor = MH.insertArguments(accessor, 1, slot);
             if (!isGetter) {
-                accessor = MH.filterArguments(accessor, 0, ensureSpillSize);
+                // primitive and object spill pools grow independently
+                accessor = MH.filterArguments(accessor, 0, isPrimitive ? ensurePrimitiveSpillSize : ensureSpillSize);
             }
             setInner(isPrimitive, isGetter, accessor);
 
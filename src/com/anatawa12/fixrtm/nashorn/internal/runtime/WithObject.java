@@ -209,6 +209,15 @@ public final class WithObject extends Scope {
         return super.findProperty(key, deep, start);
     }
 
+    /**
+     * Overridden to always defer to {@link #findProperty(String, boolean, ScriptObject)}, since
+     * properties found in the expression object have the expression as their search start.
+     */
+    @Override
+    protected int findPropertyDepth(final String key, final boolean deep, final ScriptObject start) {
+        return PROPERTY_NEEDS_FIND;
+    }
+
     @Override
     protected Object invokeNoSuchProperty(final String name, final boolean isScope, final int programPoint) {
         FindProperty find = expression.findProperty(NO_SUCH_PROPERTY_NAME, true);
@@ -32,6 +32,7 @@ import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Array;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import com.anatawa12.fixrtm.nashorn.dynalink.CallSiteDescriptor;
@@ -274,10 +275,12 @@ public abstract class ArrayData {
     public static ArrayData allocate(final long length) {
         if (length == 0L) {
             return new IntArrayData();
-        } else if (length >= SparseArrayData.MAX_DENSE_LENGTH) {
+        } else if (length > SparseArrayData.MAX_PREALLOCATED_LENGTH) {
             return new SparseArrayData(EMPTY_ARRAY, length);
         } else {
-            return new DeletedRangeArrayFilter(new IntArrayData((int) length), 0, length - 1);
+            // preallocate exactly, the length is a good hint for the final size
+            final int ilength = (int)length;
+            return new DeletedRangeArrayFilter(new IntArrayData(new int[alignUp(ilength)], ilength), 0, length - 1);
         }
     }
 
@@ -329,6 +332,50 @@ public abstract class ArrayData {
         return new ObjectArrayData(array, array.length);
     }
 
+    /**
+     * Allocate an ArrayData sharing a given array until the first write to it, which copies
+     * the array. Changes made to the array by other code are visible until then.
+     *
+     * @param array the array to use for initial elements
+     * @return the ArrayData
+     */
+    public static ArrayData allocateShared(final int[] array) {
+        final IntArrayData data = new IntArrayData(array, array.length);
+        data.shared = true;
+        return data;
+    }
+
+    /**
+     * Allocate an ArrayData sharing a given array until the first write to it, which copies
+     * the array. Changes made to the array by other code are visible until then.
+     *
+     * @param array the array to use for initial elements
+     * @return the ArrayData
+     */
+    public static ArrayData allocateShared(final double[] array) {
+        final NumberArrayData data = new NumberArrayData(array, array.length);
+        data.shared = true;
+        return data;
+    }
+
+    /**
+     * Allocate an ArrayData sharing a given array until the first write to it, which copies
+     * the array. Changes made to the array by other code are visible until then. Arrays with a
+     * component type other than {@code Object} are copied right away, since they can't hold
+     * arbitrary elements.
+     *
+     * @param array the array to use for initial elements
+     * @return the ArrayData
+     */
+    public static ArrayData allocateShared(final Object[] array) {
+        if (array.getClass() != Object[].class) {
+            return new ObjectArrayData(Arrays.copyOf(array, array.length, Object[].class), array.length);
+        }
+        final ObjectArrayData data = new ObjectArrayData(array, array.length);
+        data.shared = true;
+        return data;
+    }
+
     /**
      * Allocate an ArrayData wrapping a given nio ByteBuffer
      *
@@ -339,6 +386,17 @@ public abstract class ArrayData {
         return new ByteBufferArrayData(buf);
     }
 
+    /**
+     * Allocate an ArrayData packing records with a fixed set of numeric fields
+     *
+     * @param fields the field names of the records
+     * @param length the number of records, with all fields zero
+     * @return the ArrayData
+     */
+    public static ArrayData allocateStructs(final String[] fields, final int length) {
+        return new StructArrayData(fields, length);
+    }
+
     /**
      * Apply a freeze filter to an ArrayData.
      *
@@ -477,6 +535,18 @@ public abstract class ArrayData {
      */
     public abstract ArrayData ensure(final long safeIndex);
 
+    /**
+     * Capacity hint: make room for {@code capacity} elements in the backing
+     * storage without changing the length, so that the array can be filled up
+     * to that size without reallocating. Only dense array data with a backing
+     * array reacts to this, other array data ignores it.
+     *
+     * @param capacity the number of elements expected
+     */
+    public void ensureCapacity(final int capacity) {
+        // no backing storage
+    }
+
     /**
      * Shrink the array to a new length, may or may not retain the
      * inner array
@@ -701,9 +771,12 @@ public abstract class ArrayData {
 
         ArrayData newData = convert(widest);
         long      pos     = newData.length;
+        if (items.length > 1 && pos + items.length <= SparseArrayData.MAX_APPEND_LENGTH) {
+            newData.ensureCapacity((int)pos + items.length);
+        }
         for (final Object item : items) {
             newData = newData.ensure(pos); //avoid sparse array
-            newData.set((int)pos++, item, strict);
+            newData = newData.set((int)pos++, item, strict);
         }
         return newData;
     }
@@ -813,6 +886,31 @@ public abstract class ArrayData {
         return alignUp(size + 1) * 2;
     }
 
+    /**
+     * Return the next capacity to grow a dense array of the given capacity
+     * to, saturating instead of overflowing for very large arrays.
+     *
+     * @param capacity current capacity
+     * @return next capacity, always &gt; capacity unless at the maximum
+     */
+    protected static int growCapacity(final int capacity) {
+        return capacity < SparseArrayData.MAX_APPEND_LENGTH ? nextSize(capacity) : Integer.MAX_VALUE - CHUNK_SIZE;
+    }
+
+    /**
+     * Return the type the element at the given index can be read as without
+     * boxing, using {@link #getInt(int)} for {@code int.class} and
+     * {@link #getDouble(int)} for {@code double.class}. Subclassed for array
+     * representations that store primitive elements.
+     *
+     * @param index the index
+     *
+     * @return int.class, double.class or Object.class
+     */
+    Class<?> elementTypeAt(final long index) {
+        return Object.class;
+    }
+
     /**
      * Return the next valid index from a given one. Subclassed for various
      * array representation
@@ -88,6 +88,11 @@ abstract class ArrayFilter extends ArrayData {
         return this;
     }
 
+    @Override
+    public void ensureCapacity(final int capacity) {
+        underlying.ensureCapacity(capacity);
+    }
+
     @Override
     public ArrayData shrink(final long newLength) {
         underlying = underlying.shrink(newLength);
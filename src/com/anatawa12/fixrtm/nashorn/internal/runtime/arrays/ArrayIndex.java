@@ -201,7 +201,7 @@ public final class ArrayIndex {
      * @return index as string
      */
     public static String toKey(final int index) {
-        return Long.toString(JSType.toUint32(index));
+        return index >= 0 ? JSType.toString(index) : Long.toString(JSType.toUint32(index));
     }
 
 }
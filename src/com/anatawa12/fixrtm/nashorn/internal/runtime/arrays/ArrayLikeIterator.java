@@ -79,6 +79,38 @@ abstract public class ArrayLikeIterator<T> implements Iterator<T> {
         return index;
     }
 
+    /**
+     * Return the type the next element can be read as without boxing. If this
+     * is {@code int.class} or {@code double.class}, the element can be fetched
+     * with {@link #nextInt()} or {@link #nextDouble()} respectively. Only valid
+     * right after {@link #hasNext()} returned true.
+     *
+     * @return int.class, double.class or Object.class
+     */
+    public Class<?> nextElementType() {
+        return Object.class;
+    }
+
+    /**
+     * Return the next element as an int. Only valid if {@link #nextElementType()}
+     * returned {@code int.class}.
+     *
+     * @return next element
+     */
+    public int nextInt() {
+        return JSType.toInt32(next());
+    }
+
+    /**
+     * Return the next element as a double. Only valid if {@link #nextElementType()}
+     * returned {@code double.class}.
+     *
+     * @return next element
+     */
+    public double nextDouble() {
+        return JSType.toNumber(next());
+    }
+
     @Override
     public void remove() {
         throw new UnsupportedOperationException("remove");
@@ -38,7 +38,9 @@ import com.anatawa12.fixrtm.nashorn.dynalink.linker.GuardedInvocation;
 import com.anatawa12.fixrtm.nashorn.dynalink.linker.LinkRequest;
 import com.anatawa12.fixrtm.nashorn.internal.codegen.types.Type;
 import com.anatawa12.fixrtm.nashorn.internal.lookup.Lookup;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.JSType;
 import com.anatawa12.fixrtm.nashorn.internal.runtime.ScriptObject;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.ScriptRuntime;
 import com.anatawa12.fixrtm.nashorn.internal.runtime.linker.NashornCallSiteDescriptor;
 import com.anatawa12.fixrtm.nashorn.internal.runtime.logging.Logger;
 
@@ -48,6 +50,12 @@ import com.anatawa12.fixrtm.nashorn.internal.runtime.logging.Logger;
  */
 @Logger(name="arrays")
 public abstract class ContinuousArrayData extends ArrayData {
+    /**
+     * Whether the backing array may also be referenced by other array data or by Java
+     * code, in which case it is copied before the first write.
+     */
+    boolean shared;
+
     /**
      * Constructor
      * @param length length (elementLength)
@@ -107,6 +115,19 @@ public abstract class ContinuousArrayData extends ArrayData {
         return index;
     }
 
+    /**
+     * Capacity of the backing storage for a widened copy of this array data.
+     * Widening is mostly caused by appending an element of a wider type, so a
+     * full array is widened into storage that already has room to grow instead
+     * of being copied a second time by the following {@link #ensure(long)}.
+     *
+     * @param capacity capacity of the current backing storage
+     * @return capacity for the widened copy
+     */
+    protected final int widenedCapacity(final int capacity) {
+        return length() == capacity ? growCapacity(capacity) : capacity;
+    }
+
     @Override
     public abstract ContinuousArrayData copy();
 
@@ -127,6 +148,11 @@ public abstract class ContinuousArrayData extends ArrayData {
      */
     public abstract Class<?> getBoxedElementType();
 
+    @Override
+    Class<?> elementTypeAt(final long index) {
+        return index < length() && has((int)index) ? getElementType() : Object.class;
+    }
+
     /**
      * Get the widest element type of two arrays. This can be done faster in subclasses, but
      * this works for all ContinuousArrayDatas and for where more optimal checks haven't been
@@ -353,4 +379,166 @@ public abstract class ContinuousArrayData extends ArrayData {
     public ContinuousArrayData fastConcat(final ContinuousArrayData otherData) {
         throw new ClassCastException(String.valueOf(getClass()) + " != " + String.valueOf(otherData.getClass()));
     }
+
+    /**
+     * Specialization - copy all elements into a Java array, starting at {@code offset}.
+     * The component type of the Java array must be {@code int}, {@code double} or
+     * {@code Object} and at least as wide as the element type of this array data.
+     *
+     * @param dest   destination array
+     * @param offset first index in the destination
+     */
+    public void copyElements(final Object dest, final int offset) {
+        final int len = (int)length();
+        if (dest instanceof Object[]) {
+            final Object[] oarray = (Object[])dest;
+            for (int i = 0; i < len; i++) {
+                oarray[offset + i] = getObject(i);
+            }
+        } else if (dest instanceof double[] && getElementType() != Object.class) {
+            final double[] darray = (double[])dest;
+            for (int i = 0; i < len; i++) {
+                darray[offset + i] = getDouble(i);
+            }
+        } else if (dest instanceof int[] && getElementType() == int.class) {
+            final int[] iarray = (int[])dest;
+            for (int i = 0; i < len; i++) {
+                iarray[offset + i] = getInt(i);
+            }
+        } else {
+            throw new ClassCastException(String.valueOf(getClass()) + " -> " + dest.getClass().getSimpleName());
+        }
+    }
+
+    /**
+     * Specialization - join the string values of all elements with a separator.
+     * The result is written into an exactly sized buffer, and int elements, as
+     * well as doubles that are ints, are formatted into it directly.
+     *
+     * @param separator the separator
+     * @return the joined string, or null if converting an element to a string
+     *         could run script code and the generic join must be used
+     */
+    public String fastJoin(final String separator) {
+        final int len = (int)length();
+        if (len == 0) {
+            return "";
+        }
+
+        final Class<?> elementType = getElementType();
+        // string values of the elements that are not formatted as ints
+        String[] strings = null;
+        long size = (long)separator.length() * (len - 1);
+
+        for (int i = 0; i < len; i++) {
+            final String str;
+            if (elementType == int.class) {
+                size += intStringLength(getInt(i));
+                continue;
+            } else if (elementType == double.class) {
+                final double value = getDouble(i);
+                if (JSType.isRepresentableAsInt(value)) {
+                    size += intStringLength((int)value);
+                    continue;
+                }
+                str = JSType.toString(value);
+            } else {
+                final Object value = getObject(i);
+                if (value instanceof Integer) {
+                    size += intStringLength((Integer)value);
+                    continue;
+                } else if (!JSType.isPrimitive(value)) {
+                    return null;
+                }
+                str = value == null || value == ScriptRuntime.UNDEFINED ? "" : JSType.toString(value);
+            }
+            if (strings == null) {
+                strings = new String[len];
+            }
+            strings[i] = str;
+            size += str.length();
+        }
+
+        if (size > Integer.MAX_VALUE - CHUNK_SIZE) {
+            return null;
+        }
+
+        final char[] chars  = new char[(int)size];
+        final int    sepLen = separator.length();
+        int pos = 0;
+        for (int i = 0; i < len; i++) {
+            if (i > 0) {
+                separator.getChars(0, sepLen, chars, pos);
+                pos += sepLen;
+            }
+            if (strings != null && strings[i] != null) {
+                strings[i].getChars(0, strings[i].length(), chars, pos);
+                pos += strings[i].length();
+            } else if (elementType == int.class) {
+                pos = putInt(getInt(i), chars, pos);
+            } else if (elementType == double.class) {
+                pos = putInt((int)getDouble(i), chars, pos);
+            } else {
+                pos = putInt((Integer)getObject(i), chars, pos);
+            }
+        }
+        assert pos == chars.length;
+
+        return new String(chars);
+    }
+
+    private static int intStringLength(final int value) {
+        // count digits on the negated value, which also covers Integer.MIN_VALUE
+        int q = value < 0 ? value : -value;
+        int length = value < 0 ? 2 : 1;
+        while (q <= -10) {
+            q /= 10;
+            length++;
+        }
+        return length;
+    }
+
+    private static int putInt(final int value, final char[] chars, final int pos) {
+        final int end = pos + intStringLength(value);
+        int q = value < 0 ? value : -value;
+        int i = end;
+        do {
+            chars[--i] = (char)('0' - q % 10);
+            q /= 10;
+        } while (q != 0);
+        if (value < 0) {
+            chars[--i] = '-';
+        }
+        return end;
+    }
+
+    /**
+     * Specialization - sort the elements of an array with a primitive element type without boxing them
+     * @param cmp comparator, or null to order elements by their string value
+     * @return sorted arraydata, or null if this array does not have a primitive sort
+     */
+    public ContinuousArrayData fastSort(final PrimitiveComparator cmp) {
+        return null;
+    }
+
+    /**
+     * Comparator for {@link #fastSort(PrimitiveComparator)}.
+     */
+    public interface PrimitiveComparator {
+        /**
+         * Compare two int elements
+         * @param x first element
+         * @param y second element
+         * @return negative, zero or positive as {@code x} sorts before, together with or after {@code y}
+         */
+        int compare(int x, int y);
+
+        /**
+         * Compare two double elements
+         * @param x first element
+         * @param y second element
+         * @return negative, zero or positive as {@code x} sorts before, together with or after {@code y}
+         */
+        int compare(double x, double y);
+    }
 }
@@ -91,7 +91,7 @@ final class DeletedArrayFilter extends ArrayFilter {
 
     @Override
     public ArrayData ensure(final long safeIndex) {
-        if (safeIndex >= SparseArrayData.MAX_DENSE_LENGTH && safeIndex >= length()) {
+        if (safeIndex >= SparseArrayData.MAX_DENSE_LENGTH && safeIndex > length()) {
             return new SparseArrayData(this, safeIndex + 1);
         }
 
@@ -42,7 +42,7 @@ final class DeletedRangeArrayFilter extends ArrayFilter {
     }
 
     private static ArrayData maybeSparse(final ArrayData underlying, final long hi) {
-        if (hi < SparseArrayData.MAX_DENSE_LENGTH || underlying instanceof SparseArrayData) {
+        if (hi < SparseArrayData.MAX_DENSE_LENGTH || hi < underlying.length() || underlying instanceof SparseArrayData) {
             return underlying;
         }
         return new SparseArrayData(underlying, underlying.length());
@@ -93,7 +93,7 @@ final class DeletedRangeArrayFilter extends ArrayFilter {
 
     @Override
     public ArrayData ensure(final long safeIndex) {
-        if (safeIndex >= SparseArrayData.MAX_DENSE_LENGTH && safeIndex >= length()) {
+        if (safeIndex >= SparseArrayData.MAX_DENSE_LENGTH && safeIndex > length()) {
             return new SparseArrayData(this, safeIndex + 1);
         }
 
@@ -102,6 +102,7 @@ final class IntArrayData extends ContinuousArrayData implements IntElements {
     @SuppressWarnings("unused")
     private void setElem(final int index, final int elem) {
         if (hasRoomFor(index)) {
+            own();
             array[index] = elem;
             return;
         }
@@ -120,7 +121,20 @@ final class IntArrayData extends ContinuousArrayData implements IntElements {
 
     @Override
     public IntArrayData copy() {
-        return new IntArrayData(array.clone(), (int)length());
+        // the copy shares the array until either of them is written to
+        final IntArrayData copy = new IntArrayData(array, (int)length());
+        copy.shared = shared = true;
+        return copy;
+    }
+
+    /**
+     * Copy the array before writing to it if it is shared.
+     */
+    private void own() {
+        if (shared) {
+            array = array.clone();
+            shared = false;
+        }
     }
 
     @Override
@@ -132,10 +146,22 @@ final class IntArrayData extends ContinuousArrayData implements IntElements {
         return super.asArrayOfType(componentType);
     }
 
+    /**
+     * Bulk copy the first {@code len} elements into a typed array.
+     *
+     * @param dest  destination typed array data
+     * @param index first destination element
+     * @param len   number of elements
+     */
+    void copyTo(final TypedArrayData<?> dest, final int index, final int len) {
+        assert len <= length();
+        dest.setElements(index, array, 0, len);
+    }
+
     private Object[] toObjectArray(final boolean trim) {
         assert length() <= array.length : "length exceeds internal array size";
         final int len = (int)length();
-        final Object[] oarray = new Object[trim ? len : array.length];
+        final Object[] oarray = new Object[trim ? len : widenedCapacity(array.length)];
 
         for (int index = 0; index < len; index++) {
             oarray[index] = Integer.valueOf(array[index]);
@@ -147,7 +173,7 @@ final class IntArrayData extends ContinuousArrayData implements IntElements {
     private double[] toDoubleArray() {
         assert length() <= array.length : "length exceeds internal array size";
         final int len = (int)length();
-        final double[] darray = new double[array.length];
+        final double[] darray = new double[widenedCapacity(array.length)];
 
         for (int index = 0; index < len; index++) {
             darray[index] = array[index];
@@ -180,6 +206,7 @@ final class IntArrayData extends ContinuousArrayData implements IntElements {
         if (by >= length()) {
             shrink(0);
         } else {
+            own();
             System.arraycopy(array, by, array, 0, array.length - by);
         }
         setLength(Math.max(0, length() - by));
@@ -194,6 +221,7 @@ final class IntArrayData extends ContinuousArrayData implements IntElements {
             newData.shiftRight(by);
             return newData;
         }
+        own();
         System.arraycopy(array, 0, array, by, array.length - by);
 
         return this;
@@ -201,13 +229,14 @@ final class IntArrayData extends ContinuousArrayData implements IntElements {
 
     @Override
     public ArrayData ensure(final long safeIndex) {
-        if (safeIndex >= SparseArrayData.MAX_DENSE_LENGTH) {
+        if (!SparseArrayData.isDenseIndex(safeIndex, length(), array.length)) {
             return new SparseArrayData(this, safeIndex + 1);
         }
         final int alen = array.length;
         if (safeIndex >= alen) {
             final int newLength = ArrayData.nextSize((int)safeIndex);
             array = Arrays.copyOf(array, newLength);
+            shared = false;
         }
         if (safeIndex >= length()) {
             setLength(safeIndex + 1);
@@ -215,8 +244,17 @@ final class IntArrayData extends ContinuousArrayData implements IntElements {
         return this;
     }
 
+    @Override
+    public void ensureCapacity(final int capacity) {
+        if (capacity > array.length) {
+            array = Arrays.copyOf(array, Math.max(capacity, growCapacity(array.length)));
+            shared = false;
+        }
+    }
+
     @Override
     public ArrayData shrink(final long newLength) {
+        own();
         Arrays.fill(array, (int)newLength, array.length, 0);
         return this;
     }
@@ -235,6 +273,7 @@ final class IntArrayData extends ContinuousArrayData implements IntElements {
 
     @Override
     public ArrayData set(final int index, final int value, final boolean strict) {
+        own();
         array[index] = value;
         setLength(Math.max(index + 1, length()));
 
@@ -244,6 +283,7 @@ final class IntArrayData extends ContinuousArrayData implements IntElements {
     @Override
     public ArrayData set(final int index, final double value, final boolean strict) {
         if (JSType.isRepresentableAsInt(value)) {
+            own();
             array[index] = (int)(long)value;
             setLength(Math.max(index + 1, length()));
             return this;
@@ -301,6 +341,7 @@ final class IntArrayData extends ContinuousArrayData implements IntElements {
 
         final int newLength = len - 1;
         final int elem = array[newLength];
+        own();
         array[newLength] = 0;
         setLength(newLength);
 
@@ -309,6 +350,9 @@ final class IntArrayData extends ContinuousArrayData implements IntElements {
 
     @Override
     public ArrayData slice(final long from, final long to) {
+        if (from == 0 && to == length()) {
+            return copy();
+        }
         return new IntArrayData(Arrays.copyOfRange(array, (int)from, (int)to), (int)(to - (from < 0 ? from + length() : from)));
     }
 
@@ -316,7 +360,7 @@ final class IntArrayData extends ContinuousArrayData implements IntElements {
     public ArrayData fastSplice(final int start, final int removed, final int added) throws UnsupportedOperationException {
         final long oldLength = length();
         final long newLength = oldLength - removed + added;
-        if (newLength > SparseArrayData.MAX_DENSE_LENGTH && newLength > array.length) {
+        if (newLength > SparseArrayData.MAX_APPEND_LENGTH && newLength > array.length) {
             throw new UnsupportedOperationException();
         }
         final ArrayData returnValue = removed == 0 ?
@@ -335,11 +379,13 @@ final class IntArrayData extends ContinuousArrayData implements IntElements {
                 newArray = new int[ArrayData.nextSize((int)newLength)];
                 System.arraycopy(array, 0, newArray, 0, start);
             } else {
+                own();
                 newArray = array;
             }
 
             System.arraycopy(array, start + removed, newArray, start + added, (int)(oldLength - start - removed));
             array = newArray;
+            shared = false;
             setLength(newLength);
         }
 
@@ -351,7 +397,9 @@ final class IntArrayData extends ContinuousArrayData implements IntElements {
         final int len = (int)length();
         if (len == array.length) {
             array = Arrays.copyOf(array, nextSize(len));
+            shared = false;
         }
+        own();
         array[len] = arg;
         return increaseLength();
     }
@@ -364,6 +412,7 @@ final class IntArrayData extends ContinuousArrayData implements IntElements {
         }
         final int newLength = (int)decreaseLength();
         final int elem = array[newLength];
+        own();
         array[newLength] = 0;
         return elem;
     }
@@ -378,6 +427,15 @@ final class IntArrayData extends ContinuousArrayData implements IntElements {
         return fastPopInt();
     }
 
+    @Override
+    public void copyElements(final Object dest, final int offset) {
+        if (dest instanceof int[]) {
+            System.arraycopy(array, 0, dest, offset, (int)length());
+        } else {
+            super.copyElements(dest, offset);
+        }
+    }
+
     @Override
     public ContinuousArrayData fastConcat(final ContinuousArrayData otherData) {
         final int   otherLength = (int)otherData.length();
@@ -394,6 +452,23 @@ final class IntArrayData extends ContinuousArrayData implements IntElements {
         return new IntArrayData(newArray, newLength);
     }
 
+    @Override
+    public ContinuousArrayData fastSort(final PrimitiveComparator cmp) {
+        final int len = (int)length();
+        if (cmp == null) {
+            own();
+            PrimitiveArraySort.sortByString(array, len);
+        } else {
+            // sort a copy, so the elements are left intact if the comparator throws
+            final int[] sorted = Arrays.copyOf(array, len);
+            PrimitiveArraySort.sort(sorted, len, cmp);
+            // the comparator may have changed the array while sorting, or shared it with a slice
+            own();
+            System.arraycopy(sorted, 0, array, 0, Math.min(len, array.length));
+        }
+        return this;
+    }
+
     @Override
     public String toString() {
         assert length() <= array.length : length() + " > " + array.length;
@@ -25,7 +25,9 @@
 
 package com.anatawa12.fixrtm.nashorn.internal.runtime.arrays;
 
+import java.lang.invoke.MethodHandle;
 import com.anatawa12.fixrtm.nashorn.internal.runtime.Context;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.ScriptFunction;
 import com.anatawa12.fixrtm.nashorn.internal.runtime.ScriptRuntime;
 import com.anatawa12.fixrtm.nashorn.internal.runtime.linker.Bootstrap;
 
@@ -52,6 +54,11 @@ public abstract class IteratorAction<T> {
     /** Iterator object */
     private final ArrayLikeIterator<Object> iter;
 
+    /** Callback invokers for object, int and double elements, created on first use */
+    private MethodHandle objectInvoker;
+    private MethodHandle intInvoker;
+    private MethodHandle doubleInvoker;
+
     /**
      * Constructor
      *
@@ -102,12 +109,25 @@ public abstract class IteratorAction<T> {
         applyLoopBegin(iter);
         final boolean reverse = iter.isReverse();
         while (iter.hasNext()) {
-
-            final Object val = iter.next();
-            index = iter.nextIndex() + (reverse ? 1 : -1);
+            // int and double elements are passed on unboxed
+            final Class<?> type = iter.nextElementType();
 
             try {
-                if (!forEach(val, index)) {
+                final boolean more;
+                if (type == int.class) {
+                    final int val = iter.nextInt();
+                    index = iter.nextIndex() + (reverse ? 1 : -1);
+                    more = forEach(val, index);
+                } else if (type == double.class) {
+                    final double val = iter.nextDouble();
+                    index = iter.nextIndex() + (reverse ? 1 : -1);
+                    more = forEach(val, index);
+                } else {
+                    final Object val = iter.next();
+                    index = iter.nextIndex() + (reverse ? 1 : -1);
+                    more = forEach(val, index);
+                }
+                if (!more) {
                     return result;
                 }
             } catch (final RuntimeException | Error e) {
@@ -120,6 +140,57 @@ public abstract class IteratorAction<T> {
         return result;
     }
 
+    /**
+     * Return the dynamic invoker shared by all iterations of this kind for
+     * invoking the callback on elements of the given type.
+     *
+     * @param valueType Object.class, int.class or double.class
+     *
+     * @return shared invoker
+     */
+    protected abstract MethodHandle getSharedInvoker(final Class<?> valueType);
+
+    /**
+     * Return the invoker for the callback on elements of the given type. The
+     * shared invokers see every callback passed to the builtin and go
+     * megamorphic in programs that use more than a few of them, so script
+     * function callbacks are called through the invoker kept by the function
+     * instead, which stays linked to its best compiled code for the element
+     * type.
+     *
+     * @param valueType Object.class, int.class or double.class
+     *
+     * @return invoker of the same type as the shared invoker
+     */
+    protected final MethodHandle getInvoker(final Class<?> valueType) {
+        if (valueType == int.class) {
+            if (intInvoker == null) {
+                intInvoker = createInvoker(valueType);
+            }
+            return intInvoker;
+        } else if (valueType == double.class) {
+            if (doubleInvoker == null) {
+                doubleInvoker = createInvoker(valueType);
+            }
+            return doubleInvoker;
+        }
+        if (objectInvoker == null) {
+            objectInvoker = createInvoker(valueType);
+        }
+        return objectInvoker;
+    }
+
+    private MethodHandle createInvoker(final Class<?> valueType) {
+        final MethodHandle sharedInvoker = getSharedInvoker(valueType);
+        if (callbackfn instanceof ScriptFunction) {
+            final MethodHandle invoker = ((ScriptFunction)callbackfn).getCallbackInvoker(sharedInvoker.type());
+            if (invoker != null) {
+                return invoker;
+            }
+        }
+        return sharedInvoker;
+    }
+
     /**
      * For each callback
      *
@@ -132,4 +203,32 @@ public abstract class IteratorAction<T> {
      */
     protected abstract boolean forEach(final Object val, final double i) throws Throwable;
 
+    /**
+     * For each callback for an int element. Boxes the value by default.
+     *
+     * @param val value
+     * @param i   position of value
+     *
+     * @return true if callback invocation return true
+     *
+     * @throws Throwable if invocation throws an exception/error
+     */
+    protected boolean forEach(final int val, final double i) throws Throwable {
+        return forEach((Object)val, i);
+    }
+
+    /**
+     * For each callback for a double element. Boxes the value by default.
+     *
+     * @param val value
+     * @param i   position of value
+     *
+     * @return true if callback invocation return true
+     *
+     * @throws Throwable if invocation throws an exception/error
+     */
+    protected boolean forEach(final double val, final double i) throws Throwable {
+        return forEach((Object)val, i);
+    }
+
 }
@@ -38,6 +38,9 @@ class JavaArrayIterator extends ArrayLikeIterator<Object> {
     /** length of array */
     protected final long length;
 
+    /** type elements can be read as without boxing */
+    private final Class<?> elementType;
+
     /**
      * Constructor
      * @param array array to iterate over
@@ -48,6 +51,16 @@ class JavaArrayIterator extends ArrayLikeIterator<Object> {
         assert array.getClass().isArray() : "expecting Java array object";
         this.array = array;
         this.length = Array.getLength(array);
+        this.elementType = elementType(array.getClass().getComponentType());
+    }
+
+    private static Class<?> elementType(final Class<?> componentType) {
+        if (componentType == int.class || componentType == short.class || componentType == byte.class) {
+            return int.class;
+        } else if (componentType == double.class || componentType == float.class) {
+            return double.class;
+        }
+        return Object.class;
     }
 
     /**
@@ -63,6 +76,21 @@ class JavaArrayIterator extends ArrayLikeIterator<Object> {
         return Array.get(array, (int)bumpIndex());
     }
 
+    @Override
+    public Class<?> nextElementType() {
+        return elementType;
+    }
+
+    @Override
+    public int nextInt() {
+        return Array.getInt(array, (int)bumpIndex());
+    }
+
+    @Override
+    public double nextDouble() {
+        return Array.getDouble(array, (int)bumpIndex());
+    }
+
     @Override
     public long getLength() {
         return length;
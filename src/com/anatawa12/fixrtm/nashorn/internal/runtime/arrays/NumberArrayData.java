@@ -78,7 +78,20 @@ final class NumberArrayData extends ContinuousArrayData implements NumericElemen
 
     @Override
     public NumberArrayData copy() {
-        return new NumberArrayData(array.clone(), (int)length());
+        // the copy shares the array until either of them is written to
+        final NumberArrayData copy = new NumberArrayData(array, (int)length());
+        copy.shared = shared = true;
+        return copy;
+    }
+
+    /**
+     * Copy the array before writing to it if it is shared.
+     */
+    private void own() {
+        if (shared) {
+            array = array.clone();
+            shared = false;
+        }
     }
 
     @Override
@@ -86,10 +99,22 @@ final class NumberArrayData extends ContinuousArrayData implements NumericElemen
         return toObjectArray(true);
     }
 
+    /**
+     * Bulk copy the first {@code len} elements into a typed array.
+     *
+     * @param dest  destination typed array data
+     * @param index first destination element
+     * @param len   number of elements
+     */
+    void copyTo(final TypedArrayData<?> dest, final int index, final int len) {
+        assert len <= length();
+        dest.setElements(index, array, 0, len);
+    }
+
     private Object[] toObjectArray(final boolean trim) {
         assert length() <= array.length : "length exceeds internal array size";
         final int len = (int)length();
-        final Object[] oarray = new Object[trim ? len : array.length];
+        final Object[] oarray = new Object[trim ? len : widenedCapacity(array.length)];
 
         for (int index = 0; index < len; index++) {
             oarray[index] = Double.valueOf(array[index]);
@@ -125,6 +150,7 @@ final class NumberArrayData extends ContinuousArrayData implements NumericElemen
         if (by >= length()) {
             shrink(0);
         } else {
+            own();
             System.arraycopy(array, by, array, 0, array.length - by);
         }
         setLength(Math.max(0, length() - by));
@@ -138,19 +164,21 @@ final class NumberArrayData extends ContinuousArrayData implements NumericElemen
             newData.shiftRight(by);
             return newData;
         }
+        own();
         System.arraycopy(array, 0, array, by, array.length - by);
         return this;
     }
 
     @Override
     public ArrayData ensure(final long safeIndex) {
-        if (safeIndex >= SparseArrayData.MAX_DENSE_LENGTH) {
+        if (!SparseArrayData.isDenseIndex(safeIndex, length(), array.length)) {
             return new SparseArrayData(this, safeIndex + 1);
         }
         final int alen = array.length;
         if (safeIndex >= alen) {
             final int newLength = ArrayData.nextSize((int)safeIndex);
             array = Arrays.copyOf(array, newLength); //todo fill with nan or never accessed?
+            shared = false;
         }
         if (safeIndex >= length()) {
             setLength(safeIndex + 1);
@@ -159,8 +187,17 @@ final class NumberArrayData extends ContinuousArrayData implements NumericElemen
 
     }
 
+    @Override
+    public void ensureCapacity(final int capacity) {
+        if (capacity > array.length) {
+            array = Arrays.copyOf(array, Math.max(capacity, growCapacity(array.length)));
+            shared = false;
+        }
+    }
+
     @Override
     public ArrayData shrink(final long newLength) {
+        own();
         Arrays.fill(array, (int)newLength, array.length, 0.0);
         return this;
     }
@@ -179,6 +216,7 @@ final class NumberArrayData extends ContinuousArrayData implements NumericElemen
 
     @Override
     public ArrayData set(final int index, final int value, final boolean strict) {
+        own();
         array[index] = value;
         setLength(Math.max(index + 1, length()));
         return this;
@@ -186,6 +224,7 @@ final class NumberArrayData extends ContinuousArrayData implements NumericElemen
 
     @Override
     public ArrayData set(final int index, final double value, final boolean strict) {
+        own();
         array[index] = value;
         setLength(Math.max(index + 1, length()));
         return this;
@@ -205,6 +244,7 @@ final class NumberArrayData extends ContinuousArrayData implements NumericElemen
     @SuppressWarnings("unused")
     private void setElem(final int index, final double elem) {
         if (hasRoomFor(index)) {
+            own();
             array[index] = elem;
             return;
         }
@@ -268,6 +308,7 @@ final class NumberArrayData extends ContinuousArrayData implements NumericElemen
 
         final int newLength = len - 1;
         final double elem = array[newLength];
+        own();
         array[newLength] = 0;
         setLength(newLength);
         return elem;
@@ -275,6 +316,10 @@ final class NumberArrayData extends ContinuousArrayData implements NumericElemen
 
     @Override
     public ArrayData slice(final long from, final long to) {
+        if (from == 0 && to == length()) {
+            return copy();
+        }
+
         final long start     = from < 0 ? from + length() : from;
         final long newLength = to - start;
         return new NumberArrayData(Arrays.copyOfRange(array, (int)from, (int)to), (int)newLength);
@@ -284,7 +329,7 @@ final class NumberArrayData extends ContinuousArrayData implements NumericElemen
     public ArrayData fastSplice(final int start, final int removed, final int added) throws UnsupportedOperationException {
         final long oldLength = length();
         final long newLength = oldLength - removed + added;
-        if (newLength > SparseArrayData.MAX_DENSE_LENGTH && newLength > array.length) {
+        if (newLength > SparseArrayData.MAX_APPEND_LENGTH && newLength > array.length) {
             throw new UnsupportedOperationException();
         }
         final ArrayData returnValue = removed == 0 ?
@@ -297,11 +342,13 @@ final class NumberArrayData extends ContinuousArrayData implements NumericElemen
                 newArray = new double[ArrayData.nextSize((int)newLength)];
                 System.arraycopy(array, 0, newArray, 0, start);
             } else {
+                own();
                 newArray = array;
             }
 
             System.arraycopy(array, start + removed, newArray, start + added, (int)(oldLength - start - removed));
             array = newArray;
+            shared = false;
             setLength(newLength);
         }
 
@@ -324,7 +371,9 @@ final class NumberArrayData extends ContinuousArrayData implements NumericElemen
         if (len == array.length) {
            //note that fastpush never creates spares arrays, there is nothing to gain by that - it will just use even more memory
            array = Arrays.copyOf(array, nextSize(len));
+           shared = false;
         }
+        own();
         array[len] = arg;
         return increaseLength();
     }
@@ -336,6 +385,7 @@ final class NumberArrayData extends ContinuousArrayData implements NumericElemen
         }
         final int newLength = (int)decreaseLength();
         final double elem = array[newLength];
+        own();
         array[newLength] = 0;
         return elem;
     }
@@ -345,6 +395,32 @@ final class NumberArrayData extends ContinuousArrayData implements NumericElemen
         return fastPopDouble();
     }
 
+    @Override
+    public ContinuousArrayData fastSort(final PrimitiveComparator cmp) {
+        final int len = (int)length();
+        if (cmp == null) {
+            own();
+            PrimitiveArraySort.sortByString(array, len);
+        } else {
+            // sort a copy, so the elements are left intact if the comparator throws
+            final double[] sorted = Arrays.copyOf(array, len);
+            PrimitiveArraySort.sort(sorted, len, cmp);
+            // the comparator may have changed the array while sorting, or shared it with a slice
+            own();
+            System.arraycopy(sorted, 0, array, 0, Math.min(len, array.length));
+        }
+        return this;
+    }
+
+    @Override
+    public void copyElements(final Object dest, final int offset) {
+        if (dest instanceof double[]) {
+            System.arraycopy(array, 0, dest, offset, (int)length());
+        } else {
+            super.copyElements(dest, offset);
+        }
+    }
+
     @Override
     public ContinuousArrayData fastConcat(final ContinuousArrayData otherData) {
         final int   otherLength = (int)otherData.length();
@@ -76,7 +76,20 @@ final class ObjectArrayData extends ContinuousArrayData implements AnyElements {
 
     @Override
     public ObjectArrayData copy() {
-        return new ObjectArrayData(array.clone(), (int)length());
+        // the copy shares the array until either of them is written to
+        final ObjectArrayData copy = new ObjectArrayData(array, (int)length());
+        copy.shared = shared = true;
+        return copy;
+    }
+
+    /**
+     * Copy the array before writing to it if it is shared.
+     */
+    private void own() {
+        if (shared) {
+            array = array.clone();
+            shared = false;
+        }
     }
 
     @Override
@@ -102,6 +115,7 @@ final class ObjectArrayData extends ContinuousArrayData implements AnyElements {
         if (by >= length()) {
             shrink(0);
         } else {
+            own();
             System.arraycopy(array, by, array, 0, array.length - by);
         }
         setLength(Math.max(0, length() - by));
@@ -115,19 +129,21 @@ final class ObjectArrayData extends ContinuousArrayData implements AnyElements {
             newData.shiftRight(by);
             return newData;
         }
+        own();
         System.arraycopy(array, 0, array, by, array.length - by);
         return this;
     }
 
     @Override
     public ArrayData ensure(final long safeIndex) {
-        if (safeIndex >= SparseArrayData.MAX_DENSE_LENGTH) {
+        if (!SparseArrayData.isDenseIndex(safeIndex, length(), array.length)) {
             return new SparseArrayData(this, safeIndex + 1);
         }
         final int alen = array.length;
         if (safeIndex >= alen) {
             final int newLength = ArrayData.nextSize((int)safeIndex);
             array = Arrays.copyOf(array, newLength); //fill with undefined or OK? TODO
+            shared = false;
         }
         if (safeIndex >= length()) {
             setLength(safeIndex + 1);
@@ -135,14 +151,24 @@ final class ObjectArrayData extends ContinuousArrayData implements AnyElements {
         return this;
     }
 
+    @Override
+    public void ensureCapacity(final int capacity) {
+        if (capacity > array.length) {
+            array = Arrays.copyOf(array, Math.max(capacity, growCapacity(array.length)));
+            shared = false;
+        }
+    }
+
     @Override
     public ArrayData shrink(final long newLength) {
+        own();
         Arrays.fill(array, (int) newLength, array.length, ScriptRuntime.UNDEFINED);
         return this;
     }
 
     @Override
     public ArrayData set(final int index, final Object value, final boolean strict) {
+        own();
         array[index] = value;
         setLength(Math.max(index + 1, length()));
         return this;
@@ -150,6 +176,7 @@ final class ObjectArrayData extends ContinuousArrayData implements AnyElements {
 
     @Override
     public ArrayData set(final int index, final int value, final boolean strict) {
+        own();
         array[index] = value;
         setLength(Math.max(index + 1, length()));
         return this;
@@ -157,6 +184,7 @@ final class ObjectArrayData extends ContinuousArrayData implements AnyElements {
 
     @Override
     public ArrayData set(final int index, final double value, final boolean strict) {
+        own();
         array[index] = value;
         setLength(Math.max(index + 1, length()));
         return this;
@@ -164,12 +192,14 @@ final class ObjectArrayData extends ContinuousArrayData implements AnyElements {
 
     @Override
     public ArrayData setEmpty(final int index) {
+        own();
         array[index] = ScriptRuntime.EMPTY;
         return this;
     }
 
     @Override
     public ArrayData setEmpty(final long lo, final long hi) {
+        own();
         // hi parameter is inclusive, but Arrays.fill toIndex parameter is exclusive
         Arrays.fill(array, (int)Math.max(lo, 0L), (int)Math.min(hi + 1, Integer.MAX_VALUE), ScriptRuntime.EMPTY);
         return this;
@@ -189,6 +219,7 @@ final class ObjectArrayData extends ContinuousArrayData implements AnyElements {
     @SuppressWarnings("unused")
     private void setElem(final int index, final Object elem) {
         if (hasRoomFor(index)) {
+            own();
             array[index] = elem;
             return;
         }
@@ -261,7 +292,9 @@ final class ObjectArrayData extends ContinuousArrayData implements AnyElements {
         final int len = (int)length();
         if (len == array.length) {
             array = Arrays.copyOf(array, nextSize(len));
+            shared = false;
         }
+        own();
         array[len] = arg;
         return increaseLength();
     }
@@ -273,6 +306,7 @@ final class ObjectArrayData extends ContinuousArrayData implements AnyElements {
         }
         final int newLength = (int)decreaseLength();
         final Object elem = array[newLength];
+        own();
         array[newLength] = ScriptRuntime.EMPTY;
         return elem;
     }
@@ -292,6 +326,10 @@ final class ObjectArrayData extends ContinuousArrayData implements AnyElements {
 
     @Override
     public ArrayData slice(final long from, final long to) {
+        if (from == 0 && to == length()) {
+            return copy();
+        }
+
         final long start     = from < 0 ? from + length() : from;
         final long newLength = to - start;
         return new ObjectArrayData(Arrays.copyOfRange(array, (int)from, (int)to), (int)newLength);
@@ -302,6 +340,7 @@ final class ObjectArrayData extends ContinuousArrayData implements AnyElements {
         final long      len     = length();
         final ArrayData newData = ensure(len);
         if (newData == this) {
+            own();
             array[(int)len] = item;
             return this;
         }
@@ -312,7 +351,7 @@ final class ObjectArrayData extends ContinuousArrayData implements AnyElements {
     public ArrayData fastSplice(final int start, final int removed, final int added) throws UnsupportedOperationException {
         final long oldLength = length();
         final long newLength = oldLength - removed + added;
-        if (newLength > SparseArrayData.MAX_DENSE_LENGTH && newLength > array.length) {
+        if (newLength > SparseArrayData.MAX_APPEND_LENGTH && newLength > array.length) {
             throw new UnsupportedOperationException();
         }
         final ArrayData returnValue = removed == 0 ?
@@ -325,17 +364,28 @@ final class ObjectArrayData extends ContinuousArrayData implements AnyElements {
                 newArray = new Object[ArrayData.nextSize((int)newLength)];
                 System.arraycopy(array, 0, newArray, 0, start);
             } else {
+                own();
                 newArray = array;
             }
 
             System.arraycopy(array, start + removed, newArray, start + added, (int)(oldLength - start - removed));
             array = newArray;
+            shared = false;
             setLength(newLength);
         }
 
         return returnValue;
     }
 
+    @Override
+    public void copyElements(final Object dest, final int offset) {
+        if (dest instanceof Object[]) {
+            System.arraycopy(array, 0, dest, offset, (int)length());
+        } else {
+            super.copyElements(dest, offset);
+        }
+    }
+
     @Override
     public ContinuousArrayData fastConcat(final ContinuousArrayData otherData) {
         final int   otherLength = (int)otherData.length();
@@ -0,0 +1,271 @@
+/*
+ * Copyright (c) 2010, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.anatawa12.fixrtm.nashorn.internal.runtime.arrays;
+
+import java.util.Arrays;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.JSType;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.arrays.ContinuousArrayData.PrimitiveComparator;
+
+/**
+ * Stable merge sorts on primitive element arrays, used by {@link ContinuousArrayData#fastSort(PrimitiveComparator)}.
+ * Default ordering compares the string values of the elements as required by Array.prototype.sort. For ints
+ * and doubles with int values this is done on the decimal digits without creating strings, other doubles are
+ * converted to strings once per element.
+ */
+final class PrimitiveArraySort {
+    /** Ranges shorter than this are sorted with insertion sort */
+    private static final int INSERTION_SORT_THRESHOLD = 7;
+
+    /** Powers of ten up to the number of digits in an int */
+    private static final long[] POWERS_OF_TEN = {
+        1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L, 1000000000L, 10000000000L
+    };
+
+    /** Default sort order for int elements and double elements with int values */
+    private static final PrimitiveComparator STRING_ORDER = new PrimitiveComparator() {
+        @Override
+        public int compare(final int x, final int y) {
+            return compareAsStrings(x, y);
+        }
+
+        @Override
+        public int compare(final double x, final double y) {
+            // only used for doubles with int values
+            return compareAsStrings((int)x, (int)y);
+        }
+    };
+
+    private PrimitiveArraySort() {
+    }
+
+    /**
+     * Sort ints by their string values.
+     *
+     * @param array  elements
+     * @param length number of elements to sort
+     */
+    static void sortByString(final int[] array, final int length) {
+        sort(array, length, STRING_ORDER);
+    }
+
+    /**
+     * Sort ints.
+     *
+     * @param array  elements
+     * @param length number of elements to sort
+     * @param cmp    comparator
+     */
+    static void sort(final int[] array, final int length, final PrimitiveComparator cmp) {
+        mergeSort(Arrays.copyOf(array, length), array, 0, length, cmp);
+    }
+
+    /**
+     * Sort doubles by their string values.
+     *
+     * @param array  elements
+     * @param length number of elements to sort
+     */
+    static void sortByString(final double[] array, final int length) {
+        if (allInts(array, length)) {
+            // -0 converts to 0 as does its string value
+            mergeSort(Arrays.copyOf(array, length), array, 0, length, STRING_ORDER);
+            return;
+        }
+        final String[] keys = new String[length];
+        for (int i = 0; i < length; i++) {
+            keys[i] = JSType.toString(array[i]);
+        }
+        mergeSort(keys.clone(), keys, Arrays.copyOf(array, length), array, 0, length);
+    }
+
+    /**
+     * Sort doubles.
+     *
+     * @param array  elements
+     * @param length number of elements to sort
+     * @param cmp    comparator
+     */
+    static void sort(final double[] array, final int length, final PrimitiveComparator cmp) {
+        mergeSort(Arrays.copyOf(array, length), array, 0, length, cmp);
+    }
+
+    /**
+     * Compare the decimal string values of two ints without creating the strings.
+     *
+     * @param x first int
+     * @param y second int
+     * @return the result of comparing {@code JSType.toString(x)} and {@code JSType.toString(y)}, up to sign
+     */
+    static int compareAsStrings(final int x, final int y) {
+        if (x == y) {
+            return 0;
+        }
+        if (x < 0 != y < 0) {
+            // '-' sorts before all digits
+            return x < 0 ? -1 : 1;
+        }
+        long dx = Math.abs((long)x);
+        long dy = Math.abs((long)y);
+        final int lx = digitCount(dx);
+        final int ly = digitCount(dy);
+        // align the digits and compare numerically, a proper prefix sorts first
+        if (lx < ly) {
+            dx *= POWERS_OF_TEN[ly - lx];
+            if (dx == dy) {
+                return -1;
+            }
+        } else if (ly < lx) {
+            dy *= POWERS_OF_TEN[lx - ly];
+            if (dx == dy) {
+                return 1;
+            }
+        }
+        return Long.compare(dx, dy);
+    }
+
+    private static boolean allInts(final double[] array, final int length) {
+        for (int i = 0; i < length; i++) {
+            if (!JSType.isRepresentableAsInt(array[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int digitCount(final long value) {
+        int count = 1;
+        while (count < POWERS_OF_TEN.length && value >= POWERS_OF_TEN[count]) {
+            count++;
+        }
+        return count;
+    }
+
+    // The merge sorts below expect src and dest to hold the same elements in [low, high) and leave
+    // the sorted range in dest, alternating the roles of the two arrays at each level.
+
+    private static void mergeSort(final int[] src, final int[] dest, final int low, final int high, final PrimitiveComparator cmp) {
+        if (high - low < INSERTION_SORT_THRESHOLD) {
+            for (int i = low + 1; i < high; i++) {
+                final int x = dest[i];
+                int j = i - 1;
+                while (j >= low && cmp.compare(dest[j], x) > 0) {
+                    dest[j + 1] = dest[j];
+                    j--;
+                }
+                dest[j + 1] = x;
+            }
+            return;
+        }
+
+        final int mid = (low + high) >>> 1;
+        mergeSort(dest, src, low, mid, cmp);
+        mergeSort(dest, src, mid, high, cmp);
+
+        if (cmp.compare(src[mid - 1], src[mid]) <= 0) {
+            System.arraycopy(src, low, dest, low, high - low);
+            return;
+        }
+
+        for (int i = low, p = low, q = mid; i < high; i++) {
+            if (q >= high || p < mid && cmp.compare(src[p], src[q]) <= 0) {
+                dest[i] = src[p++];
+            } else {
+                dest[i] = src[q++];
+            }
+        }
+    }
+
+    private static void mergeSort(final double[] src, final double[] dest, final int low, final int high, final PrimitiveComparator cmp) {
+        if (high - low < INSERTION_SORT_THRESHOLD) {
+            for (int i = low + 1; i < high; i++) {
+                final double x = dest[i];
+                int j = i - 1;
+                while (j >= low && cmp.compare(dest[j], x) > 0) {
+                    dest[j + 1] = dest[j];
+                    j--;
+                }
+                dest[j + 1] = x;
+            }
+            return;
+        }
+
+        final int mid = (low + high) >>> 1;
+        mergeSort(dest, src, low, mid, cmp);
+        mergeSort(dest, src, mid, high, cmp);
+
+        if (cmp.compare(src[mid - 1], src[mid]) <= 0) {
+            System.arraycopy(src, low, dest, low, high - low);
+            return;
+        }
+
+        for (int i = low, p = low, q = mid; i < high; i++) {
+            if (q >= high || p < mid && cmp.compare(src[p], src[q]) <= 0) {
+                dest[i] = src[p++];
+            } else {
+                dest[i] = src[q++];
+            }
+        }
+    }
+
+    // sorts values by keys, moving both in step
+    private static void mergeSort(final String[] srcKeys, final String[] destKeys, final double[] src, final double[] dest, final int low, final int high) {
+        if (high - low < INSERTION_SORT_THRESHOLD) {
+            for (int i = low + 1; i < high; i++) {
+                final String key = destKeys[i];
+                final double x = dest[i];
+                int j = i - 1;
+                while (j >= low && destKeys[j].compareTo(key) > 0) {
+                    destKeys[j + 1] = destKeys[j];
+                    dest[j + 1] = dest[j];
+                    j--;
+                }
+                destKeys[j + 1] = key;
+                dest[j + 1] = x;
+            }
+            return;
+        }
+
+        final int mid = (low + high) >>> 1;
+        mergeSort(destKeys, srcKeys, dest, src, low, mid);
+        mergeSort(destKeys, srcKeys, dest, src, mid, high);
+
+        if (srcKeys[mid - 1].compareTo(srcKeys[mid]) <= 0) {
+            System.arraycopy(srcKeys, low, destKeys, low, high - low);
+            System.arraycopy(src, low, dest, low, high - low);
+            return;
+        }
+
+        for (int i = low, p = low, q = mid; i < high; i++) {
+            if (q >= high || p < mid && srcKeys[p].compareTo(srcKeys[q]) <= 0) {
+                destKeys[i] = srcKeys[p];
+                dest[i] = src[p++];
+            } else {
+                destKeys[i] = srcKeys[q];
+                dest[i] = src[q++];
+            }
+        }
+    }
+}
@@ -62,6 +62,21 @@ class ScriptArrayIterator extends ArrayLikeIterator<Object> {
         return array.get(bumpIndex());
     }
 
+    @Override
+    public Class<?> nextElementType() {
+        return array.getArray().elementTypeAt(index);
+    }
+
+    @Override
+    public int nextInt() {
+        return array.getArray().getInt((int)bumpIndex());
+    }
+
+    @Override
+    public double nextDouble() {
+        return array.getArray().getDouble((int)bumpIndex());
+    }
+
     @Override
     public long getLength() {
         return length;
@@ -69,6 +69,21 @@ class ScriptObjectIterator extends ArrayLikeIterator<Object> {
         return indexInArray();
     }
 
+    @Override
+    public Class<?> nextElementType() {
+        return obj.getArray().elementTypeAt(index);
+    }
+
+    @Override
+    public int nextInt() {
+        return obj.getArray().getInt((int)bumpIndex());
+    }
+
+    @Override
+    public double nextDouble() {
+        return obj.getArray().getDouble((int)bumpIndex());
+    }
+
     @Override
     public Object next() {
         if (indexInArray()) {
@@ -26,8 +26,6 @@
 package com.anatawa12.fixrtm.nashorn.internal.runtime.arrays;
 
 import java.util.Arrays;
-import java.util.Map;
-import java.util.TreeMap;
 import com.anatawa12.fixrtm.nashorn.internal.codegen.types.Type;
 import com.anatawa12.fixrtm.nashorn.internal.runtime.JSType;
 import com.anatawa12.fixrtm.nashorn.internal.runtime.ScriptRuntime;
@@ -36,23 +34,29 @@ import com.anatawa12.fixrtm.nashorn.internal.runtime.ScriptRuntime;
  * Handle arrays where the index is very large.
  */
 class SparseArrayData extends ArrayData {
-    /** Maximum size for dense arrays */
+    /** Maximum size for dense arrays written out of order */
     static final int MAX_DENSE_LENGTH = 128 * 1024;
 
+    /** Maximum size for dense arrays grown by appending */
+    static final int MAX_APPEND_LENGTH = 1 << 29;
+
+    /** Maximum length preallocated as dense storage by {@code new Array(length)} */
+    static final int MAX_PREALLOCATED_LENGTH = 1024 * 1024;
+
     /** Underlying array. */
     private ArrayData underlying;
 
-    /** Maximum length to be stored in the array. */
-    private final long maxDenseLength;
+    /** Maximum length to be stored in the array. Grows while elements are appended to it. */
+    private long maxDenseLength;
 
     /** Sparse elements. */
-    private TreeMap<Long, Object> sparseMap;
+    private SparseElementMap sparseMap;
 
     SparseArrayData(final ArrayData underlying, final long length) {
-        this(underlying, length, new TreeMap<Long, Object>());
+        this(underlying, length, new SparseElementMap());
     }
 
-    private SparseArrayData(final ArrayData underlying, final long length, final TreeMap<Long, Object> sparseMap) {
+    private SparseArrayData(final ArrayData underlying, final long length, final SparseElementMap sparseMap) {
         super(length);
         assert underlying.length() <= length;
         this.underlying = underlying;
@@ -60,9 +64,45 @@ class SparseArrayData extends ArrayData {
         this.sparseMap = sparseMap;
     }
 
+    /**
+     * Can dense array data with the given length and capacity store an element at
+     * {@code safeIndex}? Indexes below {@link #MAX_DENSE_LENGTH} or within the
+     * allocated capacity always can, beyond that dense arrays only grow by appending.
+     *
+     * @param safeIndex the index to store
+     * @param length    the length of the dense array
+     * @param capacity  the size of its backing storage
+     * @return true if the array can stay dense
+     */
+    static boolean isDenseIndex(final long safeIndex, final long length, final int capacity) {
+        return safeIndex < MAX_DENSE_LENGTH || safeIndex < capacity || safeIndex == length && safeIndex < MAX_APPEND_LENGTH;
+    }
+
+    /**
+     * Elements set right after the end of the dense part extend it, unless the
+     * index is already taken by a sparse element.
+     */
+    private boolean isDense(final int index) {
+        if (index >= 0 && index < maxDenseLength) {
+            return true;
+        }
+        if (index == maxDenseLength && index == underlying.length() && index < MAX_APPEND_LENGTH && !sparseMap.containsKey(index)) {
+            maxDenseLength++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Drop the sparse wrapper once the dense part holds every element.
+     */
+    private ArrayData denseOrThis() {
+        return sparseMap.isEmpty() && underlying.length() == length() ? underlying : this;
+    }
+
     @Override
     public ArrayData copy() {
-        return new SparseArrayData(underlying.copy(), length(), new TreeMap<>(sparseMap));
+        return new SparseArrayData(underlying.copy(), length(), sparseMap.copy());
     }
 
     @Override
@@ -77,10 +117,9 @@ class SparseArrayData extends ArrayData {
 
         Arrays.fill(objArray, underlyingLength, len, ScriptRuntime.UNDEFINED);
 
-        for (final Map.Entry<Long, Object> entry : sparseMap.entrySet()) {
-            final long key = entry.getKey();
+        for (final long key : sparseMap.sortedKeys()) {
             if (key < Integer.MAX_VALUE) {
-                objArray[(int)key] = entry.getValue();
+                objArray[(int)key] = sparseMap.get(key);
             } else {
                 break; // ascending key order
             }
@@ -93,18 +132,18 @@ class SparseArrayData extends ArrayData {
     public ArrayData shiftLeft(final int by) {
         underlying = underlying.shiftLeft(by);
 
-        final TreeMap<Long, Object> newSparseMap = new TreeMap<>();
+        final SparseElementMap newSparseMap = new SparseElementMap();
 
-        for (final Map.Entry<Long, Object> entry : sparseMap.entrySet()) {
-            final long newIndex = entry.getKey().longValue() - by;
+        for (final long key : sparseMap.sortedKeys()) {
+            final long newIndex = key - by;
             if (newIndex >= 0) {
                 if (newIndex < maxDenseLength) {
                     final long oldLength = underlying.length();
                     underlying = underlying.ensure(newIndex)
-                            .set((int) newIndex, entry.getValue(), false)
+                            .set((int) newIndex, sparseMap.get(key), false)
                             .safeDelete(oldLength, newIndex - 1, false);
                 } else {
-                    newSparseMap.put(Long.valueOf(newIndex), entry.getValue());
+                    newSparseMap.put(newIndex, sparseMap.get(key));
                 }
             }
         }
@@ -117,7 +156,7 @@ class SparseArrayData extends ArrayData {
 
     @Override
     public ArrayData shiftRight(final int by) {
-        final TreeMap<Long, Object> newSparseMap = new TreeMap<>();
+        final SparseElementMap newSparseMap = new SparseElementMap();
         // Move elements from underlying to sparse map if necessary
         final long len = underlying.length();
         if (len + by > maxDenseLength) {
@@ -125,7 +164,7 @@ class SparseArrayData extends ArrayData {
             final long tempLength = Math.max(0, maxDenseLength - by);
             for (long i = tempLength; i < len; i++) {
                 if (underlying.has((int) i)) {
-                    newSparseMap.put(Long.valueOf(i + by), underlying.getObject((int) i));
+                    newSparseMap.put(i + by, underlying.getObject((int) i));
                 }
             }
             underlying = underlying.shrink((int) tempLength);
@@ -134,9 +173,8 @@ class SparseArrayData extends ArrayData {
 
         underlying = underlying.shiftRight(by);
 
-        for (final Map.Entry<Long, Object> entry : sparseMap.entrySet()) {
-            final long newIndex = entry.getKey().longValue() + by;
-            newSparseMap.put(Long.valueOf(newIndex), entry.getValue());
+        for (final long key : sparseMap.sortedKeys()) {
+            newSparseMap.put(key + by, sparseMap.get(key));
         }
 
         sparseMap = newSparseMap;
@@ -153,6 +191,11 @@ class SparseArrayData extends ArrayData {
         return this;
     }
 
+    @Override
+    public void ensureCapacity(final int capacity) {
+        underlying.ensureCapacity(capacity);
+    }
+
     @Override
     public ArrayData shrink(final long newLength) {
         if (newLength < underlying.length()) {
@@ -162,19 +205,20 @@ class SparseArrayData extends ArrayData {
             setLength(newLength);
         }
 
-        sparseMap.subMap(Long.valueOf(newLength), Long.MAX_VALUE).clear();
+        sparseMap.removeRange(newLength, Long.MAX_VALUE - 1);
         setLength(newLength);
         return this;
     }
 
     @Override
     public ArrayData set(final int index, final Object value, final boolean strict) {
-        if (index >= 0 && index < maxDenseLength) {
+        if (isDense(index)) {
             final long oldLength = underlying.length();
             underlying = underlying.ensure(index).set(index, value, strict).safeDelete(oldLength, index - 1, strict);
             setLength(Math.max(underlying.length(), length()));
+            return denseOrThis();
         } else {
-            final Long longIndex = indexToKey(index);
+            final long longIndex = indexToKey(index);
             sparseMap.put(longIndex, value);
             setLength(Math.max(longIndex + 1, length()));
         }
@@ -184,12 +228,13 @@ class SparseArrayData extends ArrayData {
 
     @Override
     public ArrayData set(final int index, final int value, final boolean strict) {
-        if (index >= 0 && index < maxDenseLength) {
+        if (isDense(index)) {
             final long oldLength = underlying.length();
             underlying = underlying.ensure(index).set(index, value, strict).safeDelete(oldLength, index - 1, strict);
             setLength(Math.max(underlying.length(), length()));
+            return denseOrThis();
         } else {
-            final Long longIndex = indexToKey(index);
+            final long longIndex = indexToKey(index);
             sparseMap.put(longIndex, value);
             setLength(Math.max(longIndex + 1, length()));
         }
@@ -198,12 +243,13 @@ class SparseArrayData extends ArrayData {
 
     @Override
     public ArrayData set(final int index, final double value, final boolean strict) {
-        if (index >= 0 && index < maxDenseLength) {
+        if (isDense(index)) {
             final long oldLength = underlying.length();
             underlying = underlying.ensure(index).set(index, value, strict).safeDelete(oldLength, index - 1, strict);
             setLength(Math.max(underlying.length(), length()));
+            return denseOrThis();
         } else {
-            final Long longIndex = indexToKey(index);
+            final long longIndex = indexToKey(index);
             sparseMap.put(longIndex, value);
             setLength(Math.max(longIndex + 1, length()));
         }
@@ -265,12 +311,12 @@ class SparseArrayData extends ArrayData {
             return underlying.getObject(index);
         }
 
-        final Long key = indexToKey(index);
-        if (sparseMap.containsKey(key)) {
-            return sparseMap.get(key);
-        }
+        return sparseMap.get(indexToKey(index), ScriptRuntime.UNDEFINED);
+    }
 
-        return ScriptRuntime.UNDEFINED;
+    @Override
+    Class<?> elementTypeAt(final long index) {
+        return index < maxDenseLength ? underlying.elementTypeAt(index) : Object.class;
     }
 
     @Override
@@ -301,13 +347,13 @@ class SparseArrayData extends ArrayData {
             underlying = underlying.delete(fromIndex, Math.min(toIndex, underlying.length() - 1));
         }
         if (toIndex >= maxDenseLength) {
-            sparseMap.subMap(fromIndex, true, toIndex, true).clear();
+            sparseMap.removeRange(fromIndex, toIndex);
         }
         return this;
     }
 
-    private static Long indexToKey(final int index) {
-        return Long.valueOf(ArrayIndex.toLongIndex(index));
+    private static long indexToKey(final int index) {
+        return ArrayIndex.toLongIndex(index);
     }
 
     @Override
@@ -329,7 +375,7 @@ class SparseArrayData extends ArrayData {
             return result;
         }
         setLength(len - 1);
-        final Long key = Long.valueOf(len - 1);
+        final long key = len - 1;
         return sparseMap.containsKey(key) ? sparseMap.remove(key) : ScriptRuntime.UNDEFINED;
     }
 
@@ -365,8 +411,8 @@ class SparseArrayData extends ArrayData {
             return underlying.nextIndex(index);
         }
 
-        final Long nextKey = sparseMap.higherKey(index);
-        if (nextKey != null) {
+        final long nextKey = sparseMap.higherKey(index);
+        if (nextKey >= 0) {
             return nextKey;
         }
 
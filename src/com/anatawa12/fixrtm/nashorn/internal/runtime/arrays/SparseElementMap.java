@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) 2010, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.anatawa12.fixrtm.nashorn.internal.runtime.arrays;
+
+import java.util.Arrays;
+
+/**
+ * Map from array index to element used by {@link SparseArrayData}. Keys are stored unboxed in an open
+ * addressing hash table with linear probing, so lookups and updates are constant time and don't allocate.
+ * Ordered access is served from a sorted snapshot of the keys that is rebuilt lazily after keys are
+ * added or removed.
+ */
+final class SparseElementMap {
+    /** Marker for unused slots, array indices are never negative */
+    private static final long FREE = -1L;
+
+    /** Initial capacity, must be a power of two */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** Keys, {@link #FREE} for unused slots */
+    private long[] keys;
+
+    /** Values by slot */
+    private Object[] values;
+
+    /** Number of keys */
+    private int size;
+
+    /** Sorted keys, or null if keys have changed since it was built */
+    private long[] sortedKeys;
+
+    SparseElementMap() {
+        this.keys   = newKeys(INITIAL_CAPACITY);
+        this.values = new Object[INITIAL_CAPACITY];
+    }
+
+    private SparseElementMap(final SparseElementMap map) {
+        this.keys       = map.keys.clone();
+        this.values     = map.values.clone();
+        this.size       = map.size;
+        this.sortedKeys = map.sortedKeys;
+    }
+
+    /**
+     * Copy this map
+     * @return a copy
+     */
+    SparseElementMap copy() {
+        return new SparseElementMap(this);
+    }
+
+    /**
+     * Get the number of elements
+     * @return number of elements
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Check if the map is empty
+     * @return true if empty
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Check if there is an element at an index
+     * @param key index
+     * @return true if there is an element at the index
+     */
+    boolean containsKey(final long key) {
+        return slot(key) >= 0;
+    }
+
+    /**
+     * Get the element at an index
+     * @param key index
+     * @return element, or null if there is none
+     */
+    Object get(final long key) {
+        return get(key, null);
+    }
+
+    /**
+     * Get the element at an index
+     * @param key          index
+     * @param defaultValue value to return if there is no element
+     * @return element, or {@code defaultValue} if there is none
+     */
+    Object get(final long key, final Object defaultValue) {
+        final int slot = slot(key);
+        return slot >= 0 ? values[slot] : defaultValue;
+    }
+
+    /**
+     * Set the element at an index
+     * @param key   index
+     * @param value element
+     */
+    void put(final long key, final Object value) {
+        assert key >= 0;
+        final int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        for (long k; (k = keys[i]) != FREE; i = (i + 1) & mask) {
+            if (k == key) {
+                values[i] = value;
+                return;
+            }
+        }
+        keys[i] = key;
+        values[i] = value;
+        sortedKeys = null;
+        if (++size > (keys.length >> 1) + (keys.length >> 2)) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    /**
+     * Remove the element at an index
+     * @param key index
+     * @return the removed element, or null if there was none
+     */
+    Object remove(final long key) {
+        int slot = slot(key);
+        if (slot < 0) {
+            return null;
+        }
+        final Object value = values[slot];
+        // shift back following entries of the probe sequence instead of leaving a tombstone
+        final int mask = keys.length - 1;
+        for (int next = (slot + 1) & mask; keys[next] != FREE; next = (next + 1) & mask) {
+            final int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - slot) & mask)) {
+                keys[slot] = keys[next];
+                values[slot] = values[next];
+                slot = next;
+            }
+        }
+        keys[slot] = FREE;
+        values[slot] = null;
+        size--;
+        sortedKeys = null;
+        return value;
+    }
+
+    /**
+     * Remove all elements in an index range
+     * @param from first index, inclusive
+     * @param to   last index, inclusive
+     */
+    void removeRange(final long from, final long to) {
+        if (from > to || size == 0) {
+            return;
+        }
+        final long[] sorted = sortedKeys();
+        final int start = ceilingPosition(sorted, from);
+        int end = start;
+        while (end < sorted.length && sorted[end] <= to) {
+            end++;
+        }
+        if (end - start == size) {
+            clear();
+            return;
+        }
+        for (int i = start; i < end; i++) {
+            remove(sorted[i]);
+        }
+    }
+
+    /**
+     * Remove all elements
+     */
+    void clear() {
+        Arrays.fill(keys, FREE);
+        Arrays.fill(values, null);
+        size = 0;
+        sortedKeys = null;
+    }
+
+    /**
+     * Get the smallest index with an element that is greater than the given index
+     * @param key index
+     * @return next index, or -1 if there is none
+     */
+    long higherKey(final long key) {
+        final long[] sorted = sortedKeys();
+        final int pos = ceilingPosition(sorted, key + 1);
+        return pos < sorted.length ? sorted[pos] : -1;
+    }
+
+    /**
+     * Get the indices of all elements in ascending order. The returned array must not be modified.
+     * @return sorted indices
+     */
+    long[] sortedKeys() {
+        long[] sorted = sortedKeys;
+        if (sorted == null) {
+            sorted = new long[size];
+            int n = 0;
+            for (final long k : keys) {
+                if (k != FREE) {
+                    sorted[n++] = k;
+                }
+            }
+            Arrays.sort(sorted);
+            sortedKeys = sorted;
+        }
+        return sorted;
+    }
+
+    private static int ceilingPosition(final long[] sorted, final long key) {
+        final int pos = Arrays.binarySearch(sorted, key);
+        return pos >= 0 ? pos : -pos - 1;
+    }
+
+    private int slot(final long key) {
+        final int mask = keys.length - 1;
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            final long k = keys[i];
+            if (k == key) {
+                return i;
+            } else if (k == FREE) {
+                return -1;
+            }
+        }
+    }
+
+    private void rehash(final int capacity) {
+        final long[] oldKeys = keys;
+        final Object[] oldValues = values;
+        keys = newKeys(capacity);
+        values = new Object[capacity];
+        final int mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            final long key = oldKeys[j];
+            if (key != FREE) {
+                int i = hash(key) & mask;
+                while (keys[i] != FREE) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = key;
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    private static long[] newKeys(final int capacity) {
+        final long[] keys = new long[capacity];
+        Arrays.fill(keys, FREE);
+        return keys;
+    }
+
+    private static int hash(final long key) {
+        final long h = key * 0x9E3779B97F4A7C15L;
+        return (int)(h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) 2010, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.anatawa12.fixrtm.nashorn.internal.runtime.arrays;
+
+import java.util.Arrays;
+import com.anatawa12.fixrtm.nashorn.api.scripting.JSObject;
+import com.anatawa12.fixrtm.nashorn.internal.objects.Global;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.JSType;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.PropertyMap;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.ScriptObject;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.ScriptRuntime;
+
+/**
+ * Implementation of {@link ArrayData} for arrays of records with a fixed set of numeric
+ * fields. The fields of all records are packed into a single {@code double[]}, so an
+ * array of points takes eight bytes per coordinate instead of a script object per point.
+ *
+ * <p>Elements are {@link StructRecord}s created on read, which view the record at their
+ * index. Storing an object copies its fields into the record, missing fields become NaN.
+ * Anything that needs element identity, like storing a record of this array somewhere
+ * else in it, storing a non-object, deleting or shifting, first converts the array into an
+ * {@link ObjectArrayData} of its records.</p>
+ */
+final class StructArrayData extends ArrayData {
+    /** Field names, in storage order */
+    private final String[] fields;
+
+    /** Number of fields per record */
+    private final int stride;
+
+    /** Property map of the records */
+    private final PropertyMap map;
+
+    /** Prototype of the records */
+    private final ScriptObject proto;
+
+    /** Field values, record by record */
+    private double[] storage;
+
+    /**
+     * Constructor
+     *
+     * @param fields field names, in storage order
+     * @param length number of records
+     */
+    StructArrayData(final String[] fields, final int length) {
+        super(length);
+        this.fields  = fields.clone();
+        this.stride  = fields.length;
+        this.map     = StructRecord.getMap(fields);
+        this.proto   = Global.objectPrototype();
+        this.storage = new double[length * stride];
+    }
+
+    private StructArrayData(final StructArrayData data, final double[] storage, final int length) {
+        super(length);
+        this.fields  = data.fields;
+        this.stride  = data.stride;
+        this.map     = data.map;
+        this.proto   = data.proto;
+        this.storage = storage;
+    }
+
+    PropertyMap getMap() {
+        return map;
+    }
+
+    ScriptObject getPrototype() {
+        return proto;
+    }
+
+    double getField(final int offset) {
+        return storage[offset];
+    }
+
+    void setField(final int offset, final double value) {
+        storage[offset] = value;
+    }
+
+    @Override
+    public ArrayData copy() {
+        return new StructArrayData(this, storage.clone(), (int)length());
+    }
+
+    @Override
+    public Object[] asObjectArray() {
+        final Object[] records = new Object[(int)length()];
+        for (int i = 0; i < records.length; i++) {
+            records[i] = getObject(i);
+        }
+        return records;
+    }
+
+    /**
+     * Convert to an array of the records themselves.
+     *
+     * @return object array data
+     */
+    private ArrayData unpack() {
+        return new ObjectArrayData(asObjectArray(), (int)length());
+    }
+
+    @Override
+    public ArrayData shiftLeft(final int by) {
+        return unpack().shiftLeft(by);
+    }
+
+    @Override
+    public ArrayData shiftRight(final int by) {
+        return unpack().shiftRight(by);
+    }
+
+    @Override
+    public ArrayData ensure(final long safeIndex) {
+        if (safeIndex < length()) {
+            return this;
+        }
+        final int capacity = storage.length / stride;
+        if (!SparseArrayData.isDenseIndex(safeIndex, length(), capacity) || safeIndex >= Integer.MAX_VALUE / stride) {
+            return unpack().ensure(safeIndex);
+        }
+        if (safeIndex >= capacity) {
+            ensureCapacity(ArrayData.nextSize((int)safeIndex));
+        }
+        setLength(safeIndex + 1);
+        return this;
+    }
+
+    @Override
+    public void ensureCapacity(final int capacity) {
+        if (capacity > storage.length / stride && capacity <= Integer.MAX_VALUE / stride) {
+            storage = Arrays.copyOf(storage, Math.max(capacity, growCapacity(storage.length / stride)) * stride);
+        }
+    }
+
+    @Override
+    public ArrayData shrink(final long newLength) {
+        // records past the new length read as zero if the array grows again
+        Arrays.fill(storage, (int)newLength * stride, storage.length, 0.0);
+        return this;
+    }
+
+    @Override
+    public ArrayData set(final int index, final Object value, final boolean strict) {
+        if (value instanceof StructRecord && ((StructRecord)value).data == this) {
+            return ((StructRecord)value).offset == index * stride ? this : unpack().set(index, value, strict);
+        }
+        if (!(value instanceof ScriptObject || value instanceof JSObject)) {
+            return unpack().set(index, value, strict);
+        }
+
+        final int offset = index * stride;
+        if (value instanceof StructRecord && ((StructRecord)value).data.map == map) {
+            final StructRecord record = (StructRecord)value;
+            System.arraycopy(record.data.storage, record.offset, storage, offset, stride);
+        } else if (value instanceof ScriptObject) {
+            final ScriptObject sobj = (ScriptObject)value;
+            for (int i = 0; i < stride; i++) {
+                storage[offset + i] = JSType.toNumber(sobj.get(fields[i]));
+            }
+        } else {
+            final JSObject jsobj = (JSObject)value;
+            for (int i = 0; i < stride; i++) {
+                storage[offset + i] = JSType.toNumber(jsobj.getMember(fields[i]));
+            }
+        }
+        setLength(Math.max(index + 1, length()));
+        return this;
+    }
+
+    @Override
+    public ArrayData set(final int index, final int value, final boolean strict) {
+        return unpack().set(index, value, strict);
+    }
+
+    @Override
+    public ArrayData set(final int index, final double value, final boolean strict) {
+        return unpack().set(index, value, strict);
+    }
+
+    @Override
+    public int getInt(final int index) {
+        return JSType.toInt32(getObject(index));
+    }
+
+    @Override
+    public double getDouble(final int index) {
+        return JSType.toNumber(getObject(index));
+    }
+
+    @Override
+    public Object getObject(final int index) {
+        return new StructRecord(this, index * stride);
+    }
+
+    @Override
+    public boolean has(final int index) {
+        return 0 <= index && index < length();
+    }
+
+    @Override
+    public ArrayData delete(final int index) {
+        return unpack().delete(index);
+    }
+
+    @Override
+    public ArrayData delete(final long fromIndex, final long toIndex) {
+        return unpack().delete(fromIndex, toIndex);
+    }
+
+    @Override
+    public ArrayData convert(final Class<?> type) {
+        // records are stored by set, anything else unpacks the array there
+        return type == Object.class ? this : unpack();
+    }
+
+    @Override
+    public Object pop() {
+        if (length() == 0) {
+            return ScriptRuntime.UNDEFINED;
+        }
+
+        // the popped record is a copy, its position is reused by the next push
+        final int newLength = (int)length() - 1;
+        final int offset    = newLength * stride;
+        final StructArrayData popped = new StructArrayData(this, Arrays.copyOfRange(storage, offset, offset + stride), 1);
+        shrink(newLength);
+        setLength(newLength);
+        return popped.getObject(0);
+    }
+
+    @Override
+    public ArrayData slice(final long from, final long to) {
+        final long start = from < 0 ? from + length() : from;
+        final Object[] records = new Object[(int)(to - start)];
+        for (int i = 0; i < records.length; i++) {
+            records[i] = getObject((int)start + i);
+        }
+        return new ObjectArrayData(records, records.length);
+    }
+}
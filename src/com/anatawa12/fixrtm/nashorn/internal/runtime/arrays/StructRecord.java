@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2010, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.anatawa12.fixrtm.nashorn.internal.runtime.arrays;
+
+import static com.anatawa12.fixrtm.nashorn.internal.lookup.Lookup.MH;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.AccessorProperty;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.JSType;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.Property;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.PropertyMap;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.ScriptObject;
+
+/**
+ * Element of a {@link StructArrayData}. A record is a view of one position of the packed
+ * storage, its fields are accessor properties reading and writing the storage directly.
+ * Records of arrays with the same fields share a property map, so call sites accessing
+ * their fields stay monomorphic.
+ *
+ * <p>Records are created on every element read and are not extensible, since properties
+ * added to them would be lost with the record.</p>
+ */
+final class StructRecord extends ScriptObject {
+    private static final MethodHandle GET_FIELD = findOwnMH("getField", Object.class, Object.class, int.class);
+    private static final MethodHandle SET_FIELD = findOwnMH("setField", void.class, Object.class, int.class, Object.class);
+
+    /** Property maps by field names */
+    private static final ConcurrentMap<List<String>, PropertyMap> maps = new ConcurrentHashMap<>();
+
+    /** The array whose storage this record views */
+    final StructArrayData data;
+
+    /** Index of the first field in the storage */
+    final int offset;
+
+    StructRecord(final StructArrayData data, final int offset) {
+        super(data.getPrototype(), data.getMap());
+        this.data   = data;
+        this.offset = offset;
+    }
+
+    /**
+     * Get the property map for records with the given fields
+     *
+     * @param fields field names, in storage order
+     * @return property map
+     */
+    static PropertyMap getMap(final String[] fields) {
+        final List<String> key = Arrays.asList(fields.clone());
+        PropertyMap map = maps.get(key);
+        if (map == null) {
+            final List<Property> properties = new ArrayList<>(fields.length);
+            for (int i = 0; i < fields.length; i++) {
+                properties.add(AccessorProperty.create(fields[i], Property.NOT_CONFIGURABLE,
+                        MH.insertArguments(GET_FIELD, 1, i), MH.insertArguments(SET_FIELD, 1, i)));
+            }
+            final PropertyMap newMap = PropertyMap.newMap(properties);
+            map = maps.putIfAbsent(key, newMap);
+            if (map == null) {
+                map = newMap;
+            }
+        }
+        return map;
+    }
+
+    @Override
+    public boolean isExtensible() {
+        return false;
+    }
+
+    private static Object getField(final Object self, final int field) {
+        final StructRecord record = (StructRecord)self;
+        return record.data.getField(record.offset + field);
+    }
+
+    private static void setField(final Object self, final int field, final Object value) {
+        final StructRecord record = (StructRecord)self;
+        record.data.setField(record.offset + field, JSType.toNumber(value));
+    }
+
+    private static MethodHandle findOwnMH(final String name, final Class<?> rtype, final Class<?>... types) {
+        return MH.findStatic(MethodHandles.lookup(), StructRecord.class, name, MH.type(rtype, types));
+    }
+}
@@ -32,6 +32,7 @@ import com.anatawa12.fixrtm.nashorn.dynalink.CallSiteDescriptor;
 import com.anatawa12.fixrtm.nashorn.dynalink.linker.GuardedInvocation;
 import com.anatawa12.fixrtm.nashorn.dynalink.linker.LinkRequest;
 import com.anatawa12.fixrtm.nashorn.internal.lookup.Lookup;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.JSType;
 
 /**
  * The superclass of all ArrayData used by TypedArrays
@@ -94,7 +95,20 @@ public abstract class TypedArrayData<T extends Buffer> extends ContinuousArrayDa
 
     @Override
     public Object[] asObjectArray() {
-        throw new UnsupportedOperationException();
+        final int len = getElementLength();
+        final Object[] oarray = new Object[len];
+        for (int index = 0; index < len; index++) {
+            oarray[index] = getObject(index);
+        }
+        return oarray;
+    }
+
+    @Override
+    public Object asArrayOfType(final Class<?> componentType) {
+        if (componentType == double.class || componentType == int.class && getElementType() == int.class) {
+            return toPrimitiveArray(componentType, 0, getElementLength());
+        }
+        return super.asArrayOfType(componentType);
     }
 
     @Override
@@ -142,9 +156,109 @@ public abstract class TypedArrayData<T extends Buffer> extends ContinuousArrayDa
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * Returns a copy of the given range of this typed array as JavaScript
+     * array data, an int array if the elements are ints, a double array otherwise.
+     */
     @Override
     public ArrayData slice(final long from, final long to) {
-        throw new UnsupportedOperationException();
+        final int start = (int)Math.max(0L, from);
+        final int end   = (int)Math.min(to, length());
+        return ArrayData.allocate(toPrimitiveArray(getElementType() == int.class ? int.class : double.class, start, Math.max(0, end - start)));
+    }
+
+    private Object toPrimitiveArray(final Class<?> componentType, final int from, final int length) {
+        if (componentType == int.class) {
+            final int[] iarray = new int[length];
+            getElements(from, iarray, 0, length);
+            return iarray;
+        }
+        final double[] darray = new double[length];
+        getElements(from, darray, 0, length);
+        return darray;
+    }
+
+    /**
+     * Read a range of elements into an int array. Subclasses backed by an
+     * {@code IntBuffer} override this with a bulk get.
+     *
+     * @param index  first element to read
+     * @param dest   destination array
+     * @param offset offset in the destination array
+     * @param length number of elements
+     */
+    protected void getElements(final int index, final int[] dest, final int offset, final int length) {
+        for (int i = 0; i < length; i++) {
+            dest[offset + i] = getInt(index + i);
+        }
+    }
+
+    /**
+     * Read a range of elements into a double array. Subclasses backed by a
+     * {@code DoubleBuffer} override this with a bulk get.
+     *
+     * @param index  first element to read
+     * @param dest   destination array
+     * @param offset offset in the destination array
+     * @param length number of elements
+     */
+    protected void getElements(final int index, final double[] dest, final int offset, final int length) {
+        for (int i = 0; i < length; i++) {
+            dest[offset + i] = getDouble(index + i);
+        }
+    }
+
+    /**
+     * Store a range of ints into this typed array, converting them like
+     * {@link #set(int, int, boolean)}. Subclasses backed by an {@code IntBuffer}
+     * override this with a bulk put.
+     *
+     * @param index  first element to write
+     * @param src    source array
+     * @param offset offset in the source array
+     * @param length number of elements
+     */
+    protected void setElements(final int index, final int[] src, final int offset, final int length) {
+        for (int i = 0; i < length; i++) {
+            set(index + i, src[offset + i], false);
+        }
+    }
+
+    /**
+     * Store a range of doubles into this typed array. Integer typed arrays
+     * convert them with {@code ToInt32} first, floating point typed arrays
+     * override this to store them as they are.
+     *
+     * @param index  first element to write
+     * @param src    source array
+     * @param offset offset in the source array
+     * @param length number of elements
+     */
+    protected void setElements(final int index, final double[] src, final int offset, final int length) {
+        for (int i = 0; i < length; i++) {
+            set(index + i, JSType.toInt32(src[offset + i]), false);
+        }
+    }
+
+    /**
+     * Copy the first {@code length} elements of a JavaScript int or double
+     * array into this typed array, starting at {@code index}.
+     *
+     * @param index  first element to write
+     * @param source source array data
+     * @param length number of elements
+     * @return true if the elements were copied, false if {@code source} has
+     *         no packed primitive representation and must be copied element by element
+     */
+    public boolean setElements(final int index, final ArrayData source, final int length) {
+        if (source instanceof IntArrayData) {
+            ((IntArrayData)source).copyTo(this, index, length);
+            return true;
+        } else if (source instanceof NumberArrayData) {
+            ((NumberArrayData)source).copyTo(this, index, length);
+            return true;
+        }
+        return false;
     }
 
     /**
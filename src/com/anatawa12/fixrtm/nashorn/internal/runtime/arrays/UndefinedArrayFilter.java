@@ -92,7 +92,7 @@ final class UndefinedArrayFilter extends ArrayFilter {
 
     @Override
     public ArrayData ensure(final long safeIndex) {
-        if (safeIndex >= SparseArrayData.MAX_DENSE_LENGTH && safeIndex >= length()) {
+        if (safeIndex >= SparseArrayData.MAX_DENSE_LENGTH && safeIndex > length()) {
             return new SparseArrayData(this, safeIndex + 1);
         }
 
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2010, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.anatawa12.fixrtm.nashorn.internal.runtime.regexp;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.ParserException;
+
+/**
+ * Size bounded cache of compiled regexps keyed by pattern and flags. The cache
+ * is split into segments by key hash, each of which is a small LRU map with its
+ * own lock, so threads compiling different regexps rarely contend. Regexps are
+ * compiled outside the lock; if two threads miss on the same key concurrently
+ * the first result stored wins.
+ */
+final class RegExpCache {
+
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder compileNanos = new LongAdder();
+
+    /**
+     * Constructor.
+     *
+     * @param size maximum number of cached regexps, 0 disables caching
+     */
+    RegExpCache(final int size) {
+        final int segmentSize = (size + SEGMENTS - 1) / SEGMENTS;
+        segments = new Segment[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(segmentSize);
+        }
+    }
+
+    /**
+     * Get the regexp for {@code pattern} and {@code flags}, compiling it with
+     * {@code factory} if it is not cached.
+     *
+     * @param factory factory to compile with on a miss
+     * @param pattern RegExp pattern string
+     * @param flags   RegExp flags string
+     * @return the cached or new RegExp
+     * @throws ParserException if flags is invalid or pattern string has syntax error.
+     */
+    RegExp get(final RegExpFactory factory, final String pattern, final String flags) throws ParserException {
+        final Key key = new Key(pattern, flags);
+        final Segment segment = segments[(key.hash ^ key.hash >>> 16) & SEGMENTS - 1];
+
+        RegExp regexp;
+        synchronized (segment) {
+            regexp = segment.get(key);
+        }
+        if (regexp != null) {
+            hits.increment();
+            return regexp;
+        }
+
+        misses.increment();
+        final long start = System.nanoTime();
+        regexp = factory.compileUncached(pattern, flags);
+        compileNanos.add(System.nanoTime() - start);
+
+        synchronized (segment) {
+            final RegExp existing = segment.putIfAbsent(key, regexp);
+            return existing != null ? existing : regexp;
+        }
+    }
+
+    long getHits() {
+        return hits.longValue();
+    }
+
+    long getMisses() {
+        return misses.longValue();
+    }
+
+    long getCompileNanos() {
+        return compileNanos.longValue();
+    }
+
+    int size() {
+        int size = 0;
+        for (final Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    @SuppressWarnings("serial")
+    private static final class Segment extends LinkedHashMap<Key, RegExp> {
+        private final int capacity;
+
+        Segment(final int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Key, RegExp> eldest) {
+            return size() > capacity;
+        }
+    }
+
+    private static final class Key {
+        private final String pattern;
+        private final String flags;
+        private final int hash;
+
+        Key(final String pattern, final String flags) {
+            this.pattern = pattern;
+            this.flags = flags;
+            this.hash = 31 * pattern.hashCode() + flags.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key)obj;
+            return hash == other.hash && pattern.equals(other.pattern) && flags.equals(other.flags);
+        }
+    }
+}
@@ -25,9 +25,6 @@
 
 package com.anatawa12.fixrtm.nashorn.internal.runtime.regexp;
 
-import java.util.Collections;
-import java.util.Map;
-import java.util.WeakHashMap;
 import com.anatawa12.fixrtm.nashorn.internal.runtime.ParserException;
 import com.anatawa12.fixrtm.nashorn.internal.runtime.options.Options;
 
@@ -42,13 +39,14 @@ public class RegExpFactory {
     private final static String JDK  = "jdk";
     private final static String JONI = "joni";
 
-    /** Weak cache of already validated regexps - when reparsing, we don't, for example
+    /** LRU cache of already validated regexps - when reparsing, we don't, for example
      *  need to recompile (reverify) all regexps that have previously been parsed by this
-     *  RegExpFactory in a previous compilation. This saves significant time in e.g. avatar
-     *  startup
+     *  RegExpFactory in a previous compilation, and scripts calling {@code new RegExp(str)}
+     *  with recurring patterns share compiled regexps. Its size can be set with the
+     *  {@code nashorn.regexp.cache.size} system property.
      */
-    private static final Map<String, RegExp> REGEXP_CACHE =
-            Collections.synchronizedMap(new WeakHashMap<String, RegExp>());
+    private static final RegExpCache REGEXP_CACHE =
+            new RegExpCache(Options.getIntProperty("nashorn.regexp.cache.size", 256));
 
     static {
         final String impl = Options.getStringProperty("nashorn.regexp.impl", JONI);
@@ -77,6 +75,20 @@ public class RegExpFactory {
         return new JdkRegExp(pattern, flags);
     }
 
+    /**
+     * Compile a regexp that is not in the regexp cache. Simple patterns are matched
+     * without the regexp engine of this factory, see {@link SimpleRegExp}.
+     *
+     * @param pattern RegExp pattern string
+     * @param flags   RegExp flags string
+     * @return new RegExp
+     * @throws ParserException if flags is invalid or pattern string has syntax error.
+     */
+    final RegExp compileUncached(final String pattern, final String flags) throws ParserException {
+        final RegExp simple = SimpleRegExp.compile(pattern, flags);
+        return simple != null ? simple : compile(pattern, flags);
+    }
+
     /**
      * Compile a regexp with the given {@code source} and {@code flags}.
      *
@@ -86,13 +98,7 @@ public class RegExpFactory {
      * @throws ParserException if invalid source or flags
      */
     public static RegExp create(final String pattern, final String flags) {
-        final String key = pattern + "/" + flags;
-        RegExp regexp = REGEXP_CACHE.get(key);
-        if (regexp == null) {
-            regexp = instance.compile(pattern,  flags);
-            REGEXP_CACHE.put(key, regexp);
-        }
-        return regexp;
+        return REGEXP_CACHE.get(instance, pattern, flags);
     }
 
     /**
@@ -107,6 +113,42 @@ public class RegExpFactory {
         create(pattern, flags);
     }
 
+    /**
+     * Get the number of regexps found in the regexp cache
+     *
+     * @return the number of cache hits
+     */
+    public static long getCacheHits() {
+        return REGEXP_CACHE.getHits();
+    }
+
+    /**
+     * Get the number of regexps that had to be compiled because they were not cached
+     *
+     * @return the number of cache misses
+     */
+    public static long getCacheMisses() {
+        return REGEXP_CACHE.getMisses();
+    }
+
+    /**
+     * Get the total time spent compiling regexps on cache misses
+     *
+     * @return compile time in nanoseconds
+     */
+    public static long getCompileTime() {
+        return REGEXP_CACHE.getCompileNanos();
+    }
+
+    /**
+     * Get the number of regexps currently in the regexp cache
+     *
+     * @return the cache size
+     */
+    public static int getCacheSize() {
+        return REGEXP_CACHE.size();
+    }
+
     /**
      * Returns true if the instance uses the JDK's {@code java.util.regex} package.
      *
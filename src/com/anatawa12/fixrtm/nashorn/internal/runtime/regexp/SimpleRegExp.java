@@ -0,0 +1,406 @@
+/*
+ * Copyright (c) 2010, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.anatawa12.fixrtm.nashorn.internal.runtime.regexp;
+
+import com.anatawa12.fixrtm.nashorn.internal.runtime.ParserException;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.regexp.joni.EncodingHelper;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.regexp.joni.encoding.CharacterType;
+
+/**
+ * Regular expression implementation for patterns that are simple enough to be matched
+ * without a regexp engine: literals such as {@code /,/}, literals anchored at the start
+ * of the input such as {@code /^foo/}, and a single character class optionally followed
+ * by {@code +} such as {@code /\s+/} or {@code /[,;]/}. These are matched with
+ * {@link String#indexOf} or a plain scan over the input and report the same matches as
+ * the regexp engine would.
+ *
+ * Instances are immutable and can be shared between threads.
+ */
+final class SimpleRegExp extends RegExp {
+
+    /** Literal to search for, or null if this matches a character class */
+    private String literal;
+
+    /** True if the literal only matches at the start of the input */
+    private boolean anchored;
+
+    /** Character class to scan for if literal is null */
+    private CharSet charSet;
+
+    /** True if the character class is followed by {@code +} */
+    private boolean repeated;
+
+    private SimpleRegExp(final String pattern, final String flags) throws ParserException {
+        super(pattern, flags);
+    }
+
+    /**
+     * Compile {@code pattern} if it is a simple pattern.
+     *
+     * @param pattern RegExp pattern string
+     * @param flags   RegExp flags string
+     * @return a new SimpleRegExp, or null if the pattern needs a regexp engine
+     * @throws ParserException if flags is invalid
+     */
+    static RegExp compile(final String pattern, final String flags) throws ParserException {
+        final SimpleRegExp regexp = new SimpleRegExp(pattern, flags);
+        return regexp.parseLiteral(pattern) || regexp.parseCharSet(pattern) ? regexp : null;
+    }
+
+    private boolean parseLiteral(final String pattern) {
+        final boolean anchor = pattern.startsWith("^");
+        if (anchor && isMultiline()) {
+            return false;
+        }
+
+        final StringBuilder sb = new StringBuilder(pattern.length());
+        for (int i = anchor ? 1 : 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            switch (c) {
+            case '^': case '$': case '.': case '*': case '+': case '?':
+            case '(': case ')': case '[': case ']': case '{': case '}': case '|':
+                return false;
+            case '\\':
+                if (++i == pattern.length()) {
+                    return false;
+                }
+                c = escape(pattern.charAt(i));
+                if (c == 0) {
+                    return false;
+                }
+                break;
+            default:
+                break;
+            }
+            if (isIgnoreCase() && hasCase(c)) {
+                return false;
+            }
+            sb.append(c);
+        }
+
+        if (sb.length() == 0) {
+            return false;
+        }
+        literal = sb.toString();
+        anchored = anchor;
+        return true;
+    }
+
+    private boolean parseCharSet(final String pattern) {
+        // the JDK implementation's idea of white space differs slightly
+        if (RegExpFactory.usesJavaUtilRegex()) {
+            return false;
+        }
+
+        final CharSet set = new CharSet();
+        int i;
+        if (pattern.startsWith("[")) {
+            i = 1;
+            if (i < pattern.length() && pattern.charAt(i) == '^') {
+                set.negated = true;
+                i++;
+            }
+            if (i < pattern.length() && pattern.charAt(i) == ']') {
+                // [] and [^] are valid in JavaScript but not worth a fast path
+                return false;
+            }
+            while (i < pattern.length() && pattern.charAt(i) != ']') {
+                final int from = classAtom(pattern, i, set);
+                if (from == -1) {
+                    return false;
+                }
+                i = nextAtom(pattern, i);
+                if (i + 1 < pattern.length() && pattern.charAt(i) == '-' && pattern.charAt(i + 1) != ']') {
+                    final int to = classAtom(pattern, i + 1, null);
+                    if (from < 0 || to < from) {
+                        // a class escape or an invalid range
+                        return false;
+                    }
+                    set.add((char)from, (char)to);
+                    i = nextAtom(pattern, i + 1);
+                } else if (from >= 0) {
+                    set.add((char)from, (char)from);
+                }
+            }
+            if (i == pattern.length()) {
+                return false;
+            }
+            i++;
+        } else if (pattern.length() >= 2 && pattern.charAt(0) == '\\') {
+            final char c = pattern.charAt(1);
+            if (!set.addEscape(Character.toLowerCase(c))) {
+                return false;
+            }
+            set.negated = Character.isUpperCase(c);
+            i = 2;
+        } else {
+            return false;
+        }
+
+        if (i < pattern.length() && pattern.charAt(i) == '+') {
+            repeated = true;
+            i++;
+        }
+        if (i != pattern.length() || isIgnoreCase() && set.hasCase()) {
+            return false;
+        }
+        charSet = set;
+        return true;
+    }
+
+    /*
+     * Returns the character of the class atom at i, adding class escapes such as \d to set
+     * and returning -2 for them, or -1 for anything not supported.
+     */
+    private static int classAtom(final String pattern, final int i, final CharSet set) {
+        final char c = pattern.charAt(i);
+        if (c == '[') {
+            return -1;
+        }
+        if (c != '\\') {
+            return c;
+        }
+        if (i + 1 == pattern.length()) {
+            return -1;
+        }
+        final char e = pattern.charAt(i + 1);
+        if (set != null && (e == 'd' || e == 's' || e == 'w')) {
+            set.addEscape(e);
+            return -2;
+        }
+        final char escaped = escape(e);
+        return escaped == 0 ? -1 : escaped;
+    }
+
+    private static int nextAtom(final String pattern, final int i) {
+        return pattern.charAt(i) == '\\' ? i + 2 : i + 1;
+    }
+
+    /*
+     * Returns the character matched by the escape sequence \c or 0 if it is not a
+     * simple character escape.
+     */
+    private static char escape(final char c) {
+        switch (c) {
+        case 't':
+            return '\t';
+        case 'n':
+            return '\n';
+        case 'r':
+            return '\r';
+        case 'f':
+            return '\f';
+        case 'v':
+            return '\u000b';
+        default:
+            // identity escapes of syntax characters
+            return c < 0x80 && !Character.isLetterOrDigit(c) && c != '_' ? c : 0;
+        }
+    }
+
+    /*
+     * Conservatively true if c may match other characters when ignoring case.
+     */
+    private static boolean hasCase(final char c) {
+        return Character.isLetter(c) || Character.toUpperCase(c) != c || Character.toLowerCase(c) != c;
+    }
+
+    @Override
+    public RegExpMatcher match(final String input) {
+        return new SimpleMatcher(input);
+    }
+
+    /**
+     * Set of chars matched by a character class.
+     */
+    private static final class CharSet {
+        /** membership of chars below 0x80 */
+        final boolean[] ascii = new boolean[0x80];
+
+        /** ranges of chars above 0x7f as pairs of first and last char */
+        char[] ranges = new char[0];
+
+        /** true if the set contains all characters matched by \s */
+        boolean space;
+
+        boolean negated;
+
+        void add(final char from, final char to) {
+            for (char c = from; c <= to && c < 0x80; c++) {
+                ascii[c] = true;
+            }
+            if (to >= 0x80) {
+                final char[] newRanges = new char[ranges.length + 2];
+                System.arraycopy(ranges, 0, newRanges, 0, ranges.length);
+                newRanges[ranges.length] = from < 0x80 ? 0x80 : from;
+                newRanges[ranges.length + 1] = to;
+                ranges = newRanges;
+            }
+        }
+
+        boolean addEscape(final char c) {
+            switch (c) {
+            case 'd':
+                add('0', '9');
+                return true;
+            case 'w':
+                add('a', 'z');
+                add('A', 'Z');
+                add('0', '9');
+                add('_', '_');
+                return true;
+            case 's':
+                for (char ch = 0; ch < 0x80; ch++) {
+                    ascii[ch] |= isSpace(ch);
+                }
+                space = true;
+                return true;
+            default:
+                return false;
+            }
+        }
+
+        boolean contains(final char c) {
+            if (c < 0x80) {
+                return ascii[c] != negated;
+            }
+            if (space && isSpace(c)) {
+                return !negated;
+            }
+            for (int i = 0; i < ranges.length; i += 2) {
+                if (c >= ranges[i] && c <= ranges[i + 1]) {
+                    return !negated;
+                }
+            }
+            return negated;
+        }
+
+        boolean hasCase() {
+            if (negated || ranges.length > 0) {
+                return true;
+            }
+            for (char c = 0; c < 0x80; c++) {
+                if (ascii[c] && SimpleRegExp.hasCase(c)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static boolean isSpace(final char c) {
+            return EncodingHelper.isCodeCType(c, CharacterType.SPACE);
+        }
+    }
+
+    class SimpleMatcher implements RegExpMatcher {
+        final String input;
+        int start = -1;
+        int end = -1;
+
+        SimpleMatcher(final String input) {
+            this.input = input;
+        }
+
+        @Override
+        public boolean search(final int from) {
+            final int length = input.length();
+            if (literal != null) {
+                if (anchored) {
+                    start = from == 0 && input.startsWith(literal) ? 0 : -1;
+                } else {
+                    start = from <= length ? input.indexOf(literal, from) : -1;
+                }
+                end = start + literal.length();
+                return start >= 0;
+            }
+
+            for (int i = from; i < length; i++) {
+                if (charSet.contains(input.charAt(i))) {
+                    int e = i + 1;
+                    if (repeated) {
+                        while (e < length && charSet.contains(input.charAt(e))) {
+                            e++;
+                        }
+                    }
+                    start = i;
+                    end = e;
+                    return true;
+                }
+            }
+            start = end = -1;
+            return false;
+        }
+
+        @Override
+        public String getInput() {
+            return input;
+        }
+
+        @Override
+        public int start() {
+            return start;
+        }
+
+        @Override
+        public int start(final int group) {
+            if (group != 0) {
+                throw new IndexOutOfBoundsException("No group " + group);
+            }
+            return start;
+        }
+
+        @Override
+        public int end() {
+            return end;
+        }
+
+        @Override
+        public int end(final int group) {
+            if (group != 0) {
+                throw new IndexOutOfBoundsException("No group " + group);
+            }
+            return end;
+        }
+
+        @Override
+        public String group() {
+            return input.substring(start, end);
+        }
+
+        @Override
+        public String group(final int group) {
+            if (group != 0) {
+                throw new IndexOutOfBoundsException("No group " + group);
+            }
+            return group();
+        }
+
+        @Override
+        public int groupCount() {
+            return 0;
+        }
+    }
+}
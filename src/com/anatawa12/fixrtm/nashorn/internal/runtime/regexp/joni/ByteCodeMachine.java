@@ -34,18 +34,18 @@ import com.anatawa12.fixrtm.nashorn.internal.runtime.regexp.joni.exception.Error
 import com.anatawa12.fixrtm.nashorn.internal.runtime.regexp.joni.exception.InternalException;
 
 class ByteCodeMachine extends StackMachine {
-    private int bestLen;          // return value
-    private int s = 0;            // current char
+    int bestLen;                  // return value
+    int s = 0;                    // current char
 
-    private int range;            // right range
-    private int sprev;
-    private int sstart;
-    private int sbegin;
+    int range;                    // right range
+    int sprev;
+    int sstart;
+    int sbegin;
 
-    private final int[] code;       // byte code
-    private int ip;                 // instruction pointer
+    final int[] code;               // byte code
+    int ip;                         // instruction pointer
 
-    ByteCodeMachine(final Regex regex, final char[] chars, final int p, final int end) {
+    ByteCodeMachine(final Regex regex, final String chars, final int p, final int end) {
         super(regex, chars, p, end);
         this.code = regex.code;
     }
@@ -56,8 +56,8 @@ class ByteCodeMachine extends StackMachine {
         final int end1 = s1 + mbLen;
 
         while (s1 < end1) {
-            final char c1 = EncodingHelper.toLowerCase(chars[s1++]);
-            final char c2 = EncodingHelper.toLowerCase(chars[s2++]);
+            final char c1 = EncodingHelper.toLowerCase(chars.charAt(s1++));
+            final char c2 = EncodingHelper.toLowerCase(chars.charAt(s2++));
 
             if (c1 != c2) {
                 return false;
@@ -82,7 +82,7 @@ class ByteCodeMachine extends StackMachine {
             int q, i;
             for (i=0, q=s; i<7 && q<end && s>=0; i++) {
                 if (q < end) {
-                    Config.log.print(new String(new char[]{chars[q++]}));
+                    Config.log.print(new String(new char[]{chars.charAt(q++)}));
                 }
             }
             final String string = q < end ? "...\"" : "\"";
@@ -97,8 +97,7 @@ class ByteCodeMachine extends StackMachine {
         }
     }
 
-    @Override
-    protected final int matchAt(final int r, final int ss, final int sp) {
+    final void matchInit(final int r, final int ss, final int sp) {
         this.range = r;
         this.sstart = ss;
         this.sprev = sp;
@@ -114,6 +113,11 @@ class ByteCodeMachine extends StackMachine {
 
         bestLen = -1;
         s = ss;
+    }
+
+    @Override
+    protected int matchAt(final int r, final int ss, final int sp) {
+        matchInit(r, ss, sp);
 
         final int[] c = this.code;
         while (true) {
@@ -221,7 +225,107 @@ class ByteCodeMachine extends StackMachine {
         } // main while
     }
 
-    private boolean opEnd() {
+    /**
+     * Executes the single instruction at {@code p} with the current position {@code ss}
+     * and previous position {@code sp}, leaving the machine at the next instruction.
+     * {@link CompiledMachine} uses this for the instructions it doesn't compile.
+     */
+    protected final void step(final int p, final int ss, final int sp) {
+        ip = p + 1;
+        s = sbegin = ss;
+        sprev = sp;
+
+        switch (code[p]) {
+            case OPCode.EXACT1:                     opExact1();                break;
+            case OPCode.EXACT2:                     opExact2();                break;
+            case OPCode.EXACT3:                     opExact3();                break;
+            case OPCode.EXACT4:                     opExact4();                break;
+            case OPCode.EXACT5:                     opExact5();                break;
+            case OPCode.EXACTN:                     opExactN();                break;
+
+            case OPCode.EXACT1_IC:                  opExact1IC();              break;
+            case OPCode.EXACTN_IC:                  opExactNIC();              break;
+
+            case OPCode.CCLASS:                     opCClass();                break;
+            case OPCode.CCLASS_MB:                  opCClassMB();              break;
+            case OPCode.CCLASS_MIX:                 opCClassMIX();             break;
+            case OPCode.CCLASS_NOT:                 opCClassNot();             break;
+            case OPCode.CCLASS_MB_NOT:              opCClassMBNot();           break;
+            case OPCode.CCLASS_MIX_NOT:             opCClassMIXNot();          break;
+            case OPCode.CCLASS_NODE:                opCClassNode();            break;
+
+            case OPCode.ANYCHAR:                    opAnyChar();               break;
+            case OPCode.ANYCHAR_ML:                 opAnyCharML();             break;
+            case OPCode.ANYCHAR_STAR:               opAnyCharStar();           break;
+            case OPCode.ANYCHAR_ML_STAR:            opAnyCharMLStar();         break;
+            case OPCode.ANYCHAR_STAR_PEEK_NEXT:     opAnyCharStarPeekNext();   break;
+            case OPCode.ANYCHAR_ML_STAR_PEEK_NEXT:  opAnyCharMLStarPeekNext(); break;
+
+            case OPCode.WORD:                       opWord();                  break;
+            case OPCode.NOT_WORD:                   opNotWord();               break;
+            case OPCode.WORD_BOUND:                 opWordBound();             break;
+            case OPCode.NOT_WORD_BOUND:             opNotWordBound();          break;
+            case OPCode.WORD_BEGIN:                 opWordBegin();             break;
+            case OPCode.WORD_END:                   opWordEnd();               break;
+
+            case OPCode.BEGIN_BUF:                  opBeginBuf();              break;
+            case OPCode.END_BUF:                    opEndBuf();                break;
+            case OPCode.BEGIN_LINE:                 opBeginLine();             break;
+            case OPCode.END_LINE:                   opEndLine();               break;
+            case OPCode.SEMI_END_BUF:               opSemiEndBuf();            break;
+            case OPCode.BEGIN_POSITION:             opBeginPosition();         break;
+
+            case OPCode.MEMORY_START_PUSH:          opMemoryStartPush();       break;
+            case OPCode.MEMORY_START:               opMemoryStart();           break;
+            case OPCode.MEMORY_END_PUSH:            opMemoryEndPush();         break;
+            case OPCode.MEMORY_END:                 opMemoryEnd();             break;
+            case OPCode.MEMORY_END_PUSH_REC:        opMemoryEndPushRec();      break;
+            case OPCode.MEMORY_END_REC:             opMemoryEndRec();          break;
+
+            case OPCode.BACKREF1:                   opBackRef1();              break;
+            case OPCode.BACKREF2:                   opBackRef2();              break;
+            case OPCode.BACKREFN:                   opBackRefN();              break;
+            case OPCode.BACKREFN_IC:                opBackRefNIC();            break;
+            case OPCode.BACKREF_MULTI:              opBackRefMulti();          break;
+            case OPCode.BACKREF_MULTI_IC:           opBackRefMultiIC();        break;
+            case OPCode.BACKREF_WITH_LEVEL:         opBackRefAtLevel();        break;
+
+            case OPCode.NULL_CHECK_START:           opNullCheckStart();        break;
+            case OPCode.NULL_CHECK_END:             opNullCheckEnd();          break;
+            case OPCode.NULL_CHECK_END_MEMST:       opNullCheckEndMemST();     break;
+
+            case OPCode.JUMP:                       opJump();                  break;
+            case OPCode.PUSH:                       opPush();                  break;
+
+            case OPCode.POP:                        opPop();                   break;
+            case OPCode.PUSH_OR_JUMP_EXACT1:        opPushOrJumpExact1();      break;
+            case OPCode.PUSH_IF_PEEK_NEXT:          opPushIfPeekNext();        break;
+
+            case OPCode.REPEAT:                     opRepeat();                break;
+            case OPCode.REPEAT_NG:                  opRepeatNG();              break;
+            case OPCode.REPEAT_INC:                 opRepeatInc();             break;
+            case OPCode.REPEAT_INC_SG:              opRepeatIncSG();           break;
+            case OPCode.REPEAT_INC_NG:              opRepeatIncNG();           break;
+            case OPCode.REPEAT_INC_NG_SG:           opRepeatIncNGSG();         break;
+
+            case OPCode.PUSH_POS:                   opPushPos();               break;
+            case OPCode.POP_POS:                    opPopPos();                break;
+            case OPCode.PUSH_POS_NOT:               opPushPosNot();            break;
+            case OPCode.FAIL_POS:                   opFailPos();               break;
+            case OPCode.PUSH_STOP_BT:               opPushStopBT();            break;
+            case OPCode.POP_STOP_BT:                opPopStopBT();             break;
+
+            case OPCode.LOOK_BEHIND:                opLookBehind();            break;
+            case OPCode.PUSH_LOOK_BEHIND_NOT:       opPushLookBehindNot();     break;
+            case OPCode.FAIL_LOOK_BEHIND_NOT:       opFailLookBehindNot();     break;
+
+            case OPCode.FAIL:                       opFail();                  break;
+            default:
+                throw new InternalException(ErrorMessages.ERR_UNDEFINED_BYTECODE);
+        }
+    }
+
+    final boolean opEnd() {
         final int n = s - sstart;
 
         if (n > bestLen) {
@@ -303,7 +407,7 @@ class ByteCodeMachine extends StackMachine {
     }
 
     private void opExact1() {
-        if (s >= range || code[ip] != chars[s++]) {opFail(); return;}
+        if (s >= range || code[ip] != chars.charAt(s++)) {opFail(); return;}
         //if (s > range) {opFail(); return;}
         ip++;
         sprev = sbegin; // break;
@@ -311,48 +415,48 @@ class ByteCodeMachine extends StackMachine {
 
     private void opExact2() {
         if (s + 2 > range) {opFail(); return;}
-        if (code[ip] != chars[s]) {opFail(); return;}
+        if (code[ip] != chars.charAt(s)) {opFail(); return;}
         ip++; s++;
-        if (code[ip] != chars[s]) {opFail(); return;}
+        if (code[ip] != chars.charAt(s)) {opFail(); return;}
         sprev = s;
         ip++; s++;
     }
 
     private void opExact3() {
         if (s + 3 > range) {opFail(); return;}
-        if (code[ip] != chars[s]) {opFail(); return;}
+        if (code[ip] != chars.charAt(s)) {opFail(); return;}
         ip++; s++;
-        if (code[ip] != chars[s]) {opFail(); return;}
+        if (code[ip] != chars.charAt(s)) {opFail(); return;}
         ip++; s++;
-        if (code[ip] != chars[s]) {opFail(); return;}
+        if (code[ip] != chars.charAt(s)) {opFail(); return;}
         sprev = s;
         ip++; s++;
     }
 
     private void opExact4() {
         if (s + 4 > range) {opFail(); return;}
-        if (code[ip] != chars[s]) {opFail(); return;}
+        if (code[ip] != chars.charAt(s)) {opFail(); return;}
         ip++; s++;
-        if (code[ip] != chars[s]) {opFail(); return;}
+        if (code[ip] != chars.charAt(s)) {opFail(); return;}
         ip++; s++;
-        if (code[ip] != chars[s]) {opFail(); return;}
+        if (code[ip] != chars.charAt(s)) {opFail(); return;}
         ip++; s++;
-        if (code[ip] != chars[s]) {opFail(); return;}
+        if (code[ip] != chars.charAt(s)) {opFail(); return;}
         sprev = s;
         ip++; s++;
     }
 
     private void opExact5() {
         if (s + 5 > range) {opFail(); return;}
-        if (code[ip] != chars[s]) {opFail(); return;}
+        if (code[ip] != chars.charAt(s)) {opFail(); return;}
         ip++; s++;
-        if (code[ip] != chars[s]) {opFail(); return;}
+        if (code[ip] != chars.charAt(s)) {opFail(); return;}
         ip++; s++;
-        if (code[ip] != chars[s]) {opFail(); return;}
+        if (code[ip] != chars.charAt(s)) {opFail(); return;}
         ip++; s++;
-        if (code[ip] != chars[s]) {opFail(); return;}
+        if (code[ip] != chars.charAt(s)) {opFail(); return;}
         ip++; s++;
-        if (code[ip] != chars[s]) {opFail(); return;}
+        if (code[ip] != chars.charAt(s)) {opFail(); return;}
         sprev = s;
         ip++; s++;
     }
@@ -366,19 +470,19 @@ class ByteCodeMachine extends StackMachine {
             int ps = code[ip++];
 
             while (tlen-- > 0) {
-                if (bs[ps++] != chars[s++]) {opFail(); return;}
+                if (bs[ps++] != chars.charAt(s++)) {opFail(); return;}
             }
 
         } else {
             while (tlen-- > 0) {
-                if (code[ip++] != chars[s++]) {opFail(); return;}
+                if (code[ip++] != chars.charAt(s++)) {opFail(); return;}
             }
         }
         sprev = s - 1;
     }
 
     private void opExact1IC() {
-        if (s >= range || code[ip] != EncodingHelper.toLowerCase(chars[s++])) {opFail(); return;}
+        if (s >= range || code[ip] != EncodingHelper.toLowerCase(chars.charAt(s++))) {opFail(); return;}
         ip++;
         sprev = sbegin; // break;
     }
@@ -392,19 +496,19 @@ class ByteCodeMachine extends StackMachine {
             int ps = code[ip++];
 
             while (tlen-- > 0) {
-                if (bs[ps++] != EncodingHelper.toLowerCase(chars[s++])) {opFail(); return;}
+                if (bs[ps++] != EncodingHelper.toLowerCase(chars.charAt(s++))) {opFail(); return;}
             }
         } else {
 
             while (tlen-- > 0) {
-                if (code[ip++] != EncodingHelper.toLowerCase(chars[s++])) {opFail(); return;}
+                if (code[ip++] != EncodingHelper.toLowerCase(chars.charAt(s++))) {opFail(); return;}
             }
         }
         sprev = s - 1;
     }
 
     private boolean isInBitSet() {
-        final int c = chars[s];
+        final int c = chars.charAt(s);
         return (c <= 0xff && (code[ip + (c >>> BitSet.ROOM_SHIFT)] & (1 << c)) != 0);
     }
 
@@ -422,7 +526,7 @@ class ByteCodeMachine extends StackMachine {
         }
         final int ss = s;
         s++;
-        final int c = chars[ss];
+        final int c = chars.charAt(ss);
         if (!EncodingHelper.isInCodeRange(code, ip, c)) {
             return false;
         }
@@ -432,14 +536,14 @@ class ByteCodeMachine extends StackMachine {
 
     private void opCClassMB() {
         // beyond string check
-        if (s >= range || chars[s] <= 0xff) {opFail(); return;}
+        if (s >= range || chars.charAt(s) <= 0xff) {opFail(); return;}
         if (!isInClassMB()) {opFail(); return;} // not!!!
         sprev = sbegin; // break;
     }
 
     private void opCClassMIX() {
         if (s >= range) {opFail(); return;}
-        if (chars[s] > 0xff) {
+        if (chars.charAt(s) > 0xff) {
             ip += BitSet.BITSET_SIZE;
             if (!isInClassMB()) {opFail(); return;}
         } else {
@@ -473,7 +577,7 @@ class ByteCodeMachine extends StackMachine {
 
         final int ss = s;
         s++;
-        final int c = chars[ss];
+        final int c = chars.charAt(ss);
 
         if (EncodingHelper.isInCodeRange(code, ip, c)) {
             return false;
@@ -484,7 +588,7 @@ class ByteCodeMachine extends StackMachine {
 
     private void opCClassMBNot() {
         if (s >= range) {opFail(); return;}
-        if (chars[s] <= 0xff) {
+        if (chars.charAt(s) <= 0xff) {
             s++;
             final int tlen = code[ip++];
             ip += tlen;
@@ -497,7 +601,7 @@ class ByteCodeMachine extends StackMachine {
 
     private void opCClassMIXNot() {
         if (s >= range) {opFail(); return;}
-        if (chars[s] > 0xff) {
+        if (chars.charAt(s) > 0xff) {
             ip += BitSet.BITSET_SIZE;
             if (!isNotInClassMB()) {opFail(); return;}
         } else {
@@ -515,14 +619,14 @@ class ByteCodeMachine extends StackMachine {
         final CClassNode cc = (CClassNode)regex.operands[code[ip++]];
         final int ss = s;
         s++;
-        final int c = chars[ss];
+        final int c = chars.charAt(ss);
         if (!cc.isCodeInCCLength(c)) {opFail(); return;}
         sprev = sbegin; // break;
     }
 
     private void opAnyChar() {
         if (s >= range) {opFail(); return;}
-        if (isNewLine(chars[s])) {opFail(); return;}
+        if (isNewLine(chars.charAt(s))) {opFail(); return;}
         s++;
         sprev = sbegin; // break;
     }
@@ -534,7 +638,7 @@ class ByteCodeMachine extends StackMachine {
     }
 
     private void opAnyCharStar() {
-        final char[] ch = this.chars;
+        final String ch = this.chars;
         while (s < range) {
             pushAlt(ip, s, sprev);
             if (isNewLine(ch, s, end)) {opFail(); return;}
@@ -553,10 +657,10 @@ class ByteCodeMachine extends StackMachine {
 
     private void opAnyCharStarPeekNext() {
         final char c = (char)code[ip];
-        final char[] ch = this.chars;
+        final String ch = this.chars;
 
         while (s < range) {
-            final char b = ch[s];
+            final char b = ch.charAt(s);
             if (c == b) {
                 pushAlt(ip + 1, s, sprev);
             }
@@ -570,10 +674,10 @@ class ByteCodeMachine extends StackMachine {
 
     private void opAnyCharMLStarPeekNext() {
         final char c = (char)code[ip];
-        final char[] ch = this.chars;
+        final String ch = this.chars;
 
         while (s < range) {
-            if (c == ch[s]) {
+            if (c == ch.charAt(s)) {
                 pushAlt(ip + 1, s, sprev);
             }
             sprev = s;
@@ -584,53 +688,31 @@ class ByteCodeMachine extends StackMachine {
     }
 
     private void opWord() {
-        if (s >= range || !EncodingHelper.isWord(chars[s])) {opFail(); return;}
+        if (s >= range || !EncodingHelper.isWord(chars.charAt(s))) {opFail(); return;}
         s++;
         sprev = sbegin; // break;
     }
 
     private void opNotWord() {
-        if (s >= range || EncodingHelper.isWord(chars[s])) {opFail(); return;}
+        if (s >= range || EncodingHelper.isWord(chars.charAt(s))) {opFail(); return;}
         s++;
         sprev = sbegin; // break;
     }
 
     private void opWordBound() {
-        if (s == str) {
-            if (s >= range || !EncodingHelper.isWord(chars[s])) {opFail(); return;}
-        } else if (s == end) {
-            if (sprev >= end || !EncodingHelper.isWord(chars[sprev])) {opFail(); return;}
-        } else {
-            if (EncodingHelper.isWord(chars[s]) == EncodingHelper.isWord(chars[sprev])) {opFail(); return;}
-        }
+        if (!isWordBound(s, sprev)) {opFail();}
     }
 
     private void opNotWordBound() {
-        if (s == str) {
-            if (s < range && EncodingHelper.isWord(chars[s])) {opFail(); return;}
-        } else if (s == end) {
-            if (sprev < end && EncodingHelper.isWord(chars[sprev])) {opFail(); return;}
-        } else {
-            if (EncodingHelper.isWord(chars[s]) != EncodingHelper.isWord(chars[sprev])) {opFail(); return;}
-        }
+        if (isWordBound(s, sprev)) {opFail();}
     }
 
     private void opWordBegin() {
-        if (s < range && EncodingHelper.isWord(chars[s])) {
-            if (s == str || !EncodingHelper.isWord(chars[sprev])) {
-                return;
-            }
-        }
-        opFail();
+        if (!isWordBegin(s, sprev)) {opFail();}
     }
 
     private void opWordEnd() {
-        if (s != str && EncodingHelper.isWord(chars[sprev])) {
-            if (s == end || !EncodingHelper.isWord(chars[s])) {
-                return;
-            }
-        }
-        opFail();
+        if (!isWordEnd(s, sprev)) {opFail();}
     }
 
     private void opBeginBuf() {
@@ -646,55 +728,66 @@ class ByteCodeMachine extends StackMachine {
     }
 
     private void opBeginLine() {
+        if (!isBeginLine(s, sprev)) {opFail();}
+    }
+
+    private void opEndLine()  {
+        if (!isEndLine(s, sprev)) {opFail();}
+    }
+
+    private void opSemiEndBuf() {
+        if (!isSemiEndBuf(s, sprev)) {opFail();}
+    }
+
+    // anchor tests, shared with the classes generated by MatcherCompiler
+
+    protected final boolean isWordBound(final int s, final int sprev) {
         if (s == str) {
-            if (isNotBol(msaOptions)) {
-                opFail();
-            }
-            return;
-        } else if (isNewLine(chars, sprev, end) && s != end) {
-            return;
+            return s < range && EncodingHelper.isWord(chars.charAt(s));
+        } else if (s == end) {
+            return sprev < end && EncodingHelper.isWord(chars.charAt(sprev));
+        } else {
+            return EncodingHelper.isWord(chars.charAt(s)) != EncodingHelper.isWord(chars.charAt(sprev));
         }
-        opFail();
     }
 
-    private void opEndLine()  {
+    protected final boolean isWordBegin(final int s, final int sprev) {
+        return s < range && EncodingHelper.isWord(chars.charAt(s)) && (s == str || !EncodingHelper.isWord(chars.charAt(sprev)));
+    }
+
+    protected final boolean isWordEnd(final int s, final int sprev) {
+        return s != str && EncodingHelper.isWord(chars.charAt(sprev)) && (s == end || !EncodingHelper.isWord(chars.charAt(s)));
+    }
+
+    protected final boolean isBeginLine(final int s, final int sprev) {
+        if (s == str) {
+            return !isNotBol(msaOptions);
+        }
+        return isNewLine(chars, sprev, end) && s != end;
+    }
+
+    protected final boolean isEndLine(final int s, final int sprev) {
         if (s == end) {
-            if (Config.USE_NEWLINE_AT_END_OF_STRING_HAS_EMPTY_LINE) {
-                if (str == end || !isNewLine(chars, sprev, end)) {
-                    if (isNotEol(msaOptions)) {
-                        opFail();
-                    }
-                }
-                return;
-            }
-            if (isNotEol(msaOptions)) {
-                opFail();
-            }
-            return;
-        } else if (isNewLine(chars, s, end)) {
-            return;
+            return isEolAtEnd(sprev);
         }
-        opFail();
+        return isNewLine(chars, s, end);
     }
 
-    private void opSemiEndBuf() {
+    protected final boolean isSemiEndBuf(final int s, final int sprev) {
         if (s == end) {
-            if (Config.USE_NEWLINE_AT_END_OF_STRING_HAS_EMPTY_LINE) {
-                if (str == end || !isNewLine(chars, sprev, end)) {
-                    if (isNotEol(msaOptions)) {
-                        opFail();
-                    }
-                }
-                return;
-            }
-            if (isNotEol(msaOptions)) {
-                opFail();
+            return isEolAtEnd(sprev);
+        }
+        return isNewLine(chars, s, end) && s + 1 == end;
+    }
+
+    private boolean isEolAtEnd(final int sprev) {
+        if (Config.USE_NEWLINE_AT_END_OF_STRING_HAS_EMPTY_LINE) {
+            if (str == end || !isNewLine(chars, sprev, end)) {
+                return !isNotEol(msaOptions);
             }
-            return;
-        } else if (isNewLine(chars, s, end) && s + 1 == end) {
-            return;
+            return true;
         }
-        opFail();
+        return !isNotEol(msaOptions);
     }
 
     private void opBeginPosition() {
@@ -770,7 +863,7 @@ class ByteCodeMachine extends StackMachine {
 
         // STRING_CMP
         while(n-- > 0) {
-            if (chars[pstart++] != chars[s++]) {opFail(); return;}
+            if (chars.charAt(pstart++) != chars.charAt(s++)) {opFail(); return;}
         }
 
         // beyond string check
@@ -836,7 +929,7 @@ class ByteCodeMachine extends StackMachine {
             int swork = s;
 
             while (n-- > 0) {
-                if (chars[pstart++] != chars[swork++]) {
+                if (chars.charAt(pstart++) != chars.charAt(swork++)) {
                     continue loop;
                 }
             }
@@ -933,7 +1026,7 @@ class ByteCodeMachine extends StackMachine {
                                 }
                             } else {
                                 while (p < pend) {
-                                    if (chars[p++] != chars[value++]) {
+                                    if (chars.charAt(p++) != chars.charAt(value++)) {
                                         return false; /* or goto next_mem; */
                                     }
                                 }
@@ -1038,7 +1131,7 @@ class ByteCodeMachine extends StackMachine {
     private void opPushOrJumpExact1() {
         final int addr = code[ip++];
         // beyond string check
-        if (s < range && code[ip] == chars[s]) {
+        if (s < range && code[ip] == chars.charAt(s)) {
             ip++;
             pushAlt(ip + addr, s, sprev);
             return;
@@ -1049,7 +1142,7 @@ class ByteCodeMachine extends StackMachine {
     private void opPushIfPeekNext() {
         final int addr = code[ip++];
         // beyond string check
-        if (s < range && code[ip] == chars[s]) {
+        if (s < range && code[ip] == chars.charAt(s)) {
             ip++;
             pushAlt(ip + addr, s, sprev);
             return;
@@ -1199,7 +1292,7 @@ class ByteCodeMachine extends StackMachine {
         opFail();
     }
 
-    private void opFail() {
+    final void opFail() {
         if (stack == null) {
             ip = regex.codeLength - 1;
             return;
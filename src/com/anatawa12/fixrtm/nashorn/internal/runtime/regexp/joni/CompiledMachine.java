@@ -0,0 +1,91 @@
+/*
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.anatawa12.fixrtm.nashorn.internal.runtime.regexp.joni;
+
+/**
+ * Base class of the matchers generated by {@link MatcherCompiler}. The generated
+ * {@link #execute} method runs the regex byte code as straight-line JVM code and
+ * calls back into this class to backtrack and to run the instructions it leaves
+ * to the interpreter. It is public because the generated classes are defined in
+ * their own class loader.
+ */
+@SuppressWarnings("javadoc")
+public abstract class CompiledMachine extends ByteCodeMachine {
+
+    protected CompiledMachine(final Regex regex, final String chars, final int p, final int end) {
+        super(regex, chars, p, end);
+    }
+
+    /* new matcher of the same generated class */
+    protected abstract CompiledMachine create(String chars, int p, int end);
+
+    /* compiled form of ByteCodeMachine.matchAt's main loop */
+    protected abstract int execute(String chars, int range, int s, int sprev);
+
+    @Override
+    protected final int matchAt(final int r, final int ss, final int sp) {
+        matchInit(r, ss, sp);
+        return execute(chars, r, ss, sp);
+    }
+
+    // machine state after fail(), end() or step() returned to the generated code
+
+    protected final int ip() {
+        return ip;
+    }
+
+    protected final int s() {
+        return s;
+    }
+
+    protected final int sprev() {
+        return sprev;
+    }
+
+    protected final int bestLen() {
+        return bestLen;
+    }
+
+    protected final void fail() {
+        opFail();
+    }
+
+    protected final boolean endMatch(final int ss, final int sp) {
+        s = sbegin = ss;
+        sprev = sp;
+        return opEnd();
+    }
+
+    protected final void memoryStart(final int mem, final int ss) {
+        repeatStk[memStartStk + mem] = ss;
+    }
+
+    protected final void memoryEnd(final int mem, final int ss) {
+        repeatStk[memEndStk + mem] = ss;
+    }
+
+    protected final boolean isInBitSet(final int p, final int c) {
+        return (code[p + (c >>> BitSet.ROOM_SHIFT)] & (1 << c)) != 0;
+    }
+
+    protected final boolean isInCodeRange(final int p, final int c) {
+        return EncodingHelper.isInCodeRange(code, p, c);
+    }
+}
@@ -0,0 +1,682 @@
+/*
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.anatawa12.fixrtm.nashorn.internal.runtime.regexp.joni;
+
+import static jdk.internal.org.objectweb.asm.Opcodes.ACC_FINAL;
+import static jdk.internal.org.objectweb.asm.Opcodes.ACC_PROTECTED;
+import static jdk.internal.org.objectweb.asm.Opcodes.ACC_PUBLIC;
+import static jdk.internal.org.objectweb.asm.Opcodes.ACC_SUPER;
+import static jdk.internal.org.objectweb.asm.Opcodes.V1_7;
+
+import java.security.AccessController;
+import java.security.CodeSigner;
+import java.security.CodeSource;
+import java.security.Permissions;
+import java.security.PrivilegedAction;
+import java.security.ProtectionDomain;
+import java.security.SecureClassLoader;
+import jdk.internal.org.objectweb.asm.ClassWriter;
+import jdk.internal.org.objectweb.asm.Label;
+import jdk.internal.org.objectweb.asm.Type;
+import jdk.internal.org.objectweb.asm.commons.InstructionAdapter;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.options.Options;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.regexp.joni.constants.OPCode;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.regexp.joni.exception.ErrorMessages;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.regexp.joni.exception.InternalException;
+
+/**
+ * Compiles the byte code of a {@link Regex} into a subclass of {@link CompiledMachine}.
+ * <p>
+ * Every instruction becomes a block of JVM code at a label of its own, so sequential
+ * instructions fall through and jumps are gotos. Backtracking and the instructions that
+ * aren't compiled go through {@link ByteCodeMachine} and come back to a table switch on
+ * the instruction pointer. Character, class, anchor and stack instructions, which make up
+ * the inner loops of typical patterns, are compiled; captures with back references,
+ * repeats with counters and look-arounds are left to the interpreter.
+ */
+final class MatcherCompiler {
+    /** Matchers a regex creates with the interpreter before it is compiled, or -1 to never compile */
+    static final int THRESHOLD = Options.getIntProperty("nashorn.regexp.compile.threshold", 100);
+
+    // HotSpot doesn't JIT methods with more than 8000 bytes of byte code
+    private static final int MAX_METHOD_SIZE = 8000;
+
+    // longest string matched by unrolled comparisons
+    private static final int MAX_EXACT_LENGTH = 16;
+
+    // class ranges tested with comparisons rather than by a bit set lookup
+    private static final int MAX_CLASS_RANGES = 4;
+
+    private static final String CLASS_NAME = "com/anatawa12/fixrtm/nashorn/internal/scripts/RegexMatcher";
+    private static final String SUPER_NAME = Type.getInternalName(CompiledMachine.class);
+    private static final String ENCODING_HELPER = Type.getInternalName(EncodingHelper.class);
+    private static final Type OBJECT_TYPE = Type.getType(Object.class);
+    private static final Type CHARS_TYPE = Type.getType(String.class);
+    private static final String STRING = Type.getInternalName(String.class);
+
+    private static final String CONSTRUCTOR_DESC = Type.getMethodDescriptor(Type.VOID_TYPE, Type.getType(Regex.class), CHARS_TYPE, Type.INT_TYPE, Type.INT_TYPE);
+    private static final String CREATE_DESC = Type.getMethodDescriptor(Type.getType(CompiledMachine.class), CHARS_TYPE, Type.INT_TYPE, Type.INT_TYPE);
+    private static final String EXECUTE_DESC = Type.getMethodDescriptor(Type.INT_TYPE, CHARS_TYPE, Type.INT_TYPE, Type.INT_TYPE, Type.INT_TYPE);
+
+    // local variables of the execute method
+    private static final int THIS = 0;
+    private static final int CHARS = 1;
+    private static final int RANGE = 2;
+    private static final int S = 3;
+    private static final int SPREV = 4;
+    private static final int IP = 5;
+    private static final int C = 6;
+    private static final int SBEGIN = 7;
+
+    private final Regex regex;
+    private final int[] code;
+    private final Label[] labels;
+    private final Label fail = new Label();
+    private final Label step = new Label();
+    private final Label resume = new Label();
+    private final Label dispatch = new Label();
+
+    private InstructionAdapter mv;
+
+    private MatcherCompiler(final Regex regex) {
+        this.regex = regex;
+        this.code = regex.code;
+        this.labels = new Label[regex.codeLength];
+    }
+
+    /**
+     * Compiles the byte code of a regex.
+     *
+     * @param regex a regex whose byte code has been compiled
+     * @return a factory for matchers running the generated class, or null if the regex is too large
+     */
+    static MatcherFactory compile(final Regex regex) {
+        if (Config.DEBUG_MATCH) {
+            return null;
+        }
+
+        final byte[] bytes;
+        try {
+            bytes = new MatcherCompiler(regex).generate();
+        } catch (final InternalException e) {
+            return null;
+        }
+        if (bytes == null) {
+            return null;
+        }
+
+        final CompiledMachine prototype = AccessController.doPrivileged(new PrivilegedAction<CompiledMachine>() {
+            @Override
+            public CompiledMachine run() {
+                final ClassLoader loader = new SecureClassLoader(CompiledMachine.class.getClassLoader()) {
+                    @Override
+                    protected Class<?> findClass(final String name) throws ClassNotFoundException {
+                        if (name.equals(CLASS_NAME.replace('/', '.'))) {
+                            return defineClass(name, bytes, 0, bytes.length, new ProtectionDomain(
+                                    new CodeSource(null, (CodeSigner[])null), new Permissions()));
+                        }
+                        throw new ClassNotFoundException(name);
+                    }
+                };
+
+                try {
+                    final Class<?> clazz = Class.forName(CLASS_NAME.replace('/', '.'), true, loader);
+                    return (CompiledMachine)clazz.getConstructor(Regex.class, String.class, int.class, int.class)
+                            .newInstance(regex, "", 0, 0);
+                } catch (final ReflectiveOperationException e) {
+                    throw new AssertionError(e.getMessage(), e);
+                }
+            }
+        });
+
+        return new MatcherFactory() {
+            @Override
+            public Matcher create(final Regex r, final String chars, final int p, final int end) {
+                assert r == regex;
+                return prototype.create(chars, p, end);
+            }
+        };
+    }
+
+    /* returns null if the execute method is too large to be compiled by the JIT */
+    private byte[] generate() {
+        final ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
+        cw.visit(V1_7, ACC_PUBLIC | ACC_SUPER | ACC_FINAL, CLASS_NAME, null, SUPER_NAME, null);
+
+        mv = new InstructionAdapter(cw.visitMethod(ACC_PUBLIC, "<init>", CONSTRUCTOR_DESC, null, null));
+        mv.visitCode();
+        loadThis();
+        mv.load(1, OBJECT_TYPE);
+        mv.load(2, CHARS_TYPE);
+        mv.load(3, Type.INT_TYPE);
+        mv.load(4, Type.INT_TYPE);
+        mv.invokespecial(SUPER_NAME, "<init>", CONSTRUCTOR_DESC, false);
+        mv.areturn(Type.VOID_TYPE);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        mv = new InstructionAdapter(cw.visitMethod(ACC_PROTECTED, "create", CREATE_DESC, null, null));
+        mv.visitCode();
+        mv.anew(Type.getObjectType(CLASS_NAME));
+        mv.dup();
+        loadThis();
+        mv.getfield(SUPER_NAME, "regex", Type.getDescriptor(Regex.class));
+        mv.load(1, CHARS_TYPE);
+        mv.load(2, Type.INT_TYPE);
+        mv.load(3, Type.INT_TYPE);
+        mv.invokespecial(CLASS_NAME, "<init>", CONSTRUCTOR_DESC, false);
+        mv.areturn(OBJECT_TYPE);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        mv = new InstructionAdapter(cw.visitMethod(ACC_PROTECTED, "execute", EXECUTE_DESC, null, null));
+        mv.visitCode();
+        generateExecute();
+        final Label end = new Label();
+        mv.visitLabel(end);
+        if (end.getOffset() > MAX_METHOD_SIZE) {
+            return null;
+        }
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    private void generateExecute() {
+        final int codeLength = regex.codeLength;
+        final int[] next = new int[codeLength];
+        final ByteCodePrinter printer = new ByteCodePrinter(regex);
+        final StringBuilder sb = new StringBuilder();
+        for (int p = 0; p < codeLength; p = next[p]) {
+            labels[p] = new Label();
+            next[p] = printer.compiledByteCodeToString(sb, p);
+            sb.setLength(0);
+        }
+
+        mv.iconst(0);
+        mv.store(IP, Type.INT_TYPE);
+        mv.iconst(0);
+        mv.store(C, Type.INT_TYPE);
+        mv.iconst(0);
+        mv.store(SBEGIN, Type.INT_TYPE);
+
+        for (int p = 0; p < codeLength; p = next[p]) {
+            mv.mark(labels[p]);
+            instruction(p, next[p]);
+        }
+
+        mv.mark(fail);
+        loadThis();
+        invoke("fail", "()V");
+        mv.goTo(resume);
+
+        // the interpreter runs the instruction at IP
+        mv.mark(step);
+        loadThis();
+        mv.load(IP, Type.INT_TYPE);
+        mv.load(S, Type.INT_TYPE);
+        mv.load(SPREV, Type.INT_TYPE);
+        invoke("step", "(III)V");
+
+        mv.mark(resume);
+        reload(IP, "ip");
+        reload(S, "s");
+        reload(SPREV, "sprev");
+
+        mv.mark(dispatch);
+        final Label[] table = new Label[codeLength];
+        for (int p = 0; p < codeLength; p++) {
+            table[p] = labels[p] != null ? labels[p] : step;
+        }
+        mv.load(IP, Type.INT_TYPE);
+        mv.tableswitch(0, codeLength - 1, step, table);
+    }
+
+    private void instruction(final int p, final int q) {
+        switch (code[p]) {
+        case OPCode.FINISH:
+            returnBestLen();
+            break;
+
+        case OPCode.END:
+            loadThis();
+            mv.load(S, Type.INT_TYPE);
+            mv.load(SPREV, Type.INT_TYPE);
+            invoke("endMatch", "(II)Z");
+            mv.ifeq(resume);
+            returnBestLen();
+            break;
+
+        case OPCode.EXACT1:
+        case OPCode.EXACT2:
+        case OPCode.EXACT3:
+        case OPCode.EXACT4:
+        case OPCode.EXACT5:
+            exact(code, p + 1, q - p - 1, false);
+            break;
+
+        case OPCode.EXACT1_IC:
+            exact(code, p + 1, 1, true);
+            break;
+
+        case OPCode.EXACTN:
+        case OPCode.EXACTN_IC:
+            if (!Config.USE_STRING_TEMPLATES || code[p + 1] > MAX_EXACT_LENGTH) {
+                interpret(p);
+            } else {
+                final char[] template = regex.templates[code[p + 2]];
+                final int[] chars = new int[code[p + 1]];
+                for (int i = 0; i < chars.length; i++) {
+                    chars[i] = template[code[p + 3] + i];
+                }
+                exact(chars, 0, chars.length, code[p] == OPCode.EXACTN_IC);
+            }
+            break;
+
+        case OPCode.CCLASS:
+        case OPCode.CCLASS_NOT:
+        case OPCode.CCLASS_MB:
+        case OPCode.CCLASS_MB_NOT:
+        case OPCode.CCLASS_MIX:
+        case OPCode.CCLASS_MIX_NOT:
+            cclass(p);
+            break;
+
+        case OPCode.ANYCHAR:
+        case OPCode.ANYCHAR_ML:
+        case OPCode.WORD:
+        case OPCode.NOT_WORD:
+            loadChar(fail);
+            switch (code[p]) {
+            case OPCode.ANYCHAR:
+                invokeHelper("isNewLine", "(I)Z");
+                mv.ifne(fail);
+                break;
+            case OPCode.ANYCHAR_ML:
+                break;
+            case OPCode.WORD:
+                invokeHelper("isWord", "(I)Z");
+                mv.ifeq(fail);
+                break;
+            default:
+                invokeHelper("isWord", "(I)Z");
+                mv.ifne(fail);
+                break;
+            }
+            advance();
+            break;
+
+        case OPCode.ANYCHAR_STAR:
+        case OPCode.ANYCHAR_ML_STAR:
+        case OPCode.ANYCHAR_STAR_PEEK_NEXT:
+        case OPCode.ANYCHAR_ML_STAR_PEEK_NEXT:
+            anyCharStar(code[p], p, q);
+            break;
+
+        case OPCode.WORD_BOUND:
+            anchor("isWordBound", true);
+            break;
+        case OPCode.NOT_WORD_BOUND:
+            anchor("isWordBound", false);
+            break;
+        case OPCode.WORD_BEGIN:
+            anchor("isWordBegin", true);
+            break;
+        case OPCode.WORD_END:
+            anchor("isWordEnd", true);
+            break;
+        case OPCode.BEGIN_LINE:
+            anchor("isBeginLine", true);
+            break;
+        case OPCode.END_LINE:
+            anchor("isEndLine", true);
+            break;
+        case OPCode.SEMI_END_BUF:
+            anchor("isSemiEndBuf", true);
+            break;
+
+        case OPCode.BEGIN_BUF:
+            position("str");
+            break;
+        case OPCode.END_BUF:
+            position("end");
+            break;
+        case OPCode.BEGIN_POSITION:
+            position("msaStart");
+            break;
+
+        case OPCode.MEMORY_START:
+            memory("memoryStart", code[p + 1]);
+            break;
+        case OPCode.MEMORY_START_PUSH:
+            memory("pushMemStart", code[p + 1]);
+            break;
+        case OPCode.MEMORY_END:
+            memory("memoryEnd", code[p + 1]);
+            break;
+        case OPCode.MEMORY_END_PUSH:
+            memory("pushMemEnd", code[p + 1]);
+            break;
+
+        case OPCode.FAIL:
+            mv.goTo(fail);
+            break;
+
+        case OPCode.JUMP:
+            mv.goTo(target(q + code[p + 1]));
+            break;
+
+        case OPCode.PUSH:
+            pushAlt(q + code[p + 1]);
+            break;
+
+        case OPCode.POP:
+            loadThis();
+            invoke("popOne", "()V");
+            break;
+
+        case OPCode.PUSH_OR_JUMP_EXACT1:
+        case OPCode.PUSH_IF_PEEK_NEXT: {
+            // push the alternative only when the next char can start the current one
+            final Label noPush = target(code[p] == OPCode.PUSH_OR_JUMP_EXACT1 ? q + code[p + 1] : q);
+            mv.load(S, Type.INT_TYPE);
+            mv.load(RANGE, Type.INT_TYPE);
+            mv.ificmpge(noPush);
+            mv.load(CHARS, CHARS_TYPE);
+            mv.load(S, Type.INT_TYPE);
+            charAt();
+            mv.iconst(code[p + 2]);
+            mv.ificmpne(noPush);
+            pushAlt(q + code[p + 1]);
+            break;
+        }
+
+        default:
+            interpret(p);
+            break;
+        }
+    }
+
+    private Label target(final int p) {
+        if (p < 0 || p >= labels.length || labels[p] == null) {
+            throw new InternalException(ErrorMessages.ERR_UNEXPECTED_BYTECODE);
+        }
+        return labels[p];
+    }
+
+    private void interpret(final int p) {
+        mv.iconst(p);
+        mv.store(IP, Type.INT_TYPE);
+        mv.goTo(step);
+    }
+
+    private void returnBestLen() {
+        loadThis();
+        invoke("bestLen", "()I");
+        mv.areturn(Type.INT_TYPE);
+    }
+
+    private void exact(final int[] chars, final int offset, final int length, final boolean ignoreCase) {
+        mv.load(S, Type.INT_TYPE);
+        mv.iconst(length);
+        mv.add(Type.INT_TYPE);
+        mv.load(RANGE, Type.INT_TYPE);
+        mv.ificmpgt(fail);
+        for (int i = 0; i < length; i++) {
+            mv.load(CHARS, CHARS_TYPE);
+            mv.load(S, Type.INT_TYPE);
+            if (i > 0) {
+                mv.iconst(i);
+                mv.add(Type.INT_TYPE);
+            }
+            charAt();
+            if (ignoreCase) {
+                invokeHelper("toLowerCase", "(C)C");
+            }
+            mv.iconst(chars[offset + i]);
+            mv.ificmpne(fail);
+        }
+        mv.load(S, Type.INT_TYPE);
+        if (length > 1) {
+            mv.iconst(length - 1);
+            mv.add(Type.INT_TYPE);
+        }
+        mv.store(SPREV, Type.INT_TYPE);
+        mv.iinc(S, length);
+    }
+
+    private void cclass(final int p) {
+        final Label match = new Label();
+        final Label multiByte = new Label();
+        final int bitSet = p + 1;
+        final int mbRanges = p + 2;
+        final int mixRanges = p + 2 + BitSet.BITSET_SIZE;
+
+        loadChar(fail);
+        mv.store(C, Type.INT_TYPE);
+        switch (code[p]) {
+        case OPCode.CCLASS:
+            ifMultiByte(fail);
+            bitSet(bitSet, match, fail);
+            break;
+        case OPCode.CCLASS_NOT:
+            ifMultiByte(match);
+            bitSet(bitSet, fail, match);
+            break;
+        case OPCode.CCLASS_MB:
+            ifMultiByte(multiByte);
+            mv.goTo(fail);
+            mv.mark(multiByte);
+            codeRange(mbRanges, match, fail);
+            break;
+        case OPCode.CCLASS_MB_NOT:
+            ifMultiByte(multiByte);
+            mv.goTo(match);
+            mv.mark(multiByte);
+            codeRange(mbRanges, fail, match);
+            break;
+        case OPCode.CCLASS_MIX:
+            ifMultiByte(multiByte);
+            bitSet(bitSet, match, fail);
+            mv.mark(multiByte);
+            codeRange(mixRanges, match, fail);
+            break;
+        default:
+            ifMultiByte(multiByte);
+            bitSet(bitSet, fail, match);
+            mv.mark(multiByte);
+            codeRange(mixRanges, fail, match);
+            break;
+        }
+        mv.mark(match);
+        advance();
+    }
+
+    // jumps to the label if C is beyond the bit set
+    private void ifMultiByte(final Label label) {
+        mv.load(C, Type.INT_TYPE);
+        mv.iconst(0xff);
+        mv.ificmpgt(label);
+    }
+
+    private void bitSet(final int p, final Label in, final Label out) {
+        final int[] ranges = new int[2 * MAX_CLASS_RANGES];
+        int n = 0;
+        for (int c = 0; c < BitSet.SINGLE_BYTE_SIZE; c++) {
+            if ((code[p + (c >>> BitSet.ROOM_SHIFT)] & (1 << c)) != 0) {
+                if (n > 0 && ranges[2 * n - 1] == c - 1) {
+                    ranges[2 * n - 1] = c;
+                } else if (n < MAX_CLASS_RANGES) {
+                    ranges[2 * n] = ranges[2 * n + 1] = c;
+                    n++;
+                } else {
+                    n = -1;
+                    break;
+                }
+            }
+        }
+
+        if (n < 0) {
+            loadThis();
+            mv.iconst(p);
+            mv.load(C, Type.INT_TYPE);
+            invoke("isInBitSet", "(II)Z");
+            mv.ifne(in);
+        } else {
+            for (int i = 0; i < n; i++) {
+                mv.load(C, Type.INT_TYPE);
+                mv.iconst(ranges[2 * i]);
+                mv.ificmplt(out);
+                mv.load(C, Type.INT_TYPE);
+                mv.iconst(ranges[2 * i + 1]);
+                mv.ificmple(in);
+            }
+        }
+        mv.goTo(out);
+    }
+
+    private void codeRange(final int p, final Label in, final Label out) {
+        loadThis();
+        mv.iconst(p);
+        mv.load(C, Type.INT_TYPE);
+        invoke("isInCodeRange", "(II)Z");
+        mv.ifne(in);
+        mv.goTo(out);
+    }
+
+    private void anyCharStar(final int op, final int p, final int q) {
+        final boolean peekNext = op == OPCode.ANYCHAR_STAR_PEEK_NEXT || op == OPCode.ANYCHAR_ML_STAR_PEEK_NEXT;
+        final boolean multiLine = op == OPCode.ANYCHAR_ML_STAR || op == OPCode.ANYCHAR_ML_STAR_PEEK_NEXT;
+        final Label loop = new Label();
+        final Label done = new Label();
+
+        if (peekNext) {
+            mv.load(S, Type.INT_TYPE);
+            mv.store(SBEGIN, Type.INT_TYPE);
+        }
+        mv.mark(loop);
+        mv.load(S, Type.INT_TYPE);
+        mv.load(RANGE, Type.INT_TYPE);
+        mv.ificmpge(done);
+        mv.load(CHARS, CHARS_TYPE);
+        mv.load(S, Type.INT_TYPE);
+        charAt();
+        mv.store(C, Type.INT_TYPE);
+        if (peekNext) {
+            // only positions followed by the next char are worth backtracking to
+            final Label noPush = new Label();
+            mv.load(C, Type.INT_TYPE);
+            mv.iconst(code[p + 1]);
+            mv.ificmpne(noPush);
+            pushAlt(q);
+            mv.mark(noPush);
+        } else {
+            pushAlt(q);
+        }
+        if (!multiLine) {
+            mv.load(C, Type.INT_TYPE);
+            invokeHelper("isNewLine", "(I)Z");
+            mv.ifne(fail);
+        }
+        advance();
+        mv.goTo(loop);
+        mv.mark(done);
+        if (peekNext) {
+            mv.load(SBEGIN, Type.INT_TYPE);
+            mv.store(SPREV, Type.INT_TYPE);
+        }
+    }
+
+    private void anchor(final String test, final boolean expected) {
+        loadThis();
+        mv.load(S, Type.INT_TYPE);
+        mv.load(SPREV, Type.INT_TYPE);
+        invoke(test, "(II)Z");
+        if (expected) {
+            mv.ifeq(fail);
+        } else {
+            mv.ifne(fail);
+        }
+    }
+
+    private void position(final String field) {
+        mv.load(S, Type.INT_TYPE);
+        loadThis();
+        mv.getfield(SUPER_NAME, field, "I");
+        mv.ificmpne(fail);
+    }
+
+    private void memory(final String method, final int mem) {
+        loadThis();
+        mv.iconst(mem);
+        mv.load(S, Type.INT_TYPE);
+        invoke(method, "(II)V");
+    }
+
+    private void pushAlt(final int p) {
+        target(p);
+        loadThis();
+        mv.iconst(p);
+        mv.load(S, Type.INT_TYPE);
+        mv.load(SPREV, Type.INT_TYPE);
+        invoke("pushAlt", "(III)V");
+    }
+
+    // leaves chars[s] on the stack, jumping to the label at the end of the range
+    private void loadChar(final Label atEnd) {
+        mv.load(S, Type.INT_TYPE);
+        mv.load(RANGE, Type.INT_TYPE);
+        mv.ificmpge(atEnd);
+        mv.load(CHARS, CHARS_TYPE);
+        mv.load(S, Type.INT_TYPE);
+        charAt();
+    }
+
+    // sprev = s++
+    private void advance() {
+        mv.load(S, Type.INT_TYPE);
+        mv.store(SPREV, Type.INT_TYPE);
+        mv.iinc(S, 1);
+    }
+
+    private void loadThis() {
+        mv.load(THIS, OBJECT_TYPE);
+    }
+
+    private void reload(final int var, final String getter) {
+        loadThis();
+        invoke(getter, "()I");
+        mv.store(var, Type.INT_TYPE);
+    }
+
+    private void charAt() {
+        mv.invokevirtual(STRING, "charAt", "(I)C", false);
+    }
+
+    private void invoke(final String name, final String desc) {
+        mv.invokevirtual(SUPER_NAME, name, desc, false);
+    }
+
+    private void invokeHelper(final String name, final String desc) {
+        mv.invokestatic(ENCODING_HELPER, name, desc, false);
+    }
+}
@@ -21,11 +21,11 @@ package com.anatawa12.fixrtm.nashorn.internal.runtime.regexp.joni;
 
 @SuppressWarnings("javadoc")
 public abstract class MatcherFactory {
-    public abstract Matcher create(Regex regex, char[] chars, int p, int end);
+    public abstract Matcher create(Regex regex, String chars, int p, int end);
 
     static final MatcherFactory DEFAULT = new MatcherFactory() {
         @Override
-        public Matcher create(final Regex regex, final char[] chars, final int p, final int end) {
+        public Matcher create(final Regex regex, final String chars, final int p, final int end) {
             return new ByteCodeMachine(regex, chars, p, end);
         }
     };
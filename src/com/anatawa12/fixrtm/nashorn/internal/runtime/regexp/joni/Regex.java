@@ -47,6 +47,7 @@ public final class Regex implements RegexState {
 
     WarnCallback warnings;
     MatcherFactory factory;
+    private int executions;  /* matchers created by the interpreter, -1 once compileMatcher() ran */
     protected Analyser analyser;
 
     int options;
@@ -142,18 +143,39 @@ public final class Regex implements RegexState {
         return factory;
     }
 
-    public Matcher matcher(final char[] chars) {
-        return matcher(chars, 0, chars.length);
+    public Matcher matcher(final String chars) {
+        return matcher(chars, 0, chars.length());
     }
 
-    public Matcher matcher(final char[] chars, final int p, final int end) {
+    public Matcher matcher(final String chars, final int p, final int end) {
         MatcherFactory matcherFactory = factory;
         if (matcherFactory == null) {
             matcherFactory = compile();
+        } else if (executions >= 0 && MatcherCompiler.THRESHOLD >= 0 && ++executions > MatcherCompiler.THRESHOLD) {
+            compileMatcher();
+            matcherFactory = factory;
         }
         return matcherFactory.create(this, chars, p, end);
     }
 
+    /**
+     * Compiles the byte code of this regex into a JVM class, which is otherwise done
+     * once it has been matched nashorn.regexp.compile.threshold times.
+     *
+     * @return true if matchers of this regex run a generated class from now on
+     */
+    public synchronized boolean compileMatcher() {
+        compile();
+        if (executions >= 0) {
+            executions = -1;
+            final MatcherFactory compiled = MatcherCompiler.compile(this);
+            if (compiled != null) {
+                factory = compiled;
+            }
+        }
+        return factory != MatcherFactory.DEFAULT;
+    }
+
     public WarnCallback getWarnings() {
         return warnings;
     }
@@ -23,8 +23,8 @@ package com.anatawa12.fixrtm.nashorn.internal.runtime.regexp.joni;
 public abstract class SearchAlgorithm {
 
     public abstract String getName();
-    public abstract int search(Regex regex, char[] text, int textP, int textEnd, int textRange);
-    public abstract int searchBackward(Regex regex, char[] text, int textP, int adjustText, int textEnd, int textStart, int s_, int range_);
+    public abstract int search(Regex regex, String text, int textP, int textEnd, int textRange);
+    public abstract int searchBackward(Regex regex, String text, int textP, int adjustText, int textEnd, int textStart, int s_, int range_);
 
 
     public static final SearchAlgorithm NONE = new SearchAlgorithm() {
@@ -35,12 +35,12 @@ public abstract class SearchAlgorithm {
         }
 
         @Override
-        public final int search(final Regex regex, final char[] text, final int textP, final int textEnd, final int textRange) {
+        public final int search(final Regex regex, final String text, final int textP, final int textEnd, final int textRange) {
             return textP;
         }
 
         @Override
-        public final int searchBackward(final Regex regex, final char[] text, final int textP, final int adjustText, final int textEnd, final int textStart, final int s_, final int range_) {
+        public final int searchBackward(final Regex regex, final String text, final int textP, final int adjustText, final int textEnd, final int textStart, final int s_, final int range_) {
             return textP;
         }
 
@@ -54,7 +54,7 @@ public abstract class SearchAlgorithm {
         }
 
         @Override
-        public final int search(final Regex regex, final char[] text, final int textP, final int textEnd, final int textRange) {
+        public final int search(final Regex regex, final String text, final int textP, final int textEnd, final int textRange) {
             final char[] target = regex.exact;
             final int targetP = regex.exactP;
             final int targetEnd = regex.exactEnd;
@@ -70,19 +70,22 @@ public abstract class SearchAlgorithm {
             int s = textP;
 
             while (s < end) {
-                if (text[s] == target[targetP]) {
-                    int p = s + 1;
-                    int t = targetP + 1;
-                    while (t < targetEnd) {
-                        if (target[t] != text[p++]) {
-                            break;
-                        }
-                        t++;
+                // String.indexOf scans the backing array without a bounds check per char
+                s = text.indexOf(target[targetP], s);
+                if (s < 0 || s >= end) {
+                    return -1;
+                }
+                int p = s + 1;
+                int t = targetP + 1;
+                while (t < targetEnd) {
+                    if (target[t] != text.charAt(p++)) {
+                        break;
                     }
+                    t++;
+                }
 
-                    if (t == targetEnd) {
-                        return s;
-                    }
+                if (t == targetEnd) {
+                    return s;
                 }
                 s++;
             }
@@ -91,7 +94,7 @@ public abstract class SearchAlgorithm {
         }
 
         @Override
-        public final int searchBackward(final Regex regex, final char[] text, final int textP, final int adjustText, final int textEnd, final int textStart, final int s_, final int range_) {
+        public final int searchBackward(final Regex regex, final String text, final int textP, final int adjustText, final int textEnd, final int textStart, final int s_, final int range_) {
             final char[] target = regex.exact;
             final int targetP = regex.exactP;
             final int targetEnd = regex.exactEnd;
@@ -104,11 +107,11 @@ public abstract class SearchAlgorithm {
             }
 
             while (s >= textP) {
-                if (text[s] == target[targetP]) {
+                if (text.charAt(s) == target[targetP]) {
                     int p = s + 1;
                     int t = targetP + 1;
                     while (t < targetEnd) {
-                        if (target[t] != text[p++]) {
+                        if (target[t] != text.charAt(p++)) {
                             break;
                         }
                         t++;
@@ -135,7 +138,7 @@ public abstract class SearchAlgorithm {
         }
 
         @Override
-        public final int search(final Regex regex, final char[] text, final int textP, final int textEnd, final int textRange) {
+        public final int search(final Regex regex, final String text, final int textP, final int textEnd, final int textRange) {
             final char[] target = regex.exact;
             final int targetP = regex.exactP;
             final int targetEnd = regex.exactEnd;
@@ -158,7 +161,7 @@ public abstract class SearchAlgorithm {
         }
 
         @Override
-        public final int searchBackward(final Regex regex, final char[] text, final int textP, final int adjustText, final int textEnd, final int textStart, final int s_, final int range_) {
+        public final int searchBackward(final Regex regex, final String text, final int textP, final int adjustText, final int textEnd, final int textStart, final int s_, final int range_) {
             final char[] target = regex.exact;
             final int targetP = regex.exactP;
             final int targetEnd = regex.exactEnd;
@@ -180,10 +183,10 @@ public abstract class SearchAlgorithm {
         }
 
         private static boolean lowerCaseMatch(final char[] t, final int tPp, final int tEnd,
-                                       final char[] chars, final int pp, final int end) {
+                                       final String chars, final int pp, final int end) {
 
             for (int tP = tPp, p = pp; tP < tEnd; ) {
-                if (t[tP++] != EncodingHelper.toLowerCase(chars[p++])) {
+                if (t[tP++] != EncodingHelper.toLowerCase(chars.charAt(p++))) {
                     return false;
                 }
             }
@@ -199,7 +202,7 @@ public abstract class SearchAlgorithm {
         }
 
         @Override
-        public final int search(final Regex regex, final char[] text, final int textP, final int textEnd, final int textRange) {
+        public final int search(final Regex regex, final String text, final int textP, final int textEnd, final int textRange) {
             final char[] target = regex.exact;
             final int targetP = regex.exactP;
             final int targetEnd = regex.exactEnd;
@@ -217,28 +220,28 @@ public abstract class SearchAlgorithm {
                     int p = s;
                     int t = tail;
 
-                    while (text[p] == target[t]) {
+                    while (text.charAt(p) == target[t]) {
                         if (t == targetP) {
                             return p;
                         }
                         p--; t--;
                     }
 
-                    s += regex.map[text[s] & 0xff];
+                    s += regex.map[text.charAt(s) & 0xff];
                 }
             } else { /* see int_map[] */
                 while (s < end) {
                     int p = s;
                     int t = tail;
 
-                    while (text[p] == target[t]) {
+                    while (text.charAt(p) == target[t]) {
                         if (t == targetP) {
                             return p;
                         }
                         p--; t--;
                     }
 
-                    s += regex.intMap[text[s] & 0xff];
+                    s += regex.intMap[text.charAt(s) & 0xff];
                 }
             }
             return -1;
@@ -247,7 +250,7 @@ public abstract class SearchAlgorithm {
         private static final int BM_BACKWARD_SEARCH_LENGTH_THRESHOLD = 100;
 
         @Override
-        public final int searchBackward(final Regex regex, final char[] text, final int textP, final int adjustText, final int textEnd, final int textStart, final int s_, final int range_) {
+        public final int searchBackward(final Regex regex, final String text, final int textP, final int adjustText, final int textEnd, final int textStart, final int s_, final int range_) {
             final char[] target = regex.exact;
             final int targetP = regex.exactP;
             final int targetEnd = regex.exactEnd;
@@ -269,14 +272,14 @@ public abstract class SearchAlgorithm {
             while (s >= textP) {
                 int p = s;
                 int t = targetP;
-                while (t < targetEnd && text[p] == target[t]) {
+                while (t < targetEnd && text.charAt(p) == target[t]) {
                     p++; t++;
                 }
                 if (t == targetEnd) {
                     return s;
                 }
 
-                s -= regex.intMapBackward[text[s] & 0xff];
+                s -= regex.intMapBackward[text.charAt(s) & 0xff];
             }
             return -1;
         }
@@ -310,12 +313,12 @@ public abstract class SearchAlgorithm {
         }
 
         @Override
-        public final int search(final Regex regex, final char[] text, final int textP, final int textEnd, final int textRange) {
+        public final int search(final Regex regex, final String text, final int textP, final int textEnd, final int textRange) {
             final byte[] map = regex.map;
             int s = textP;
 
             while (s < textRange) {
-                if (text[s] > 0xff || map[text[s]] != 0) {
+                if (text.charAt(s) > 0xff || map[text.charAt(s)] != 0) {
                     return s;
                 }
                 s++;
@@ -324,7 +327,7 @@ public abstract class SearchAlgorithm {
         }
 
         @Override
-        public final int searchBackward(final Regex regex, final char[] text, final int textP, final int adjustText, final int textEnd, final int textStart, final int s_, final int range_) {
+        public final int searchBackward(final Regex regex, final String text, final int textP, final int adjustText, final int textEnd, final int textStart, final int s_, final int range_) {
             final byte[] map = regex.map;
             int s = textStart;
 
@@ -332,7 +335,7 @@ public abstract class SearchAlgorithm {
                 s = textEnd - 1;
             }
             while (s >= textP) {
-                if (text[s] > 0xff || map[text[s]] != 0) {
+                if (text.charAt(s) > 0xff || map[text.charAt(s)] != 0) {
                     return s;
                 }
                 s--;
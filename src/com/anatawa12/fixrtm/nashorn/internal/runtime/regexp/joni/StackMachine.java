@@ -32,7 +32,7 @@ abstract class StackMachine extends Matcher implements StackType {
     protected final int[]repeatStk;
     protected final int memStartStk, memEndStk;
 
-    protected StackMachine(final Regex regex, final char[] chars, final int p , final int end) {
+    protected StackMachine(final Regex regex, final String chars, final int p , final int end) {
         super(regex, chars, p, end);
 
         this.stack = regex.stackNeeded ? fetchStack() : null;
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2010, 2013, Oracle and/or its affiliates. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   - Redistributions of source code must retain the above copyright
+ *     notice, this list of conditions and the following disclaimer.
+ *
+ *   - Redistributions in binary form must reproduce the above copyright
+ *     notice, this list of conditions and the following disclaimer in the
+ *     documentation and/or other materials provided with the distribution.
+ *
+ *   - Neither the name of Oracle nor the names of its
+ *     contributors may be used to endorse or promote products derived
+ *     from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/*
+ * Calls map with x * 2 callbacks over arrays of ints. The "one callback"
+ * cases always pass the same function, the "mixed callbacks" cases rotate
+ * through several functions. Each script function is called through an
+ * invoker of its own rather than one shared by all callbacks.
+ */
+
+var ELEMENTS = 1e7;
+
+function makeInts(size) {
+    var a = [];
+    for (var i = 0; i < size; i++) {
+        a.push(i % 1000);
+    }
+    return a;
+}
+
+var callbacks = [
+    function(x) { return x * 2; },
+    function(y) { return y * 2; },
+    function(z) { return z * 2; },
+    function(x, i) { return x * 2; },
+    function(y, i) { return y * 2; },
+    function(z, i) { return z * 2; },
+    function(x, i, a) { return x * 2; },
+    function(y, i, a) { return y * 2; },
+    function(z, i, a) { return z * 2; },
+    function(v) { return v + v; },
+    function(w) { return w + w; },
+    function(u) { return u + u; }
+];
+
+function bench(name, array, count) {
+    var runs = ELEMENTS / array.length;
+    var start = Date.now();
+    for (var i = 0; i < runs; i++) {
+        array.map(callbacks[i % count]);
+    }
+    print((Date.now() - start) + " ms\t" + name + " " + array.length);
+}
+
+[16, 1000, 1e6].forEach(function(size) {
+    var ints = makeInts(size);
+
+    for (var i = 0; i < 3; i++) {
+        bench("one callback", ints, 1);
+        bench("mixed callbacks", ints, callbacks.length);
+    }
+});
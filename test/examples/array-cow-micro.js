@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2010, 2013, Oracle and/or its affiliates. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   - Redistributions of source code must retain the above copyright
+ *     notice, this list of conditions and the following disclaimer.
+ *
+ *   - Redistributions in binary form must reproduce the above copyright
+ *     notice, this list of conditions and the following disclaimer in the
+ *     documentation and/or other materials provided with the distribution.
+ *
+ *   - Neither the name of Oracle nor the names of its
+ *     contributors may be used to endorse or promote products derived
+ *     from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+/*
+ * slice(), concat() and Java.from of 1M element arrays that are only read,
+ * as when arrays are handed back and forth between Java and scripts.
+ */
+
+var SIZE = 1e6;
+var RUNS = 200;
+
+function bench(name, fn) {
+    var start = Date.now(), check = 0;
+    for (var i = 0; i < RUNS; i++) {
+        check += fn(i);
+    }
+    print((Date.now() - start) + " ms\t" + name + "\t" + check);
+}
+
+var ints = [], doubles = [], objects = [];
+for (var i = 0; i < SIZE; i++) {
+    ints.push(i);
+    doubles.push(i / 8);
+    objects.push("s" + i);
+}
+
+var javaInts    = Java.to(ints, "int[]");
+var javaDoubles = Java.to(doubles, "double[]");
+var javaObjects = Java.to(objects, "java.lang.Object[]");
+
+function run(kind, a, javaArray) {
+    bench(kind + " slice", function(i) { return a.slice()[i] === a[i] ? 1 : 0; });
+    bench(kind + " concat", function(i) { return a.concat()[i] === a[i] ? 1 : 0; });
+    bench(kind + " Java.from", function(i) { return Java.from(javaArray)[i] === a[i] ? 1 : 0; });
+    bench(kind + " slice and write", function(i) { var copy = a.slice(); copy[i] = a[0]; return copy[i] === a[0] ? 1 : 0; });
+}
+
+for (var i = 0; i < 3; i++) {
+    run("int", ints, javaInts);
+    run("double", doubles, javaDoubles);
+    run("object", objects, javaObjects);
+}
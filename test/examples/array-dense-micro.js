@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2010, 2013, Oracle and/or its affiliates. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   - Redistributions of source code must retain the above copyright
+ *     notice, this list of conditions and the following disclaimer.
+ *
+ *   - Redistributions in binary form must reproduce the above copyright
+ *     notice, this list of conditions and the following disclaimer in the
+ *     documentation and/or other materials provided with the distribution.
+ *
+ *   - Neither the name of Oracle nor the names of its
+ *     contributors may be used to endorse or promote products derived
+ *     from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/*
+ * join, concat, slice and splice on dense 100K element int, double and
+ * object arrays.
+ */
+
+var SIZE = 1e5;
+var RUNS = 20;
+
+function bench(name, fn) {
+    var start = Date.now(), check = 0;
+    for (var i = 0; i < RUNS; i++) {
+        check += fn();
+    }
+    print((Date.now() - start) + " ms\t" + name + "\t" + check);
+}
+
+var ints = [], doubles = [], objects = [];
+for (var i = 0; i < SIZE; i++) {
+    ints.push(i);
+    doubles.push(i / 8);
+    objects.push(i % 2 ? "s" + i : i);
+}
+
+function run(kind, a) {
+    bench(kind + " join", function() { return a.join().length; });
+    bench(kind + " join ', '", function() { return a.join(", ").length; });
+    bench(kind + " concat array", function() { return a.concat(a).length; });
+    bench(kind + " concat arrays and values", function() { return a.concat(1, a, 2, a).length; });
+    bench(kind + " slice", function() { return a.slice(1, SIZE - 1).length; });
+    bench(kind + " splice", function() {
+        var copy = a.slice();
+        return copy.splice(SIZE >> 1, 1000, 1, 2, 3).length + copy.length;
+    });
+}
+
+for (var i = 0; i < 3; i++) {
+    run("int", ints);
+    run("double", doubles);
+    run("object", objects);
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2010, 2013, Oracle and/or its affiliates. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   - Redistributions of source code must retain the above copyright
+ *     notice, this list of conditions and the following disclaimer.
+ *
+ *   - Redistributions in binary form must reproduce the above copyright
+ *     notice, this list of conditions and the following disclaimer in the
+ *     documentation and/or other materials provided with the distribution.
+ *
+ *   - Neither the name of Oracle nor the names of its
+ *     contributors may be used to endorse or promote products derived
+ *     from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/*
+ * Builds arrays by pushing ints, doubles and a mix of both, by indexed
+ * stores and by filling a preallocated new Array(length). Sizes cross the
+ * 128K element limit above which arrays used to switch to sparse storage.
+ */
+
+var SIZES = [1e5, 1e6];
+var RUNS = 5;
+
+function pushInts(n) {
+    var a = [];
+    for (var i = 0; i < n; i++) {
+        a.push(i);
+    }
+    return a;
+}
+
+function pushMixed(n) {
+    var a = [];
+    for (var i = 0; i < n; i++) {
+        a.push(i & 1 ? i : i + 0.5);
+    }
+    return a;
+}
+
+function pushIntsThenDouble(n) {
+    var a = [];
+    for (var i = 0; i < n; i++) {
+        a.push(i === n >> 1 ? 0.5 : i);
+    }
+    return a;
+}
+
+function storeIndexed(n) {
+    var a = [];
+    for (var i = 0; i < n; i++) {
+        a[i] = i / 2;
+    }
+    return a;
+}
+
+function fillPreallocated(n) {
+    var a = new Array(n);
+    for (var i = 0; i < n; i++) {
+        a[i] = i;
+    }
+    return a;
+}
+
+function sum(a) {
+    var s = 0;
+    for (var i = 0; i < a.length; i++) {
+        s += a[i];
+    }
+    return s;
+}
+
+function bench(name, n, build) {
+    var start = Date.now(), check = 0;
+    for (var i = 0; i < RUNS; i++) {
+        check += sum(build(n));
+    }
+    var time = Date.now() - start;
+    print(time + " ms\t" + (time * 1e6 / (RUNS * n)).toFixed(1) + " ns/element\t" + name + " " + n + "\t" + check);
+}
+
+for (var i = 0; i < 3; i++) {
+    SIZES.forEach(function(n) {
+        bench("push ints", n, pushInts);
+        bench("push mixed", n, pushMixed);
+        bench("push ints then double", n, pushIntsThenDouble);
+        bench("indexed store", n, storeIndexed);
+        bench("fill new Array(n)", n, fillPreallocated);
+    });
+}
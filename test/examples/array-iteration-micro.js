@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2010, 2013, Oracle and/or its affiliates. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   - Redistributions of source code must retain the above copyright
+ *     notice, this list of conditions and the following disclaimer.
+ *
+ *   - Redistributions in binary form must reproduce the above copyright
+ *     notice, this list of conditions and the following disclaimer in the
+ *     documentation and/or other materials provided with the distribution.
+ *
+ *   - Neither the name of Oracle nor the names of its
+ *     contributors may be used to endorse or promote products derived
+ *     from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/*
+ * Runs forEach and map over int and double elements and reports the time
+ * and the bytes allocated per element. Int and double elements are handed to
+ * the callback without boxing. The 100K arrays are dense, the 1M arrays keep
+ * elements above 128K in sparse storage.
+ */
+
+var SIZES = [1e5, 1e6];
+var ELEMENTS = 1e7;
+
+var ManagementFactory = Java.type("java.lang.management.ManagementFactory");
+var Thread = Java.type("java.lang.Thread");
+
+var threads = ManagementFactory.getThreadMXBean();
+
+function allocated() {
+    return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+}
+
+function makeInts(size) {
+    var a = [];
+    for (var i = 0; i < size; i++) {
+        a.push(i * 7 % 1000003);
+    }
+    return a;
+}
+
+function makeDoubles(size) {
+    var a = [];
+    for (var i = 0; i < size; i++) {
+        a.push(i / 3);
+    }
+    return a;
+}
+
+function bench(name, array, action) {
+    var runs = ELEMENTS / array.length;
+    var time = 0, bytes = 0;
+    for (var i = 0; i < runs; i++) {
+        var start = Date.now(), before = allocated();
+        action(array);
+        bytes += allocated() - before;
+        time += Date.now() - start;
+    }
+    print(time + " ms\t" + Math.round(bytes / ELEMENTS) + " bytes/element\t" + name + " " + array.length);
+}
+
+function forEachCheck(array) {
+    array.forEach(function(x) {
+        if (x < 0) {
+            throw new Error("negative element " + x);
+        }
+    });
+}
+
+function mapTwice(array) {
+    return array.map(function(x) { return x * 2; });
+}
+
+SIZES.forEach(function(size) {
+    var ints    = makeInts(size);
+    var doubles = makeDoubles(size);
+
+    for (var i = 0; i < 3; i++) {
+        bench("ints forEach", ints, forEachCheck);
+        bench("ints map", ints, mapTwice);
+        bench("doubles forEach", doubles, forEachCheck);
+        bench("doubles map", doubles, mapTwice);
+    }
+});
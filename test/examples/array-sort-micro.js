@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2010, 2013, Oracle and/or its affiliates. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   - Redistributions of source code must retain the above copyright
+ *     notice, this list of conditions and the following disclaimer.
+ *
+ *   - Redistributions in binary form must reproduce the above copyright
+ *     notice, this list of conditions and the following disclaimer in the
+ *     documentation and/or other materials provided with the distribution.
+ *
+ *   - Neither the name of Oracle nor the names of its
+ *     contributors may be used to endorse or promote products derived
+ *     from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/*
+ * Sorts arrays of ints, doubles and strings with the default ordering and
+ * with a comparator function. Int and double arrays are sorted on their
+ * primitive elements without boxing. Arrays are kept below the 128K element
+ * limit above which arrays use sparse storage.
+ */
+
+var SIZE = 1e5;
+var RUNS = 10;
+
+function random(seed) {
+    return function() {
+        seed = (seed * 1103515245 + 12345) & 0x7fffffff;
+        return seed;
+    };
+}
+
+function makeInts() {
+    var next = random(1), a = [];
+    for (var i = 0; i < SIZE; i++) {
+        a.push(next() % 1000000);
+    }
+    return a;
+}
+
+function makeDoubles() {
+    var next = random(2), a = [];
+    for (var i = 0; i < SIZE; i++) {
+        a.push(next() / 1024);
+    }
+    return a;
+}
+
+function makeStrings() {
+    var next = random(3), a = [];
+    for (var i = 0; i < SIZE; i++) {
+        a.push("s" + next());
+    }
+    return a;
+}
+
+function numeric(a, b) {
+    return a - b;
+}
+
+function byString(a, b) {
+    return a < b ? -1 : a > b ? 1 : 0;
+}
+
+function bench(name, source, cmp) {
+    var time = 0;
+    for (var i = 0; i < RUNS; i++) {
+        var array = source.slice();
+        var start = Date.now();
+        array.sort(cmp);
+        time += Date.now() - start;
+    }
+    print(time + " ms\t" + name);
+}
+
+var ints    = makeInts();
+var doubles = makeDoubles();
+var strings = makeStrings();
+
+for (var i = 0; i < 3; i++) {
+    bench("ints default", ints);
+    bench("ints comparefn", ints, numeric);
+    bench("doubles default", doubles);
+    bench("doubles comparefn", doubles, numeric);
+    bench("strings default", strings);
+    bench("strings comparefn", strings, byString);
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2010, 2013, Oracle and/or its affiliates. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   - Redistributions of source code must retain the above copyright
+ *     notice, this list of conditions and the following disclaimer.
+ *
+ *   - Redistributions in binary form must reproduce the above copyright
+ *     notice, this list of conditions and the following disclaimer in the
+ *     documentation and/or other materials provided with the distribution.
+ *
+ *   - Neither the name of Oracle nor the names of its
+ *     contributors may be used to endorse or promote products derived
+ *     from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/*
+ * Maps a 64MB file into an ArrayBuffer and sums it as Int32s, and compares
+ * slicing a read-only mapping, which shares the mapped bytes, with slicing
+ * an ordinary ArrayBuffer, which copies them.
+ */
+
+var SIZE = 64 * 1024 * 1024;
+var RUNS = 10;
+
+var Files = Java.type("java.nio.file.Files");
+var ByteArray = Java.type("byte[]");
+
+var file = Files.createTempFile("mapfile-micro", ".bin");
+file.toFile().deleteOnExit();
+Files.write(file, new ByteArray(SIZE));
+
+function sum(buffer) {
+    var ints = new Int32Array(buffer), total = 0;
+    for (var i = 0; i < ints.length; i++) {
+        total += ints[i];
+    }
+    return total;
+}
+
+function bench(name, action) {
+    var start = Date.now();
+    for (var i = 0; i < RUNS; i++) {
+        action();
+    }
+    print((Date.now() - start) + " ms\t" + name);
+}
+
+var mapped = ArrayBuffer.mapFile(file.toString());
+var heap = new ArrayBuffer(SIZE);
+
+for (var i = 0; i < 3; i++) {
+    bench("map and sum", function() { sum(ArrayBuffer.mapFile(file.toString())); });
+    bench("slice mapped, 48MB", function() { mapped.slice(SIZE / 4, SIZE); });
+    bench("slice heap, 48MB", function() { heap.slice(SIZE / 4, SIZE); });
+    bench("slice heap, 16 bytes", function() { heap.slice(SIZE - 16, SIZE); });
+}
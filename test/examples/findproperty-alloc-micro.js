@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2010, 2013, Oracle and/or its affiliates. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   - Redistributions of source code must retain the above copyright
+ *     notice, this list of conditions and the following disclaimer.
+ *
+ *   - Redistributions in binary form must reproduce the above copyright
+ *     notice, this list of conditions and the following disclaimer in the
+ *     documentation and/or other materials provided with the distribution.
+ *
+ *   - Neither the name of Oracle nor the names of its
+ *     contributors may be used to endorse or promote products derived
+ *     from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/*
+ * Measures allocation rate of property lookups that go through the generic
+ * ScriptObject get/set paths: computed keys, inherited properties and
+ * ScriptObjectMirror access from Java.
+ */
+
+var ManagementFactory = Java.type("java.lang.management.ManagementFactory");
+var Thread            = Java.type("java.lang.Thread");
+var ScriptUtils       = Java.type("com.anatawa12.fixrtm.nashorn.api.scripting.ScriptUtils");
+
+var threadBean = ManagementFactory.getThreadMXBean();
+
+function allocated() {
+    return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+}
+
+var ITERATIONS = 5e6;
+
+function bench(name, func) {
+    for (var w = 0; w < 3; w++) {
+        func(); // warm up
+    }
+    var bytes = allocated();
+    var start = Date.now();
+    func();
+    var time = Date.now() - start;
+    bytes = allocated() - bytes;
+    print(time + " ms\t" + (bytes / ITERATIONS).toFixed(1) + " bytes/op\t" + name);
+}
+
+var proto = { inherited1: 1, inherited2: "two" };
+var obj   = Object.create(proto);
+obj.own1 = 1;
+obj.own2 = "two";
+
+var keys = ["own1", "own2", "inherited1", "inherited2"];
+
+bench("get computed key", function() {
+    var sum = 0;
+    for (var i = 0; i < ITERATIONS; i++) {
+        sum += obj[keys[i & 3]] ? 1 : 0;
+    }
+    return sum;
+});
+
+bench("set computed key", function() {
+    for (var i = 0; i < ITERATIONS; i++) {
+        obj[keys[i & 1]] = "x";
+    }
+});
+
+// ScriptObjectMirror is unwrapped when it re-enters script, so call its
+// Map methods reflectively. Reflection overhead is included in the numbers.
+var mirror  = ScriptUtils.wrap(obj);
+var Map     = Java.type("java.util.Map").class;
+var Object_ = Java.type("java.lang.Object").class;
+var mapGet  = Map.getMethod("get", Object_);
+var mapPut  = Map.getMethod("put", Object_, Object_);
+
+bench("mirror get", function() {
+    var sum = 0;
+    for (var i = 0; i < ITERATIONS; i++) {
+        sum += mapGet.invoke(mirror, keys[i & 3]) ? 1 : 0;
+    }
+    return sum;
+});
+
+bench("mirror put", function() {
+    for (var i = 0; i < ITERATIONS; i++) {
+        mapPut.invoke(mirror, "own2", "x");
+    }
+});
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2010, 2013, Oracle and/or its affiliates. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   - Redistributions of source code must retain the above copyright
+ *     notice, this list of conditions and the following disclaimer.
+ *
+ *   - Redistributions in binary form must reproduce the above copyright
+ *     notice, this list of conditions and the following disclaimer in the
+ *     documentation and/or other materials provided with the distribution.
+ *
+ *   - Neither the name of Oracle nor the names of its
+ *     contributors may be used to endorse or promote products derived
+ *     from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/*
+ * Reads fields of a frozen configuration object in a hot loop. Loads from
+ * the frozen object are linked as constants, loads from an unfrozen object
+ * with the same properties are linked as regular field loads.
+ */
+
+var ITERATIONS = 5e7;
+
+function makeConfig() {
+    return { scale: 3, offset: 7, enabled: true, name: "config" };
+}
+
+var frozen   = Object.freeze(makeConfig());
+var unfrozen = makeConfig();
+
+// every benchmark gets its own copy of the loop, so its call sites only see one object
+function makeRun() {
+    return new Function("config", "iterations",
+        "var sum = 0;" +
+        "for (var i = 0; i < iterations; i++) {" +
+        "    if (config.enabled) {" +
+        "        sum += i * config.scale + config.offset;" +
+        "    }" +
+        "}" +
+        "return sum;");
+}
+
+var runFrozen   = makeRun();
+var runUnfrozen = makeRun();
+
+function bench(name, run, config) {
+    var start = Date.now();
+    var sum   = run(config, ITERATIONS);
+    print((Date.now() - start) + "\t" + name + "\t" + sum);
+}
+
+for (var i = 0; i < 3; i++) {
+    bench("frozen", runFrozen, frozen);
+    bench("unfrozen", runUnfrozen, unfrozen);
+}
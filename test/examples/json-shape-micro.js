@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2010, 2013, Oracle and/or its affiliates. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   - Redistributions of source code must retain the above copyright
+ *     notice, this list of conditions and the following disclaimer.
+ *
+ *   - Redistributions in binary form must reproduce the above copyright
+ *     notice, this list of conditions and the following disclaimer in the
+ *     documentation and/or other materials provided with the distribution.
+ *
+ *   - Neither the name of Oracle nor the names of its
+ *     contributors may be used to endorse or promote products derived
+ *     from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+/*
+ * JSON.parse of a 5 MB document made of objects with a few repeated shapes,
+ * like model configuration or save data. Prints time and bytes allocated by
+ * the running thread.
+ */
+
+var ManagementFactory = Java.type("java.lang.management.ManagementFactory");
+var Thread = Java.type("java.lang.Thread");
+
+var threads = ManagementFactory.getThreadMXBean();
+var RUNS = 10;
+
+function bench(name, fn) {
+    var id = Thread.currentThread().getId();
+    var bytes = threads.getThreadAllocatedBytes(id);
+    var start = Date.now(), check = 0;
+    for (var i = 0; i < RUNS; i++) {
+        check += fn(i);
+    }
+    var time = Date.now() - start;
+    bytes = threads.getThreadAllocatedBytes(id) - bytes;
+    print(time + " ms\t" + Math.round(bytes / RUNS / 1024) + " KB/run\t" + name + "\t" + check);
+}
+
+var entities = [];
+for (var i = 0; i < 12000; i++) {
+    entities.push({
+        id: i,
+        type: "entity" + (i % 17),
+        name: "Entity number " + i,
+        position: [i * 0.5, 64, -i * 0.25],
+        rotation: [i % 360, 0],
+        health: 20 - i % 5,
+        flags: { visible: i % 2 == 0, persistent: true, tag: null },
+        inventory: [
+            { item: "minecraft:stone", count: i % 64, damage: 0 },
+            { item: "minecraft:dirt", count: 1 + i % 7, damage: i % 3 }
+        ]
+    });
+}
+var json = JSON.stringify({ version: 3, entities: entities }, null, 1);
+print("document length", json.length);
+
+for (var i = 0; i < 3; i++) {
+    bench("JSON.parse", function() {
+        return JSON.parse(json).entities.length;
+    });
+    bench("JSON.parse, read fields", function() {
+        var n = 0;
+        var data = JSON.parse(json).entities;
+        for (var j = 0; j < data.length; j++) {
+            n += data[j].position[1] + data[j].inventory[1].count;
+        }
+        return n;
+    });
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2010, 2013, Oracle and/or its affiliates. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   - Redistributions of source code must retain the above copyright
+ *     notice, this list of conditions and the following disclaimer.
+ *
+ *   - Redistributions in binary form must reproduce the above copyright
+ *     notice, this list of conditions and the following disclaimer in the
+ *     documentation and/or other materials provided with the distribution.
+ *
+ *   - Neither the name of Oracle nor the names of its
+ *     contributors may be used to endorse or promote products derived
+ *     from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+/*
+ * Number to string and string to number conversions, such as formatting
+ * coordinates and parsing numeric configuration values.
+ */
+
+var RUNS = 20;
+
+function bench(name, fn) {
+    var start = Date.now(), check = 0;
+    for (var i = 0; i < RUNS; i++) {
+        check += fn();
+    }
+    print((Date.now() - start) + " ms\t" + name + "\t" + check);
+}
+
+var coordinates = [], doubles = [], strings = [];
+for (var i = 0; i < 100000; i++) {
+    coordinates.push(Math.round(Math.random() * 2e7 - 1e7) / 100);
+    doubles.push(Math.random() * Math.pow(10, (i % 40) - 20));
+}
+for (var i = 0; i < coordinates.length; i++) {
+    strings.push(String(coordinates[i]));
+}
+
+for (var i = 0; i < 3; i++) {
+    bench("String(coordinate)", function() {
+        var n = 0;
+        for (var j = 0; j < coordinates.length; j++) {
+            n += String(coordinates[j]).length;
+        }
+        return n;
+    });
+    bench("String(random double)", function() {
+        var n = 0;
+        for (var j = 0; j < doubles.length; j++) {
+            n += String(doubles[j]).length;
+        }
+        return n;
+    });
+    bench("Number(string)", function() {
+        var n = 0;
+        for (var j = 0; j < strings.length; j++) {
+            n += Number(strings[j]);
+        }
+        return n;
+    });
+}
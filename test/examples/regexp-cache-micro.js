@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2010, 2013, Oracle and/or its affiliates. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   - Redistributions of source code must retain the above copyright
+ *     notice, this list of conditions and the following disclaimer.
+ *
+ *   - Redistributions in binary form must reproduce the above copyright
+ *     notice, this list of conditions and the following disclaimer in the
+ *     documentation and/or other materials provided with the distribution.
+ *
+ *   - Neither the name of Oracle nor the names of its
+ *     contributors may be used to endorse or promote products derived
+ *     from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+/*
+ * new RegExp(str) with a recurring set of dynamically built patterns, run
+ * from several threads. Run with -J-Dnashorn.regexp.cache.size=0 to compare
+ * with compiling every time.
+ */
+
+var Thread = Java.type("java.lang.Thread");
+var RegExpFactory = Java.type("com.anatawa12.fixrtm.nashorn.internal.runtime.regexp.RegExpFactory");
+
+var THREADS = 4;
+var RUNS = 50000;
+
+var words = ["player", "block", "entity", "item", "world", "chunk", "server", "client"];
+var patterns = [];
+for (var i = 0; i < 64; i++) {
+    patterns.push("^" + words[i % words.length] + "\\." + (i >> 3) + "\\.([a-z_]+)=(\\d+)$");
+}
+
+function work() {
+    var n = 0;
+    for (var i = 0; i < RUNS; i++) {
+        var re = new RegExp(patterns[i % patterns.length], i & 1 ? "i" : "");
+        n += re.source.length;
+    }
+    return n;
+}
+
+for (var run = 0; run < 3; run++) {
+    var start = Date.now();
+    var threads = [];
+    for (var t = 0; t < THREADS; t++) {
+        var thread = new Thread(work);
+        thread.start();
+        threads.push(thread);
+    }
+    for each (var thread in threads) {
+        thread.join();
+    }
+    print((Date.now() - start) + " ms\t" + THREADS + " threads x " + RUNS + " new RegExp");
+}
+
+print("hits " + RegExpFactory.getCacheHits() + ", misses " + RegExpFactory.getCacheMisses() +
+      ", compile time " + Math.round(RegExpFactory.getCompileTime() / 1e6) + " ms");
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2010, 2013, Oracle and/or its affiliates. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   - Redistributions of source code must retain the above copyright
+ *     notice, this list of conditions and the following disclaimer.
+ *
+ *   - Redistributions in binary form must reproduce the above copyright
+ *     notice, this list of conditions and the following disclaimer in the
+ *     documentation and/or other materials provided with the distribution.
+ *
+ *   - Neither the name of Oracle nor the names of its
+ *     contributors may be used to endorse or promote products derived
+ *     from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+/*
+ * Regexes applied to large strings, where the cost of matching a few chars
+ * used to be dominated by copying the whole input for every match.
+ */
+
+var RUNS = 2000;
+
+function bench(name, fn) {
+    var start = Date.now(), check = 0;
+    for (var i = 0; i < RUNS; i++) {
+        check += fn(i);
+    }
+    print((Date.now() - start) + " ms\t" + name + "\t" + check);
+}
+
+var chunk = "lorem ipsum dolor sit amet, ";
+var big = chunk;
+while (big.length < 1024 * 1024) {
+    big += big;
+}
+big = big.substring(0, 1024 * 1024);
+
+var x = /x/g;
+var xyz = /xyz/g;
+var digit = /[0-9]/g;
+var lorem = /^lorem/;
+var sticky = /ipsum/g;
+
+for (var i = 0; i < 3; i++) {
+    bench("/x/g.test 1 MB", function(i) { x.lastIndex = 0; return x.test(big) ? 1 : 0; });
+    bench("/xyz/g.test 1 MB", function(i) { xyz.lastIndex = 0; return xyz.test(big) ? 1 : 0; });
+    bench("/[0-9]/g.test 1 MB", function(i) { digit.lastIndex = 0; return digit.test(big) ? 1 : 0; });
+    bench("/^lorem/.test 1 MB", function(i) { return lorem.test(big) ? 1 : 0; });
+    bench("/ipsum/g.exec from lastIndex", function(i) {
+        sticky.lastIndex = (i * chunk.length) % (big.length - chunk.length);
+        return sticky.exec(big).index;
+    });
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2010, 2013, Oracle and/or its affiliates. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   - Redistributions of source code must retain the above copyright
+ *     notice, this list of conditions and the following disclaimer.
+ *
+ *   - Redistributions in binary form must reproduce the above copyright
+ *     notice, this list of conditions and the following disclaimer in the
+ *     documentation and/or other materials provided with the distribution.
+ *
+ *   - Neither the name of Oracle nor the names of its
+ *     contributors may be used to endorse or promote products derived
+ *     from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+/*
+ * Typical patterns for tokenizing config lines and chat commands. Run with
+ * -J-Dnashorn.regexp.compile.threshold=-1 to compare with the interpreter.
+ */
+
+var RUNS = 200000;
+
+function bench(name, fn) {
+    var start = Date.now(), check = 0;
+    for (var i = 0; i < RUNS; i++) {
+        check += fn(i);
+    }
+    print((Date.now() - start) + " ms\t" + name + "\t" + check);
+}
+
+var lines = [
+    "  server.port = 25565  ",
+    "# comment line",
+    "motd = \"Welcome to the server, enjoy your stay\"",
+    "[section.name]",
+    "max-players=20"
+];
+var commands = [
+    "/tp Steve 100 64 -200",
+    "/give Alex minecraft:diamond_sword 1",
+    "hello everyone, how are you?",
+    "/msg Notch Hi there!"
+];
+var text = "The quick brown fox jumps over the lazy dog. 0x1F, 42, -3.5e10; foo_bar(baz, qux);";
+
+var keyValue = /^\s*([\w.\-]+)\s*=\s*(.*?)\s*$/;
+var section  = /^\[([^\]]+)\]$/;
+var command  = /^\/(\w+)((?:\s+\S+)*)$/;
+var word     = /[A-Za-z_]\w*/g;
+var number   = /-?(?:0x[0-9a-fA-F]+|\d+(?:\.\d+)?(?:e[+-]?\d+)?)/g;
+var quoted   = /"([^"\\]|\\.)*"/;
+
+function count(re, s) {
+    re.lastIndex = 0;
+    var n = 0;
+    while (re.exec(s) !== null) {
+        n++;
+    }
+    return n;
+}
+
+for (var i = 0; i < 3; i++) {
+    bench("key = value", function(i) { var m = keyValue.exec(lines[i % lines.length]); return m ? m[1].length : 0; });
+    bench("[section]", function(i) { return section.test(lines[i % lines.length]) ? 1 : 0; });
+    bench("/command args", function(i) { var m = command.exec(commands[i % commands.length]); return m ? m[1].length : 0; });
+    bench("words", function(i) { return count(word, text); });
+    bench("numbers", function(i) { return count(number, text); });
+    bench("quoted", function(i) { return quoted.test(lines[i % lines.length]) ? 1 : 0; });
+    bench("split", function(i) { return commands[i % commands.length].split(/\s+/).length; });
+}
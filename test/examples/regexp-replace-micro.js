@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2010, 2013, Oracle and/or its affiliates. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   - Redistributions of source code must retain the above copyright
+ *     notice, this list of conditions and the following disclaimer.
+ *
+ *   - Redistributions in binary form must reproduce the above copyright
+ *     notice, this list of conditions and the following disclaimer in the
+ *     documentation and/or other materials provided with the distribution.
+ *
+ *   - Neither the name of Oracle nor the names of its
+ *     contributors may be used to endorse or promote products derived
+ *     from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+/*
+ * Global replace on strings with 10k matches, with replacement strings and
+ * functions. Prints time and bytes allocated by the replacing thread.
+ */
+
+var ManagementFactory = Java.type("java.lang.management.ManagementFactory");
+var Thread = Java.type("java.lang.Thread");
+
+var threads = ManagementFactory.getThreadMXBean();
+var RUNS = 200;
+
+function bench(name, fn) {
+    var id = Thread.currentThread().getId();
+    var bytes = threads.getThreadAllocatedBytes(id);
+    var start = Date.now(), check = 0;
+    for (var i = 0; i < RUNS; i++) {
+        check += fn(i);
+    }
+    var time = Date.now() - start;
+    bytes = threads.getThreadAllocatedBytes(id) - bytes;
+    print(time + " ms\t" + Math.round(bytes / RUNS / 1024) + " KB/run\t" + name + "\t" + check);
+}
+
+var parts = [];
+for (var i = 0; i < 10000; i++) {
+    parts.push("key" + i + "=" + (i * 7));
+}
+var text = parts.join("&");
+
+for (var i = 0; i < 3; i++) {
+    bench("replace(/\\d+/g, \"#\")", function() { return text.replace(/\d+/g, "#").length; });
+    bench("replace(/(\\w+)=(\\d+)/g, \"$2:$1\")", function() { return text.replace(/(\w+)=(\d+)/g, "$2:$1").length; });
+    bench("replace(/=/g, fn)", function() { return text.replace(/=/g, function(m) { return ": "; }).length; });
+    bench("replace(/(\\w+)=(\\d+)/g, fn)", function() {
+        return text.replace(/(\w+)=(\d+)/g, function(m, key, value) { return value + ":" + key; }).length;
+    });
+    bench("replace(/(\\w+)=(\\d+)/g, fn using arguments)", function() {
+        return text.replace(/(\w+)=(\d+)/g, function() { return arguments[2]; }).length;
+    });
+}
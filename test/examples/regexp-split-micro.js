@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2010, 2013, Oracle and/or its affiliates. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   - Redistributions of source code must retain the above copyright
+ *     notice, this list of conditions and the following disclaimer.
+ *
+ *   - Redistributions in binary form must reproduce the above copyright
+ *     notice, this list of conditions and the following disclaimer in the
+ *     documentation and/or other materials provided with the distribution.
+ *
+ *   - Neither the name of Oracle nor the names of its
+ *     contributors may be used to endorse or promote products derived
+ *     from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+/*
+ * String.prototype.split, replace, match and search with literal, single
+ * character class and anchored prefix patterns on CSV-like data.
+ */
+
+var RUNS = 100000;
+
+function bench(name, fn) {
+    var start = Date.now(), check = 0;
+    for (var i = 0; i < RUNS; i++) {
+        check += fn(i);
+    }
+    print((Date.now() - start) + " ms\t" + name + "\t" + check);
+}
+
+var rows = [
+    "id,name,x,y,z,world",
+    "1,Steve,100,64,-200,overworld",
+    "2,Alex,  -35 , 70,  12 ,nether",
+    "3,Notch,0,255,0,the_end",
+    "4,Herobrine,-1024,12,2048,overworld"
+];
+var text = "  The quick   brown fox\tjumps over\n the lazy dog  ";
+
+for (var i = 0; i < 3; i++) {
+    bench("split(/,/)", function(i) { return rows[i % rows.length].split(/,/).length; });
+    bench("split(/\\s*,\\s*/) (engine)", function(i) { return rows[i % rows.length].split(/\s*,\s*/).length; });
+    bench("split(/[,;]/)", function(i) { return rows[i % rows.length].split(/[,;]/).length; });
+    bench("split(/\\s+/)", function(i) { return text.split(/\s+/).length; });
+    bench("replace(/,/g)", function(i) { return rows[i % rows.length].replace(/,/g, ";").length; });
+    bench("replace(/\\s+/g)", function(i) { return text.replace(/\s+/g, " ").length; });
+    bench("match(/\\d+/g)", function(i) { var m = rows[i % rows.length].match(/\d+/g); return m ? m.length : 0; });
+    bench("search(/^\\d/) (engine)", function(i) { return rows[i % rows.length].search(/^\d/); });
+    bench("/^id,/.test", function(i) { return /^id,/.test(rows[i % rows.length]) ? 1 : 0; });
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2010, 2013, Oracle and/or its affiliates. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   - Redistributions of source code must retain the above copyright
+ *     notice, this list of conditions and the following disclaimer.
+ *
+ *   - Redistributions in binary form must reproduce the above copyright
+ *     notice, this list of conditions and the following disclaimer in the
+ *     documentation and/or other materials provided with the distribution.
+ *
+ *   - Neither the name of Oracle nor the names of its
+ *     contributors may be used to endorse or promote products derived
+ *     from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/*
+ * Constructs objects of the same shape from several threads at once. Every
+ * property assignment is a PropertyMap transition that is served from the
+ * history of the shared maps. Compare the throughput for different thread
+ * counts.
+ */
+
+var Thread = Java.type("java.lang.Thread");
+
+var OBJECTS = 5e5;
+
+var KEYS = ["x", "y", "z", "name", "next", "w", "h", "d"];
+
+// computed keys go through the runtime set path, which looks up each
+// transition with PropertyMap.addProperty instead of a linked setter
+function build(n) {
+    var last;
+    for (var i = 0; i < n; i++) {
+        var o = {};
+        for (var k = 0; k < KEYS.length; k++) {
+            o[KEYS[k]] = i;
+        }
+        last = o;
+    }
+    return last;
+}
+
+function bench(threadCount) {
+    var perThread = OBJECTS / threadCount;
+    var threads = [];
+    for (var i = 0; i < threadCount; i++) {
+        threads.push(new Thread(function() { build(perThread); }));
+    }
+    var start = Date.now();
+    threads.forEach(function(t) { t.start(); });
+    threads.forEach(function(t) { t.join(); });
+    var time = Date.now() - start;
+    print(time + " ms\t" + Math.round(OBJECTS / time) + " objects/ms\t" + threadCount + " threads");
+}
+
+for (var i = 0; i < 3; i++) {
+    bench(1);
+    bench(4);
+    bench(16);
+}
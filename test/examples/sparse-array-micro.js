@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2010, 2013, Oracle and/or its affiliates. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   - Redistributions of source code must retain the above copyright
+ *     notice, this list of conditions and the following disclaimer.
+ *
+ *   - Redistributions in binary form must reproduce the above copyright
+ *     notice, this list of conditions and the following disclaimer in the
+ *     documentation and/or other materials provided with the distribution.
+ *
+ *   - Neither the name of Oracle nor the names of its
+ *     contributors may be used to endorse or promote products derived
+ *     from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/*
+ * Uses an array as a sparse id-indexed table with ids up to 10^7, and
+ * measures retained memory per element and the time to set, get and
+ * iterate the elements.
+ */
+
+var Runtime = Java.type("java.lang.Runtime");
+var System  = Java.type("java.lang.System");
+
+var COUNT  = 2e5;
+var MAX_ID = 1e7;
+var RUNS   = 5;
+
+function usedMemory() {
+    var rt = Runtime.getRuntime();
+    for (var i = 0; i < 4; i++) {
+        System.gc();
+    }
+    return rt.totalMemory() - rt.freeMemory();
+}
+
+var ids = [];
+var seed = 1;
+for (var i = 0; i < COUNT; i++) {
+    seed = seed * 16807 % 2147483647;
+    ids.push(MAX_ID - 1 - seed % (MAX_ID / 2));
+}
+var values = ids.map(function(id) { return { id: id }; });
+
+function fill() {
+    var table = [];
+    for (var i = 0; i < COUNT; i++) {
+        table[ids[i]] = values[i];
+    }
+    return table;
+}
+
+function lookup(table) {
+    var found = 0;
+    for (var i = 0; i < COUNT; i++) {
+        if (table[ids[i]] !== undefined) {
+            found++;
+        }
+    }
+    return found;
+}
+
+// for-in visits the indices that have elements in ascending order, while
+// forEach would visit every index up to the length
+function iterate(table) {
+    var sum = 0;
+    for (var id in table) {
+        sum += table[id].id;
+    }
+    return sum;
+}
+
+function time(name, func) {
+    var start = Date.now();
+    for (var i = 0; i < RUNS; i++) {
+        func();
+    }
+    print((Date.now() - start) + " ms\t" + name);
+}
+
+var before = usedMemory();
+var table = fill();
+print(Math.round((usedMemory() - before) / COUNT) + " bytes/element");
+
+for (var i = 0; i < 3; i++) {
+    time("set", fill);
+    time("get", function() { lookup(table); });
+    time("iterate", function() { iterate(table); });
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2010, 2013, Oracle and/or its affiliates. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   - Redistributions of source code must retain the above copyright
+ *     notice, this list of conditions and the following disclaimer.
+ *
+ *   - Redistributions in binary form must reproduce the above copyright
+ *     notice, this list of conditions and the following disclaimer in the
+ *     documentation and/or other materials provided with the distribution.
+ *
+ *   - Neither the name of Oracle nor the names of its
+ *     contributors may be used to endorse or promote products derived
+ *     from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/*
+ * Measures the retained heap of objects whose properties live in the spill pool.
+ * Run with -Dnashorn.fields.dual=true to compare reference-only, number-only
+ * and mixed shapes.
+ */
+
+var Runtime = Java.type("java.lang.Runtime");
+var System  = Java.type("java.lang.System");
+
+var COUNT = 2e5;
+var PROPS = 30;
+
+function usedMemory() {
+    var rt = Runtime.getRuntime();
+    for (var i = 0; i < 4; i++) {
+        System.gc();
+    }
+    return rt.totalMemory() - rt.freeMemory();
+}
+
+function bench(name, value) {
+    var before = usedMemory();
+    var start  = Date.now();
+    var objs   = new Array(COUNT);
+    for (var i = 0; i < COUNT; i++) {
+        var o = {};
+        for (var j = 0; j < PROPS; j++) {
+            o["p" + j] = value(i, j);
+        }
+        objs[i] = o;
+    }
+    var time  = Date.now() - start;
+    var bytes = usedMemory() - before;
+    print(time + "\t" + Math.round(bytes / COUNT) + " bytes/object\t" + name);
+    return objs.length;
+}
+
+bench("strings", function(i, j) { return "s"; });
+bench("ints",    function(i, j) { return i + j; });
+bench("doubles", function(i, j) { return i + j + 0.5; });
+bench("mixed",   function(i, j) { return (j & 1) ? i : "s"; });
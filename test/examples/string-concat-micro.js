@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2010, 2013, Oracle and/or its affiliates. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   - Redistributions of source code must retain the above copyright
+ *     notice, this list of conditions and the following disclaimer.
+ *
+ *   - Redistributions in binary form must reproduce the above copyright
+ *     notice, this list of conditions and the following disclaimer in the
+ *     documentation and/or other materials provided with the distribution.
+ *
+ *   - Neither the name of Oracle nor the names of its
+ *     contributors may be used to endorse or promote products derived
+ *     from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+/*
+ * Template-like string building with chains of +, which are compiled to a
+ * single n-ary concatenation. Prints time and bytes allocated by the running
+ * thread.
+ */
+
+var ManagementFactory = Java.type("java.lang.management.ManagementFactory");
+var Thread = Java.type("java.lang.Thread");
+
+var threads = ManagementFactory.getThreadMXBean();
+var RUNS = 200;
+
+function bench(name, fn) {
+    var id = Thread.currentThread().getId();
+    var bytes = threads.getThreadAllocatedBytes(id);
+    var start = Date.now(), check = 0;
+    for (var i = 0; i < RUNS; i++) {
+        check += fn(i);
+    }
+    var time = Date.now() - start;
+    bytes = threads.getThreadAllocatedBytes(id) - bytes;
+    print(time + " ms\t" + Math.round(bytes / RUNS / 1024) + " KB/run\t" + name + "\t" + check);
+}
+
+var rows = [];
+for (var i = 0; i < 1000; i++) {
+    rows.push({ id: i, name: "item" + i, price: i * 1.25 });
+}
+
+function row(r) {
+    return "<tr><td>" + r.id + "</td><td>" + r.name + "</td><td>" + r.price + "</td></tr>";
+}
+
+for (var i = 0; i < 3; i++) {
+    bench("row template, length", function() {
+        var n = 0;
+        for (var j = 0; j < rows.length; j++) {
+            n += row(rows[j]).length;
+        }
+        return n;
+    });
+    bench("row template, charAt", function() {
+        var n = 0;
+        for (var j = 0; j < rows.length; j++) {
+            n += row(rows[j]).charCodeAt(10);
+        }
+        return n;
+    });
+    bench("s += template", function() {
+        var s = "";
+        for (var j = 0; j < rows.length; j++) {
+            s += "<li id=\"" + rows[j].id + "\">" + rows[j].name + "</li>";
+        }
+        return s.length;
+    });
+    bench("s = s + template", function() {
+        var s = "";
+        for (var j = 0; j < rows.length; j++) {
+            s = s + "<li>" + rows[j].name + "</li>";
+        }
+        return s.length;
+    });
+}
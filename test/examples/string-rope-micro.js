@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2010, 2013, Oracle and/or its affiliates. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   - Redistributions of source code must retain the above copyright
+ *     notice, this list of conditions and the following disclaimer.
+ *
+ *   - Redistributions in binary form must reproduce the above copyright
+ *     notice, this list of conditions and the following disclaimer in the
+ *     documentation and/or other materials provided with the distribution.
+ *
+ *   - Neither the name of Oracle nor the names of its
+ *     contributors may be used to endorse or promote products derived
+ *     from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+/*
+ * Builds a 10 MB string with += and scans it, and interleaves appends with
+ * charAt, indexOf and substring on the growing string.
+ */
+
+var LINE = "2014-01-01 12:00:00 INFO some log message with a few words\n";
+
+function bench(name, fn) {
+    var start = Date.now();
+    var check = fn();
+    print((Date.now() - start) + " ms\t" + name + "\t" + check);
+}
+
+function build() {
+    var s = "";
+    while (s.length < 10 * 1024 * 1024) {
+        s += LINE;
+    }
+    return s;
+}
+
+for (var i = 0; i < 3; i++) {
+    bench("build 10 MB", function() { return build().length; });
+    bench("build 10 MB, scan with charCodeAt", function() {
+        var s = build(), n = 0;
+        for (var j = 0; j < s.length; j += 64) {
+            n += s.charCodeAt(j);
+        }
+        return n;
+    });
+    bench("build 10 MB, count lines with indexOf", function() {
+        var s = build(), n = 0, pos = 0;
+        while ((pos = s.indexOf("\n", pos) + 1) > 0) {
+            n++;
+        }
+        return n;
+    });
+    bench("append and charAt", function() {
+        var s = "", n = 0;
+        for (var j = 0; j < 20000; j++) {
+            s += LINE;
+            if (s.charAt(s.length - 1) === "\n") {
+                n++;
+            }
+        }
+        return n;
+    });
+    bench("append and indexOf", function() {
+        var s = "", n = 0;
+        for (var j = 0; j < 20000; j++) {
+            s += LINE;
+            n += s.indexOf("INFO", s.length - LINE.length);
+        }
+        return n;
+    });
+    bench("append and substring", function() {
+        var s = "", n = 0;
+        for (var j = 0; j < 20000; j++) {
+            s += LINE;
+            n += s.substring(s.length - 10, s.length - 1).length;
+        }
+        return n;
+    });
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2010, 2013, Oracle and/or its affiliates. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   - Redistributions of source code must retain the above copyright
+ *     notice, this list of conditions and the following disclaimer.
+ *
+ *   - Redistributions in binary form must reproduce the above copyright
+ *     notice, this list of conditions and the following disclaimer in the
+ *     documentation and/or other materials provided with the distribution.
+ *
+ *   - Neither the name of Oracle nor the names of its
+ *     contributors may be used to endorse or promote products derived
+ *     from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+/*
+ * Footprint and iteration of 1M {x, y, z} points, as object literals and
+ * in a struct array from Java.structArray.
+ */
+
+var SIZE = 1e6;
+var RUNS = 10;
+
+var Runtime = java.lang.Runtime.getRuntime();
+var System = java.lang.System;
+
+function used() {
+    for (var i = 0; i < 3; i++) {
+        System.gc();
+    }
+    return Runtime.totalMemory() - Runtime.freeMemory();
+}
+
+function bench(name, fn) {
+    var start = Date.now(), check = 0;
+    for (var i = 0; i < RUNS; i++) {
+        check += fn();
+    }
+    print((Date.now() - start) + " ms\t" + name + "\t" + check);
+}
+
+function footprint(name, create) {
+    var before = used();
+    var points = create();
+    var after = used();
+    print(Math.round((after - before) / SIZE) + " bytes/point\t" + name + "\t" + points.length);
+    return points;
+}
+
+function sum(points) {
+    var s = 0;
+    for (var i = 0; i < points.length; i++) {
+        var p = points[i];
+        s += p.x + p.y + p.z;
+    }
+    return s;
+}
+
+function scale(points) {
+    for (var i = 0; i < points.length; i++) {
+        var p = points[i];
+        p.x *= 2;
+        p.y *= 0.5;
+    }
+    return points.length;
+}
+
+var objects = footprint("objects", function() {
+    var points = [];
+    for (var i = 0; i < SIZE; i++) {
+        points.push({ x: i, y: i / 2, z: 1 });
+    }
+    return points;
+});
+objects = null;
+
+var structs = footprint("struct array", function() {
+    var points = Java.structArray(["x", "y", "z"], SIZE);
+    for (var i = 0; i < SIZE; i++) {
+        var p = points[i];
+        p.x = i;
+        p.y = i / 2;
+        p.z = 1;
+    }
+    return points;
+});
+structs = null;
+
+function run(name, create) {
+    var points = create();
+    bench(name + " sum", function() { return sum(points); });
+    bench(name + " scale", function() { return scale(points); });
+    bench(name + " forEach", function() {
+        var s = 0;
+        points.forEach(function(p) { s += p.x; });
+        return s;
+    });
+}
+
+for (var i = 0; i < 3; i++) {
+    run("objects", function() {
+        var points = [];
+        for (var i = 0; i < SIZE; i++) {
+            points.push({ x: i, y: i / 2, z: 1 });
+        }
+        return points;
+    });
+    run("struct array", function() {
+        var points = Java.structArray(["x", "y", "z"], SIZE);
+        for (var i = 0; i < SIZE; i++) {
+            points[i] = { x: i, y: i / 2, z: 1 };
+        }
+        return points;
+    });
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2010, 2013, Oracle and/or its affiliates. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   - Redistributions of source code must retain the above copyright
+ *     notice, this list of conditions and the following disclaimer.
+ *
+ *   - Redistributions in binary form must reproduce the above copyright
+ *     notice, this list of conditions and the following disclaimer in the
+ *     documentation and/or other materials provided with the distribution.
+ *
+ *   - Neither the name of Oracle nor the names of its
+ *     contributors may be used to endorse or promote products derived
+ *     from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/*
+ * Copies between typed arrays, from JavaScript int and double arrays into
+ * typed arrays and from typed arrays back into JavaScript arrays. Typed
+ * arrays have 10M elements; JavaScript source arrays are kept below the 128K
+ * element limit above which arrays use sparse storage.
+ */
+
+var SIZE = 1e7;
+var DENSE_SIZE = 1e5;
+var RUNS = 10;
+
+function bench(name, elements, fn) {
+    var start = Date.now();
+    for (var i = 0; i < RUNS; i++) {
+        fn();
+    }
+    var time = Date.now() - start;
+    print(time + " ms\t" + (time * 1e6 / (RUNS * elements)).toFixed(2) + " ns/element\t" + name);
+}
+
+var i32 = new Int32Array(SIZE);
+var u32 = new Uint32Array(SIZE);
+var f64 = new Float64Array(SIZE);
+var f32 = new Float32Array(SIZE);
+for (var i = 0; i < SIZE; i++) {
+    i32[i] = i;
+    f64[i] = i / 4;
+}
+
+var ints = [], doubles = [];
+for (var i = 0; i < DENSE_SIZE; i++) {
+    ints.push(i);
+    doubles.push(i / 4);
+}
+var denseI32 = new Int32Array(DENSE_SIZE);
+var denseF64 = new Float64Array(DENSE_SIZE);
+var denseF32 = new Float32Array(DENSE_SIZE);
+
+for (var i = 0; i < 3; i++) {
+    bench("Int32Array.set(Int32Array)", SIZE, function() { i32.set(i32.subarray(0, SIZE / 2), SIZE / 2); });
+    bench("Uint32Array.set(Int32Array)", SIZE, function() { u32.set(i32); });
+    bench("Float64Array.set(Float64Array)", SIZE, function() { f64.set(f64.subarray(0, SIZE / 2), SIZE / 2); });
+    bench("Float32Array.set(Float64Array)", SIZE, function() { f32.set(f64); });
+    bench("new Float64Array(Float64Array)", SIZE, function() { new Float64Array(f64); });
+    bench("Int32Array.set(int array)", DENSE_SIZE, function() { denseI32.set(ints); });
+    bench("Float64Array.set(double array)", DENSE_SIZE, function() { denseF64.set(doubles); });
+    bench("Float32Array.set(double array)", DENSE_SIZE, function() { denseF32.set(doubles); });
+    bench("slice Int32Array", SIZE, function() { Array.prototype.slice.call(i32); });
+    bench("slice Float64Array", SIZE, function() { Array.prototype.slice.call(f64); });
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2010, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+/**
+ * Script function callbacks of the array iteration functions are called
+ * through invokers kept per function. Check closures, this binding,
+ * deoptimization and reentrant calls of the same function.
+ *
+ * @test
+ * @run
+ */
+
+// closures of the same function see their own scope
+function scale(factor) {
+    return function(x) { return x * factor; };
+}
+var ints = [1, 2, 3];
+print(ints.map(scale(2)), ints.map(scale(10)), [0.5].map(scale(4)), ["a"].map(scale(3)));
+
+// the same function over int, double and object elements
+function describe(x) {
+    return typeof x + ":" + x;
+}
+print([1, 2].map(describe), [1.5].map(describe), ["s", null].map(describe), [1, , 3].map(describe));
+
+// this binding of non-strict and strict callbacks
+function sloppyThis() {
+    return typeof this;
+}
+function strictThis() {
+    "use strict";
+    return typeof this;
+}
+print([1].map(sloppyThis), [1].map(sloppyThis, 5), [1].map(sloppyThis, "s"), [1].map(strictThis), [1].map(strictThis, 5));
+
+// results that no longer fit the callback's optimistic types
+var big = [];
+for (var i = 0; i < 100; i++) {
+    big.push(0x3fffffff + i);
+}
+var doubled = big.map(function(x) { return x * 2; });
+print(doubled[0], doubled[99], doubled[0] === 0x7ffffffe, doubled[99] === 2 * (0x3fffffff + 99));
+var total = 0;
+big.forEach(function(x) { total += x * x; });
+print(total);
+
+// arguments object and extra parameters
+print([7, 8].map(function() { return arguments.length + ":" + arguments[0] + ":" + arguments[1]; }));
+print([7, 8].map(function(x, i, a, extra) { return typeof extra; }));
+
+// reentrant calls of the same function
+function nested(x) {
+    return typeof x === "number" ? x : x.map(nested).join("+");
+}
+print([1, [2, [3, 4]], 5].map(nested));
+
+// bound functions and builtins
+print([1, 2].map(function(p, x) { return p + x; }.bind(null, "p")), ["1", "2.5"].map(parseFloat));
+
+// every, some and filter stop and collect as before
+var seen = [];
+print([1, 2, 3, 4].every(function(x) { seen.push(x); return x < 2; }), seen);
+print([1, 2, 3, 4].some(function(x) { return x === 3; }), [1, 2, 3, 4].filter(function(x) { return x % 2; }));
+print([1, 2, 3].reduce(function(a, x) { return a * 10 + x; }), [1, 2, 3].reduceRight(function(a, x) { return a * 10 + x; }));
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2010, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+/**
+ * Arrays from slice(), concat() and Java.from share their elements until
+ * they are written to.
+ *
+ * @test
+ * @run
+ */
+
+function check(name, a, b) { print(name, JSON.stringify(a), JSON.stringify(b)); }
+// writes to either array copy the shared elements
+var ints = [1, 2, 3, 4];
+var s = ints.slice(); s[0] = 10; check("slice set", ints, s);
+s = ints.slice(0); ints[1] = 20; check("slice orig set", ints, s);
+s = ints.slice(); s.push(5); check("slice push", ints, s);
+s = ints.slice(); s.pop(); check("slice pop", ints, s);
+s = ints.slice(); s.shift(); check("slice shift", ints, s);
+s = ints.slice(); s.unshift(0); check("slice unshift", ints, s);
+s = ints.slice(); s.splice(1, 1); check("slice splice", ints, s);
+s = ints.slice(); s.splice(1, 0, 7, 8); check("slice splice add", ints, s);
+s = ints.slice(); s.sort(function(x, y) { return y - x; }); check("slice sort", ints, s);
+s = ints.slice(); s.sort(); check("slice sort default", ints, s);
+s = ints.slice(); s.reverse(); check("slice reverse", ints, s);
+s = ints.slice(); s.length = 1; check("slice length", ints, s);
+s = ints.slice(); delete s[0]; check("slice delete", ints, s);
+s = ints.slice(); s[1] = 1.5; check("slice widen", ints, s);
+s = ints.slice(); s[1] = "x"; check("slice object", ints, s);
+var c = ints.concat(); c[0] = -1; check("concat", ints, c);
+c = ints.concat([]); ints[0] = -2; check("concat empty", ints, c);
+var d = [1.5, 2.5]; var ds = d.slice(); ds[0] = 0; ds.push(3.5); check("double slice", d, ds);
+var o = ["a", {}, 3]; var os = o.slice(); os[0] = "b"; os.pop(); check("object slice", o, os);
+var s1 = ints.slice(), s2 = s1.slice(); s2[0] = 99; s1[1] = 98; check("slice of slice", s1, s2);
+print(ints);
+function f() { var x = [1, 2, 3]; var y = x.slice(); for (var i = 0; i < 3; i++) { y[i] = y[i] * 2; } return [x, y]; }
+check("loop", f()[0], f()[1]);
+
+// Java arrays are visible to the script until its first write copies them
+var IntArray = Java.type("int[]");
+var ja = new IntArray(3); ja[0] = 1;
+var js = Java.from(ja); ja[1] = 2; print("from int[]", js); js[2] = 3; ja[0] = 9; print(js, Java.from(ja));
+var DoubleArray = Java.type("double[]");
+var jd = new DoubleArray(2); var jds = Java.from(jd); jds.push(1.5); print(jd.length, jds);
+var ObjectArray = Java.type("java.lang.Object[]");
+var jo = new ObjectArray(2); jo[0] = "x"; var jos = Java.from(jo); jos[1] = "y"; print(jo[1], jos);
+var StringArray = Java.type("java.lang.String[]");
+var jst = new StringArray(2); jst[0] = "p"; var jsts = Java.from(jst); jsts[1] = 5; print(jst[1], jsts);
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2010, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+/**
+ * join, concat, slice and splice on dense int, double and object arrays.
+ *
+ * @test
+ * @run
+ */
+
+var ints    = [0, 1, -1, 42, 2147483647, -2147483648, 1000000];
+var doubles = [0.5, -0, 1, -1.5, 1e21, 1e-7, NaN, Infinity, -Infinity, 4294967296, 123456789.125];
+var objects = ["a", 1, 2.5, true, null, undefined, "", "x,y"];
+
+print(ints.join(), ints.join(""), ints.join(" - "));
+print(doubles.join(), doubles.join(";"));
+print(objects.join(), objects.join("|"), objects.length);
+print([].join(), [1].join(), [1, 2].join(undefined), [1, 2].join(null), [1, 2].join(0));
+print([{ toString: function() { return "obj"; } }, 1].join());
+var sep = { toString: function() { return "+"; } };
+print(ints.join(sep));
+var holes = [1, , 3];
+holes.length = 5;
+print(holes.join("/"));
+
+function describe(a) {
+    return a.length + ":" + a.join(",") + ":" + a.map(function(x) { return typeof x; }).join("");
+}
+
+print(describe(ints.concat(doubles)));
+print(describe(ints.concat(ints, 7)));
+print(describe(ints.concat(1.5, "s", objects)));
+print(describe([1].concat([2], [[3]], {}, [])));
+print(describe([].concat()), describe([1, 2].concat()));
+print(describe([1, 2].concat(holes)), 3 in [1, 2].concat(holes));
+print(describe(ints.concat(undefined, null)));
+
+print(describe(ints.slice(2, 4)), describe(doubles.slice(-3)), describe(objects.slice(1, 3)));
+var big = [];
+for (var i = 0; i < 200000; i++) {
+    big.push(i);
+}
+var removed = big.splice(1000, 3, "a", "b");
+print(describe(removed), big.length, big[999], big[1000], big[1001], big[1002], big[199998]);
+big.splice(5, 0, 1.5, 2.5);
+print(big.length, big[5], big[6], big[7], big.slice(199990).join());
+print(big.concat(big).length, big.join().length);
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2010, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+/**
+ * Arrays stay dense when they grow past 128K elements by appending, and
+ * new Array(length) preallocates dense storage while keeping holes.
+ *
+ * @test
+ * @run
+ */
+
+var N = 200000;
+
+function check(name, a, holes) {
+    var sum = 0, count = 0;
+    for (var i = 0; i < a.length; i++) {
+        if (i in a) {
+            sum += a[i];
+            count++;
+        }
+    }
+    print(name, a.length, count, sum, holes.map(function(i) { return i in a; }));
+}
+
+var pushed = [];
+for (var i = 0; i < N; i++) {
+    pushed.push(i);
+}
+check("push", pushed, [0, N - 1, N]);
+
+var mixed = [];
+for (var i = 0; i < N; i++) {
+    mixed.push(i % 3 ? i : i + 0.5);
+}
+mixed.push("x");
+print(mixed[1], mixed[3], mixed[N], mixed.length);
+
+var indexed = [];
+for (var i = 0; i < N; i++) {
+    indexed[i] = i * 2;
+}
+check("index", indexed, [N - 1, N]);
+
+var prealloc = new Array(N);
+check("empty", prealloc, [0, N - 1]);
+for (var i = 0; i < N; i += 2) {
+    prealloc[i] = 1;
+}
+check("half", prealloc, [0, 1, N - 2, N - 1]);
+for (var i = 1; i < N; i += 2) {
+    prealloc[i] = 2;
+}
+check("full", prealloc, [0, 1, N - 1, N]);
+
+var large = new Array(3 * N);
+for (var i = 0; i < 3 * N; i++) {
+    large[i] = i % 7;
+}
+check("large", large, [0, 3 * N - 1, 3 * N]);
+large.length = 10;
+print(large);
+
+// writes far beyond the end still make arrays sparse, with holes in between
+var gap = [1, 2, 3];
+gap[N] = 4;
+gap[N + 1] = 5;
+check("gap", gap, [2, 3, N - 1, N, N + 1]);
+delete pushed[N - 1];
+check("delete", pushed, [N - 2, N - 1]);
+print(pushed.pop(), pushed.length, pushed.shift(), pushed.length);
+
+var sparseStart = new Array(3 * N);
+sparseStart[5 * N] = 1;
+for (var i = 0; i < 10; i++) {
+    sparseStart[i] = i;
+}
+check("sparse", sparseStart, [0, 10, 3 * N, 5 * N]);
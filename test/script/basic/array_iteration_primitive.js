@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2010, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+/**
+ * Array iteration functions hand int and double elements to callbacks
+ * without boxing. Check that callbacks see the same values, indices and
+ * changes made during iteration as before.
+ *
+ * @test
+ * @run
+ */
+
+function describe(array) {
+    var out = [];
+    Array.prototype.forEach.call(array, function(x, i) {
+        out.push(i + ":" + typeof x + ":" + (x === 0 && 1 / x < 0 ? "-0" : String(x)));
+    });
+    return out.join(" ");
+}
+
+print(describe([1, 2, 3]));
+print(describe([1.5, -0, NaN, Infinity]));
+print(describe([1, , 3]));
+print(describe(["a", 1, 2.5]));
+
+// int and double callbacks
+var ints = [3, 1, 4, 1, 5, 9, 2, 6];
+var doubles = [0.5, 1.5, -2.25, 8];
+print(ints.map(function(x) { return x * 2; }));
+print(doubles.map(function(x) { return x * 2; }));
+print(ints.filter(function(x) { return x > 2; }));
+print(doubles.filter(function(x) { return x > 1; }));
+print(ints.every(function(x) { return x > 0; }), ints.every(function(x) { return x < 9; }));
+print(doubles.some(function(x) { return x < 0; }), doubles.some(function(x) { return x > 8; }));
+print(ints.reduce(function(a, x) { return a + x; }), doubles.reduceRight(function(a, x) { return a + "," + x; }));
+
+// element type changes while iterating
+var changing = [1, 2, 3, 4, 5];
+print(changing.map(function(x, i, a) {
+    if (i === 1) {
+        a[3] = 4.5;
+    } else if (i === 3) {
+        a[4] = "five";
+    }
+    return typeof x + ":" + x;
+}));
+
+var shrinking = [1, 2, 3, 4, 5];
+print(describe(shrinking.filter(function(x, i, a) {
+    if (i === 1) {
+        a.length = 3;
+    }
+    return true;
+})));
+
+// inherited elements fill holes
+Array.prototype[1] = "inherited";
+print(describe([1, , 3]));
+delete Array.prototype[1];
+
+// callbacks that are not script functions
+print([1, 2.5].map(String).map(function(x) { return typeof x; }), [1, 2.5].map(Math.floor.bind(Math)));
+
+// Java arrays and typed arrays
+var IntArray = Java.type("int[]");
+var DoubleArray = Java.type("double[]");
+var FloatArray = Java.type("float[]");
+var ja = new IntArray(3);
+ja[0] = 7; ja[1] = -8; ja[2] = 9;
+var da = new DoubleArray(2);
+da[0] = 0.25; da[1] = -0.0;
+var fa = new FloatArray(1);
+fa[0] = 0.5;
+print(describe(ja), "|", describe(da), "|", describe(fa));
+print(Array.prototype.map.call(ja, function(x) { return x + 1; }));
+print(describe(new Uint32Array([0, 4294967295])), "|", describe(new Int8Array([-1, 127])), "|", describe(new Float64Array([0.1, -0])));
+
+// dense part and sparse part of a large array
+var large = [];
+for (var i = 0; i < 200000; i++) {
+    large.push(i % 2 ? i : i + 0.5);
+}
+var sum = 0;
+large.forEach(function(x) { sum += x; });
+print(sum, large.map(function(x) { return -x; })[199999]);
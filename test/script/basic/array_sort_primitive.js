@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2010, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+/**
+ * Array.prototype.sort on int and double arrays sorts the primitive
+ * elements directly. Check it agrees with sorting the same elements
+ * in an object array.
+ *
+ * @test
+ * @run
+ */
+
+function reference(array, cmp) {
+    // a string element forces object array storage
+    var copy = ["x"];
+    for (var i = 0; i < array.length; i++) {
+        copy.push(array[i]);
+    }
+    copy.sort(cmp);
+    copy.splice(copy.indexOf("x"), 1);
+    return copy;
+}
+
+function same(a, b) {
+    return a === b ? a !== 0 || 1 / a === 1 / b : a !== a && b !== b;
+}
+
+function check(name, array, cmp) {
+    var expected = reference(array, cmp);
+    var actual = array.slice().sort(cmp);
+    var ok = actual.length === expected.length;
+    for (var i = 0; ok && i < actual.length; i++) {
+        ok = same(actual[i], expected[i]);
+    }
+    print(name + ": " + (ok ? "ok" : "expected " + expected + " but got " + actual));
+}
+
+function numeric(a, b) { return a - b; }
+function descending(a, b) { return b - a; }
+
+var ints = [];
+var seed = 42;
+for (var i = 0; i < 1000; i++) {
+    seed = (seed * 1103515245 + 12345) & 0x7fffffff;
+    ints.push((seed % 20001) - 10000);
+}
+ints.push(0, 1, -1, 10, 100, 9, 2147483647, -2147483648, 1000000000, -1000000000);
+
+var doubles = ints.map(function(x) { return x / 8; });
+doubles.push(NaN, Infinity, -Infinity, -0, 0, 1e21, 1e-7, 0.1, 123456789012);
+
+check("ints default", ints);
+check("ints numeric", ints, numeric);
+check("ints descending", ints, descending);
+check("doubles default", doubles);
+// NaN makes a numeric comparator inconsistent, so the order is implementation defined
+var finite = doubles.filter(function(x) { return x === x; });
+check("doubles numeric", finite, numeric);
+check("doubles descending", finite, descending);
+// double storage with int values only
+var integral = [0.5, 10, -0, 2, 0, -5, 3, 100, -2147483648, 2147483647];
+integral.shift();
+check("integral doubles default", integral);
+check("short ints", [3, 20, 1]);
+check("short doubles", [0.5, -0.5, 10.25]);
+
+// stability of comparator sorts
+var pairs = ints.map(function(x) { return x % 10; });
+check("ints by last digit", pairs, function(a, b) { return (a & 1) - (b & 1); });
+
+// an exception thrown by the comparator leaves the array unchanged
+var original = [5, 3, 1, 4, 2];
+try {
+    original.sort(function(a, b) { if (a === 1 || b === 1) throw "boom"; return a - b; });
+} catch (e) {
+    print(e + " " + original);
+}
+
+// strict and non-strict comparators see the right this
+[2, 1].sort(function(a, b) { print(this === undefined ? "undefined" : typeof this); return a - b; });
+[2, 1].sort(function(a, b) { "use strict"; print(this === undefined ? "undefined" : typeof this); return a - b; });
+
+try {
+    [2, 1].sort({});
+} catch (e) {
+    print(e.name);
+}
+
+// slices taken by the comparator keep the unsorted elements
+var intSlice;
+var intArray = [3, 1, 2];
+intArray.sort(function(a, b) { if (!intSlice) intSlice = intArray.slice(); return a - b; });
+print(intSlice, intArray);
+var doubleSlice;
+var doubleArray = [3.5, 1.5, 2.5];
+doubleArray.sort(function(a, b) { if (!doubleSlice) doubleSlice = doubleArray.slice(); return a - b; });
+print(doubleSlice, doubleArray);
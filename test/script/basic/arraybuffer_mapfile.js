@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2010, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+/**
+ * ArrayBuffer.mapFile and ArrayBuffers wrapping java.nio.ByteBuffers.
+ *
+ * @test
+ * @run
+ */
+
+var ByteBuffer = Java.type("java.nio.ByteBuffer");
+var File = Java.type("java.io.File");
+var Files = Java.type("java.nio.file.Files");
+var Paths = Java.type("java.nio.file.Paths");
+var NoSuchFileException = Java.type("java.nio.file.NoSuchFileException");
+var ReadOnlyBufferException = Java.type("java.nio.ReadOnlyBufferException");
+
+function bytes(buffer) {
+    return Array.prototype.join.call(new Uint8Array(buffer), ",");
+}
+
+// wrapping shares the bytes of the byte buffer from its position
+var backing = ByteBuffer.allocate(6);
+for (var i = 0; i < 6; i++) {
+    backing.put(i, i + 1);
+}
+backing.position(2);
+var wrapped = new ArrayBuffer(backing);
+print(wrapped.byteLength, bytes(wrapped));
+new Uint8Array(wrapped)[0] = 42;
+print(backing.get(2), bytes(wrapped.slice(1, 3)));
+
+// slices of writable buffers are copies
+var copy = wrapped.slice(0, 2);
+new Uint8Array(copy)[0] = 7;
+print(bytes(copy), backing.get(2));
+
+// read-only mapping of this file
+var path = __DIR__ + "arraybuffer_mapfile.js";
+var size = Files.size(Paths.get(path));
+var mapped = ArrayBuffer.mapFile(path);
+print(mapped.byteLength == size, String.fromCharCode.apply(null, new Uint8Array(mapped, 3, 9)));
+print(ArrayBuffer.mapFile(new File(path), "r", 3, 9).byteLength, ArrayBuffer.mapFile(Paths.get(path), undefined, size).byteLength);
+
+// slices of read-only buffers share the mapping
+var slice = mapped.slice(3, 12);
+print(bytes(slice) === bytes(new Uint8Array(mapped, 3, 9)), new DataView(slice).getUint8(0) === new DataView(mapped).getUint8(3));
+
+try {
+    new Uint8Array(mapped)[0] = 1;
+} catch (e) {
+    print(e instanceof ReadOnlyBufferException);
+}
+
+// errors
+function check(f) {
+    try {
+        f();
+        print("no error");
+    } catch (e) {
+        print(e instanceof NoSuchFileException ? "NoSuchFileException" : e.name);
+    }
+}
+check(function() { ArrayBuffer.mapFile(path, "w"); });
+check(function() { ArrayBuffer.mapFile(path, "r", size + 1); });
+check(function() { ArrayBuffer.mapFile(path, "r", 0, size + 1); });
+check(function() { ArrayBuffer.mapFile(path, "r", -1); });
+check(function() { ArrayBuffer.mapFile({}); });
+check(function() { ArrayBuffer.mapFile(__DIR__ + "no_such_file.bin"); });
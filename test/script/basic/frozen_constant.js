@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2010, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+/**
+ * Loads from frozen objects are linked as constants for the object the call
+ * site was linked for. Check that other objects sharing the call site, and
+ * non-writable globals, still read the right values.
+ *
+ * @test
+ * @run
+ */
+
+function make(i) {
+    return { i: i, d: i + 0.5, s: "s" + i, o: { v: i } };
+}
+
+function read(obj) {
+    return obj.i + " " + obj.d + " " + obj.s + " " + obj.o.v;
+}
+
+var objs = [];
+for (var i = 0; i < 3; i++) {
+    objs.push(Object.freeze(make(i)));
+}
+objs.push(make(3));
+objs.push(Object.freeze({ i: "x", d: "y", s: 1, o: { v: null } }));
+
+for (var j = 0; j < 3; j++) {
+    for (var k = 0; k < objs.length; k++) {
+        print(read(objs[k]));
+    }
+}
+
+var unfrozen = objs[3];
+unfrozen.i = 42;
+print(read(unfrozen));
+
+var frozen = objs[0];
+frozen.i = 42;
+print(read(frozen));
+
+function globals() {
+    return [undefined, NaN, Infinity].join();
+}
+print(globals());
+print(globals());
+
+// native properties of frozen builtin objects may still change
+var re = Object.freeze(/a/g);
+function lastIndex(r) {
+    return r.lastIndex;
+}
+var indices = [];
+while (re.exec("aaaa")) {
+    indices.push(lastIndex(re));
+}
+print(indices);
+
+var arr = [1, 2, 3];
+Object.freeze(arr);
+function length(a) {
+    return a.length;
+}
+print(length(arr), length([1]));
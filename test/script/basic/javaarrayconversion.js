@@ -178,11 +178,14 @@ assert(jsIntArray[0] === 1234);
 assert(jsIntArray[1] === 42);
 assert(jsIntArray[2] === 5);
 
-// The arrays are copies, they don't reflect each other
+// The arrays share elements until the script first writes to its array,
+// from then on they don't reflect each other
 intArray[2] = 6;
-assert(jsIntArray[2] === 5);
+assert(jsIntArray[2] === 6);
 jsIntArray[2] = 7;
 assert(intArray[2] === 6);
+intArray[2] = 8;
+assert(jsIntArray[2] === 7);
 
 var byteArray = new (Java.type("byte[]"))(2)
 byteArray[0] = -128;
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2010, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+/**
+ * JSON.parse caches object shapes and creates int and number arrays
+ * directly. Objects with repeated, duplicate and array index keys and
+ * arrays of mixed elements must still parse as before.
+ *
+ * @test
+ * @run
+ */
+
+function dump(v) {
+    if (v && typeof v === 'object') {
+        var keys = Object.keys(v);
+        return (Array.isArray(v) ? "A" : "O") + "{" + keys.map(function(k) { return k + ":" + dump(v[k]); }).join(",") + "}";
+    }
+    return typeof v + ":" + (v === 0 && 1/v < 0 ? "-0" : String(v));
+}
+
+var docs = [
+    '{}', '[]', '[1,2,3]', '[1,2.5,3]', '[1,"a",2.5]', '["a",1,2.5]', '[-0, 0, -0.0, 1e2, 1E-2, 1.5e+3]',
+    '[123456789, 1234567890, -2147483648, 2147483647, 2147483648, 12345678901234567890, 0.1, 1e400, -1e-400, 5e-324]',
+    '{"a":1,"b":"x","c":[1,2],"d":{"e":null,"f":true}}',
+    '{"a":1,"a":2}', '{"a":1,"b":2,"a":"x"}', '{"a":1.5,"b":2,"a":3}',
+    '{"0":1,"a":2,"5":3}', '{"a\\u0062":1,"ab":2}', '{"ab":1,"a\\u0062":2}',
+    '[{"x":1,"y":2},{"x":1.5,"y":"s"},{"x":"q","y":2},{"y":1,"x":2},{"x":1,"y":2,"z":[{"x":[]}]}]',
+    '[[1,[2,[3,[4]]]],[[]],[{}],[1,{"a":[1,2,{"b":[3]}]},2]]'
+];
+
+// parse twice, the second time with cached shapes
+for (var i = 0; i < 2; i++) {
+    docs.forEach(function(d) {
+        print(dump(JSON.parse(d)));
+    });
+}
+
+// more different keys after the same shape than are cached
+var many = [];
+for (var i = 0; i < 20; i++) {
+    many.push('{"id":' + i + ',"key' + i + '":' + (i * 1.5) + '}');
+}
+var parsed = JSON.parse('[' + many.join(',') + ',' + many.join(',') + ']');
+print(parsed.length, dump(parsed[3]), dump(parsed[39]));
+
+// parsed objects and arrays can be modified
+var o = JSON.parse('{"x":1,"y":2}');
+o.z = 3;
+o.x = "s";
+delete o.y;
+print(dump(o), JSON.stringify(o));
+var a = JSON.parse('[1,2,3]');
+a.push(4.5);
+a[10] = "x";
+print(dump(a), a.length);
+
+print(JSON.stringify(JSON.parse('{"a":[1,2],"b":{"c":3}}', function(k, v) { return typeof v === 'number' ? v * 2 : v; })));
+
+['{"a":1,}', '[1,]', '{"a" 1}', '[01]', '{"a":1', '{"abc', '[1 2]', '{"a":-}', '{"a":1.}', '[1e]'].forEach(function(d) {
+    try {
+        JSON.parse(d);
+        print("no error", d);
+    } catch (e) {
+        print(e.name, e.message.replace(/\n.*/g, ""));
+    }
+});
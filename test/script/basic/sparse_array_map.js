@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2010, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+/**
+ * Sparse arrays keep elements beyond the dense part in a map keyed by
+ * primitive indices. Check element access, deletion, iteration order and
+ * length changes against a plain object model.
+ *
+ * @test
+ * @run
+ */
+
+var seed = 7;
+function random(n) {
+    seed = seed * 16807 % 2147483647;
+    return seed % n;
+}
+
+var array = [];
+var model = {};
+var length = 0;
+
+for (var i = 0; i < 20000; i++) {
+    var index = random(10000000);
+    switch (random(4)) {
+    case 0:
+        delete array[index];
+        delete model[index];
+        break;
+    default:
+        var value = random(3) === 0 ? null : random(2) === 0 ? "v" + i : i;
+        array[index] = value;
+        model[index] = value;
+        length = Math.max(length, index + 1);
+    }
+}
+
+function checkAll(name) {
+    var ok = array.length === length;
+    for (var key in model) {
+        if (!(key in array) || array[key] !== model[key]) {
+            ok = false;
+        }
+    }
+    var visited = 0;
+    var last = -1;
+    array.forEach(function(value, index) {
+        if (index <= last || model[index] !== value) {
+            ok = false;
+        }
+        last = index;
+        visited++;
+    });
+    ok = ok && visited === Object.keys(model).length;
+    print(name + ": " + (ok ? "ok" : "failed"));
+}
+
+checkAll("random updates");
+
+// elements missing from the map read as undefined
+print(array[9999999] === model[9999999], array[123456789]);
+
+// shrinking the length drops the elements above it
+array.length = length = 5000000;
+for (var key in model) {
+    if (key >= length) {
+        delete model[key];
+    }
+}
+checkAll("shrink");
+
+// pop returns the last element
+array[length] = "last";
+model[length] = "last";
+print(array.pop(), array.length === length);
+delete model[length];
+
+// shift and unshift move every sparse element
+var shifted = array.shift();
+print(shifted === model[0]);
+var newModel = {};
+for (var key in model) {
+    if (key > 0) {
+        newModel[key - 1] = model[key];
+    }
+}
+model = newModel;
+length--;
+checkAll("shift");
+
+array.unshift("first");
+newModel = { 0: "first" };
+for (var key in model) {
+    newModel[+key + 1] = model[key];
+}
+model = newModel;
+length++;
+checkAll("unshift");
+
+// a copy is independent of the original
+var copy = array.slice(0, length);
+copy[4999998] = "copy";
+print(array[4999998] !== "copy");
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2010, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+/**
+ * Chains of string additions are compiled to a single n-ary concatenation.
+ * Operands must still be evaluated and converted in order.
+ *
+ * @test
+ * @run
+ */
+
+var log = [];
+function o(n) {
+    return {
+        valueOf: function() { log.push("valueOf" + n); return n; },
+        toString: function() { log.push("toString" + n); return "S" + n; }
+    };
+}
+function f(n) { log.push("call" + n); return n; }
+function check(name, r) { print(name, r, log.join()); log = []; }
+
+check("literal first", "a" + o(1) + f(2) + o(3) + "b");
+var x = o(1);
+check("literal second", x + "-" + o(2) + f(3));
+check("nested right", o(1) + ("[" + o(2)) + "]");
+check("numbers first", 1 + 2 + "x" + 3 + 4);
+check("primitives", "x" + undefined + null + true + 1.5 + -0 + [1, 2] + {} + NaN);
+check("date", "" + new Date(0).getTime() + "|" + typeof ("a" + 1 + 2));
+
+var s = "";
+for (var i = 0; i < 2000; i++) {
+    s = s + "<li>" + i + "</li>";
+}
+check("loop", s.length + " " + s.substring(0, 30) + " " + s.slice(-12));
+
+var t = "";
+for (var i = 0; i < 1000; i++) {
+    t += "<td>" + i + "," + (i * 2) + "</td>";
+}
+check("self assignment", t.length + " " + t.slice(-20));
+
+function g(a, b) {
+    return "(" + a + ", " + b + ")";
+}
+for (var i = 0; i < 3; i++) {
+    check("function " + i, g(i, i * 0.5) + g("p", {}) + g(o(7), o(8)));
+}
+
+var big = new Array(300).join("z");
+var u = "[" + big + "]" + big + "!";
+check("long operands", u.length + " " + u.charAt(0) + u.charAt(300) + u.charAt(u.length - 1) + " " + typeof u);
+
+try {
+    "a" + { valueOf: function() { throw "thrown"; } } + f(1);
+} catch (e) {
+    check("throwing valueOf", e);
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2010, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+/**
+ * Java.structArray packs records with numeric fields into a single array.
+ *
+ * @test
+ * @run
+ */
+
+// records view the packed fields
+var a = Java.structArray(["x", "y", "z"], 3);
+print(a.length, Array.isArray(a), a[0].x, a[2].z);
+a[0].x = 1.5; a[0].y = 2;
+print(JSON.stringify(a[0]), Object.keys(a[1]));
+// stores copy fields, missing ones become NaN
+a[1] = { x: 4, y: 5 };
+print(JSON.stringify(a));
+// popped records are copies
+a.push({x: 7, y: 8, z: 9});
+print(a.length, a[3].z);
+var p = a.pop();
+print(JSON.stringify(p), a.length);
+p.x = 100; print(a.length, JSON.stringify(a[2]));
+// records are not extensible
+var r = a[0]; r.foo = 1; print(r.foo, Object.isExtensible(r));
+// storing a record of the same array keeps element identity
+a[2] = a[0]; a[0].x = 11; print(JSON.stringify(a[2]), JSON.stringify(a[0]));
+var b = Java.structArray(["x", "y"], [{x: 1, y: 2}, {x: 3, y: 4}, {x: 5, y: 6}]);
+b.reverse(); print(JSON.stringify(b));
+b.sort(function(l, r) { return l.x - r.x; }); print(JSON.stringify(b));
+var c = Java.structArray(["x", "y"], [{x: 1, y: 2}, {x: 3, y: 4}]);
+var f = c.shift(); print(JSON.stringify(f), JSON.stringify(c));
+c.unshift({x: 0, y: 0}); print(JSON.stringify(c));
+// non-records unpack the array
+var d = Java.structArray(["v"], 2); d[1] = 5; print(d[1], JSON.stringify(d[0]));
+var e = Java.structArray(["x"], 4); e.length = 2; e.length = 3; print(JSON.stringify(e));
+var s = Java.structArray(["x"], [{x:1},{x:2},{x:3}]).slice(1); print(JSON.stringify(s));
+print(Java.structArray(["x", "y"], 2).map(function(r) { return r.x + r.y; }));
+var sum = 0; var g = Java.structArray(["x"], [{x: 1}, {x: 2}]); for (var i = 0; i < g.length; i++) sum += g[i].x; print(sum);
+g[0].x = "3"; print(g[0].x, typeof g[0].x);
+(function() { "use strict"; try { g[0].y = 1; } catch (e) { print(e.name); } })();
+
+// errors
+try { Java.structArray(["x", "x"], 1); } catch (e) { print(e); }
+try { Java.structArray(["0"], 1); } catch (e) { print(e); }
+try { Java.structArray([], 1); } catch (e) { print(e); }
+try { Java.structArray(["x"], -1); } catch (e) { print(e); }
+try { Java.structArray(["x"], 1.5); } catch (e) { print(e); }
+
+// enumeration, descriptors and generic array functions
+var a = Java.structArray(["x", "y"], [{x: 1, y: 2}]);
+for (var k in a) print("key", k);
+for (var k in a[0]) print("field", k, a[0][k]);
+print(Object.getOwnPropertyDescriptor(a[0], "x").writable, Object.getOwnPropertyDescriptor(a[0], "x").configurable);
+print(delete a[0].x, a[0].x);
+Object.freeze(a);
+try { (function() { "use strict"; a[0] = {x: 9}; })(); } catch (e) { print(e.name); }
+print(a[0].x);
+print(a.concat([1]).length, a.join(";"), String(a[0]));
+var big = Java.structArray(["x"], 2); big[5000000] = {x: 1}; print(big.length, big[5000000].x, 3 in big);
+var m = Java.structArray(["x"], 0); for (var i = 0; i < 100; i++) m.push({x: i}); print(m.length, m[99].x);
+// every read creates a new record
+print(a.indexOf(a[0]));
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2010, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+/**
+ * Bulk copies between typed arrays and from int and double arrays.
+ *
+ * @test
+ * @run
+ */
+
+function str(a) {
+    return Array.prototype.join.call(a, ",");
+}
+
+// same type and same width integer types copy bytes
+var i32 = new Int32Array([1, -2, 3, 2147483647]);
+print(str(new Int32Array(i32)), str(new Uint32Array(i32)));
+var i8 = new Int8Array([-1, 127, -128]);
+print(str(new Uint8Array(i8)), str(new Uint8ClampedArray(i8)));
+print(str(new Int8Array(new Uint8ClampedArray([300, -5, 128]))));
+
+// conversions between float and integer types
+var f64 = new Float64Array([1.5, -2.5, 1e10, NaN]);
+print(str(new Int32Array(f64)), str(new Float32Array(f64)), str(new Int16Array(f64)));
+print(str(new Float64Array(new Uint32Array([4294967295, 1]))));
+
+// set with an offset, and between overlapping views of one buffer
+var dst = new Int32Array(6);
+dst.set(i32, 1);
+print(str(dst));
+var shared = new Int16Array([1, 2, 3, 4, 5, 6]);
+shared.set(shared.subarray(0, 4), 2);
+print(str(shared));
+var bytes = new Uint8Array([1, 2, 3, 4, 5, 6, 7, 8]);
+new Uint16Array(bytes.buffer, 2).set(new Uint16Array(bytes.buffer, 0, 2));
+print(str(bytes));
+
+// int and double arrays
+print(str(new Int32Array([1, 2, 3])), str(new Float64Array([0.5, 1, 2])));
+print(str(new Uint8Array([1.7, 256, -1, 4294967297.5])), str(new Float32Array([1, 0.1])));
+print(str(new Uint32Array([4294967295.0, -1.5])), str(new Uint8ClampedArray([1.5, 300, -3])));
+var hole = new Int32Array(3);
+hole.set([1, , 3]);
+print(str(hole));
+try {
+    dst.set([1, 2, 3], 4);
+} catch (e) {
+    print(e);
+}
+
+// typed arrays to JavaScript and Java arrays
+var sliced = Array.prototype.slice.call(i32, 1, 3);
+print(Array.isArray(sliced), str(sliced), Array.prototype.slice.call(f64, -2));
+sliced.push(4);
+print(str(sliced), str(Array.prototype.slice.call(new Uint32Array([4294967295]))));
+print(Java.to(new Float32Array([0.5, 2]), "double[]")[0], Java.to(new Int32Array([7, 8]), "int[]").length);
+print(Java.to(new Uint8Array([255, 1]), "double[]")[0], Java.to(f64, "int[]")[2]);
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.anatawa12.fixrtm.nashorn.internal.parser.test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+
+import java.lang.reflect.Field;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+import com.anatawa12.fixrtm.nashorn.internal.parser.JSONParser;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for the object shapes cached by {@link JSONParser}.
+ *
+ * @test
+ * @run testng com.anatawa12.fixrtm.nashorn.internal.parser.test.JSONShapeCacheTest
+ */
+@SuppressWarnings("javadoc")
+public class JSONShapeCacheTest {
+
+    // objects with keys a0-a7, b0-b7, c0-c7 and d0-d7 make up many more shapes than are cached
+    private static final String MANY_SHAPES =
+            "var parts = [];" +
+            "for (var i = 0; i < 4096; i++) {" +
+            "    parts.push('{\"a' + (i & 7) + '\":1,\"b' + (i >> 3 & 7) + '\":2,\"c' + (i >> 6 & 7) + '\":3,\"d' + (i >> 9 & 7) + '\":4}');" +
+            "}" +
+            "JSON.parse('[' + parts.join(',') + ']').length";
+
+    @Test
+    public void newShapeCachedWhenFullTest() throws ScriptException, ReflectiveOperationException {
+        final ScriptEngine e = new ScriptEngineManager().getEngineByName("fixrtm-nashorn");
+        assertEquals(e.eval(MANY_SHAPES), 4096);
+
+        assertEquals(e.eval("JSON.parse('{\"shapeCacheFirst\":1,\"shapeCacheSecond\":\"x\"}').shapeCacheSecond"), "x");
+        final Object first = findTransition(rootShapes(), "shapeCacheFirst");
+        assertNotNull(first, "first key of new shape not cached");
+        assertNotNull(findTransition(first, "shapeCacheSecond"), "second key of new shape not cached");
+    }
+
+    @Test
+    public void dictionaryNotCachedTest() throws ScriptException, ReflectiveOperationException {
+        final ScriptEngine e = new ScriptEngineManager().getEngineByName("fixrtm-nashorn");
+        assertEquals(e.eval(
+                "var parts = [];" +
+                "for (var i = 0; i < 100; i++) {" +
+                "    parts.push('{\"shapeCacheDictionary\":' + i + ',\"key' + i + '\":' + i + '}');" +
+                "}" +
+                "JSON.parse('[' + parts.join(',') + ']')[99].key99"), 99);
+
+        // the first key is cached, the different keys following it are not
+        final Object dictionary = findTransition(rootShapes(), "shapeCacheDictionary");
+        assertNotNull(dictionary, "first key of dictionary not cached");
+        assertEquals(field(dictionary, "overflowed"), true);
+        assertEquals(((Object[])field(dictionary, "transitions")).length, 0);
+    }
+
+    private static Object[] rootShapes() throws ReflectiveOperationException {
+        final Object spill = staticField("SPILL_SHAPE");
+        final Object dualSpill = staticField("DUAL_SPILL_SHAPE");
+        // only one of them is used, depending on whether the engine uses dual fields
+        return new Object[] { spill, dualSpill };
+    }
+
+    private static Object findTransition(final Object[] shapes, final String key) throws ReflectiveOperationException {
+        for (final Object shape : shapes) {
+            final Object found = findTransition(shape, key);
+            if (found != null) {
+                return found;
+            }
+        }
+        return null;
+    }
+
+    private static Object findTransition(final Object shape, final String key) throws ReflectiveOperationException {
+        for (final Object transition : (Object[])field(shape, "transitions")) {
+            if (key.equals(field(transition, "key"))) {
+                return transition;
+            }
+        }
+        return null;
+    }
+
+    private static Object staticField(final String name) throws ReflectiveOperationException {
+        final Field field = JSONParser.class.getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(null);
+    }
+
+    private static Object field(final Object object, final String name) throws ReflectiveOperationException {
+        final Field field = object.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(object);
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2024, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.anatawa12.fixrtm.nashorn.internal.runtime.regexp.joni.test;
+
+import static com.anatawa12.fixrtm.nashorn.internal.runtime.Source.readFully;
+import static com.anatawa12.fixrtm.nashorn.internal.runtime.Source.sourceFor;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import com.anatawa12.fixrtm.nashorn.internal.ir.FunctionNode;
+import com.anatawa12.fixrtm.nashorn.internal.ir.LiteralNode;
+import com.anatawa12.fixrtm.nashorn.internal.ir.visitor.SimpleNodeVisitor;
+import com.anatawa12.fixrtm.nashorn.internal.parser.Lexer.RegexToken;
+import com.anatawa12.fixrtm.nashorn.internal.parser.Parser;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.Context;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.ErrorManager;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.options.Options;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.regexp.joni.Matcher;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.regexp.joni.Option;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.regexp.joni.Regex;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.regexp.joni.Region;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.regexp.joni.Syntax;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.regexp.joni.exception.JOniException;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/**
+ * Cross-checks regexes compiled to JVM classes against the byte code interpreter,
+ * using the regexp literals of the test/script corpus as patterns and the lines of
+ * their scripts as input.
+ *
+ * @test
+ * @run testng com.anatawa12.fixrtm.nashorn.internal.runtime.regexp.joni.test.CompiledMatcherTest
+ */
+@SuppressWarnings("javadoc")
+public class CompiledMatcherTest {
+    private static final String TEST_BASIC_DIR = System.getProperty("test.basic.dir");
+
+    private static final int MAX_LINES = 100;
+
+    private static final String[] INPUTS = {
+        "",
+        "abc ABC abcabc",
+        "  key = some value ; other=1",
+        "The quick brown fox\njumps over\r\nthe lazy dog.\n",
+        "0x1F, 42, -3.5e10, .5",
+        "\u00e9t\u00e9 \u0100\u0101 \u4e2d\u6587 \u2028",
+        "aaaaaaaaaaaaaaaab",
+        "<a href=\"x.html\">y</a>",
+        "2014-01-31T12:34:56.789Z",
+        "function f(a, b) { return a + b; }"
+    };
+
+    private static void log(final String msg) {
+        org.testng.Reporter.log(msg, true);
+    }
+
+    private Context context;
+
+    // regexps checked, and how many of them were compiled
+    private int patterns;
+    private int compiled;
+
+    @BeforeClass
+    public void setupTest() {
+        final Options options = new Options("nashorn");
+        options.set("anon.functions", true);
+        options.set("parse.only", true);
+        options.set("scripting", true);
+        options.set("const.as.var", true);
+
+        final ErrorManager errors = new ErrorManager();
+        this.context = new Context(options, errors, Thread.currentThread().getContextClassLoader());
+    }
+
+    @AfterClass
+    public void tearDownTest() {
+        this.context = null;
+    }
+
+    @Test
+    public void corpusTest() throws IOException {
+        final File dir = new File(TEST_BASIC_DIR);
+        if (!dir.isDirectory()) {
+            log("WARNING: " + dir + " not found or not a directory");
+            return;
+        }
+        checkDirectory(dir);
+
+        log("regexps checked: " + patterns);
+        log("regexps compiled: " + compiled);
+        Assert.assertTrue(compiled > patterns / 2);
+    }
+
+    @Test
+    public void patternTest() {
+        final String[] regexps = {
+            "abc", "a.c", "^\\s*(\\w+)\\s*=\\s*(.*?)\\s*$", "[a-z]+\\d*", "\\bfoo\\b", "\\Bo\\B",
+            "(\\d{1,3})\\.(\\d+)", "x*y+z?", "[^aeiou]+", "^$", "end$", "(a|bc)+d", "(?:ab)*c", ".*fox",
+            "[\\s\\S]*?lazy", "[\u0100-\u0200x]+", "[^\u0100-\u0200]+", "[a\u4e2d]", "[^a\u4e2d]", "(a)(b)?\\1",
+            "(?=ab)a", "(?!ab)a", "a{2,4}", "a{3,}?", "(\\w+)\\s(\\w+)", "\"[^\"]*\"", "\\u00e9t\\u00e9", "[.]"
+        };
+        for (final String regexp : regexps) {
+            check(regexp, "", new ArrayList<String>());
+            check(regexp, "i", new ArrayList<String>());
+            check(regexp, "m", new ArrayList<String>());
+        }
+    }
+
+    private void checkDirectory(final File dir) throws IOException {
+        for (final File f : dir.listFiles()) {
+            if (f.isDirectory()) {
+                checkDirectory(f);
+            } else if (f.getName().endsWith(".js")) {
+                checkFile(f);
+            }
+        }
+    }
+
+    private void checkFile(final File file) throws IOException {
+        final char[] buffer = readFully(file);
+        final ErrorManager errors = new ErrorManager() {
+            @Override
+            public void error(final String msg) {
+                // scripts that don't parse have nothing to check
+            }
+        };
+        errors.setLimit(0);
+
+        final FunctionNode program;
+        try {
+            program = new Parser(context.getEnv(), sourceFor(file.getAbsolutePath(), buffer), errors, context.getEnv()._strict, null).parse();
+        } catch (final RuntimeException e) {
+            return;
+        }
+        if (program == null) {
+            return;
+        }
+
+        final List<String> lines = new ArrayList<>();
+        for (final String line : new String(buffer).split("\n")) {
+            if (lines.size() < MAX_LINES) {
+                lines.add(line);
+            }
+        }
+
+        program.accept(new SimpleNodeVisitor() {
+            @Override
+            public boolean enterLiteralNode(final LiteralNode<?> literalNode) {
+                if (literalNode.getValue() instanceof RegexToken) {
+                    final RegexToken token = (RegexToken)literalNode.getValue();
+                    check(token.getExpression(), token.getOptions(), lines);
+                }
+                return false;
+            }
+        });
+    }
+
+    private static Regex newRegex(final char[] pattern, final String flags) {
+        int option = Option.SINGLELINE;
+        if (flags.indexOf('i') != -1) {
+            option |= Option.IGNORECASE;
+        }
+        if (flags.indexOf('m') != -1) {
+            option &= ~Option.SINGLELINE;
+            option |= Option.NEGATE_SINGLELINE;
+        }
+        return new Regex(pattern, 0, pattern.length, option, Syntax.JAVASCRIPT);
+    }
+
+    private void check(final String regexp, final String flags, final List<String> lines) {
+        // JoniRegExp translates the pattern first, but both engines see the same one here
+        final char[] pattern = regexp.toCharArray();
+        final Regex regex;
+        try {
+            regex = newRegex(pattern, flags);
+        } catch (final JOniException e) {
+            return;
+        }
+
+        patterns++;
+        if (!regex.compileMatcher()) {
+            return;
+        }
+        compiled++;
+
+        final List<String> inputs = new ArrayList<>(Arrays.asList(INPUTS));
+        inputs.addAll(lines);
+        for (final String input : inputs) {
+            // the first matcher of a regex always runs the interpreter
+            final Matcher expected = newRegex(pattern, flags).matcher(input);
+            final Matcher actual = regex.matcher(input);
+            final String message = "/" + regexp + "/" + flags + " on \"" + input + "\"";
+
+            int start = 0;
+            while (start <= input.length()) {
+                final int result = expected.search(start, input.length(), Option.NONE);
+                Assert.assertEquals(actual.search(start, input.length(), Option.NONE), result, message + " from " + start);
+                if (result < 0) {
+                    break;
+                }
+                Assert.assertEquals(actual.getBegin(), expected.getBegin(), message);
+                Assert.assertEquals(actual.getEnd(), expected.getEnd(), message);
+                final Region region = expected.getRegion();
+                if (region != null) {
+                    Assert.assertEquals(actual.getRegion().beg, region.beg, message);
+                    Assert.assertEquals(actual.getRegion().end, region.end, message);
+                }
+                start = Math.max(expected.getEnd(), start + 1);
+            }
+        }
+    }
+}
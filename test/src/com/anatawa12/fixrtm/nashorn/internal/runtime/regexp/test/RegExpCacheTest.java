@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2010, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.anatawa12.fixrtm.nashorn.internal.runtime.regexp.test;
+
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.regexp.RegExp;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.regexp.RegExpFactory;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for the regexp cache of RegExpFactory.
+ *
+ * @test
+ * @run testng com.anatawa12.fixrtm.nashorn.internal.runtime.regexp.test.RegExpCacheTest
+ */
+public class RegExpCacheTest {
+
+    /**
+     * Regexps are cached by pattern and flags
+     */
+    @Test
+    public void testCacheKey() {
+        final long hits = RegExpFactory.getCacheHits();
+        final long misses = RegExpFactory.getCacheMisses();
+
+        // built from parts so the key strings are not the same instances
+        final String pattern = new StringBuilder("cache").append("Key(\\d+)").toString();
+        final RegExp regexp = RegExpFactory.create(pattern, "g");
+        assertSame(RegExpFactory.create(new String(pattern), new String("g")), regexp);
+        assertNotSame(RegExpFactory.create(pattern, "gi"), regexp);
+
+        assertTrue(RegExpFactory.getCacheHits() >= hits + 1);
+        assertTrue(RegExpFactory.getCacheMisses() >= misses + 2);
+        assertTrue(RegExpFactory.getCompileTime() > 0);
+    }
+
+    /**
+     * Threads creating the same regexps get the same instances
+     *
+     * @throws Exception if a thread fails
+     */
+    @Test
+    public void testConcurrentCreate() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<RegExp[]>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(new Callable<RegExp[]>() {
+                    @Override
+                    public RegExp[] call() {
+                        final RegExp[] regexps = new RegExp[32];
+                        for (int j = 0; j < 1000; j++) {
+                            final int n = j % regexps.length;
+                            final RegExp regexp = RegExpFactory.create("concurrent" + n + "[a-z]*", "");
+                            if (regexps[n] == null) {
+                                regexps[n] = regexp;
+                            } else {
+                                assertSame(regexp, regexps[n]);
+                            }
+                        }
+                        return regexps;
+                    }
+                }));
+            }
+            final RegExp[] first = results.get(0).get();
+            for (final Future<RegExp[]> result : results) {
+                final RegExp[] regexps = result.get();
+                for (int n = 0; n < regexps.length; n++) {
+                    assertSame(regexps[n], first[n]);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2010, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.anatawa12.fixrtm.nashorn.internal.runtime.regexp.test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+
+import com.anatawa12.fixrtm.nashorn.internal.runtime.regexp.JoniRegExp;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.regexp.RegExp;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.regexp.RegExpFactory;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.regexp.RegExpMatcher;
+import org.testng.annotations.Test;
+
+/**
+ * Checks that simple patterns, which RegExpFactory matches without Joni, find the same
+ * matches as Joni.
+ *
+ * @test
+ * @run testng com.anatawa12.fixrtm.nashorn.internal.runtime.regexp.test.SimpleRegExpTest
+ */
+public class SimpleRegExpTest {
+
+    private static final String[] SIMPLE = {
+        ",", ", ", "\\.", "\\/", "\\\\", "a\\-b", "\\t", "foo", "\u00e9t\u00e9", "1.5".replace(".", "\\."),
+        "^foo", "^\\/\\/", "^ ",
+        "\\s", "\\s+", "\\S+", "\\d", "\\d+", "\\D+", "\\w+", "\\W", "\\W+",
+        "[,;]", "[ \\t]+", "[^,]+", "[a-z]+", "[^a-z0-9]", "[\\d.]+", "[\\s,]+", "[-+]", "[a-]", "[\\]\\\\]",
+        "[\u00c0-\u00ff]+", "[^\\s]+", "[\\w\\-]+", "[0-9a-fA-F]+"
+    };
+
+    private static final String[] NOT_SIMPLE = {
+        "", "a|b", "a*", "a?", "(a)", ".", "a{2}", "\\b", "\\u0041", "\\x41", "\\0", "[]", "[^]", "[\\d-z]",
+        "[\\b]", "[[]", "\\s*", "[a-z]*", "\\d+x", "foo$", "^"
+    };
+
+    private static final String[] INPUTS = {
+        "", "a", "foo", "foo bar", "a,b,,c;d", "  leading and trailing  ", "foo\tbar\nbaz\r\n",
+        "1.5, 2.25; 3", "//comment", "path/to\\file", "a-b", "ABC def GHI", "\u00e9t\u00e9 \u00c9T\u00c9",
+        "x\u00a0y\u2003z\u2028w\ufeffv\u3000u", "0x1F abc_def-ghi", "] and \\", "fooFOOfoo", "\u0131\u0130\u017f\u212a"
+    };
+
+    /**
+     * Simple patterns match like Joni, with and without flags
+     */
+    @Test
+    public void testSimple() {
+        for (final String pattern : SIMPLE) {
+            for (final String flags : new String[] { "", "g", "m", "i" }) {
+                final RegExp simple = RegExpFactory.create(pattern, flags);
+                final RegExp joni = new JoniRegExp(pattern, flags);
+                if (flags.length() == 0 || flags.equals("g")) {
+                    assertNotEquals(simple.getClass(), JoniRegExp.class, pattern);
+                }
+                for (final String input : INPUTS) {
+                    compare(simple, joni, input, "/" + pattern + "/" + flags);
+                }
+            }
+        }
+    }
+
+    /**
+     * Patterns that need a regexp engine are compiled by Joni
+     */
+    @Test
+    public void testNotSimple() {
+        for (final String pattern : NOT_SIMPLE) {
+            assertEquals(RegExpFactory.create(pattern, "").getClass(), JoniRegExp.class, pattern);
+        }
+        assertEquals(RegExpFactory.create("^foo", "m").getClass(), JoniRegExp.class);
+        assertEquals(RegExpFactory.create("foo", "i").getClass(), JoniRegExp.class);
+        assertEquals(RegExpFactory.create("\\w", "i").getClass(), JoniRegExp.class);
+    }
+
+    private static void compare(final RegExp simple, final RegExp joni, final String input, final String message) {
+        final RegExpMatcher actual = simple.match(input);
+        final RegExpMatcher expected = joni.match(input);
+        for (int start = 0; start <= input.length() + 1; start++) {
+            final boolean found = expected.search(start);
+            assertEquals(actual.search(start), found, message + " on \"" + input + "\" from " + start);
+            if (found) {
+                assertEquals(actual.start(), expected.start(), message + " on \"" + input + "\" from " + start);
+                assertEquals(actual.end(), expected.end(), message + " on \"" + input + "\" from " + start);
+                assertEquals(actual.group(), expected.group(), message);
+                assertEquals(actual.groupCount(), expected.groupCount(), message);
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.anatawa12.fixrtm.nashorn.internal.runtime.test;
+
+import static org.testng.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import javax.script.Invocable;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+import com.anatawa12.fixrtm.nashorn.api.scripting.JSObject;
+import com.anatawa12.fixrtm.nashorn.api.scripting.URLReader;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for ArrayBuffers over memory-mapped files. These live with the
+ * internal tests because they need to create and write files, which the
+ * test policy does not allow for the API tests.
+ *
+ * @test
+ * @run testng com.anatawa12.fixrtm.nashorn.internal.runtime.test.ArrayBufferMapTest
+ */
+@SuppressWarnings("javadoc")
+public class ArrayBufferMapTest {
+
+    @Test
+    public void arrayBufferFromMappedBufferTest() throws ScriptException, IOException {
+        final ScriptEngineManager m = new ScriptEngineManager();
+        final ScriptEngine e = m.getEngineByName("fixrtm-nashorn");
+        final Path file = Files.createTempFile("mapped", ".bin");
+        try {
+            Files.write(file, new byte[] { 1, 2, 3, 4 });
+            final MappedByteBuffer buf;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                buf = channel.map(FileChannel.MapMode.READ_WRITE, 0, 4);
+            }
+            final Object arrayBuffer = ((JSObject)e.eval("ArrayBuffer")).newObject(buf);
+            e.put("buffer", arrayBuffer);
+            assertEquals(e.eval("Array.prototype.join.call(new Uint8Array(buffer))"), "1,2,3,4");
+
+            e.eval("new Uint8Array(buffer)[1] = 20; new DataView(buffer).setUint8(3, 40)");
+            buf.force();
+            assertEquals(Files.readAllBytes(file), new byte[] { 1, 20, 3, 40 });
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void arrayBufferMapFileTest() throws ScriptException, IOException, NoSuchMethodException {
+        final ScriptEngineManager m = new ScriptEngineManager();
+        final ScriptEngine e = m.getEngineByName("fixrtm-nashorn");
+        // eval'ed scripts have no file permissions under the test policy, so the
+        // mappings are done by functions loaded from the test code base
+        e.eval(new URLReader(ArrayBufferMapTest.class.getResource("resources/arraybuffer_mapfile.js")));
+        final Invocable inv = (Invocable)e;
+        final Path file = Files.createTempFile("mapped", ".bin");
+        try {
+            Files.write(file, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 });
+            final String name = file.toString();
+            assertEquals(inv.invokeFunction("readMapped", name, 2, 3), "3,4,5");
+
+            inv.invokeFunction("writeMapped", name, 4, 4, 0, -1);
+            inv.invokeFunction("writeMapped", name, 4, 4, 1, -2);
+            // slices of writable mappings are copies
+            inv.invokeFunction("writeMappedSlice", name, 4, 4, 2, 99);
+            assertEquals(inv.invokeFunction("readMapped", name, 4, 4), "-1,-2,7,8");
+            assertEquals(Files.readAllBytes(file), new byte[] { 1, 2, 3, 4, -1, -2, 7, 8 });
+
+            // read-write mappings can grow the file
+            inv.invokeFunction("writeMapped", name, 8, 2, 1, 10);
+            assertEquals(inv.invokeFunction("mappedLength", name), 10);
+            assertEquals(Files.size(file), 10L);
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -27,6 +27,7 @@ package com.anatawa12.fixrtm.nashorn.internal.runtime.test;
 
 import com.anatawa12.fixrtm.nashorn.internal.runtime.ConsString;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 
 import org.testng.annotations.Test;
 
@@ -129,4 +130,74 @@ public class ConsStringTest {
         assertEquals(cs4.getComponents()[0], "bcdef");
         assertEquals(cs4.getComponents()[1], "");
     }
+
+    /**
+     * Test accessing a large ConsString built by appending and accessing it without flattening it
+     */
+    @Test
+    public void testConsStringRope() {
+        final StringBuilder sb = new StringBuilder();
+        CharSequence cs = "";
+        for (int i = 0; i < 10000; i++) {
+            final String s = "x" + i + ";";
+            cs = new ConsString(cs, s);
+            sb.append(s);
+            if (i % 1000 == 0) {
+                assertEquals(cs.charAt(0), 'x');
+            }
+        }
+        final ConsString rope = (ConsString) cs;
+        final String expected = sb.toString();
+
+        assertEquals(rope.length(), expected.length());
+        for (int i = 0; i < expected.length(); i += 7919) {
+            assertEquals(rope.charAt(i), expected.charAt(i));
+        }
+        assertEquals(rope.substring(1000, 2000), expected.substring(1000, 2000));
+        assertEquals(rope.substring(5, 5), "");
+        assertEquals(rope.indexOf("x9999;", 0), expected.indexOf("x9999;"));
+        assertEquals(rope.indexOf("1;x2", 0), expected.indexOf("1;x2"));
+        assertEquals(rope.indexOf("x5", 30000), expected.indexOf("x5", 30000));
+        assertEquals(rope.indexOf("y", 0), -1);
+        assertEquals(rope.indexOf("", expected.length() + 1), expected.length());
+
+        final StringBuilder appended = new StringBuilder("<");
+        rope.appendTo(appended);
+        assertEquals(appended.toString(), "<" + expected);
+
+        // rope should still not be flattened, though it may have been rebalanced
+        assertFalse(rope.getComponents()[0] instanceof String && rope.getComponents()[1].length() == 0);
+        assertEquals(rope.toString(), expected);
+        assertEquals(rope.getComponents()[0], expected);
+        assertEquals(rope.getComponents()[1], "");
+    }
+
+    /**
+     * Test that a large ConsString is flattened on first access if it was built without access,
+     * and after repeated access otherwise
+     */
+    @Test
+    public void testConsStringRopeFlattening() {
+        CharSequence cs = "";
+        for (int i = 0; i < 1000; i++) {
+            cs = new ConsString("0123456789", cs);
+        }
+        final ConsString built = (ConsString) cs;
+        assertEquals(built.charAt(5), '5');
+        assertEquals(built.getComponents()[0].length(), 10000);
+        assertEquals(built.getComponents()[1], "");
+
+        cs = "";
+        for (int i = 0; i < 1000; i++) {
+            cs = new ConsString("0123456789", cs);
+            assertEquals(cs.charAt(3), '3');
+        }
+        final ConsString rope = (ConsString) cs;
+        assertFalse(rope.getComponents()[0] instanceof String && rope.getComponents()[1].length() == 0);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(rope.charAt(i * 10 + 3), '3');
+        }
+        assertEquals(rope.getComponents()[1], "");
+        assertEquals(rope.getComponents()[0].length(), 10000);
+    }
 }
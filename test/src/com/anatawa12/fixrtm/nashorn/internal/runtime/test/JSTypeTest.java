@@ -27,10 +27,17 @@ package com.anatawa12.fixrtm.nashorn.internal.runtime.test;
 
 import com.anatawa12.fixrtm.nashorn.internal.runtime.JSType;
 import com.anatawa12.fixrtm.nashorn.internal.runtime.ScriptRuntime;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.arrays.ArrayIndex;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Locale;
+import java.util.Random;
 import org.testng.annotations.Test;
 
 /**
@@ -108,6 +115,169 @@ public class JSTypeTest {
         // FIXME: add case for Object type (JSObject with getDefaultValue)
     }
 
+    /**
+     * Test of toString method for ints, which returns cached strings for small ints.
+     */
+    @Test
+    public void testToString_Int() {
+        assertEquals(JSType.toString(0), "0");
+        assertEquals(JSType.toString(42), "42");
+        assertEquals(JSType.toString(-1), "-1");
+        assertEquals(JSType.toString(Integer.MAX_VALUE), "2147483647");
+        assertEquals(JSType.toString(Integer.MIN_VALUE), "-2147483648");
+        assertSame(JSType.toString(42), JSType.toString(42));
+        assertSame(JSType.toString(42.0), JSType.toString(42));
+        assertSame(JSType.toString((Object)Integer.valueOf(42)), JSType.toString(42));
+        assertSame(ArrayIndex.toKey(42), JSType.toString(42));
+        assertEquals(ArrayIndex.toKey(-2), "4294967294");
+    }
+
+    /**
+     * Test of toString method for doubles, which must produce the shortest string converting back to the same double.
+     */
+    @Test
+    public void testToString_Double() {
+        assertEquals(JSType.toString(-0.0), "0");
+        assertEquals(JSType.toString(0.1), "0.1");
+        assertEquals(JSType.toString(0.1 + 0.2), "0.30000000000000004");
+        assertEquals(JSType.toString(-0.5), "-0.5");
+        assertEquals(JSType.toString(123.456), "123.456");
+        assertEquals(JSType.toString(0.000001), "0.000001");
+        assertEquals(JSType.toString(1e-7), "1e-7");
+        assertEquals(JSType.toString(1.5e-7), "1.5e-7");
+        assertEquals(JSType.toString(1e20), "100000000000000000000");
+        assertEquals(JSType.toString(1e21), "1e+21");
+        assertEquals(JSType.toString(123e18), "123000000000000000000");
+        assertEquals(JSType.toString(9007199254740993.0), "9007199254740992");
+        assertEquals(JSType.toString(5.0648362732623512E16), "50648362732623510");
+        assertEquals(JSType.toString(5.9029581035870565E20), "590295810358705700000");
+        assertEquals(JSType.toString(1.2634920662350609E-175), "1.263492066235061e-175");
+        assertEquals(JSType.toString(Double.MAX_VALUE), "1.7976931348623157e+308");
+        assertEquals(JSType.toString(Double.MIN_NORMAL), "2.2250738585072014e-308");
+        assertEquals(JSType.toString(Double.MIN_VALUE), "5e-324");
+        assertEquals(JSType.toString(-Double.MIN_VALUE), "-5e-324");
+
+        final Random random = new Random(47);
+        for (int i = 0; i < 20000; i++) {
+            final double d;
+            switch (i % 4) {
+            case 0:
+                d = Double.longBitsToDouble(random.nextLong());
+                break;
+            case 1:
+                d = random.nextDouble() * Math.pow(10, random.nextInt(40) - 20);
+                break;
+            case 2:
+                d = Math.round(random.nextDouble() * 1e7) / 100.0;
+                break;
+            default:
+                d = Math.scalb(1.0, random.nextInt(2098) - 1074);
+                break;
+            }
+            if (!Double.isNaN(d) && !Double.isInfinite(d)) {
+                assertEquals(JSType.toString(d), shortestString(d), Double.toString(d));
+            }
+        }
+    }
+
+    /*
+     * ECMA 9.8.1 number to string conversion by trying all numbers of digits.
+     */
+    private static String shortestString(final double d) {
+        if (d == 0.0) {
+            return "0";
+        } else if (d < 0.0) {
+            return "-" + shortestString(-d);
+        }
+        final BigDecimal exact = new BigDecimal(d);
+        for (int precision = 1; ; precision++) {
+            final BigDecimal down = exact.round(new MathContext(precision, RoundingMode.DOWN));
+            final BigDecimal up = exact.round(new MathContext(precision, RoundingMode.UP));
+            final boolean downMatches = Double.parseDouble(down.toString()) == d;
+            final boolean upMatches = Double.parseDouble(up.toString()) == d;
+            if (downMatches && upMatches) {
+                final int cmp = exact.subtract(down).compareTo(up.subtract(exact));
+                return format(cmp < 0 || cmp == 0 && !down.unscaledValue().testBit(0) ? down : up);
+            } else if (downMatches || upMatches) {
+                return format(downMatches ? down : up);
+            }
+        }
+    }
+
+    private static String format(final BigDecimal decimal) {
+        final BigDecimal stripped = decimal.stripTrailingZeros();
+        final String digits = stripped.unscaledValue().toString();
+        final int k = digits.length();
+        final int n = k - stripped.scale();
+        final StringBuilder sb = new StringBuilder();
+        if (k <= n && n <= 21) {
+            sb.append(digits);
+            for (int i = k; i < n; i++) {
+                sb.append('0');
+            }
+        } else if (0 < n && n <= 21) {
+            sb.append(digits, 0, n).append('.').append(digits, n, k);
+        } else if (-6 < n && n <= 0) {
+            sb.append("0.");
+            for (int i = n; i < 0; i++) {
+                sb.append('0');
+            }
+            sb.append(digits);
+        } else {
+            sb.append(digits.charAt(0));
+            if (k > 1) {
+                sb.append('.').append(digits, 1, k);
+            }
+            sb.append('e').append(n > 0 ? '+' : '-').append(Math.abs(n - 1));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Test of toNumber method for strings.
+     */
+    @Test
+    public void testToNumber_String() {
+        assertEquals(JSType.toNumber(""), 0.0, 0.0);
+        assertEquals(JSType.toNumber(" \t\n"), 0.0, 0.0);
+        assertEquals(JSType.toNumber(" 42 "), 42.0, 0.0);
+        assertEquals(JSType.toNumber("-3.5"), -3.5, 0.0);
+        assertEquals(JSType.toNumber(".5"), 0.5, 0.0);
+        assertEquals(JSType.toNumber("5."), 5.0, 0.0);
+        assertEquals(JSType.toNumber("0.1"), 0.1, 0.0);
+        assertEquals(JSType.toNumber("1.5e-3"), 1.5e-3, 0.0);
+        assertEquals(JSType.toNumber("12E+3"), 12e3, 0.0);
+        assertEquals(JSType.toNumber("1e23"), 1e23, 0.0);
+        assertEquals(JSType.toNumber("1e400"), Double.POSITIVE_INFINITY, 0.0);
+        assertEquals(JSType.toNumber("9007199254740993"), 9007199254740992.0, 0.0);
+        assertEquals(JSType.toNumber("0x1F"), 31.0, 0.0);
+        assertEquals(JSType.toNumber("-Infinity"), Double.NEGATIVE_INFINITY, 0.0);
+        assertEquals(Double.doubleToRawLongBits(JSType.toNumber("-0")), Double.doubleToRawLongBits(-0.0));
+        assertTrue(Double.isNaN(JSType.toNumber(".")));
+        assertTrue(Double.isNaN(JSType.toNumber("1e")));
+        assertTrue(Double.isNaN(JSType.toNumber("1e+")));
+        assertTrue(Double.isNaN(JSType.toNumber("1.2.3")));
+        assertTrue(Double.isNaN(JSType.toNumber("1 2")));
+        assertTrue(Double.isNaN(JSType.toNumber("abc")));
+
+        final Random random = new Random(47);
+        for (int i = 0; i < 20000; i++) {
+            final String str;
+            switch (i % 3) {
+            case 0:
+                str = Double.toString(random.nextDouble() * Math.pow(10, random.nextInt(40) - 20));
+                break;
+            case 1:
+                str = String.format(Locale.ROOT, "%." + random.nextInt(20) + "f", random.nextDouble() * 1000);
+                break;
+            default:
+                str = (random.nextLong() >> random.nextInt(64)) + "e" + (random.nextInt(60) - 30);
+                break;
+            }
+            assertEquals(JSType.toNumber(str), Double.parseDouble(str), 0.0, str);
+        }
+    }
+
     /**
      * Test of JSType.toUint32(double)
      */
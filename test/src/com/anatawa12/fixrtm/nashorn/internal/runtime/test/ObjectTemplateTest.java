@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.anatawa12.fixrtm.nashorn.internal.runtime.test;
+
+import static com.anatawa12.fixrtm.nashorn.internal.runtime.Source.sourceFor;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import com.anatawa12.fixrtm.nashorn.internal.objects.Global;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.Context;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.ErrorManager;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.ObjectTemplate;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.ScriptFunction;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.ScriptObject;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.ScriptRuntime;
+import com.anatawa12.fixrtm.nashorn.internal.runtime.options.Options;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for ObjectTemplate.
+ *
+ * @test
+ * @run testng com.anatawa12.fixrtm.nashorn.internal.runtime.test.ObjectTemplateTest
+ */
+@SuppressWarnings("javadoc")
+public class ObjectTemplateTest {
+    private Context cx;
+    private Global oldGlobal;
+
+    @BeforeClass
+    public void setupTest() {
+        cx = new Context(new Options(""), new ErrorManager(), Thread.currentThread().getContextClassLoader());
+        oldGlobal = Context.getGlobal();
+        Context.setGlobal(cx.createGlobal());
+    }
+
+    @AfterClass
+    public void tearDownTest() {
+        Context.setGlobal(oldGlobal);
+    }
+
+    @Test
+    public void newInstanceTest() {
+        final ObjectTemplate template = new ObjectTemplate("x", "y", "name");
+        final ScriptObject a = template.newInstance(1, 2.5, "a");
+        final ScriptObject b = template.newInstance("bx", null, "b");
+
+        assertEquals(a.get("x"), 1);
+        assertEquals(a.get("y"), 2.5);
+        assertEquals(a.get("name"), "a");
+        assertEquals(b.get("x"), "bx");
+        assertEquals(b.get("y"), null);
+        assertTrue(a.getMap() == b.getMap());
+        assertTrue(a.getProto() == Global.objectPrototype());
+
+        Context.getGlobal().set("a", a, 0);
+        assertEquals(eval("a.z = 3; a.x + a.y + a.z + JSON.stringify(a)"), "6.5{\"x\":1,\"y\":2.5,\"name\":\"a\",\"z\":3}");
+        // adding to one instance must not affect the others
+        assertEquals(b.size(), 3);
+    }
+
+    @Test
+    public void spillTest() {
+        final String[] keys = new String[300];
+        final Object[] values = new Object[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = "p" + i;
+            values[i] = i;
+        }
+        final ObjectTemplate template = new ObjectTemplate(keys);
+        final ScriptObject obj = template.newInstance(values);
+        values[0] = "changed";
+
+        assertEquals(obj.size(), keys.length);
+        assertEquals(obj.get("p0"), 0);
+        assertEquals(obj.get("p299"), 299);
+        obj.set("p300", 300, 0);
+        assertEquals(obj.get("p300"), 300);
+    }
+
+    @Test
+    public void newArrayTest() {
+        final ObjectTemplate template = new ObjectTemplate("id");
+        final ScriptObject array = template.newArray(new Object[][] { { 1 }, { 2 }, { 3 } });
+        Context.getGlobal().set("arr", array, 0);
+        assertEquals(eval("Array.isArray(arr) + ' ' + arr.map(function(o) { return o.id; }).join()"), "true 1,2,3");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void duplicateKeyTest() {
+        new ObjectTemplate("x", "x");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void indexKeyTest() {
+        new ObjectTemplate("x", "0");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void valueCountTest() {
+        new ObjectTemplate("x", "y").newInstance(1);
+    }
+
+    private String eval(final String code) {
+        final ScriptObject global = Context.getGlobal();
+        final ScriptFunction func = cx.compileScript(sourceFor("<objectTemplateTest>", code), global);
+        return ScriptRuntime.apply(func, global).toString();
+    }
+}